@@ -0,0 +1,39 @@
+package uk.ac.shef.wit.simmetrics.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmark jar. Accepts the regular JMH command line
+ * options but attaches the {@link GCProfiler} when no profiler is given so
+ * allocation rates are always reported.
+ */
+public final class BenchmarkRunner {
+
+	private BenchmarkRunner() {
+		// Utility class
+	}
+
+	public static void main(String[] args) throws Exception {
+		final CommandLineOptions cmd = new CommandLineOptions(args);
+		if (cmd.shouldHelp()) {
+			cmd.showHelp();
+			return;
+		}
+
+		final ChainedOptionsBuilder options = new OptionsBuilder().parent(cmd);
+		if (cmd.getProfilers().isEmpty()) {
+			options.addProfiler(GCProfiler.class);
+		}
+
+		final Runner runner = new Runner(options.build());
+		if (cmd.shouldList()) {
+			runner.list();
+			return;
+		}
+		runner.run();
+	}
+}
@@ -0,0 +1,69 @@
+package uk.ac.shef.wit.simmetrics.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.ac.shef.wit.simmetrics.similaritymetrics.InterfaceStringMetric;
+
+/**
+ * Guards the count vector metrics against running in more than linear time
+ * on long inputs. BlockDistance and EuclideanDistance compare strings of
+ * short whitespace separated words, QGramsDistance compares strings of one
+ * q-gram per character.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CountVectorBenchmark {
+
+	private static final String METRIC_PACKAGE = "uk.ac.shef.wit.simmetrics.similaritymetrics.";
+
+	@Param({ "BlockDistance", "EuclideanDistance", "QGramsDistance" })
+	public String metric;
+
+	@Param({ "1000", "10000" })
+	public int tokens;
+
+	private InterfaceStringMetric instance;
+
+	private String[] first;
+
+	private String[] second;
+
+	private int index;
+
+	@Setup
+	public void setUp() throws Exception {
+		instance = (InterfaceStringMetric) Class.forName(
+				METRIC_PACKAGE + metric).newInstance();
+		final String[][] pairs;
+		if ("QGramsDistance".equals(metric)) {
+			pairs = Inputs.pairs("latin", tokens, 1);
+		} else {
+			// words of three letters repeat often
+			pairs = Inputs.pairs("dna", tokens * 4, tokens);
+		}
+		first = pairs[0];
+		second = pairs[1];
+	}
+
+	@Benchmark
+	public float getSimilarity() {
+		final int i = index++ & (Inputs.POOL_SIZE - 1);
+		return instance.getSimilarity(first[i], second[i]);
+	}
+}
@@ -0,0 +1,143 @@
+package uk.ac.shef.wit.simmetrics.benchmarks;
+
+import java.util.Random;
+
+/**
+ * Generates deterministic benchmark inputs. Each pair consists of a random
+ * string and a mutated copy of it so metrics see realistic, partially similar
+ * input rather than identical or completely unrelated strings.
+ */
+public final class Inputs {
+
+	/**
+	 * Number of pairs generated per trial. Cycling through a pool defeats
+	 * constant folding and keeps branch predictors honest.
+	 */
+	public static final int POOL_SIZE = 128;
+
+	private static final long SEED = 0x5111e7a1c5L;
+
+	/**
+	 * Fraction of characters mutated in the second string of a pair.
+	 */
+	private static final double MUTATION_RATE = 0.2;
+
+	private Inputs() {
+		// Utility class
+	}
+
+	/**
+	 * Returns the characters of the named alphabet.
+	 *
+	 * @param name
+	 *            one of binary, dna, latin or extended
+	 * @return the characters of the alphabet
+	 */
+	public static char[] alphabet(String name) {
+		if ("binary".equals(name)) {
+			return "ab".toCharArray();
+		} else if ("dna".equals(name)) {
+			return "ACGT".toCharArray();
+		} else if ("latin".equals(name)) {
+			return "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ"
+					.toCharArray();
+		} else if ("extended".equals(name)) {
+			// Latin-1 supplement, Greek and Cyrillic
+			return "àáâäçèéêñöüßαβγδεабвгд"
+					.toCharArray();
+		}
+		throw new IllegalArgumentException("Unknown alphabet " + name);
+	}
+
+	/**
+	 * Generates a random string of the given length. Whitespace is inserted so
+	 * the string splits into approximately the given number of tokens.
+	 *
+	 * @param random
+	 *            source of randomness
+	 * @param alphabet
+	 *            characters to draw from
+	 * @param length
+	 *            length of the string
+	 * @param tokens
+	 *            approximate number of whitespace separated tokens
+	 * @return a random string
+	 */
+	public static String randomString(Random random, char[] alphabet,
+			int length, int tokens) {
+		final int wordLength = tokens <= 1 ? Integer.MAX_VALUE : Math.max(1,
+				length / tokens - 1);
+		final StringBuilder sb = new StringBuilder(length);
+		int inWord = 0;
+		while (sb.length() < length) {
+			if (inWord == wordLength) {
+				sb.append(' ');
+				inWord = 0;
+			} else {
+				sb.append(alphabet[random.nextInt(alphabet.length)]);
+				inWord++;
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Returns a copy of the input with a fraction of its non-whitespace
+	 * characters substituted, deleted or followed by an insertion.
+	 *
+	 * @param random
+	 *            source of randomness
+	 * @param alphabet
+	 *            characters to draw from
+	 * @param input
+	 *            string to mutate
+	 * @return a mutated copy of input
+	 */
+	public static String mutate(Random random, char[] alphabet, String input) {
+		final StringBuilder sb = new StringBuilder(input.length() + 8);
+		for (int i = 0; i < input.length(); i++) {
+			final char c = input.charAt(i);
+			if (c == ' ' || random.nextDouble() >= MUTATION_RATE) {
+				sb.append(c);
+				continue;
+			}
+			switch (random.nextInt(3)) {
+			case 0:
+				sb.append(alphabet[random.nextInt(alphabet.length)]);
+				break;
+			case 1:
+				// deletion
+				break;
+			default:
+				sb.append(c);
+				sb.append(alphabet[random.nextInt(alphabet.length)]);
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Generates {@link #POOL_SIZE} pairs of strings. The first string of each
+	 * pair is random, the second a mutated copy.
+	 *
+	 * @param alphabet
+	 *            name of the alphabet
+	 * @param length
+	 *            length of the first string of each pair
+	 * @param tokens
+	 *            approximate number of whitespace separated tokens
+	 * @return an array of {first strings, second strings}
+	 */
+	public static String[][] pairs(String alphabet, int length, int tokens) {
+		final Random random = new Random(SEED);
+		final char[] chars = alphabet(alphabet);
+		final String[] first = new String[POOL_SIZE];
+		final String[] second = new String[POOL_SIZE];
+		for (int i = 0; i < POOL_SIZE; i++) {
+			first[i] = randomString(random, chars, length, tokens);
+			second[i] = mutate(random, chars, first[i]);
+		}
+		return new String[][] { first, second };
+	}
+
+}
@@ -0,0 +1,73 @@
+package uk.ac.shef.wit.simmetrics.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.ac.shef.wit.simmetrics.similaritymetrics.Jaro;
+import uk.ac.shef.wit.simmetrics.similaritymetrics.JaroWinkler;
+
+/**
+ * Measures {@link Jaro} and {@link JaroWinkler} at the lengths of person
+ * names. Run with {@code -prof gc}: gc.alloc.rate.norm should be 0 B/op, the
+ * match buffers being reused by each thread.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JaroBenchmark {
+
+	@Param({ "8", "16", "32" })
+	public int length;
+
+	@Param({ "latin" })
+	public String alphabet;
+
+	private final Jaro jaro = new Jaro();
+
+	private final JaroWinkler jaroWinkler = new JaroWinkler();
+
+	private String[] first;
+
+	private String[] second;
+
+	private int index;
+
+	@Setup
+	public void setUp() {
+		final String[][] pairs = Inputs.pairs(alphabet, length, 1);
+		first = pairs[0];
+		second = pairs[1];
+	}
+
+	@Benchmark
+	public float jaro() {
+		final int i = index++ & (Inputs.POOL_SIZE - 1);
+		return jaro.getSimilarity(first[i], second[i]);
+	}
+
+	@Benchmark
+	public float jaroWinkler() {
+		final int i = index++ & (Inputs.POOL_SIZE - 1);
+		return jaroWinkler.getSimilarity(first[i], second[i]);
+	}
+
+	@Benchmark
+	public float jaroWinklerBounded() {
+		final int i = index++ & (Inputs.POOL_SIZE - 1);
+		return jaroWinkler.getSimilarity(first[i], second[i], 0.9f);
+	}
+}
@@ -0,0 +1,97 @@
+package uk.ac.shef.wit.simmetrics.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.ac.shef.wit.simmetrics.similaritymetrics.Levenshtein;
+import uk.ac.shef.wit.simmetrics.similaritymetrics.costfunctions.AbstractSubstitutionCost;
+import uk.ac.shef.wit.simmetrics.similaritymetrics.costfunctions.SubCost01;
+
+/**
+ * Compares {@link Levenshtein#getUnNormalisedSimilarity(String, String)}
+ * against the original full matrix implementation it replaced. Lengths on
+ * either side of 64 show the single word and blocked bit-parallel paths.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LevenshteinBenchmark {
+
+	@Param({ "8", "16", "32", "64", "65", "128", "512", "2048" })
+	public int length;
+
+	@Param({ "latin" })
+	public String alphabet;
+
+	private final Levenshtein levenshtein = new Levenshtein();
+
+	private final AbstractSubstitutionCost costFunction = new SubCost01();
+
+	private String[] first;
+
+	private String[] second;
+
+	private int index;
+
+	@Setup
+	public void setUp() {
+		final String[][] pairs = Inputs.pairs(alphabet, length, 1);
+		first = pairs[0];
+		second = pairs[1];
+	}
+
+	@Benchmark
+	public float matrix() {
+		final int i = index++ & (Inputs.POOL_SIZE - 1);
+		return matrix(first[i], second[i]);
+	}
+
+	@Benchmark
+	public float levenshtein() {
+		final int i = index++ & (Inputs.POOL_SIZE - 1);
+		return levenshtein.getUnNormalisedSimilarity(first[i], second[i]);
+	}
+
+	/**
+	 * The matrix implementation of simmetrics 1.6.3.
+	 */
+	private float matrix(final String s, final String t) {
+		final int n = s.length();
+		final int m = t.length();
+		if (n == 0) {
+			return m;
+		}
+		if (m == 0) {
+			return n;
+		}
+		final float[][] d = new float[n + 1][m + 1];
+		for (int i = 0; i <= n; i++) {
+			d[i][0] = i;
+		}
+		for (int j = 0; j <= m; j++) {
+			d[0][j] = j;
+		}
+		for (int i = 1; i <= n; i++) {
+			for (int j = 1; j <= m; j++) {
+				final float cost = costFunction.getCost(s, i - 1, t, j - 1);
+				d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1),
+						d[i - 1][j - 1] + cost);
+			}
+		}
+		return d[n][m];
+	}
+}
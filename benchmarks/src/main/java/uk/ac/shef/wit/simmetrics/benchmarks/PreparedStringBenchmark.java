@@ -0,0 +1,82 @@
+package uk.ac.shef.wit.simmetrics.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.ac.shef.wit.simmetrics.similaritymetrics.AbstractStringMetric;
+import uk.ac.shef.wit.simmetrics.similaritymetrics.PreparedString;
+
+/**
+ * Compares one string with a pool of others, either as plain strings or
+ * prepared once up front so their tokens or soundex codes are reused across
+ * comparisons.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PreparedStringBenchmark {
+
+	private static final String METRIC_PACKAGE = "uk.ac.shef.wit.simmetrics.similaritymetrics.";
+
+	@Param({ "BlockDistance", "CosineSimilarity", "JaccardSimilarity",
+			"QGramsDistance", "Soundex" })
+	public String metric;
+
+	@Param({ "32", "128" })
+	public int length;
+
+	@Param({ "4", "16" })
+	public int tokens;
+
+	@Param({ "latin" })
+	public String alphabet;
+
+	private AbstractStringMetric instance;
+
+	private String query;
+
+	private String[] candidates;
+
+	private PreparedString preparedQuery;
+
+	private PreparedString[] preparedCandidates;
+
+	private int index;
+
+	@Setup
+	public void setUp() throws Exception {
+		instance = (AbstractStringMetric) Class.forName(
+				METRIC_PACKAGE + metric).newInstance();
+		final String[][] pairs = Inputs.pairs(alphabet, length, tokens);
+		query = pairs[0][0];
+		candidates = pairs[1];
+		preparedQuery = new PreparedString(query);
+		preparedCandidates = PreparedString.prepare(candidates);
+	}
+
+	@Benchmark
+	public float strings() {
+		final int i = index++ & (Inputs.POOL_SIZE - 1);
+		return instance.getSimilarity(query, candidates[i]);
+	}
+
+	@Benchmark
+	public float prepared() {
+		final int i = index++ & (Inputs.POOL_SIZE - 1);
+		return instance.getSimilarity(preparedQuery, preparedCandidates[i]);
+	}
+}
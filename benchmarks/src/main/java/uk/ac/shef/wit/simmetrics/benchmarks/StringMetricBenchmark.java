@@ -0,0 +1,92 @@
+package uk.ac.shef.wit.simmetrics.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.ac.shef.wit.simmetrics.similaritymetrics.InterfaceStringMetric;
+
+/**
+ * Benchmarks every {@link InterfaceStringMetric} in
+ * <code>uk.ac.shef.wit.simmetrics.similaritymetrics</code> across string
+ * lengths, token counts and alphabets.
+ *
+ * The full parameter space is large. Narrow it down from the command line,
+ * e.g. <code>-p metric=Levenshtein,Jaro -p length=32</code>.
+ */
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StringMetricBenchmark {
+
+	private static final String METRIC_PACKAGE = "uk.ac.shef.wit.simmetrics.similaritymetrics.";
+
+	@Param({ "BlockDistance", "ChapmanLengthDeviation",
+			"ChapmanMatchingSoundex", "ChapmanMeanLength",
+			"ChapmanOrderedNameCompoundSimilarity", "CosineSimilarity",
+			"DiceSimilarity", "EuclideanDistance", "JaccardSimilarity", "Jaro",
+			"JaroWinkler", "Levenshtein", "MatchingCoefficient", "MongeElkan",
+			"NeedlemanWunch", "OverlapCoefficient", "QGramsDistance",
+			"SimonWhite", "SmithWaterman", "SmithWatermanGotoh",
+			"SmithWatermanGotohWindowedAffine", "Soundex", "TagLink",
+			"TagLinkToken" })
+	public String metric;
+
+	@Param({ "8", "32", "128", "512" })
+	public int length;
+
+	@Param({ "1", "4", "16" })
+	public int tokens;
+
+	@Param({ "latin", "dna", "binary", "extended" })
+	public String alphabet;
+
+	private InterfaceStringMetric instance;
+
+	private String[] first;
+
+	private String[] second;
+
+	private int index;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		instance = (InterfaceStringMetric) Class.forName(
+				METRIC_PACKAGE + metric).newInstance();
+		final String[][] pairs = Inputs.pairs(alphabet, length, tokens);
+		first = pairs[0];
+		second = pairs[1];
+	}
+
+	private float next() {
+		final int i = index++ & (Inputs.POOL_SIZE - 1);
+		return instance.getSimilarity(first[i], second[i]);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.Throughput)
+	@OutputTimeUnit(TimeUnit.SECONDS)
+	public float throughput() {
+		return next();
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SampleTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public float latency() {
+		return next();
+	}
+
+}
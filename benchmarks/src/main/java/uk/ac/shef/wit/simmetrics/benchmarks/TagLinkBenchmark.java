@@ -0,0 +1,229 @@
+package uk.ac.shef.wit.simmetrics.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.ac.shef.wit.simmetrics.similaritymetrics.TagLink;
+import uk.ac.shef.wit.simmetrics.tokenisers.InterfaceTokeniser;
+import uk.ac.shef.wit.simmetrics.tokenisers.TokeniserWhitespace;
+
+/**
+ * Compares {@link TagLink#getSimilarity(String, String)} against the original
+ * implementation matching boxed candidate objects it replaced. The token count
+ * drives the number of token pairs, the length the number of character pairs
+ * per token.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TagLinkBenchmark {
+
+	@Param({ "16", "64", "256" })
+	public int length;
+
+	@Param({ "1", "4", "16" })
+	public int tokens;
+
+	@Param({ "latin" })
+	public String alphabet;
+
+	private final TagLink tagLink = new TagLink();
+
+	private final LegacyTagLink legacy = new LegacyTagLink();
+
+	private String[] first;
+
+	private String[] second;
+
+	private int index;
+
+	@Setup
+	public void setUp() {
+		final String[][] pairs = Inputs.pairs(alphabet, length, tokens);
+		first = pairs[0];
+		second = pairs[1];
+	}
+
+	@Benchmark
+	public float legacy() {
+		final int i = index++ & (Inputs.POOL_SIZE - 1);
+		return legacy.getSimilarity(first[i], second[i]);
+	}
+
+	@Benchmark
+	public float tagLink() {
+		final int i = index++ & (Inputs.POOL_SIZE - 1);
+		return tagLink.getSimilarity(first[i], second[i]);
+	}
+
+	/**
+	 * TagLink with TagLinkToken and equal IDF weights as of simmetrics 1.6.3.
+	 */
+	private static final class LegacyTagLink {
+
+		private static final float TR = 0.3f;
+
+		private final InterfaceTokeniser tokeniser = new TokeniserWhitespace();
+
+		private float matched;
+
+		float getSimilarity(String T, String U) {
+			if (T.equals(U)) {
+				return 1.0f;
+			}
+			final ArrayList<String> tList = tokeniser.tokenizeToArrayList(T);
+			final ArrayList<String> uList = tokeniser.tokenizeToArrayList(U);
+			final String[] tTokens = tList.toArray(new String[tList.size()]);
+			final String[] uTokens = uList.toArray(new String[uList.size()]);
+			final float[] tIdf = idf(tTokens.length);
+			final float[] uIdf = idf(uTokens.length);
+			float tSize = 0, uSize = 0;
+			for (String token : tTokens) {
+				tSize += token.length();
+			}
+			for (String token : uTokens) {
+				uSize += token.length();
+			}
+			final float minStringSize = Math.min(tSize, uSize);
+
+			final ArrayList<Candidate> candidates = new ArrayList<Candidate>();
+			for (int t = 0; t < tTokens.length; t++) {
+				int lastTr = -1;
+				for (int u = 0, flag = 0; u < uTokens.length && flag == 0; u++) {
+					final int tr = Math.abs(t - u);
+					if (lastTr >= 0 && lastTr < tr) {
+						flag = 1;
+					} else {
+						final float innerScore = token(tTokens[t], uTokens[u]);
+						if (innerScore >= 0.0f) {
+							final float m = innerScore == 1.0f ? tTokens[t]
+									.length() : matched;
+							final float weight = (tIdf[t] * uIdf[u] + m
+									/ minStringSize) / 2.0f;
+							if (innerScore == 1.0f) {
+								lastTr = tr;
+							}
+							candidates.add(new Candidate(t, u, innerScore
+									* weight));
+						}
+					}
+				}
+			}
+			return assign(candidates);
+		}
+
+		private float token(String T, String U) {
+			if (T.equals(U)) {
+				matched = T.length();
+				return 1.0f;
+			}
+			if (T.length() < U.length()) {
+				final String tmp = T;
+				T = U;
+				U = tmp;
+			}
+			final ArrayList<Candidate> candidates = new ArrayList<Candidate>();
+			final int bound = (int) (1.0 / TR);
+			for (int t = 0; t < T.length(); t++) {
+				final char chT = T.charAt(t);
+				float lastTr = -1;
+				for (int u = Math.max(0, t - bound), flag = 0; u < Math.min(t
+						+ bound + 1, U.length())
+						&& flag == 0; u++) {
+					final float tr2 = Math.abs(t - u);
+					if ((lastTr >= 0.0) && (lastTr < tr2)) {
+						flag = 1;
+					} else if (chT == U.charAt(u)) {
+						lastTr = tr2;
+						final float charScore = 1.0f - (TR * tr2);
+						if (charScore == 1.0) {
+							flag = 1;
+						}
+						candidates.add(new Candidate(t, u, charScore));
+					}
+				}
+			}
+			final float score = assign(candidates);
+			final float tSize = T.length();
+			final float uSize = U.length();
+			final float sim = (score / tSize + score / uSize) / 2.0f;
+			int prefix = 0;
+			final int prefixBound = Math.min(4, U.length());
+			while (prefix < prefixBound && T.charAt(prefix) == U.charAt(prefix)) {
+				prefix++;
+			}
+			return sim + (prefix * 0.1f * (1.0f - sim));
+		}
+
+		private float assign(ArrayList<Candidate> candidates) {
+			Collections.sort(candidates, new Comparator<Candidate>() {
+				public int compare(Candidate o1, Candidate o2) {
+					if (o2.score > o1.score) {
+						return 1;
+					}
+					if (o2.score < o1.score) {
+						return -1;
+					}
+					return 0;
+				}
+			});
+			matched = 0;
+			float score = 0.0f;
+			final HashMap<Integer, Object> tMap = new HashMap<Integer, Object>();
+			final HashMap<Integer, Object> uMap = new HashMap<Integer, Object>();
+			for (Candidate candidate : candidates) {
+				final Integer t = candidate.t;
+				final Integer u = candidate.u;
+				if (!tMap.containsKey(t) && !uMap.containsKey(u)) {
+					score += candidate.score;
+					tMap.put(t, null);
+					uMap.put(u, null);
+					matched++;
+				}
+			}
+			return score;
+		}
+
+		private static float[] idf(int tokens) {
+			final float[] idf = new float[tokens];
+			final float weight = 1.0f / ((float) Math.sqrt(tokens));
+			for (int i = 0; i < tokens; i++) {
+				idf[i] = weight;
+			}
+			return idf;
+		}
+	}
+
+	private static final class Candidate {
+
+		final int t;
+
+		final int u;
+
+		final float score;
+
+		Candidate(int t, int u, float score) {
+			this.t = t;
+			this.u = u;
+			this.score = score;
+		}
+	}
+}
@@ -0,0 +1,94 @@
+package uk.ac.shef.wit.simmetrics.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.ac.shef.wit.simmetrics.similaritymetrics.AbstractStringMetric;
+import uk.ac.shef.wit.simmetrics.similaritymetrics.PreparedString;
+import uk.ac.shef.wit.simmetrics.tokenisers.InterfaceTokeniser;
+import uk.ac.shef.wit.simmetrics.tokenisers.TokenDictionary;
+import uk.ac.shef.wit.simmetrics.tokenisers.TokeniserQGram3Extended;
+import uk.ac.shef.wit.simmetrics.tokenisers.TokeniserWhitespace;
+
+/**
+ * Compares prepared strings by their tokens and by their token ids in a
+ * shared {@link TokenDictionary}, as a batch job comparing a pool of strings
+ * would.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenDictionaryBenchmark {
+
+	private static final String METRIC_PACKAGE = "uk.ac.shef.wit.simmetrics.similaritymetrics.";
+
+	@Param({ "BlockDistance", "CosineSimilarity", "DiceSimilarity",
+			"EuclideanDistance", "JaccardSimilarity", "MatchingCoefficient",
+			"OverlapCoefficient", "QGramsDistance" })
+	public String metric;
+
+	@Param({ "128" })
+	public int length;
+
+	@Param({ "4", "16" })
+	public int tokens;
+
+	@Param({ "latin" })
+	public String alphabet;
+
+	private AbstractStringMetric withTokens;
+
+	private AbstractStringMetric withIds;
+
+	private PreparedString[] first;
+
+	private PreparedString[] second;
+
+	private int index;
+
+	@Setup
+	public void setUp() throws Exception {
+		final InterfaceTokeniser tokeniser = "QGramsDistance".equals(metric) ? new TokeniserQGram3Extended()
+				: new TokeniserWhitespace();
+		final Class<?> type = Class.forName(METRIC_PACKAGE + metric);
+		withTokens = (AbstractStringMetric) type.getConstructor(
+				InterfaceTokeniser.class).newInstance(tokeniser);
+		withIds = (AbstractStringMetric) type.getConstructor(
+				InterfaceTokeniser.class, TokenDictionary.class).newInstance(
+				tokeniser, new TokenDictionary());
+		final String[][] pairs = Inputs.pairs(alphabet, length, tokens);
+		first = PreparedString.prepare(pairs[0]);
+		second = PreparedString.prepare(pairs[1]);
+		// derive tokens and ids up front as a batch job would
+		for (int i = 0; i < Inputs.POOL_SIZE; i++) {
+			withTokens.getSimilarity(first[i], second[i]);
+			withIds.getSimilarity(first[i], second[i]);
+		}
+	}
+
+	@Benchmark
+	public float tokens() {
+		final int i = index++ & (Inputs.POOL_SIZE - 1);
+		return withTokens.getSimilarity(first[i], second[i]);
+	}
+
+	@Benchmark
+	public float ids() {
+		final int i = index++ & (Inputs.POOL_SIZE - 1);
+		return withIds.getSimilarity(first[i], second[i]);
+	}
+}
@@ -0,0 +1,227 @@
+package uk.ac.shef.wit.simmetrics.arbitrators;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import uk.ac.shef.wit.simmetrics.similaritymetrics.InterfaceStringMetric;
+
+/**
+ * Arbitrates by the mean of those metrics whose estimated timings fit a
+ * budget per arbitration, so arbitrations take about as long as the budget
+ * allows whatever the strings compared.
+ *
+ * The metrics are taken in the order given, highest priority first. Each
+ * metric whose estimate, see
+ * {@link InterfaceStringMetric#getSimilarityTimingEstimated(String, String)},
+ * fits in what is left of the budget contributes, the others are skipped. An
+ * expensive metric skipped for long strings does not keep cheaper metrics of
+ * lower priority from contributing. Metrics without an estimate never fit.
+ */
+public final class BudgetMetricArbitrator implements InterfaceMetricArbitrator {
+
+	/**
+	 * The outcome of an arbitration: the score and the metrics that
+	 * contributed to it.
+	 */
+	public static final class Arbitration {
+
+		private final float score;
+
+		private final float timingEstimated;
+
+		private final List<InterfaceStringMetric> contributingMetrics;
+
+		private final List<InterfaceStringMetric> skippedMetrics;
+
+		private Arbitration(final float score, final float timingEstimated,
+				final List<InterfaceStringMetric> contributingMetrics,
+				final List<InterfaceStringMetric> skippedMetrics) {
+			this.score = score;
+			this.timingEstimated = timingEstimated;
+			this.contributingMetrics = Collections
+					.unmodifiableList(contributingMetrics);
+			this.skippedMetrics = Collections.unmodifiableList(skippedMetrics);
+		}
+
+		/**
+		 * returns the mean similarity of the contributing metrics, zero if no
+		 * metric fit the budget.
+		 *
+		 * @return the arbitrated score
+		 */
+		public float getScore() {
+			return score;
+		}
+
+		/**
+		 * returns the estimated time in milliseconds of the contributing
+		 * metrics together.
+		 *
+		 * @return the estimated time in milliseconds
+		 */
+		public float getTimingEstimated() {
+			return timingEstimated;
+		}
+
+		/**
+		 * returns the metrics measured, in priority order.
+		 *
+		 * @return the contributing metrics
+		 */
+		public List<InterfaceStringMetric> getContributingMetrics() {
+			return contributingMetrics;
+		}
+
+		/**
+		 * returns the metrics skipped for not fitting the budget, in priority
+		 * order.
+		 *
+		 * @return the skipped metrics
+		 */
+		public List<InterfaceStringMetric> getSkippedMetrics() {
+			return skippedMetrics;
+		}
+
+		@Override
+		public String toString() {
+			return "Arbitration [score=" + score + ", timingEstimated="
+					+ timingEstimated + ", contributingMetrics="
+					+ contributingMetrics + "]";
+		}
+	}
+
+	private ArrayList<InterfaceStringMetric> metricsForArbitration = new ArrayList<InterfaceStringMetric>();
+
+	private float timingBudget;
+
+	/**
+	 * constructor.
+	 *
+	 * @param timingBudget
+	 *            the estimated time in milliseconds an arbitration may take,
+	 *            e.g. 0.2f for 200 microseconds
+	 */
+	public BudgetMetricArbitrator(final float timingBudget) {
+		this.timingBudget = timingBudget;
+	}
+
+	/**
+	 * gets the estimated time in milliseconds an arbitration may take.
+	 *
+	 * @return the budget in milliseconds
+	 */
+	public float getTimingBudget() {
+		return timingBudget;
+	}
+
+	/**
+	 * sets the estimated time in milliseconds an arbitration may take.
+	 *
+	 * @param timingBudget
+	 *            the budget in milliseconds
+	 */
+	public void setTimingBudget(final float timingBudget) {
+		this.timingBudget = timingBudget;
+	}
+
+	public ArrayList<InterfaceStringMetric> getArbitrationMetrics() {
+		return metricsForArbitration;
+	}
+
+	/**
+	 * set arbitration metrics with those given, highest priority first.
+	 */
+	public void setArbitrationMetrics(
+			final ArrayList<InterfaceStringMetric> arbitrationMetrics) {
+		metricsForArbitration = arbitrationMetrics;
+	}
+
+	/**
+	 * adds an arbitration metric of lower priority than those added before.
+	 */
+	public void addArbitrationMetric(
+			final InterfaceStringMetric arbitrationMetric) {
+		metricsForArbitration.add(arbitrationMetric);
+	}
+
+	/**
+	 * adds arbitration metrics of lower priority than those added before.
+	 */
+	public void addArbitrationMetrics(
+			final ArrayList<InterfaceStringMetric> arbitrationMetrics) {
+		metricsForArbitration.addAll(arbitrationMetrics);
+	}
+
+	public void clearArbitrationMetrics() {
+		metricsForArbitration.clear();
+	}
+
+	public String getShortDescriptionString() {
+		return "BudgetMetricArbitrator";
+	}
+
+	public String getLongDescriptionString() {
+		return "BudgetMetricArbitrator gives equal weightings to the metrics of highest priority whose estimated timings fit a budget and returns an arbitrated score for those";
+	}
+
+	public long getArbitrationTimingActual(final String string1,
+			final String string2) {
+		final long timeBefore = System.currentTimeMillis();
+		getArbitrationScore(string1, string2);
+		return System.currentTimeMillis() - timeBefore;
+	}
+
+	/**
+	 * gets the estimated time in milliseconds of the metrics that fit the
+	 * budget, at most the budget.
+	 */
+	public float getArbitrationTimingEstimated(final String string1,
+			final String string2) {
+		float estimatedTime = 0.0f;
+		for (InterfaceStringMetric metric : metricsForArbitration) {
+			final float estimate = metric.getSimilarityTimingEstimated(
+					string1, string2);
+			if (estimatedTime + estimate <= timingBudget) {
+				estimatedTime += estimate;
+			}
+		}
+		return estimatedTime;
+	}
+
+	public float getArbitrationScore(final String string1, final String string2) {
+		return getArbitration(string1, string2).getScore();
+	}
+
+	/**
+	 * arbitrates with the metrics that fit the budget.
+	 *
+	 * @param string1
+	 * @param string2
+	 *
+	 * @return the score and the metrics that contributed to it
+	 */
+	public Arbitration getArbitration(final String string1,
+			final String string2) {
+		final List<InterfaceStringMetric> contributing = new ArrayList<InterfaceStringMetric>();
+		final List<InterfaceStringMetric> skipped = new ArrayList<InterfaceStringMetric>();
+		float estimatedTime = 0.0f;
+		float score = 0.0f;
+		for (InterfaceStringMetric metric : metricsForArbitration) {
+			final float estimate = metric.getSimilarityTimingEstimated(
+					string1, string2);
+			// also skips metrics estimated as infinite or not a number
+			if (estimatedTime + estimate <= timingBudget) {
+				estimatedTime += estimate;
+				score += metric.getSimilarity(string1, string2);
+				contributing.add(metric);
+			} else {
+				skipped.add(metric);
+			}
+		}
+		if (!contributing.isEmpty()) {
+			score /= contributing.size();
+		}
+		return new Arbitration(score, estimatedTime, contributing, skipped);
+	}
+}
@@ -129,10 +129,4 @@ public interface InterfaceMetricArbitrator {
      */
     public float getArbitrationScore(String string1, String string2);
 
-    /**
-     *
-     */
-    //todo add a method to update arbitration weightings or learn with input here
-//    public void setArbitrationWeightings()
-
 }
@@ -42,6 +42,11 @@ package uk.ac.shef.wit.simmetrics.arbitrators;
 import uk.ac.shef.wit.simmetrics.similaritymetrics.InterfaceStringMetric;
 
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
  * Package: uk.ac.shef.wit.simmetrics.arbitrators
@@ -59,6 +64,37 @@ public final class MeanMetricArbitrator implements InterfaceMetricArbitrator  {
      */
     private ArrayList<InterfaceStringMetric> metricsForArbitration = new ArrayList<InterfaceStringMetric>();
 
+    /**
+     * the score the total of the metrics may fall short of a minimum by through rounding.
+     */
+    private static final float ROUNDINGSLACK = 0.0001f;
+
+    /**
+     * private executor the metrics are measured on concurrently, null to measure them one after another.
+     */
+    private ExecutorService executor;
+
+    /**
+     * gets the executor the metrics are measured on concurrently.
+     *
+     * @return the executor, or null if the metrics are measured one after another on the calling thread
+     */
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * sets an executor to measure the metrics on concurrently, each metric as a task of its own, the last
+     * metric on the calling thread. The arbitrated scores are the same as when measured one after another.
+     * <p/>
+     * The executor is not shut down by the arbitrator.
+     *
+     * @param executor the executor, or null to measure the metrics one after another on the calling thread
+     */
+    public void setExecutor(final ExecutorService executor) {
+        this.executor = executor;
+    }
+
     /**
      * gets the arbitration metrics used.
      *
@@ -173,6 +209,8 @@ public final class MeanMetricArbitrator implements InterfaceMetricArbitrator  {
         float score = 0.0f;
         if(metricsForArbitration.size() == 0) {
             return score;
+        } else if (executor != null) {
+            return getConcurrentArbitrationScore(string1, string2);
         } else {
             for (Object aMetricsForArbitration : metricsForArbitration) {
                 score += ((InterfaceStringMetric) aMetricsForArbitration).getSimilarity(string1, string2);
@@ -180,4 +218,123 @@ public final class MeanMetricArbitrator implements InterfaceMetricArbitrator  {
             return score / metricsForArbitration.size();
         }
     }
+
+    /**
+     * returns the arbitrated value of similarity if it is at least the given minimum.
+     * <p/>
+     * The metrics are measured cheapest first, as estimated by getSimilarityTimingEstimated, on the calling
+     * thread. Each is asked for the least similarity that could still bring the mean up to the minimum, so
+     * metrics may stop early themselves, and no more metrics are measured once the mean can not reach the
+     * minimum even if all metrics left were to match perfectly.
+     *
+     * @param string1
+     * @param string2
+     * @param minimumScore the score below which the exact arbitrated score is of no interest
+     *
+     * @return the same score as getArbitrationScore(string1, string2) if it is at least minimumScore, zero otherwise,
+     * also if that score is not a number
+     */
+    public float getArbitrationScore(final String string1, final String string2, final float minimumScore) {
+        final int count = metricsForArbitration.size();
+        if (count == 0 || !(minimumScore > 0.0f)) {
+            final float score = getArbitrationScore(string1, string2);
+            return score >= minimumScore ? score : 0.0f;
+        }
+        final int[] order = getCheapestFirstOrder(string1, string2);
+        final float[] scores = new float[count];
+        final float minimumTotal = minimumScore * count - ROUNDINGSLACK;
+        float total = 0.0f;
+        for (int i = 0; i < count; i++) {
+            //the similarity this metric needs if all metrics after it match perfectly
+            final float needed = minimumTotal - total - (count - i - 1);
+            if (needed > 1.0f) {
+                return 0.0f;
+            }
+            final InterfaceStringMetric metric = metricsForArbitration.get(order[i]);
+            final float similarity;
+            if (needed > 0.0f) {
+                similarity = metric.getSimilarity(string1, string2, needed);
+                if (similarity == 0.0f) {
+                    return 0.0f;
+                }
+            } else {
+                similarity = metric.getSimilarity(string1, string2);
+            }
+            scores[order[i]] = similarity;
+            total += similarity;
+        }
+        //sum in the order of the metrics for the same rounding as getArbitrationScore
+        float score = 0.0f;
+        for (float similarity : scores) {
+            score += similarity;
+        }
+        score /= count;
+        return score >= minimumScore ? score : 0.0f;
+    }
+
+    /**
+     * returns the indices of the metrics ordered by their estimated timings, cheapest first.
+     */
+    private int[] getCheapestFirstOrder(final String string1, final String string2) {
+        final int count = metricsForArbitration.size();
+        final int[] order = new int[count];
+        final float[] estimates = new float[count];
+        for (int i = 0; i < count; i++) {
+            final float estimate = metricsForArbitration.get(i).getSimilarityTimingEstimated(string1, string2);
+            //insertion sort, keeping the order of metrics estimated the same
+            int j = i;
+            while (j > 0 && Float.compare(estimates[j - 1], estimate) > 0) {
+                estimates[j] = estimates[j - 1];
+                order[j] = order[j - 1];
+                j--;
+            }
+            estimates[j] = estimate;
+            order[j] = i;
+        }
+        return order;
+    }
+
+    /**
+     * returns the arbitrated value of similarity measuring the metrics on the executor.
+     */
+    private float getConcurrentArbitrationScore(final String string1, final String string2) {
+        final int count = metricsForArbitration.size();
+        final List<Future<Float>> futures = new ArrayList<Future<Float>>(count - 1);
+        try {
+            for (int i = 0; i < count - 1; i++) {
+                final InterfaceStringMetric metric = metricsForArbitration.get(i);
+                futures.add(executor.submit(new Callable<Float>() {
+                    public Float call() {
+                        return metric.getSimilarity(string1, string2);
+                    }
+                }));
+            }
+            //rather than wait idle the calling thread measures the last metric
+            final float last = metricsForArbitration.get(count - 1).getSimilarity(string1, string2);
+            //sum in the order of the metrics for the same rounding as one after another
+            float score = 0.0f;
+            for (Future<Float> future : futures) {
+                score += future.get();
+            }
+            score += last;
+            return score / count;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        } finally {
+            //stops the metrics still running when a metric failed
+            for (Future<Float> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
 }
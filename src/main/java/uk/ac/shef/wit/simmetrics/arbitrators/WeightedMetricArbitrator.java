@@ -0,0 +1,403 @@
+package uk.ac.shef.wit.simmetrics.arbitrators;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import uk.ac.shef.wit.simmetrics.similaritymetrics.InterfaceStringMetric;
+
+/**
+ * Arbitrates by a weighting of the metrics learned from pairs known to match
+ * or not, by logistic regression. The arbitrated score is the probability of
+ * a match given the similarities of the metrics.
+ *
+ * Pairs are learned one at a time in mini-batches, see
+ * {@link #learn(String, String, boolean)}, so any number of pairs may be
+ * learned without keeping them. Pairs may be learned again, e.g. in several
+ * passes, and learning may continue after scoring. Until the first batch is
+ * learned the arbitrator scores the mean of the metrics.
+ *
+ * Metrics contributing little may be dropped after learning, see
+ * {@link #prune(float)}, saving their time on every arbitration.
+ *
+ * Scoring is thread-safe, also while another thread learns: the metrics and
+ * weights are replaced together, so a score uses either the weights before an
+ * update or those after. Learning and changing the metrics are not
+ * thread-safe.
+ */
+public final class WeightedMetricArbitrator implements InterfaceMetricArbitrator {
+
+	/**
+	 * the metrics and what was learned for them, replaced rather than changed.
+	 */
+	private static final class Model {
+
+		final InterfaceStringMetric[] metrics;
+
+		final float[] weights;
+
+		final float bias;
+
+		final boolean learned;
+
+		Model(final InterfaceStringMetric[] metrics, final float[] weights,
+				final float bias, final boolean learned) {
+			this.metrics = metrics;
+			this.weights = weights;
+			this.bias = bias;
+			this.learned = learned;
+		}
+	}
+
+	private volatile Model model = new Model(new InterfaceStringMetric[0],
+			new float[0], 0.0f, false);
+
+	private float learningRate = 1.0f;
+
+	private int batchSize = 256;
+
+	/**
+	 * the similarities of the pair being learned.
+	 */
+	private float[] similarities = new float[0];
+
+	/**
+	 * the gradient of the loss over the batch so far, the last for the bias.
+	 */
+	private double[] gradient = new double[1];
+
+	private int batchCount;
+
+	private long pairsLearned;
+
+	/**
+	 * the running means and sums of squared deviations of the similarities of
+	 * the pairs learned.
+	 */
+	private double[] means = new double[0];
+
+	private double[] squares = new double[0];
+
+	/**
+	 * gets the rate the weights are learned at.
+	 *
+	 * @return the learning rate
+	 */
+	public float getLearningRate() {
+		return learningRate;
+	}
+
+	/**
+	 * sets the rate the weights are learned at, 1.0 by default.
+	 *
+	 * @param learningRate
+	 */
+	public void setLearningRate(final float learningRate) {
+		this.learningRate = learningRate;
+	}
+
+	/**
+	 * gets the number of pairs learned per update of the weights.
+	 *
+	 * @return the batch size
+	 */
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * sets the number of pairs learned per update of the weights, 256 by
+	 * default.
+	 *
+	 * @param batchSize
+	 */
+	public void setBatchSize(final int batchSize) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("batchSize must be positive: "
+					+ batchSize);
+		}
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * returns a copy of the metrics used in the arbitration, changed through
+	 * the other methods only.
+	 */
+	public ArrayList<InterfaceStringMetric> getArbitrationMetrics() {
+		return new ArrayList<InterfaceStringMetric>(Arrays.asList(model.metrics));
+	}
+
+	/**
+	 * sets the metrics, forgetting what was learned.
+	 */
+	public void setArbitrationMetrics(
+			final ArrayList<InterfaceStringMetric> arbitrationMetrics) {
+		reset(arbitrationMetrics);
+	}
+
+	/**
+	 * adds a metric, forgetting what was learned.
+	 */
+	public void addArbitrationMetric(
+			final InterfaceStringMetric arbitrationMetric) {
+		final ArrayList<InterfaceStringMetric> arbitrationMetrics = getArbitrationMetrics();
+		arbitrationMetrics.add(arbitrationMetric);
+		reset(arbitrationMetrics);
+	}
+
+	/**
+	 * adds metrics, forgetting what was learned.
+	 */
+	public void addArbitrationMetrics(
+			final ArrayList<InterfaceStringMetric> arbitrationMetrics) {
+		final ArrayList<InterfaceStringMetric> allMetrics = getArbitrationMetrics();
+		allMetrics.addAll(arbitrationMetrics);
+		reset(allMetrics);
+	}
+
+	/**
+	 * removes all metrics, forgetting what was learned.
+	 */
+	public void clearArbitrationMetrics() {
+		reset(new ArrayList<InterfaceStringMetric>());
+	}
+
+	private void reset(final List<InterfaceStringMetric> arbitrationMetrics) {
+		final int count = arbitrationMetrics.size();
+		model = new Model(arbitrationMetrics
+				.toArray(new InterfaceStringMetric[count]), new float[count],
+				0.0f, false);
+		similarities = new float[count];
+		gradient = new double[count + 1];
+		batchCount = 0;
+		pairsLearned = 0;
+		means = new double[count];
+		squares = new double[count];
+	}
+
+	public String getShortDescriptionString() {
+		return "WeightedMetricArbitrator";
+	}
+
+	public String getLongDescriptionString() {
+		return "WeightedMetricArbitrator learns weightings of the metrics from matching and non matching pairs by logistic regression and returns the probability of a match";
+	}
+
+	public long getArbitrationTimingActual(final String string1,
+			final String string2) {
+		final long timeBefore = System.currentTimeMillis();
+		getArbitrationScore(string1, string2);
+		return System.currentTimeMillis() - timeBefore;
+	}
+
+	public float getArbitrationTimingEstimated(final String string1,
+			final String string2) {
+		float estimatedTime = 0.0f;
+		for (InterfaceStringMetric metric : model.metrics) {
+			estimatedTime += metric.getSimilarityTimingEstimated(string1,
+					string2);
+		}
+		return estimatedTime;
+	}
+
+	/**
+	 * returns the probability the strings match, or the mean similarity of the
+	 * metrics if nothing was learned yet. Similarities that are not a number
+	 * count as zero.
+	 */
+	public float getArbitrationScore(final String string1, final String string2) {
+		final Model model = this.model;
+		final InterfaceStringMetric[] metrics = model.metrics;
+		if (metrics.length == 0) {
+			return 0.0f;
+		}
+		if (!model.learned) {
+			float score = 0.0f;
+			for (InterfaceStringMetric metric : metrics) {
+				score += getSimilarity(metric, string1, string2);
+			}
+			return score / metrics.length;
+		}
+		float logit = model.bias;
+		for (int i = 0; i < metrics.length; i++) {
+			logit += model.weights[i]
+					* getSimilarity(metrics[i], string1, string2);
+		}
+		return (float) sigmoid(logit);
+	}
+
+	/**
+	 * learns from a pair of strings known to match or not. The weights are
+	 * updated once per batch of pairs.
+	 *
+	 * @param string1
+	 * @param string2
+	 * @param matching
+	 *            true if the strings match
+	 */
+	public void learn(final String string1, final String string2,
+			final boolean matching) {
+		final Model model = this.model;
+		final int count = model.metrics.length;
+		pairsLearned++;
+		double logit = model.bias;
+		for (int i = 0; i < count; i++) {
+			final float similarity = getSimilarity(model.metrics[i], string1,
+					string2);
+			similarities[i] = similarity;
+			logit += model.weights[i] * similarity;
+			// Welford's running variance
+			final double deviation = similarity - means[i];
+			means[i] += deviation / pairsLearned;
+			squares[i] += deviation * (similarity - means[i]);
+		}
+		final double error = sigmoid(logit) - (matching ? 1.0 : 0.0);
+		for (int i = 0; i < count; i++) {
+			gradient[i] += error * similarities[i];
+		}
+		gradient[count] += error;
+		if (++batchCount == batchSize) {
+			updateWeights();
+		}
+	}
+
+	/**
+	 * updates the weights with the pairs learned since the last update,
+	 * without waiting for the batch to fill.
+	 */
+	public void flush() {
+		if (batchCount > 0) {
+			updateWeights();
+		}
+	}
+
+	private void updateWeights() {
+		final Model model = this.model;
+		final int count = model.metrics.length;
+		final double rate = learningRate / batchCount;
+		final float[] weights = model.weights.clone();
+		for (int i = 0; i < count; i++) {
+			weights[i] -= rate * gradient[i];
+			gradient[i] = 0.0;
+		}
+		final float bias = (float) (model.bias - rate * gradient[count]);
+		gradient[count] = 0.0;
+		batchCount = 0;
+		this.model = new Model(model.metrics, weights, bias, true);
+	}
+
+	/**
+	 * returns a copy of the weights learned, in the order of the metrics.
+	 *
+	 * @return the weights of the metrics
+	 */
+	public float[] getWeights() {
+		return model.weights.clone();
+	}
+
+	/**
+	 * returns the weight learned for no similarity at all.
+	 *
+	 * @return the bias
+	 */
+	public float getBias() {
+		return model.bias;
+	}
+
+	/**
+	 * returns how much each metric contributes to the scores of the pairs
+	 * learned: its weight times the standard deviation of its similarities, in
+	 * the order of the metrics.
+	 *
+	 * @return the importances of the metrics
+	 */
+	public float[] getImportances() {
+		final float[] weights = model.weights;
+		final float[] importances = new float[weights.length];
+		if (pairsLearned < 2) {
+			return importances;
+		}
+		for (int i = 0; i < weights.length; i++) {
+			importances[i] = (float) (Math.abs(weights[i]) * Math
+					.sqrt(squares[i] / (pairsLearned - 1)));
+		}
+		return importances;
+	}
+
+	/**
+	 * drops the metrics whose importance, see {@link #getImportances()}, is
+	 * below the given fraction of the largest. The mean contribution of the
+	 * metrics dropped is moved to the bias, so scores change little. Pairs
+	 * learned since the last update of the weights are flushed first.
+	 *
+	 * @param minimumImportance
+	 *            the fraction of the largest importance metrics need to be
+	 *            kept, e.g. 0.01f
+	 * @return the metrics dropped
+	 */
+	public List<InterfaceStringMetric> prune(final float minimumImportance) {
+		flush();
+		final float[] importances = getImportances();
+		float largest = 0.0f;
+		for (float importance : importances) {
+			largest = Math.max(largest, importance);
+		}
+		final float minimum = minimumImportance * largest;
+		final Model model = this.model;
+		final InterfaceStringMetric[] metrics = model.metrics.clone();
+		final float[] weights = model.weights.clone();
+		float bias = model.bias;
+		final List<InterfaceStringMetric> dropped = new ArrayList<InterfaceStringMetric>();
+		int kept = 0;
+		for (int i = 0; i < metrics.length; i++) {
+			if (importances[i] < minimum) {
+				dropped.add(metrics[i]);
+				bias += weights[i] * means[i];
+				continue;
+			}
+			metrics[kept] = metrics[i];
+			weights[kept] = weights[i];
+			means[kept] = means[i];
+			squares[kept] = squares[i];
+			kept++;
+		}
+		if (!dropped.isEmpty()) {
+			this.model = new Model(copyOf(metrics, kept),
+					copyOf(weights, kept), bias, model.learned);
+			means = copyOf(means, kept);
+			squares = copyOf(squares, kept);
+			similarities = new float[kept];
+			gradient = new double[kept + 1];
+		}
+		return dropped;
+	}
+
+	private static InterfaceStringMetric[] copyOf(
+			final InterfaceStringMetric[] array, final int length) {
+		final InterfaceStringMetric[] copy = new InterfaceStringMetric[length];
+		System.arraycopy(array, 0, copy, 0, length);
+		return copy;
+	}
+
+	private static float[] copyOf(final float[] array, final int length) {
+		final float[] copy = new float[length];
+		System.arraycopy(array, 0, copy, 0, length);
+		return copy;
+	}
+
+	private static double[] copyOf(final double[] array, final int length) {
+		final double[] copy = new double[length];
+		System.arraycopy(array, 0, copy, 0, length);
+		return copy;
+	}
+
+	private static float getSimilarity(final InterfaceStringMetric metric,
+			final String string1, final String string2) {
+		final float similarity = metric.getSimilarity(string1, string2);
+		return similarity == similarity ? similarity : 0.0f;
+	}
+
+	private static double sigmoid(final double logit) {
+		return 1.0 / (1.0 + Math.exp(-logit));
+	}
+}
@@ -0,0 +1,433 @@
+package uk.ac.shef.wit.simmetrics.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import uk.ac.shef.wit.simmetrics.similaritymetrics.InterfaceStringMetric;
+import uk.ac.shef.wit.simmetrics.tokenisers.InterfaceTokeniser;
+
+/**
+ * Base class of indexes over the tokens of strings, e.g. q-grams or words.
+ *
+ * Every token maps to an inverted list of the strings containing it. A query
+ * only visits the lists of its own tokens, counting the tokens each string
+ * shares with it. Strings are numbered by their number of tokens so strings
+ * too short or too long to reach the minimum similarity are skipped with a
+ * binary search of each list. Strings sharing too few tokens to reach the
+ * minimum similarity are filtered by their count. Only the remaining
+ * candidates are compared with the metric.
+ *
+ * The filters assume the metric tokenises strings with the tokeniser of the
+ * index and that the set of tokens of a string holds the distinct tokens of
+ * its list of tokens.
+ */
+public abstract class AbstractInvertedIndex implements InterfaceStringIndex {
+
+	/**
+	 * Slack on the upper bounds to absorb rounding, candidates are compared
+	 * exactly.
+	 */
+	private static final float BOUNDTOLERANCE = 1e-5f;
+
+	private final InterfaceTokeniser tokeniser;
+
+	private final InterfaceStringMetric metric;
+
+	/**
+	 * whether tokens are counted with their multiplicity or only once.
+	 */
+	private final boolean multiset;
+
+	/**
+	 * indexed strings ordered by size.
+	 */
+	private final String[] strings;
+
+	/**
+	 * position of each indexed string in the strings the index was built from.
+	 */
+	private final int[] positions;
+
+	/**
+	 * number of tokens of each indexed string.
+	 */
+	private final int[] sizes;
+
+	/**
+	 * the first indexed string of each size, followed by the number of
+	 * strings.
+	 */
+	private final int[] sizeStart;
+
+	private final Map<String, InvertedList> lists;
+
+	private final ThreadLocal<Candidates> candidates = new ThreadLocal<Candidates>() {
+		@Override
+		protected Candidates initialValue() {
+			return new Candidates(strings.length);
+		}
+	};
+
+	/**
+	 * builds the index.
+	 *
+	 * @param strings
+	 *            strings to index
+	 * @param tokeniser
+	 *            tokeniser used by the metric
+	 * @param metric
+	 *            metric to measure similarity with
+	 * @param multiset
+	 *            true if the metric counts repeated tokens, false if it
+	 *            compares sets of tokens
+	 */
+	protected AbstractInvertedIndex(final Collection<String> strings,
+			final InterfaceTokeniser tokeniser,
+			final InterfaceStringMetric metric, final boolean multiset) {
+		this.tokeniser = tokeniser;
+		this.metric = metric;
+		this.multiset = multiset;
+
+		final String[] input = strings.toArray(new String[strings.size()]);
+		final int[] inputSizes = new int[input.length];
+		int maxSize = 0;
+		for (int i = 0; i < input.length; i++) {
+			inputSizes[i] = getSize(getTokenCounts(input[i]));
+			maxSize = Math.max(maxSize, inputSizes[i]);
+		}
+
+		// counting sort by size
+		this.sizeStart = new int[maxSize + 2];
+		for (int size : inputSizes) {
+			sizeStart[size + 1]++;
+		}
+		for (int size = 1; size < sizeStart.length; size++) {
+			sizeStart[size] += sizeStart[size - 1];
+		}
+		final int[] next = sizeStart.clone();
+		this.strings = new String[input.length];
+		this.positions = new int[input.length];
+		this.sizes = new int[input.length];
+		for (int i = 0; i < input.length; i++) {
+			final int id = next[inputSizes[i]]++;
+			this.strings[id] = input[i];
+			this.positions[id] = i;
+			this.sizes[id] = inputSizes[i];
+		}
+
+		// adding strings in order keeps every list ordered by size
+		this.lists = new HashMap<String, InvertedList>();
+		for (int id = 0; id < this.strings.length; id++) {
+			for (Map.Entry<String, Integer> token : getTokenCounts(
+					this.strings[id]).entrySet()) {
+				InvertedList list = lists.get(token.getKey());
+				if (list == null) {
+					list = new InvertedList(multiset);
+					lists.put(token.getKey(), list);
+				}
+				list.add(id, token.getValue());
+			}
+		}
+		for (InvertedList list : lists.values()) {
+			list.trim();
+		}
+	}
+
+	/**
+	 * returns the highest similarity a string can have to the query when they
+	 * share the given number of tokens. Must not be lower than the similarity
+	 * measured by the metric.
+	 *
+	 * @param overlap
+	 *            number of tokens shared by query and string
+	 * @param querySize
+	 *            number of tokens in the query
+	 * @param size
+	 *            number of tokens in the string
+	 * @return an upper bound of the similarity
+	 */
+	protected abstract float getMaximumSimilarity(int overlap, int querySize,
+			int size);
+
+	public InterfaceStringMetric getMetric() {
+		return metric;
+	}
+
+	public int size() {
+		return strings.length;
+	}
+
+	public List<Match> findSimilar(final String query,
+			final float minimumSimilarity) {
+		final List<Match> matches = new ArrayList<Match>();
+		if (!(minimumSimilarity > 0.0f)) {
+			// strings sharing no tokens qualify too
+			for (int id = 0; id < strings.length; id++) {
+				final float similarity = metric.getSimilarity(query,
+						strings[id]);
+				if (similarity > 0.0f && similarity >= minimumSimilarity) {
+					matches.add(new Match(positions[id], strings[id],
+							similarity));
+				}
+			}
+			Collections.sort(matches);
+			return matches;
+		}
+
+		final Map<String, Integer> queryTokens = getTokenCounts(query);
+		final int querySize = getSize(queryTokens);
+
+		// find the range of sizes that can still reach the minimum
+		final int maxSize = sizeStart.length - 2;
+		int low = 0;
+		while (low <= maxSize
+				&& !reaches(Math.min(querySize, low), querySize, low,
+						minimumSimilarity)) {
+			low++;
+		}
+		int high = maxSize;
+		while (high >= low
+				&& !reaches(Math.min(querySize, high), querySize, high,
+						minimumSimilarity)) {
+			high--;
+		}
+		if (low > high) {
+			return matches;
+		}
+
+		final Candidates candidates = count(queryTokens, sizeStart[low],
+				sizeStart[high + 1]);
+		try {
+			for (int c = 0; c < candidates.count; c++) {
+				final int id = candidates.ids[c];
+				if (!reaches(candidates.overlaps[id], querySize, sizes[id],
+						minimumSimilarity)) {
+					continue;
+				}
+				final float similarity = metric.getSimilarity(query,
+						strings[id], minimumSimilarity);
+				if (similarity >= minimumSimilarity) {
+					matches.add(new Match(positions[id], strings[id],
+							similarity));
+				}
+			}
+		} finally {
+			candidates.clear();
+		}
+		Collections.sort(matches);
+		return matches;
+	}
+
+	public List<Match> findMostSimilar(final String query, final int k) {
+		if (k <= 0) {
+			return new ArrayList<Match>();
+		}
+		final Map<String, Integer> queryTokens = getTokenCounts(query);
+		final int querySize = getSize(queryTokens);
+
+		final Candidates candidates = count(queryTokens, 0, strings.length);
+		final int[] ids = new int[candidates.count];
+		final float[] bounds = new float[candidates.count];
+		final Integer[] order = new Integer[candidates.count];
+		try {
+			for (int c = 0; c < candidates.count; c++) {
+				ids[c] = candidates.ids[c];
+				bounds[c] = getMaximumSimilarity(
+						candidates.overlaps[ids[c]], querySize, sizes[ids[c]]);
+				order[c] = c;
+			}
+		} finally {
+			candidates.clear();
+		}
+
+		// compare the most promising candidates first so the rest can be
+		// skipped once their bound falls below the k-th best match
+		Arrays.sort(order, new Comparator<Integer>() {
+			public int compare(Integer a, Integer b) {
+				return Float.compare(bounds[b], bounds[a]);
+			}
+		});
+		final PriorityQueue<Match> best = new PriorityQueue<Match>(k,
+				Collections.reverseOrder());
+		for (Integer c : order) {
+			final Match worst = best.size() == k ? best.peek() : null;
+			if (worst != null
+					&& bounds[c] + BOUNDTOLERANCE < worst.getSimilarity()) {
+				break;
+			}
+			final int id = ids[c];
+			final float minimumSimilarity = worst == null ? Float.MIN_VALUE
+					: worst.getSimilarity();
+			final float similarity = metric.getSimilarity(query, strings[id],
+					minimumSimilarity);
+			if (!(similarity >= minimumSimilarity)) {
+				continue;
+			}
+			final Match match = new Match(positions[id], strings[id],
+					similarity);
+			if (worst == null) {
+				best.add(match);
+			} else if (match.compareTo(worst) < 0) {
+				best.poll();
+				best.add(match);
+			}
+		}
+		final List<Match> matches = new ArrayList<Match>(best);
+		Collections.sort(matches);
+		return matches;
+	}
+
+	private boolean reaches(final int overlap, final int querySize,
+			final int size, final float minimumSimilarity) {
+		return !(getMaximumSimilarity(overlap, querySize, size)
+				+ BOUNDTOLERANCE < minimumSimilarity);
+	}
+
+	/**
+	 * counts the tokens shared with the query by strings in the range of ids.
+	 */
+	private Candidates count(final Map<String, Integer> queryTokens,
+			final int from, final int to) {
+		final Candidates candidates = this.candidates.get();
+		for (Map.Entry<String, Integer> token : queryTokens.entrySet()) {
+			final InvertedList list = lists.get(token.getKey());
+			if (list == null) {
+				continue;
+			}
+			final int queryCount = token.getValue();
+			for (int i = list.indexOf(from); i < list.length
+					&& list.ids[i] < to; i++) {
+				candidates.add(list.ids[i], multiset ? Math.min(queryCount,
+						list.counts[i]) : 1);
+			}
+		}
+		return candidates;
+	}
+
+	private Map<String, Integer> getTokenCounts(final String string) {
+		final Map<String, Integer> counts = new HashMap<String, Integer>();
+		for (String token : tokeniser.tokenizeToArrayList(string)) {
+			final Integer count = counts.get(token);
+			counts.put(token, count == null || !multiset ? 1 : count + 1);
+		}
+		return counts;
+	}
+
+	private int getSize(final Map<String, Integer> tokenCounts) {
+		if (!multiset) {
+			return tokenCounts.size();
+		}
+		int size = 0;
+		for (Integer count : tokenCounts.values()) {
+			size += count;
+		}
+		return size;
+	}
+
+	/**
+	 * ids of the strings containing a token in ascending order, with the
+	 * number of times they contain it.
+	 */
+	private static final class InvertedList {
+
+		int[] ids = new int[2];
+
+		int[] counts;
+
+		int length;
+
+		InvertedList(boolean multiset) {
+			if (multiset) {
+				counts = new int[2];
+			}
+		}
+
+		void add(int id, int count) {
+			if (length == ids.length) {
+				ids = resize(ids, length * 2);
+				if (counts != null) {
+					counts = resize(counts, length * 2);
+				}
+			}
+			ids[length] = id;
+			if (counts != null) {
+				counts[length] = count;
+			}
+			length++;
+		}
+
+		void trim() {
+			ids = resize(ids, length);
+			if (counts != null) {
+				counts = resize(counts, length);
+			}
+		}
+
+		/**
+		 * returns the position of the first id at least the given id.
+		 */
+		int indexOf(int id) {
+			int low = 0;
+			int high = length;
+			while (low < high) {
+				final int mid = (low + high) >>> 1;
+				if (ids[mid] < id) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			return low;
+		}
+
+		private static int[] resize(int[] array, int length) {
+			final int[] resized = new int[length];
+			System.arraycopy(array, 0, resized, 0, Math.min(array.length,
+					length));
+			return resized;
+		}
+	}
+
+	/**
+	 * Shared token counts per string. Only the ids of strings with a count are
+	 * kept so clearing is as cheap as counting.
+	 */
+	private static final class Candidates {
+
+		final int[] overlaps;
+
+		int[] ids = new int[16];
+
+		int count;
+
+		Candidates(int size) {
+			overlaps = new int[size];
+		}
+
+		void add(int id, int overlap) {
+			if (overlaps[id] == 0) {
+				if (count == ids.length) {
+					final int[] grown = new int[count * 2];
+					System.arraycopy(ids, 0, grown, 0, count);
+					ids = grown;
+				}
+				ids[count++] = id;
+			}
+			overlaps[id] += overlap;
+		}
+
+		void clear() {
+			for (int c = 0; c < count; c++) {
+				overlaps[ids[c]] = 0;
+			}
+			count = 0;
+		}
+	}
+}
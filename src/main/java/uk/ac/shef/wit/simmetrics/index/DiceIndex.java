@@ -0,0 +1,43 @@
+package uk.ac.shef.wit.simmetrics.index;
+
+import java.util.Collection;
+
+import uk.ac.shef.wit.simmetrics.similaritymetrics.DiceSimilarity;
+import uk.ac.shef.wit.simmetrics.tokenisers.InterfaceTokeniser;
+import uk.ac.shef.wit.simmetrics.tokenisers.TokeniserWhitespace;
+
+/**
+ * Index for {@link DiceSimilarity}. The similarity of sets sharing c of a and
+ * b tokens is at most 2c / (a + b).
+ */
+public final class DiceIndex extends AbstractInvertedIndex {
+
+	/**
+	 * Builds an index with a {@link TokeniserWhitespace}.
+	 *
+	 * @param strings
+	 *            strings to index
+	 */
+	public DiceIndex(final Collection<String> strings) {
+		this(strings, new TokeniserWhitespace());
+	}
+
+	/**
+	 * Builds an index with the given tokeniser.
+	 *
+	 * @param strings
+	 *            strings to index
+	 * @param tokeniser
+	 *            tokeniser to use
+	 */
+	public DiceIndex(final Collection<String> strings,
+			final InterfaceTokeniser tokeniser) {
+		super(strings, tokeniser, new DiceSimilarity(tokeniser), false);
+	}
+
+	@Override
+	protected float getMaximumSimilarity(final int overlap,
+			final int querySize, final int size) {
+		return (2.0f * overlap) / (querySize + size);
+	}
+}
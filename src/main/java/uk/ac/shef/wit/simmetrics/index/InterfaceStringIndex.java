@@ -0,0 +1,55 @@
+package uk.ac.shef.wit.simmetrics.index;
+
+import java.util.List;
+
+import uk.ac.shef.wit.simmetrics.similaritymetrics.InterfaceStringMetric;
+
+/**
+ * An index over a fixed set of strings that finds the strings most similar to
+ * a query without comparing the query against every string in the set.
+ *
+ * Results are the same as comparing every string with the metric of the
+ * index. Strings with a similarity of zero are never returned.
+ *
+ * Indexes are immutable once built and can be queried from multiple threads.
+ */
+public interface InterfaceStringIndex {
+
+	/**
+	 * returns the metric used to measure the similarity of the query and the
+	 * indexed strings.
+	 *
+	 * @return the metric of the index
+	 */
+	public InterfaceStringMetric getMetric();
+
+	/**
+	 * returns the number of strings in the index.
+	 *
+	 * @return the number of strings in the index
+	 */
+	public int size();
+
+	/**
+	 * finds all strings with a similarity of at least the minimum similarity
+	 * to the query.
+	 *
+	 * @param query
+	 *            string to compare against the index
+	 * @param minimumSimilarity
+	 *            the lowest similarity of a match
+	 * @return the matches ordered from most to least similar
+	 */
+	public List<Match> findSimilar(String query, float minimumSimilarity);
+
+	/**
+	 * finds the k strings most similar to the query.
+	 *
+	 * @param query
+	 *            string to compare against the index
+	 * @param k
+	 *            the maximum number of matches
+	 * @return up to k matches ordered from most to least similar
+	 */
+	public List<Match> findMostSimilar(String query, int k);
+}
@@ -0,0 +1,218 @@
+package uk.ac.shef.wit.simmetrics.index;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import uk.ac.shef.wit.simmetrics.similaritymetrics.InterfaceStringMetric;
+import uk.ac.shef.wit.simmetrics.similaritymetrics.Levenshtein;
+
+/**
+ * Index for {@link Levenshtein} using a BK-tree.
+ *
+ * Every node of the tree holds a string and its children are keyed by their
+ * edit distance to it. By the triangle inequality strings within distance r
+ * of the query can only be found below children whose key differs at most r
+ * from the distance of the query to the node.
+ *
+ * A string of length b within similarity t of a query of length a is at most
+ * (1 - t) max(a, b) edits away and, as it takes at least b - a edits to get
+ * there, at most a / t long. So it is within a distance of (1 - t) a / t.
+ */
+public final class LevenshteinIndex implements InterfaceStringIndex {
+
+	private final Levenshtein metric = new Levenshtein();
+
+	private final String[] strings;
+
+	private final Node root;
+
+	/**
+	 * Builds an index over the given strings.
+	 *
+	 * @param strings
+	 *            strings to index
+	 */
+	public LevenshteinIndex(final Collection<String> strings) {
+		this.strings = strings.toArray(new String[strings.size()]);
+		this.root = this.strings.length == 0 ? null : new Node(0);
+		for (int id = 1; id < this.strings.length; id++) {
+			insert(id);
+		}
+	}
+
+	private void insert(final int id) {
+		Node node = root;
+		while (true) {
+			final int distance = distance(strings[id], strings[node.id]);
+			final Node child = node.getChild(distance);
+			if (child == null) {
+				node.addChild(distance, new Node(id));
+				return;
+			}
+			node = child;
+		}
+	}
+
+	public InterfaceStringMetric getMetric() {
+		return metric;
+	}
+
+	public int size() {
+		return strings.length;
+	}
+
+	public List<Match> findSimilar(final String query,
+			final float minimumSimilarity) {
+		final List<Match> matches = new ArrayList<Match>();
+		search(query, new Results() {
+			float getMinimumSimilarity() {
+				return minimumSimilarity;
+			}
+
+			void add(Match match) {
+				matches.add(match);
+			}
+		});
+		Collections.sort(matches);
+		return matches;
+	}
+
+	public List<Match> findMostSimilar(final String query, final int k) {
+		if (k <= 0) {
+			return new ArrayList<Match>();
+		}
+		final PriorityQueue<Match> best = new PriorityQueue<Match>(k,
+				Collections.reverseOrder());
+		search(query, new Results() {
+			float getMinimumSimilarity() {
+				// until k matches are found anything similar will do
+				return best.size() < k ? Float.MIN_VALUE : best.peek()
+						.getSimilarity();
+			}
+
+			void add(Match match) {
+				if (best.size() < k) {
+					best.add(match);
+				} else if (match.compareTo(best.peek()) < 0) {
+					best.poll();
+					best.add(match);
+				}
+			}
+		});
+		final List<Match> matches = new ArrayList<Match>(best);
+		Collections.sort(matches);
+		return matches;
+	}
+
+	private void search(final String query, final Results results) {
+		if (root == null) {
+			return;
+		}
+		final List<Node> stack = new ArrayList<Node>();
+		stack.add(root);
+		while (!stack.isEmpty()) {
+			final Node node = stack.remove(stack.size() - 1);
+			final String string = strings[node.id];
+			final int distance = distance(query, string);
+			final float similarity = getSimilarity(distance, query, string);
+			if (similarity > 0.0f
+					&& similarity >= results.getMinimumSimilarity()) {
+				results.add(new Match(node.id, string, similarity));
+			}
+
+			final int radius = getRadius(query.length(), results
+					.getMinimumSimilarity());
+			for (int c = 0; c < node.childCount; c++) {
+				if (Math.abs(node.distances[c] - distance) <= radius) {
+					stack.add(node.children[c]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * returns the largest distance at which a string can still reach the
+	 * minimum similarity, with one edit of slack for rounding.
+	 */
+	private static int getRadius(final int queryLength,
+			final float minimumSimilarity) {
+		if (!(minimumSimilarity > 0.0f)) {
+			return Integer.MAX_VALUE;
+		}
+		final double radius = Math.floor((1.0 - minimumSimilarity)
+				* queryLength / minimumSimilarity) + 1;
+		return (int) Math.min(radius, Integer.MAX_VALUE);
+	}
+
+	private int distance(final String string1, final String string2) {
+		return (int) metric.getUnNormalisedSimilarity(string1, string2);
+	}
+
+	/**
+	 * normalises the distance the same way as
+	 * {@link Levenshtein#getSimilarity(String, String)}.
+	 */
+	private static float getSimilarity(final int distance,
+			final String string1, final String string2) {
+		final int maxLen = Math.max(string1.length(), string2.length());
+		if (maxLen == 0) {
+			return 1.0f;
+		}
+		return 1.0f - (distance / (float) maxLen);
+	}
+
+	/**
+	 * Collects the matches of a search. The minimum similarity may rise as
+	 * matches are added.
+	 */
+	private abstract static class Results {
+
+		abstract float getMinimumSimilarity();
+
+		abstract void add(Match match);
+	}
+
+	private static final class Node {
+
+		final int id;
+
+		int[] distances;
+
+		Node[] children;
+
+		int childCount;
+
+		Node(int id) {
+			this.id = id;
+		}
+
+		Node getChild(int distance) {
+			for (int c = 0; c < childCount; c++) {
+				if (distances[c] == distance) {
+					return children[c];
+				}
+			}
+			return null;
+		}
+
+		void addChild(int distance, Node child) {
+			if (children == null) {
+				distances = new int[4];
+				children = new Node[4];
+			} else if (childCount == children.length) {
+				final int[] grownDistances = new int[childCount * 2];
+				System.arraycopy(distances, 0, grownDistances, 0, childCount);
+				distances = grownDistances;
+				final Node[] grownChildren = new Node[childCount * 2];
+				System.arraycopy(children, 0, grownChildren, 0, childCount);
+				children = grownChildren;
+			}
+			distances[childCount] = distance;
+			children[childCount] = child;
+			childCount++;
+		}
+	}
+}
@@ -0,0 +1,72 @@
+package uk.ac.shef.wit.simmetrics.index;
+
+/**
+ * A string found in an index together with its similarity to the query.
+ *
+ * Matches are ordered from most to least similar, matches of equal similarity
+ * by their position in the indexed strings.
+ */
+public final class Match implements Comparable<Match> {
+
+	private final int index;
+
+	private final String string;
+
+	private final float similarity;
+
+	public Match(int index, String string, float similarity) {
+		this.index = index;
+		this.string = string;
+		this.similarity = similarity;
+	}
+
+	/**
+	 * returns the position of the string in the strings the index was built
+	 * from.
+	 *
+	 * @return the position of the string
+	 */
+	public int getIndex() {
+		return index;
+	}
+
+	public String getString() {
+		return string;
+	}
+
+	public float getSimilarity() {
+		return similarity;
+	}
+
+	public int compareTo(Match other) {
+		final int bySimilarity = Float.compare(other.similarity, similarity);
+		if (bySimilarity != 0) {
+			return bySimilarity;
+		}
+		return index < other.index ? -1 : (index == other.index ? 0 : 1);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof Match)) {
+			return false;
+		}
+		final Match other = (Match) obj;
+		return index == other.index
+				&& Float.compare(similarity, other.similarity) == 0
+				&& string.equals(other.string);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * index + Float.floatToIntBits(similarity);
+	}
+
+	@Override
+	public String toString() {
+		return index + ":" + string + "=" + similarity;
+	}
+}
@@ -0,0 +1,44 @@
+package uk.ac.shef.wit.simmetrics.index;
+
+import java.util.Collection;
+
+import uk.ac.shef.wit.simmetrics.similaritymetrics.QGramsDistance;
+import uk.ac.shef.wit.simmetrics.tokenisers.InterfaceTokeniser;
+import uk.ac.shef.wit.simmetrics.tokenisers.TokeniserQGram3Extended;
+
+/**
+ * Index for {@link QGramsDistance}. Q-grams are counted with their
+ * multiplicity. Strings of a and b q-grams sharing c q-grams differ in a + b -
+ * 2c q-grams so their similarity is at most 2c / (a + b).
+ */
+public final class QGramsDistanceIndex extends AbstractInvertedIndex {
+
+	/**
+	 * Builds an index with a {@link TokeniserQGram3Extended}.
+	 *
+	 * @param strings
+	 *            strings to index
+	 */
+	public QGramsDistanceIndex(final Collection<String> strings) {
+		this(strings, new TokeniserQGram3Extended());
+	}
+
+	/**
+	 * Builds an index with the given tokeniser.
+	 *
+	 * @param strings
+	 *            strings to index
+	 * @param tokeniser
+	 *            tokeniser to use
+	 */
+	public QGramsDistanceIndex(final Collection<String> strings,
+			final InterfaceTokeniser tokeniser) {
+		super(strings, tokeniser, new QGramsDistance(tokeniser), true);
+	}
+
+	@Override
+	protected float getMaximumSimilarity(final int overlap,
+			final int querySize, final int size) {
+		return (2.0f * overlap) / (querySize + size);
+	}
+}
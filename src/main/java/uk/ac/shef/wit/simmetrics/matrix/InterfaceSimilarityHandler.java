@@ -0,0 +1,22 @@
+package uk.ac.shef.wit.simmetrics.matrix;
+
+/**
+ * Receives the cells of a similarity matrix as they are computed.
+ *
+ * Cells arrive in no particular order and from multiple threads at once, so
+ * implementations must be thread-safe.
+ */
+public interface InterfaceSimilarityHandler {
+
+	/**
+	 * handles the similarity of a row string and a column string.
+	 *
+	 * @param row
+	 *            index of the row string
+	 * @param column
+	 *            index of the column string
+	 * @param similarity
+	 *            similarity of the row and column strings
+	 */
+	public void handle(int row, int column, float similarity);
+}
@@ -0,0 +1,228 @@
+package uk.ac.shef.wit.simmetrics.matrix;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import uk.ac.shef.wit.simmetrics.similaritymetrics.InterfaceStringMetric;
+import uk.ac.shef.wit.simmetrics.similaritymetrics.InterfaceStringMetricFactory;
+
+/**
+ * Computes the similarity of every row string with every column string in
+ * parallel.
+ *
+ * The matrix is divided into square tiles. Worker threads take tiles from a
+ * shared counter until all are done, so faster workers simply process more
+ * tiles. Each worker uses its own metric instance when created with a
+ * {@link InterfaceStringMetricFactory}. A single metric is only shared between
+ * workers if it reports to be thread-safe, otherwise it is used by one worker.
+ *
+ * Results are streamed to an {@link InterfaceSimilarityHandler} cell by cell,
+ * the full matrix is only kept in memory when asked for explicitly.
+ */
+public final class SimilarityMatrix {
+
+	private static final int DEFAULT_TILE_SIZE = 64;
+
+	private final InterfaceStringMetricFactory factory;
+
+	private final int threads;
+
+	private final int tileSize;
+
+	/**
+	 * Constructs an engine sharing the given metric between as many threads as
+	 * there are processors, or using a single thread if the metric is not
+	 * thread-safe.
+	 *
+	 * @param metric
+	 *            metric to measure similarity with
+	 * @see InterfaceStringMetric#isThreadSafe()
+	 */
+	public SimilarityMatrix(final InterfaceStringMetric metric) {
+		this(new InterfaceStringMetricFactory() {
+			public InterfaceStringMetric create() {
+				return metric;
+			}
+		}, metric.isThreadSafe() ? Runtime.getRuntime().availableProcessors()
+				: 1, DEFAULT_TILE_SIZE);
+	}
+
+	/**
+	 * Constructs an engine using a metric instance per thread, with as many
+	 * threads as there are processors.
+	 *
+	 * @param factory
+	 *            creates the metric instance of each thread
+	 */
+	public SimilarityMatrix(final InterfaceStringMetricFactory factory) {
+		this(factory, Runtime.getRuntime().availableProcessors(),
+				DEFAULT_TILE_SIZE);
+	}
+
+	/**
+	 * Constructs an engine using a metric instance per thread.
+	 *
+	 * @param factory
+	 *            creates the metric instance of each thread
+	 * @param threads
+	 *            number of worker threads
+	 * @param tileSize
+	 *            number of rows and columns in a tile
+	 */
+	public SimilarityMatrix(final InterfaceStringMetricFactory factory,
+			final int threads, final int tileSize) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("threads must be at least 1");
+		}
+		if (tileSize < 1) {
+			throw new IllegalArgumentException("tileSize must be at least 1");
+		}
+		this.factory = factory;
+		this.threads = threads;
+		this.tileSize = tileSize;
+	}
+
+	/**
+	 * computes the full similarity matrix.
+	 *
+	 * @param rows
+	 *            row strings
+	 * @param columns
+	 *            column strings
+	 * @return a matrix with the similarity of rows[i] and columns[j] at [i][j]
+	 */
+	public float[][] compute(final String[] rows, final String[] columns) {
+		final float[][] matrix = new float[rows.length][columns.length];
+		compute(rows, columns, new InterfaceSimilarityHandler() {
+			public void handle(int row, int column, float similarity) {
+				// every cell is written once by a single worker
+				matrix[row][column] = similarity;
+			}
+		});
+		return matrix;
+	}
+
+	/**
+	 * computes the similarity of every row and column string, passing each to
+	 * the handler.
+	 *
+	 * @param rows
+	 *            row strings
+	 * @param columns
+	 *            column strings
+	 * @param handler
+	 *            receives every cell of the matrix
+	 */
+	public void compute(final String[] rows, final String[] columns,
+			final InterfaceSimilarityHandler handler) {
+		run(rows, columns, handler, false, 0.0f);
+	}
+
+	/**
+	 * computes the similarity of every row and column string, passing only
+	 * those of at least the minimum similarity to the handler. Uses
+	 * {@link InterfaceStringMetric#getSimilarity(String, String, float)} so
+	 * metrics can skip most of the work for pairs below the minimum.
+	 *
+	 * @param rows
+	 *            row strings
+	 * @param columns
+	 *            column strings
+	 * @param minimumSimilarity
+	 *            the lowest similarity passed to the handler
+	 * @param handler
+	 *            receives the cells of at least the minimum similarity
+	 */
+	public void compute(final String[] rows, final String[] columns,
+			final float minimumSimilarity,
+			final InterfaceSimilarityHandler handler) {
+		run(rows, columns, handler, true, minimumSimilarity);
+	}
+
+	private void run(final String[] rows, final String[] columns,
+			final InterfaceSimilarityHandler handler, final boolean bounded,
+			final float minimumSimilarity) {
+		final long rowTiles = (rows.length + tileSize - 1) / tileSize;
+		final long columnTiles = (columns.length + tileSize - 1) / tileSize;
+		final long tiles = rowTiles * columnTiles;
+		if (tiles == 0) {
+			return;
+		}
+
+		final AtomicLong nextTile = new AtomicLong();
+		final int workers = (int) Math.min(threads, tiles);
+		final ExecutorService executor = Executors.newFixedThreadPool(workers);
+		try {
+			final List<Future<?>> futures = new ArrayList<Future<?>>();
+			for (int w = 0; w < workers; w++) {
+				futures.add(executor.submit(new Runnable() {
+					public void run() {
+						final InterfaceStringMetric metric = factory.create();
+						try {
+							long tile;
+							while ((tile = nextTile.getAndIncrement()) < tiles) {
+								computeTile(metric, rows, columns,
+										(int) (tile / columnTiles) * tileSize,
+										(int) (tile % columnTiles) * tileSize,
+										handler, bounded, minimumSimilarity);
+							}
+						} catch (RuntimeException e) {
+							// stop the other workers
+							nextTile.set(tiles);
+							throw e;
+						} catch (Error e) {
+							nextTile.set(tiles);
+							throw e;
+						}
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} catch (ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IllegalStateException(cause);
+		} catch (InterruptedException e) {
+			nextTile.set(tiles);
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	private void computeTile(final InterfaceStringMetric metric,
+			final String[] rows, final String[] columns, final int firstRow,
+			final int firstColumn, final InterfaceSimilarityHandler handler,
+			final boolean bounded, final float minimumSimilarity) {
+		final int endRow = Math.min(rows.length, firstRow + tileSize);
+		final int endColumn = Math.min(columns.length, firstColumn + tileSize);
+		for (int row = firstRow; row < endRow; row++) {
+			final String rowString = rows[row];
+			for (int column = firstColumn; column < endColumn; column++) {
+				if (!bounded) {
+					handler.handle(row, column, metric.getSimilarity(
+							rowString, columns[column]));
+				} else {
+					final float similarity = metric.getSimilarity(rowString,
+							columns[column], minimumSimilarity);
+					if (similarity >= minimumSimilarity) {
+						handler.handle(row, column, similarity);
+					}
+				}
+			}
+		}
+	}
+}
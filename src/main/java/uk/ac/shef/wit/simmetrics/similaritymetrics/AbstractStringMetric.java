@@ -39,12 +39,25 @@
 
 package uk.ac.shef.wit.simmetrics.similaritymetrics;
 
+import java.nio.CharBuffer;
+
+import uk.ac.shef.wit.simmetrics.tokenisers.InterfaceQGramCoder;
+import uk.ac.shef.wit.simmetrics.tokenisers.InterfaceTokeniser;
+import uk.ac.shef.wit.simmetrics.utils.ThreadSafe;
+
 /**
  *
  * @author Sam Chapman
  * @version 1.1
  */
 public abstract class AbstractStringMetric implements InterfaceStringMetric {
+
+	/**
+	 * characters per word, the separator included, assumed when estimating
+	 * the number of words of a string from its length.
+	 */
+	private static final float AVERAGEWORDLENGTH = 6.0f;
+
 	@Deprecated
 	public String getShortDescriptionString() {
 		return getClass().getSimpleName();
@@ -93,9 +106,13 @@ public abstract class AbstractStringMetric implements InterfaceStringMetric {
 	public final float[] batchCompareSet(final String[] set,
 			final String comparator) {
 		final float[] results = new float[set.length];
+		// the comparator is prepared once for all strings in the set
+		final PreparedString preparedComparator = new PreparedString(
+				comparator);
 		for (int strNum = 0; strNum < set.length; strNum++) {
 			// perform similarity test
-			results[strNum] = getSimilarity(set[strNum], comparator);
+			results[strNum] = getSimilarity(new PreparedString(set[strNum]),
+					preparedComparator);
 		}
 		return results;
 	}
@@ -135,6 +152,138 @@ public abstract class AbstractStringMetric implements InterfaceStringMetric {
 		return Float.POSITIVE_INFINITY;
 	}
 
+	/**
+	 * returns the factor the built in timing estimates of this metric are
+	 * multiplied by, see {@link TimingProfile}.
+	 *
+	 * @return the scale of the timing estimates
+	 */
+	protected final float getTimingScale() {
+		return TimingProfile.getDefault().getScale(getClass());
+	}
+
+	/**
+	 * returns the part of the timing estimate spent in the metrics this metric
+	 * wraps, which its timing scale does not apply to. None unless overridden.
+	 */
+	float getWrappedTimingEstimated(final String string1,
+			final String string2) {
+		return 0.0f;
+	}
+
+	/**
+	 * estimates the number of tokens of a string from its length alone, so
+	 * timing estimates need not tokenise. That is the most q-grams for q-gram
+	 * tokenisers and about a word per six characters otherwise.
+	 *
+	 * @param tokeniser
+	 * @param length
+	 *            the length of the string
+	 * @return the estimated number of tokens
+	 */
+	protected static float estimateTokenCount(
+			final InterfaceTokeniser tokeniser, final int length) {
+		if (tokeniser instanceof InterfaceQGramCoder) {
+			return ((InterfaceQGramCoder) tokeniser)
+					.getMaximumCodeCount(length);
+		}
+		return length == 0 ? 0.0f : Math.max(1.0f, length / AVERAGEWORDLENGTH);
+	}
+
+	/**
+	 * returns a similarity measure of the string comparison if it is at least
+	 * the minimum similarity. The default implementation computes the full
+	 * similarity, metrics override this to stop early.
+	 *
+	 * @param string1
+	 * @param string2
+	 * @param minimumSimilarity
+	 *            the similarity below which the exact measure is of no interest
+	 *
+	 * @return the similarity of the strings if it is at least
+	 *         minimumSimilarity, zero otherwise
+	 */
+	public float getSimilarity(final String string1, final String string2,
+			final float minimumSimilarity) {
+		final float similarity = getSimilarity(string1, string2);
+		return similarity < minimumSimilarity ? 0.0f : similarity;
+	}
+
+	/**
+	 * returns a similarity measure of the character sequences. The default
+	 * implementation compares their strings, character level metrics override
+	 * this to read the sequences in place.
+	 *
+	 * @param string1
+	 * @param string2
+	 *
+	 * @return the same similarity as for the strings of the sequences
+	 */
+	public float getSimilarity(final CharSequence string1,
+			final CharSequence string2) {
+		return getSimilarity(string1.toString(), string2.toString());
+	}
+
+	/**
+	 * returns a similarity measure of the character sequences if it is at
+	 * least the minimum similarity. The default implementation compares their
+	 * strings.
+	 *
+	 * @param string1
+	 * @param string2
+	 * @param minimumSimilarity
+	 *            the similarity below which the exact measure is of no interest
+	 *
+	 * @return the similarity of the sequences if it is at least
+	 *         minimumSimilarity, zero otherwise
+	 */
+	public float getSimilarity(final CharSequence string1,
+			final CharSequence string2, final float minimumSimilarity) {
+		return getSimilarity(string1.toString(), string2.toString(),
+				minimumSimilarity);
+	}
+
+	/**
+	 * returns a similarity measure of two slices of character arrays by
+	 * comparing them as character sequences.
+	 *
+	 * @see InterfaceStringMetric#getSimilarity(char[], int, int, char[], int,
+	 *      int)
+	 */
+	public final float getSimilarity(final char[] chars1, final int offset1,
+			final int length1, final char[] chars2, final int offset2,
+			final int length2) {
+		return getSimilarity(CharBuffer.wrap(chars1, offset1, length1),
+				CharBuffer.wrap(chars2, offset2, length2));
+	}
+
+	/**
+	 * returns a similarity measure of the prepared strings. Metrics override
+	 * this to reuse what was derived from a string before, e.g. its tokens,
+	 * instead of deriving it again. The default implementation compares the
+	 * strings.
+	 *
+	 * @param string1
+	 * @param string2
+	 *
+	 * @return the same similarity as for the strings prepared
+	 */
+	public float getSimilarity(final PreparedString string1,
+			final PreparedString string2) {
+		return getSimilarity(string1.getString(), string2.getString());
+	}
+
+	/**
+	 * returns true if the metric may be shared between threads. By default
+	 * this is the case when the class is marked {@link ThreadSafe}, metrics
+	 * wrapping other metrics override this to take those into account.
+	 *
+	 * @return true if the metric may be shared between threads
+	 */
+	public boolean isThreadSafe() {
+		return getClass().isAnnotationPresent(ThreadSafe.class);
+	}
+
 	/**
 	 * Gets the un-normalised similarity measure of the metric for the given
 	 * strings.
@@ -0,0 +1,43 @@
+package uk.ac.shef.wit.simmetrics.similaritymetrics;
+
+/**
+ * Score rows reused by each thread, so the dynamic programming metrics need
+ * neither a matrix nor a new row per comparison. A metric must be done with
+ * its row before it calls another metric.
+ */
+final class AlignmentBuffers {
+
+	/**
+	 * longest row kept between comparisons. Longer rows are allocated per
+	 * comparison and left to the garbage collector.
+	 */
+	private static final int MAXBUFFEREDLENGTH = 1 << 16;
+
+	private static final ThreadLocal<float[]> ROW = new ThreadLocal<float[]>() {
+		@Override
+		protected float[] initialValue() {
+			return new float[64];
+		}
+	};
+
+	private AlignmentBuffers() {
+		// Utility class
+	}
+
+	/**
+	 * returns a row of at least the given length. Its contents are left over
+	 * from the last use.
+	 */
+	static float[] getRow(final int length) {
+		if (length > MAXBUFFEREDLENGTH) {
+			return new float[length];
+		}
+		float[] row = ROW.get();
+		if (row.length < length) {
+			row = new float[Math.max(length,
+					Math.min(2 * row.length, MAXBUFFEREDLENGTH))];
+			ROW.set(row);
+		}
+		return row;
+	}
+}
@@ -0,0 +1,296 @@
+package uk.ac.shef.wit.simmetrics.similaritymetrics;
+
+/**
+ * Computes the unit cost Levenshtein distance using the bit-vector algorithm
+ * of Myers (1999) in the formulation of Hyyrö (2003).
+ *
+ * The shorter string is encoded as a pattern of bit masks, one bit per
+ * character. Each character of the longer string then updates a column of the
+ * dynamic programming matrix in a handful of word operations. Patterns of up
+ * to 64 characters fit a single long. Longer patterns are split into blocks of
+ * 64 characters that pass their horizontal delta on to the next block.
+ *
+ * The pattern tables are cached per thread so no memory is allocated per
+ * comparison.
+ */
+final class BitParallelEditDistance {
+
+	private static final int WORD = 64;
+
+	/**
+	 * Characters below this value are looked up directly, others through a
+	 * linear search of the non-latin characters in the pattern.
+	 */
+	private static final int LATIN = 256;
+
+	/**
+	 * Patterns with more blocks than this do not keep their tables cached on
+	 * the thread.
+	 */
+	private static final int MAXCACHEDBLOCKS = 64;
+
+	private static final ThreadLocal<PatternTable> TABLE = new ThreadLocal<PatternTable>() {
+		@Override
+		protected PatternTable initialValue() {
+			return new PatternTable(1);
+		}
+	};
+
+	private BitParallelEditDistance() {
+		// Utility class
+	}
+
+	/**
+	 * Returns the Levenshtein distance between a and b.
+	 *
+	 * @param a
+	 * @param b
+	 * @return the Levenshtein distance between a and b
+	 */
+	static int distance(CharSequence a, CharSequence b) {
+		return distance(a, b, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Returns the Levenshtein distance between a and b if it does not exceed
+	 * maxDistance. Otherwise stops as soon as the distance is known to exceed
+	 * maxDistance and returns a value greater than maxDistance.
+	 *
+	 * @param a
+	 * @param b
+	 * @param maxDistance
+	 *            the largest distance of interest
+	 * @return the Levenshtein distance between a and b, or a value greater than
+	 *         maxDistance
+	 */
+	static int distance(CharSequence a, CharSequence b, int maxDistance) {
+		// the distance is symmetric, use the shorter string as the pattern
+		final CharSequence pattern = a.length() <= b.length() ? a : b;
+		final CharSequence text = pattern == a ? b : a;
+
+		final int m = pattern.length();
+		// the distance is at least the difference in length
+		final int lengthDifference = text.length() - m;
+		if (m == 0 || lengthDifference > maxDistance) {
+			return lengthDifference;
+		}
+
+		final int blocks = (m + WORD - 1) / WORD;
+		final PatternTable table = getTable(blocks);
+		table.fill(pattern, blocks);
+		try {
+			if (blocks == 1) {
+				return singleWord(table, m, text, maxDistance);
+			}
+			return multiWord(table, m, blocks, text, maxDistance);
+		} finally {
+			table.clear(pattern, blocks);
+		}
+	}
+
+	private static int singleWord(PatternTable table, int m,
+			CharSequence text, int maxDistance) {
+		final long last = 1L << (m - 1);
+		long pv = -1L;
+		long mv = 0L;
+		int score = m;
+
+		final int n = text.length();
+		for (int j = 0; j < n; j++) {
+			final long eq = table.mask(text.charAt(j), 0, 1);
+			final long xv = eq | mv;
+			final long xh = (((eq & pv) + pv) ^ pv) | eq;
+			long ph = mv | ~(xh | pv);
+			long mh = pv & xh;
+			if ((ph & last) != 0) {
+				score++;
+			} else if ((mh & last) != 0) {
+				score--;
+			}
+			// the top row of the matrix increases by one every column
+			ph = (ph << 1) | 1L;
+			mh = mh << 1;
+			pv = mh | ~(xv | ph);
+			mv = ph & xv;
+			if (exceeds(score, n - 1 - j, maxDistance)) {
+				return score;
+			}
+		}
+		return score;
+	}
+
+	private static int multiWord(PatternTable table, int m, int blocks,
+			CharSequence text, int maxDistance) {
+		final long[] pvs = table.pv;
+		final long[] mvs = table.mv;
+		for (int b = 0; b < blocks; b++) {
+			pvs[b] = -1L;
+			mvs[b] = 0L;
+		}
+		final long last = 1L << ((m - 1) % WORD);
+		int score = m;
+
+		final int n = text.length();
+		for (int j = 0; j < n; j++) {
+			final char c = text.charAt(j);
+			// the top row of the matrix increases by one every column
+			int carry = 1;
+			for (int b = 0; b < blocks; b++) {
+				long eq = table.mask(c, b, blocks);
+				final long pv = pvs[b];
+				final long mv = mvs[b];
+				final long xv = eq | mv;
+				if (carry < 0) {
+					eq |= 1L;
+				}
+				final long xh = (((eq & pv) + pv) ^ pv) | eq;
+				long ph = mv | ~(xh | pv);
+				long mh = pv & xh;
+
+				final long high = b == blocks - 1 ? last : Long.MIN_VALUE;
+				final int carryIn = carry;
+				if ((ph & high) != 0) {
+					carry = 1;
+				} else if ((mh & high) != 0) {
+					carry = -1;
+				} else {
+					carry = 0;
+				}
+
+				ph <<= 1;
+				mh <<= 1;
+				if (carryIn < 0) {
+					mh |= 1L;
+				} else if (carryIn > 0) {
+					ph |= 1L;
+				}
+				pvs[b] = mh | ~(xv | ph);
+				mvs[b] = ph & xv;
+			}
+			score += carry;
+			if (exceeds(score, n - 1 - j, maxDistance)) {
+				return score;
+			}
+		}
+		return score;
+	}
+
+	/**
+	 * The last row of the matrix decreases by at most one per column, so the
+	 * distance is at least the current score minus the remaining columns.
+	 */
+	private static boolean exceeds(int score, int remaining, int maxDistance) {
+		return score - remaining > maxDistance;
+	}
+
+	private static PatternTable getTable(int blocks) {
+		if (blocks > MAXCACHEDBLOCKS) {
+			return new PatternTable(blocks);
+		}
+		PatternTable table = TABLE.get();
+		if (table.blocks < blocks) {
+			table = new PatternTable(blocks);
+			TABLE.set(table);
+		}
+		return table;
+	}
+
+	/**
+	 * Match masks of a pattern. For every character the masks of all blocks
+	 * are stored consecutively.
+	 */
+	private static final class PatternTable {
+
+		final int blocks;
+
+		/**
+		 * masks of latin characters, indexed by character.
+		 */
+		final long[] latin;
+
+		/**
+		 * non-latin characters found in the pattern.
+		 */
+		char[] others;
+
+		/**
+		 * masks of non-latin characters, indexed by position in others.
+		 */
+		long[] otherMasks;
+
+		int otherCount;
+
+		final long[] pv;
+
+		final long[] mv;
+
+		PatternTable(int blocks) {
+			this.blocks = blocks;
+			this.latin = new long[LATIN * blocks];
+			this.others = new char[8];
+			this.otherMasks = new long[8 * blocks];
+			this.pv = new long[blocks];
+			this.mv = new long[blocks];
+		}
+
+		void fill(CharSequence pattern, int stride) {
+			otherCount = 0;
+			final int m = pattern.length();
+			for (int i = 0; i < m; i++) {
+				final char c = pattern.charAt(i);
+				final long bit = 1L << (i % WORD);
+				final int block = i / WORD;
+				if (c < LATIN) {
+					latin[c * stride + block] |= bit;
+				} else {
+					otherMasks[indexOf(c, stride) * stride + block] |= bit;
+				}
+			}
+		}
+
+		private int indexOf(char c, int stride) {
+			for (int k = 0; k < otherCount; k++) {
+				if (others[k] == c) {
+					return k;
+				}
+			}
+			if (otherCount == others.length) {
+				final char[] grownOthers = new char[others.length * 2];
+				System.arraycopy(others, 0, grownOthers, 0, otherCount);
+				others = grownOthers;
+				final long[] grownMasks = new long[grownOthers.length * blocks];
+				System.arraycopy(otherMasks, 0, grownMasks, 0, otherCount
+						* stride);
+				otherMasks = grownMasks;
+			}
+			others[otherCount] = c;
+			for (int b = 0; b < stride; b++) {
+				otherMasks[otherCount * stride + b] = 0L;
+			}
+			return otherCount++;
+		}
+
+		long mask(char c, int block, int stride) {
+			if (c < LATIN) {
+				return latin[c * stride + block];
+			}
+			for (int k = 0; k < otherCount; k++) {
+				if (others[k] == c) {
+					return otherMasks[k * stride + block];
+				}
+			}
+			return 0L;
+		}
+
+		void clear(CharSequence pattern, int stride) {
+			final int m = pattern.length();
+			for (int i = 0; i < m; i++) {
+				final char c = pattern.charAt(i);
+				if (c < LATIN) {
+					latin[c * stride + i / WORD] = 0L;
+				}
+			}
+			otherCount = 0;
+		}
+	}
+}
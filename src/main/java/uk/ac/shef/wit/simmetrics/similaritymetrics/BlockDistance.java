@@ -40,11 +40,12 @@
 package uk.ac.shef.wit.simmetrics.similaritymetrics;
 
 import uk.ac.shef.wit.simmetrics.tokenisers.InterfaceTokeniser;
+import uk.ac.shef.wit.simmetrics.tokenisers.TokenDictionary;
 import uk.ac.shef.wit.simmetrics.tokenisers.TokeniserWhitespace;
+import uk.ac.shef.wit.simmetrics.utils.ThreadSafe;
 
-import java.util.HashSet;
-import java.util.Set;
 import java.util.ArrayList;
+import java.util.List;
 import static java.lang.Math.abs;
 /**
  * Implements the Block distance algorithm whereby vector space block distance
@@ -55,6 +56,7 @@ import static java.lang.Math.abs;
  * @author Sam Chapman
  * @version 1.1
  */
+@ThreadSafe
 public final class BlockDistance extends AbstractStringMetric 
 		 {
 
@@ -62,11 +64,17 @@ public final class BlockDistance extends AbstractStringMetric
 
 	private final InterfaceTokeniser tokeniser;
 
+	/**
+	 * dictionary of token ids, null to compare the tokens themselves.
+	 */
+	private final TokenDictionary dictionary;
+
 	/**
 	 * Constructs a BlockDistance metric with a {@link TokeniserWhitespace}.
 	 */
 	public BlockDistance() {
 		this.tokeniser = new TokeniserWhitespace();
+		this.dictionary = null;
 	}
 
 	/**
@@ -77,6 +85,22 @@ public final class BlockDistance extends AbstractStringMetric
 	 */
 	public BlockDistance(final InterfaceTokeniser tokeniser) {
 		this.tokeniser = tokeniser;
+		this.dictionary = null;
+	}
+
+	/**
+	 * Constructs a BlockDistance metric with the given tokenizer, comparing
+	 * tokens by their ids in the given dictionary.
+	 *
+	 * @param tokenizer
+	 *            tokenizer to use
+	 * @param dictionary
+	 *            dictionary of token ids, shared by the metrics of a batch job
+	 */
+	public BlockDistance(final InterfaceTokeniser tokenizer,
+			final TokenDictionary dictionary) {
+		this.tokeniser = tokenizer;
+		this.dictionary = dictionary;
 	}
 
 	@Override
@@ -89,23 +113,77 @@ public final class BlockDistance extends AbstractStringMetric
 	public float getSimilarityTimingEstimated(final String string1,
 			final String string2) {
 
-		final float str1Tokens = tokeniser.tokenizeToArrayList(string1).size();
-		final float str2Tokens = tokeniser.tokenizeToArrayList(string2).size();
+		final float str1Tokens = estimateTokenCount(tokeniser, string1.length());
+		final float str2Tokens = estimateTokenCount(tokeniser, string2.length());
 		return (((str1Tokens + str2Tokens) * str1Tokens) + ((str1Tokens + str2Tokens) * str2Tokens))
-				* ESTIMATEDTIMINGCONST;
+				* ESTIMATEDTIMINGCONST * getTimingScale();
 	}
 
 	public float getSimilarity(final String string1, final String string2) {
+		return getSimilarity(string1, string2, 0.0f);
+	}
+
+	/**
+	 * Gives up before the token counts are compared if the difference in the
+	 * number of tokens, the lowest possible distance, is too large to reach
+	 * the minimum similarity.
+	 */
+	public float getSimilarity(final String string1, final String string2,
+			final float minimumSimilarity) {
 		final ArrayList<String> str1Tokens = tokeniser
 				.tokenizeToArrayList(string1);
 		final ArrayList<String> str2Tokens = tokeniser
 				.tokenizeToArrayList(string2);
+		if (dictionary != null) {
+			return getSimilarity(dictionary.toBag(str1Tokens),
+					dictionary.toBag(str2Tokens), minimumSimilarity);
+		}
+		return getSimilarity(str1Tokens, str2Tokens, minimumSimilarity);
+	}
+
+	/**
+	 * Uses the tokens of the prepared strings.
+	 */
+	@Override
+	public float getSimilarity(final PreparedString string1,
+			final PreparedString string2) {
+		if (dictionary != null) {
+			return getSimilarity(string1.getTokenBag(tokeniser, dictionary),
+					string2.getTokenBag(tokeniser, dictionary), 0.0f);
+		}
+		return getSimilarity(string1.getTokens(tokeniser),
+				string2.getTokens(tokeniser), 0.0f);
+	}
 
+	private float getSimilarity(final List<String> str1Tokens,
+			final List<String> str2Tokens, final float minimumSimilarity) {
 		final float totalPossible = (float) (str1Tokens.size() + str2Tokens
 				.size());
 
+		final float minimumDistance = abs(str1Tokens.size() - str2Tokens.size());
+		if ((totalPossible - minimumDistance) / totalPossible < minimumSimilarity) {
+			return 0.0f;
+		}
+
 		final float totalDistance = getInnerUnNormalizedSimilarity(str1Tokens, str2Tokens);
-		return (totalPossible - totalDistance) / totalPossible;
+		final float similarity = (totalPossible - totalDistance)
+				/ totalPossible;
+		return similarity < minimumSimilarity ? 0.0f : similarity;
+	}
+
+	private float getSimilarity(final int[] str1Tokens,
+			final int[] str2Tokens, final float minimumSimilarity) {
+		final float totalPossible = (float) (str1Tokens.length + str2Tokens.length);
+
+		final float minimumDistance = abs(str1Tokens.length - str2Tokens.length);
+		if ((totalPossible - minimumDistance) / totalPossible < minimumSimilarity) {
+			return 0.0f;
+		}
+
+		final float totalDistance = getInnerUnNormalizedSimilarity(str1Tokens, str2Tokens);
+		final float similarity = (totalPossible - totalDistance)
+				/ totalPossible;
+		return similarity < minimumSimilarity ? 0.0f : similarity;
 	}
 
 	public float getUnNormalisedSimilarity(final String string1,
@@ -115,34 +193,25 @@ public final class BlockDistance extends AbstractStringMetric
 		final ArrayList<String> str2Tokens = tokeniser
 				.tokenizeToArrayList(string2);
 
+		if (dictionary != null) {
+			return getInnerUnNormalizedSimilarity(dictionary.toBag(str1Tokens),
+					dictionary.toBag(str2Tokens));
+		}
 		return getInnerUnNormalizedSimilarity(str1Tokens, str2Tokens);
 	}
 
 	private float getInnerUnNormalizedSimilarity(
-			final ArrayList<String> str1Tokens,
-			final ArrayList<String> str2Tokens) {
-		final Set<String> allTokens = new HashSet<String>();
-		allTokens.addAll(str1Tokens);
-		allTokens.addAll(str2Tokens);
-
+			final List<String> str1Tokens, final List<String> str2Tokens) {
 		int totalDistance = 0;
-		for (String token : allTokens) {
-			int countInString1 = 0;
-			int countInString2 = 0;
-			for (String sToken : str1Tokens) {
-				if (sToken.equals(token)) {
-					countInString1++;
-				}
-			}
-			for (String sToken : str2Tokens) {
-				if (sToken.equals(token)) {
-					countInString2++;
-				}
-			}
-			
-			totalDistance += abs(countInString1 - countInString2);
-
+		for (int difference : TokenBags.countDifferences(str1Tokens,
+				str2Tokens)) {
+			totalDistance += abs(difference);
 		}
 		return totalDistance;
 	}
+
+	private float getInnerUnNormalizedSimilarity(final int[] str1Tokens,
+			final int[] str2Tokens) {
+		return TokenBags.difference(str1Tokens, str2Tokens);
+	}
 }
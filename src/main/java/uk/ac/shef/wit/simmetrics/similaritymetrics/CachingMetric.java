@@ -0,0 +1,413 @@
+package uk.ac.shef.wit.simmetrics.similaritymetrics;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
+
+/**
+ * Remembers the similarities of recently compared pairs of strings, so pairs
+ * compared again, e.g. by later stages of a pipeline or on retries, are not
+ * measured again. Built with a {@link Builder}.
+ *
+ * The cache is concurrent, a caching metric is thread-safe if the metric it
+ * wraps is.
+ */
+public final class CachingMetric extends AbstractStringMetric {
+
+	/**
+	 * Configures a {@link CachingMetric}.
+	 */
+	public static final class Builder {
+
+		private final CacheBuilder<Object, Object> cacheBuilder = CacheBuilder
+				.newBuilder();
+
+		private boolean symmetric;
+
+		private int hashedLength = Integer.MAX_VALUE;
+
+		/**
+		 * sets the number of pairs whose similarity is kept.
+		 *
+		 * @param maximumSize
+		 * @return this builder
+		 */
+		public Builder maximumSize(final long maximumSize) {
+			cacheBuilder.maximumSize(maximumSize);
+			return this;
+		}
+
+		/**
+		 * sets the number of characters of the pairs kept, weighing each pair
+		 * by the length of its key. Can not be combined with
+		 * {@link #maximumSize(long)}.
+		 *
+		 * @param maximumCharacters
+		 * @return this builder
+		 */
+		public Builder maximumCharacters(final long maximumCharacters) {
+			cacheBuilder.maximumWeight(maximumCharacters).weigher(KEYLENGTH);
+			return this;
+		}
+
+		/**
+		 * drops similarities not used for the given time.
+		 *
+		 * @param duration
+		 * @param unit
+		 * @return this builder
+		 */
+		public Builder expireAfterAccess(final long duration,
+				final TimeUnit unit) {
+			cacheBuilder.expireAfterAccess(duration, unit);
+			return this;
+		}
+
+		/**
+		 * drops similarities the given time after they were measured.
+		 *
+		 * @param duration
+		 * @param unit
+		 * @return this builder
+		 */
+		public Builder expireAfterWrite(final long duration,
+				final TimeUnit unit) {
+			cacheBuilder.expireAfterWrite(duration, unit);
+			return this;
+		}
+
+		/**
+		 * sets the number of threads expected to update the cache at once, 4
+		 * by default. The cache is split in as many segments, each evicting on
+		 * its own share of the maximum size or characters.
+		 *
+		 * @param concurrencyLevel
+		 * @return this builder
+		 */
+		public Builder concurrencyLevel(final int concurrencyLevel) {
+			cacheBuilder.concurrencyLevel(concurrencyLevel);
+			return this;
+		}
+
+		/**
+		 * counts hits, misses and evictions, see
+		 * {@link CachingMetric#getStats()}.
+		 *
+		 * @return this builder
+		 */
+		public Builder recordStats() {
+			cacheBuilder.recordStats();
+			return this;
+		}
+
+		/**
+		 * keeps one similarity for a pair whichever way round it is compared.
+		 * Only for metrics whose similarity does not depend on the order of
+		 * the strings.
+		 *
+		 * @return this builder
+		 */
+		public Builder symmetric() {
+			symmetric = true;
+			return this;
+		}
+
+		/**
+		 * keeps pairs longer than the given number of characters by a 128 bit
+		 * hash rather than by the strings. Saves memory at the risk, tiny but
+		 * not nil, of two pairs sharing a similarity.
+		 *
+		 * @param length
+		 *            the number of characters of both strings together
+		 * @return this builder
+		 */
+		public Builder hashKeysLongerThan(final int length) {
+			hashedLength = length;
+			return this;
+		}
+
+		/**
+		 * builds a caching metric around the given metric. The builder may
+		 * build more, each with a cache of its own.
+		 *
+		 * @param metric
+		 *            the metric whose similarities are kept
+		 * @return the caching metric
+		 */
+		public CachingMetric build(final InterfaceStringMetric metric) {
+			return new CachingMetric(metric, cacheBuilder.<Object, Float> build(),
+					symmetric, hashedLength);
+		}
+	}
+
+	/**
+	 * weighs pairs by the characters of their keys.
+	 */
+	private static final Weigher<Object, Object> KEYLENGTH = new Weigher<Object, Object>() {
+		public int weigh(final Object key, final Object similarity) {
+			if (key instanceof Pair) {
+				final Pair pair = (Pair) key;
+				return Math.max(1, pair.string1.length()
+						+ pair.string2.length());
+			}
+			// two longs
+			return 8;
+		}
+	};
+
+	private static final long FNVPRIME = 0x100000001b3L;
+
+	private static final long GOLDENGAMMA = 0x9E3779B97F4A7C15L;
+
+	private final InterfaceStringMetric metric;
+
+	private final Cache<Object, Float> cache;
+
+	private final boolean symmetric;
+
+	private final int hashedLength;
+
+	private CachingMetric(final InterfaceStringMetric metric,
+			final Cache<Object, Float> cache, final boolean symmetric,
+			final int hashedLength) {
+		this.metric = metric;
+		this.cache = cache;
+		this.symmetric = symmetric;
+		this.hashedLength = hashedLength;
+	}
+
+	public float getSimilarity(final String string1, final String string2) {
+		try {
+			return cache.get(getKey(string1, string2), new Callable<Float>() {
+
+				public Float call() throws Exception {
+					return metric.getSimilarity(string1, string2);
+				}
+			});
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Uses a similarity kept for the pair if there is one. Otherwise the
+	 * bounded similarity is measured and kept if it is the exact similarity,
+	 * i.e. not zero for being below the minimum.
+	 */
+	@Override
+	public float getSimilarity(final String string1, final String string2,
+			final float minimumSimilarity) {
+		final Object key = getKey(string1, string2);
+		final Float cached = cache.getIfPresent(key);
+		if (cached != null) {
+			return cached < minimumSimilarity ? 0.0f : cached;
+		}
+		final float similarity = metric.getSimilarity(string1, string2,
+				minimumSimilarity);
+		if (similarity != 0.0f || minimumSimilarity <= 0.0f) {
+			cache.put(key, similarity);
+		}
+		return similarity;
+	}
+
+	public float getSimilarityTimingEstimated(final String string1,
+			final String string2) {
+		return metric.getSimilarityTimingEstimated(string1, string2);
+	}
+
+	/**
+	 * all of the estimate is the wrapped metric's, a caching metric has no
+	 * timing scale of its own.
+	 */
+	@Override
+	float getWrappedTimingEstimated(final String string1,
+			final String string2) {
+		return metric.getSimilarityTimingEstimated(string1, string2);
+	}
+
+	/**
+	 * measures the unnormalised similarity of the wrapped metric, not kept.
+	 * Metrics not extending {@link AbstractStringMetric} have none, their
+	 * similarity is returned.
+	 */
+	@Override
+	public float getUnNormalisedSimilarity(final String string1,
+			final String string2) {
+		if (metric instanceof AbstractStringMetric) {
+			return ((AbstractStringMetric) metric).getUnNormalisedSimilarity(
+					string1, string2);
+		}
+		return getSimilarity(string1, string2);
+	}
+
+	@Override
+	@Deprecated
+	public String getSimilarityExplained(final String string1,
+			final String string2) {
+		return metric.getSimilarityExplained(string1, string2);
+	}
+
+	@Override
+	@Deprecated
+	public String getShortDescriptionString() {
+		return metric.getShortDescriptionString();
+	}
+
+	@Override
+	@Deprecated
+	public String getLongDescriptionString() {
+		return metric.getLongDescriptionString();
+	}
+
+	/**
+	 * returns true if the wrapped metric is thread-safe.
+	 */
+	@Override
+	public boolean isThreadSafe() {
+		return metric.isThreadSafe();
+	}
+
+	/**
+	 * returns the hits, misses and evictions of the cache. These are only
+	 * counted if the metric was built with {@link Builder#recordStats()}.
+	 *
+	 * @return the statistics of the cache
+	 */
+	public CacheStats getStats() {
+		return cache.stats();
+	}
+
+	/**
+	 * returns the number of pairs whose similarity is kept.
+	 *
+	 * @return the number of pairs kept
+	 */
+	public long size() {
+		return cache.size();
+	}
+
+	/**
+	 * drops all similarities kept.
+	 */
+	public void invalidateAll() {
+		cache.invalidateAll();
+	}
+
+	@Override
+	public String toString() {
+		return "CachingMetric [" + metric + "]";
+	}
+
+	private Object getKey(final String string1, final String string2) {
+		if (symmetric && isAfter(string1, string2)) {
+			return getOrderedKey(string2, string1);
+		}
+		return getOrderedKey(string1, string2);
+	}
+
+	private Object getOrderedKey(final String string1, final String string2) {
+		if (string1.length() + string2.length() > hashedLength) {
+			return new HashedPair(string1, string2);
+		}
+		return new Pair(string1, string2);
+	}
+
+	/**
+	 * orders the strings of symmetric pairs, cheaply where the hash codes
+	 * differ.
+	 */
+	private static boolean isAfter(final String string1, final String string2) {
+		final int hash1 = string1.hashCode();
+		final int hash2 = string2.hashCode();
+		if (hash1 != hash2) {
+			return hash1 > hash2;
+		}
+		return string1.compareTo(string2) > 0;
+	}
+
+	/**
+	 * a pair of strings in the order compared.
+	 */
+	private static final class Pair {
+
+		final String string1;
+
+		final String string2;
+
+		Pair(final String string1, final String string2) {
+			this.string1 = string1;
+			this.string2 = string2;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * string1.hashCode() + string2.hashCode();
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (!(obj instanceof Pair)) {
+				return false;
+			}
+			final Pair other = (Pair) obj;
+			return string1.equals(other.string1)
+					&& string2.equals(other.string2);
+		}
+	}
+
+	/**
+	 * a pair of strings by two independent 64 bit hashes.
+	 */
+	private static final class HashedPair {
+
+		final long hash1;
+
+		final long hash2;
+
+		HashedPair(final String string1, final String string2) {
+			long fnv = 0xcbf29ce484222325L;
+			long gamma = 0L;
+			for (int i = 0; i < string1.length(); i++) {
+				fnv = (fnv ^ string1.charAt(i)) * FNVPRIME;
+				gamma = (gamma + string1.charAt(i)) * GOLDENGAMMA;
+			}
+			// the length separates the strings
+			fnv = (fnv ^ string1.length()) * FNVPRIME;
+			gamma = (gamma + string1.length()) * GOLDENGAMMA;
+			for (int i = 0; i < string2.length(); i++) {
+				fnv = (fnv ^ string2.charAt(i)) * FNVPRIME;
+				gamma = (gamma + string2.charAt(i)) * GOLDENGAMMA;
+			}
+			this.hash1 = mix(fnv);
+			this.hash2 = mix(gamma ^ string2.length());
+		}
+
+		/**
+		 * the finaliser of MurmurHash3, spreads every bit over the hash.
+		 */
+		private static long mix(long hash) {
+			hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+			hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+			return hash ^ (hash >>> 33);
+		}
+
+		@Override
+		public int hashCode() {
+			return (int) hash1;
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (!(obj instanceof HashedPair)) {
+				return false;
+			}
+			final HashedPair other = (HashedPair) obj;
+			return hash1 == other.hash1 && hash2 == other.hash2;
+		}
+	}
+}
@@ -0,0 +1,174 @@
+package uk.ac.shef.wit.simmetrics.similaritymetrics;
+
+import java.util.Arrays;
+
+/**
+ * Scored candidate pairs of positions in two sequences, matched greedily by
+ * descending score as in Algorithm1 of Camacho & Salhi 2006. Used by
+ * {@link TagLink} for pairs of tokens and {@link TagLinkToken} for pairs of
+ * characters.
+ *
+ * Each candidate is sorted as a single long holding its score in the high
+ * and the order it was added in the low half. Candidates of equal score
+ * therefore keep the order they were added in, as they did in the stable sort
+ * of candidate objects this replaces, so the scores are summed in the same
+ * order and give the same result.
+ *
+ * Lists are cached per thread. A metric comparing tokens with a metric that
+ * needs a list as well gets a second one.
+ */
+final class CandidateList {
+
+	/**
+	 * Lists growing beyond this many candidates are not kept cached on the
+	 * thread.
+	 */
+	private static final int MAXCACHEDCANDIDATES = 1 << 16;
+
+	private static final int INITIALCANDIDATES = 64;
+
+	private static final ThreadLocal<CandidateList> LISTS = new ThreadLocal<CandidateList>() {
+		@Override
+		protected CandidateList initialValue() {
+			return new CandidateList();
+		}
+	};
+
+	private long[] keys = new long[INITIALCANDIDATES];
+
+	private int[] tPositions = new int[INITIALCANDIDATES];
+
+	private int[] uPositions = new int[INITIALCANDIDATES];
+
+	private int size;
+
+	private boolean[] tUsed = new boolean[INITIALCANDIDATES];
+
+	private boolean[] uUsed = new boolean[INITIALCANDIDATES];
+
+	private boolean inUse;
+
+	/**
+	 * list used while this one is in use.
+	 */
+	private CandidateList next;
+
+	/**
+	 * number of pairs matched by the last call to assign.
+	 */
+	int matched;
+
+	/**
+	 * largest t position matched by the last call to assign, -1 if none.
+	 */
+	int largestTPosition;
+
+	private CandidateList() {
+		// use acquire
+	}
+
+	/**
+	 * returns an empty list of the calling thread, which must be released
+	 * after use.
+	 */
+	static CandidateList acquire() {
+		CandidateList list = LISTS.get();
+		while (list.inUse) {
+			if (list.next == null) {
+				list.next = new CandidateList();
+			}
+			list = list.next;
+		}
+		list.inUse = true;
+		list.size = 0;
+		return list;
+	}
+
+	void release() {
+		if (keys.length > MAXCACHEDCANDIDATES) {
+			keys = new long[INITIALCANDIDATES];
+			tPositions = new int[INITIALCANDIDATES];
+			uPositions = new int[INITIALCANDIDATES];
+		}
+		if (tUsed.length > MAXCACHEDCANDIDATES) {
+			tUsed = new boolean[INITIALCANDIDATES];
+		}
+		if (uUsed.length > MAXCACHEDCANDIDATES) {
+			uUsed = new boolean[INITIALCANDIDATES];
+		}
+		inUse = false;
+	}
+
+	void add(int t, int u, float score) {
+		if (size == keys.length) {
+			final long[] grownKeys = new long[size * 2];
+			System.arraycopy(keys, 0, grownKeys, 0, size);
+			keys = grownKeys;
+			tPositions = grow(tPositions, size);
+			uPositions = grow(uPositions, size);
+		}
+		// adding zero turns -0.0 into 0.0 which the comparison treated as
+		// equal
+		final int bits = Float.floatToIntBits(score + 0.0f);
+		// flip the bits of negative scores so they order as signed ints,
+		// then invert to sort by descending score
+		final int ordered = bits ^ ((bits >> 31) & 0x7fffffff);
+		keys[size] = ((long) ~ordered << 32) | size;
+		tPositions[size] = t;
+		uPositions[size] = u;
+		size++;
+	}
+
+	/**
+	 * matches candidates by descending score, skipping those with a position
+	 * already matched, and returns the sum of their scores. Sets matched and
+	 * largestTPosition.
+	 *
+	 * @param tLength
+	 *            number of t positions
+	 * @param uLength
+	 *            number of u positions
+	 * @return the sum of the scores of the matched candidates
+	 */
+	float assign(int tLength, int uLength) {
+		Arrays.sort(keys, 0, size);
+		if (tUsed.length < tLength) {
+			tUsed = new boolean[Math.max(tLength, tUsed.length * 2)];
+		}
+		if (uUsed.length < uLength) {
+			uUsed = new boolean[Math.max(uLength, uUsed.length * 2)];
+		}
+		matched = 0;
+		largestTPosition = -1;
+		float scoreValue = 0.0f;
+		for (int c = 0; c < size; c++) {
+			final long key = keys[c];
+			final int index = (int) key;
+			final int t = tPositions[index];
+			final int u = uPositions[index];
+			if (!tUsed[t] && !uUsed[u]) {
+				scoreValue += getScore(key);
+				tUsed[t] = true;
+				uUsed[u] = true;
+				if (largestTPosition < t) {
+					largestTPosition = t;
+				}
+				matched++;
+			}
+		}
+		Arrays.fill(tUsed, 0, tLength, false);
+		Arrays.fill(uUsed, 0, uLength, false);
+		return scoreValue;
+	}
+
+	private static int[] grow(int[] array, int length) {
+		final int[] grown = new int[length * 2];
+		System.arraycopy(array, 0, grown, 0, length);
+		return grown;
+	}
+
+	private static float getScore(long key) {
+		final int ordered = ~(int) (key >>> 32);
+		return Float.intBitsToFloat(ordered ^ ((ordered >> 31) & 0x7fffffff));
+	}
+}
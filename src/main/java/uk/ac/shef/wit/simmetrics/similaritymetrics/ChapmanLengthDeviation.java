@@ -39,6 +39,8 @@
 
 package uk.ac.shef.wit.simmetrics.similaritymetrics;
 
+import uk.ac.shef.wit.simmetrics.utils.ThreadSafe;
+
 /**
  * 
  * Implements the Chapman Length Deviation algorithm whereby the length
@@ -51,6 +53,7 @@ package uk.ac.shef.wit.simmetrics.similaritymetrics;
  * @author Sam Chapman
  * @version 1.1
  */
+@ThreadSafe
 public final class ChapmanLengthDeviation extends AbstractStringMetric {
 
 	/**
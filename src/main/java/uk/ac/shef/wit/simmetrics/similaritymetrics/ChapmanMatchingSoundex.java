@@ -40,6 +40,7 @@
 package uk.ac.shef.wit.simmetrics.similaritymetrics;
 
 import uk.ac.shef.wit.simmetrics.tokenisers.InterfaceTokeniser;
+import uk.ac.shef.wit.simmetrics.utils.ThreadSafe;
 
 /**
  * Implements the Chapman Matching Soundex algorithm whereby terms are matched
@@ -50,6 +51,7 @@ import uk.ac.shef.wit.simmetrics.tokenisers.InterfaceTokeniser;
  * @author Sam Chapman
  * @version 1.1
  */
+@ThreadSafe
 public final class ChapmanMatchingSoundex extends MongeElkan {
 	private final float ESTIMATEDTIMINGCONST = 0.026571428571428571428571428571429f;
 
@@ -79,10 +81,10 @@ public final class ChapmanMatchingSoundex extends MongeElkan {
 	public float getSimilarityTimingEstimated(final String string1,
 			final String string2) {
 
-		final float str1Tokens = tokeniser.tokenizeToArrayList(string1).size();
-		final float str2Tokens = tokeniser.tokenizeToArrayList(string2).size();
-		return (tokeniser.tokenizeToArrayList(string1).size() + tokeniser
-				.tokenizeToArrayList(string2).size())
-				* ((str1Tokens + str2Tokens) * ESTIMATEDTIMINGCONST);
+		final float str1Tokens = estimateTokenCount(tokeniser, string1.length());
+		final float str2Tokens = estimateTokenCount(tokeniser, string2.length());
+		return (str1Tokens + str2Tokens)
+				* ((str1Tokens + str2Tokens) * ESTIMATEDTIMINGCONST)
+				* getTimingScale();
 	}
 }
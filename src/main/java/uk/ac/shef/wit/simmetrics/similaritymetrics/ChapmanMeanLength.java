@@ -40,6 +40,7 @@
 package uk.ac.shef.wit.simmetrics.similaritymetrics;
 
 import static java.lang.Math.pow;
+import uk.ac.shef.wit.simmetrics.utils.ThreadSafe;
 
 /**
  * Implements the Chapman Mean Length algorithm provides a similarity measure
@@ -51,6 +52,7 @@ import static java.lang.Math.pow;
  * @version 1.2
  */
 
+@ThreadSafe
 public final class ChapmanMeanLength extends AbstractStringMetric {
 
 	/**
@@ -41,6 +41,7 @@ package uk.ac.shef.wit.simmetrics.similaritymetrics;
 
 import uk.ac.shef.wit.simmetrics.tokenisers.InterfaceTokeniser;
 import uk.ac.shef.wit.simmetrics.tokenisers.TokeniserWhitespace;
+import uk.ac.shef.wit.simmetrics.utils.ThreadSafe;
 
 import java.util.ArrayList;
 
@@ -55,6 +56,7 @@ import java.util.ArrayList;
  * @author Sam Chapman, NLP Group, Sheffield Uni, UK
  * 
  */
+@ThreadSafe
 public final class ChapmanOrderedNameCompoundSimilarity extends
 		AbstractStringMetric   {
 
@@ -91,11 +93,11 @@ public final class ChapmanOrderedNameCompoundSimilarity extends
 	public float getSimilarityTimingEstimated(final String string1,
 			final String string2) {
 
-		final float str1Tokens = tokenizer.tokenizeToArrayList(string1).size();
-		final float str2Tokens = tokenizer.tokenizeToArrayList(string2).size();
-		return (tokenizer.tokenizeToArrayList(string1).size() + tokenizer
-				.tokenizeToArrayList(string2).size())
-				* ((str1Tokens + str2Tokens) * ESTIMATEDTIMINGCONST);
+		final float str1Tokens = estimateTokenCount(tokenizer, string1.length());
+		final float str2Tokens = estimateTokenCount(tokenizer, string2.length());
+		return (str1Tokens + str2Tokens)
+				* ((str1Tokens + str2Tokens) * ESTIMATEDTIMINGCONST)
+				* getTimingScale();
 	}
 
 	public final float getSimilarity(final String string1, final String string2) {
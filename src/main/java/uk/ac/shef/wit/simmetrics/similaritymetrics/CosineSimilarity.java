@@ -40,7 +40,9 @@
 package uk.ac.shef.wit.simmetrics.similaritymetrics;
 
 import uk.ac.shef.wit.simmetrics.tokenisers.InterfaceTokeniser;
+import uk.ac.shef.wit.simmetrics.tokenisers.TokenDictionary;
 import uk.ac.shef.wit.simmetrics.tokenisers.TokeniserWhitespace;
+import uk.ac.shef.wit.simmetrics.utils.ThreadSafe;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -54,6 +56,7 @@ import java.util.ArrayList;
  * @author Sam Chapman
  * @version 1.1
  */
+@ThreadSafe
 public final class CosineSimilarity extends AbstractStringMetric 
 		 {
 
@@ -61,11 +64,17 @@ public final class CosineSimilarity extends AbstractStringMetric
 
 	private final InterfaceTokeniser tokeniser;
 
+	/**
+	 * dictionary of token ids, null to compare the tokens themselves.
+	 */
+	private final TokenDictionary dictionary;
+
 	/**
 	 * Constructs a CosineSimilarity metric with a {@link TokeniserWhitespace}.
 	 */
 	public CosineSimilarity() {
 		this.tokeniser = new TokeniserWhitespace();
+		this.dictionary = null;
 	}
 
 	/**
@@ -76,6 +85,22 @@ public final class CosineSimilarity extends AbstractStringMetric
 	 */
 	public CosineSimilarity(final InterfaceTokeniser tokenizer) {
 		this.tokeniser = tokenizer;
+		this.dictionary = null;
+	}
+
+	/**
+	 * Constructs a CosineSimilarity metric with the given tokenizer, comparing
+	 * tokens by their ids in the given dictionary.
+	 *
+	 * @param tokenizer
+	 *            tokenizer to use
+	 * @param dictionary
+	 *            dictionary of token ids, shared by the metrics of a batch job
+	 */
+	public CosineSimilarity(final InterfaceTokeniser tokenizer,
+			final TokenDictionary dictionary) {
+		this.tokeniser = tokenizer;
+		this.dictionary = dictionary;
 	}
 	@Deprecated
 	public String getLongDescriptionString() {
@@ -88,31 +113,83 @@ public final class CosineSimilarity extends AbstractStringMetric
 		final float str1Length = string1.length();
 		final float str2Length = string2.length();
 		return (str1Length + str2Length)
-				* ((str1Length + str2Length) * ESTIMATEDTIMINGCONST);
+				* ((str1Length + str2Length) * ESTIMATEDTIMINGCONST)
+				* getTimingScale();
 	}
 
 	public float getSimilarity(final String string1, final String string2) {
+		return getSimilarity(string1, string2, 0.0f);
+	}
+
+	/**
+	 * Gives up before the sets are combined if all terms of the smaller set
+	 * being common would not reach the minimum similarity.
+	 */
+	public float getSimilarity(final String string1, final String string2,
+			final float minimumSimilarity) {
 		final ArrayList<String> str1Tokens = tokeniser
 				.tokenizeToArrayList(string1);
 		final ArrayList<String> str2Tokens = tokeniser
 				.tokenizeToArrayList(string2);
 
-		final Set<String> allTokens = new HashSet<String>();
-		allTokens.addAll(str1Tokens);
-		final int termsInString1 = allTokens.size();
-		final Set<String> secondStringTokens = new HashSet<String>();
-		secondStringTokens.addAll(str2Tokens);
+		if (dictionary != null) {
+			return getSimilarity(dictionary.toSet(str1Tokens),
+					dictionary.toSet(str2Tokens), minimumSimilarity);
+		}
+		return getSimilarity(new HashSet<String>(str1Tokens),
+				new HashSet<String>(str2Tokens), minimumSimilarity);
+	}
+
+	/**
+	 * Uses the token sets of the prepared strings.
+	 */
+	@Override
+	public float getSimilarity(final PreparedString string1,
+			final PreparedString string2) {
+		if (dictionary != null) {
+			return getSimilarity(string1.getTokenIdSet(tokeniser, dictionary),
+					string2.getTokenIdSet(tokeniser, dictionary), 0.0f);
+		}
+		return getSimilarity(string1.getTokenSet(tokeniser),
+				string2.getTokenSet(tokeniser), 0.0f);
+	}
+
+	private static float getSimilarity(final Set<String> firstStringTokens,
+			final Set<String> secondStringTokens, final float minimumSimilarity) {
+		final int termsInString1 = firstStringTokens.size();
 		final int termsInString2 = secondStringTokens.size();
 
+		final float norm = (float) (Math.pow((float) termsInString1, 0.5f) * Math
+				.pow((float) termsInString2, 0.5f));
+		if ((float) Math.min(termsInString1, termsInString2) / norm < minimumSimilarity) {
+			return 0.0f;
+		}
+
 		// now combine the sets
+		final Set<String> allTokens = new HashSet<String>(firstStringTokens);
 		allTokens.addAll(secondStringTokens);
 		final int commonTerms = (termsInString1 + termsInString2)
 				- allTokens.size();
 
 		// return CosineSimilarity
-		return (float) (commonTerms)
-				/ (float) (Math.pow((float) termsInString1, 0.5f) * Math.pow(
-						(float) termsInString2, 0.5f));
+		final float similarity = (float) (commonTerms) / norm;
+		return similarity < minimumSimilarity ? 0.0f : similarity;
+	}
+
+	private static float getSimilarity(final int[] firstStringTokens,
+			final int[] secondStringTokens, final float minimumSimilarity) {
+		final int termsInString1 = firstStringTokens.length;
+		final int termsInString2 = secondStringTokens.length;
+
+		final float norm = (float) (Math.pow((float) termsInString1, 0.5f) * Math
+				.pow((float) termsInString2, 0.5f));
+		if ((float) Math.min(termsInString1, termsInString2) / norm < minimumSimilarity) {
+			return 0.0f;
+		}
+
+		final float similarity = (float) TokenBags.common(firstStringTokens,
+				secondStringTokens) / norm;
+		return similarity < minimumSimilarity ? 0.0f : similarity;
 	}
 
 }
@@ -40,7 +40,9 @@
 package uk.ac.shef.wit.simmetrics.similaritymetrics;
 
 import uk.ac.shef.wit.simmetrics.tokenisers.InterfaceTokeniser;
+import uk.ac.shef.wit.simmetrics.tokenisers.TokenDictionary;
 import uk.ac.shef.wit.simmetrics.tokenisers.TokeniserWhitespace;
+import uk.ac.shef.wit.simmetrics.utils.ThreadSafe;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -55,6 +57,7 @@ import java.util.Set;
  * @author Sam Chapman
  * @version 1.1
  */
+@ThreadSafe
 public final class DiceSimilarity extends AbstractStringMetric 
 		 {
 
@@ -62,11 +65,17 @@ public final class DiceSimilarity extends AbstractStringMetric
 
 	private final InterfaceTokeniser tokeniser;
 
+	/**
+	 * dictionary of token ids, null to compare the tokens themselves.
+	 */
+	private final TokenDictionary dictionary;
+
 	/**
 	 * Constructs a DiceSimilarity metric with a {@link TokeniserWhitespace}.
 	 */
 	public DiceSimilarity() {
 		tokeniser = new TokeniserWhitespace();
+		dictionary = null;
 	}
 
 	/**
@@ -77,6 +86,22 @@ public final class DiceSimilarity extends AbstractStringMetric
 	 */
 	public DiceSimilarity(final InterfaceTokeniser tokeniserToUse) {
 		tokeniser = tokeniserToUse;
+		dictionary = null;
+	}
+
+	/**
+	 * Constructs a DiceSimilarity metric with the given tokenizer, comparing
+	 * tokens by their ids in the given dictionary.
+	 *
+	 * @param tokenizer
+	 *            tokenizer to use
+	 * @param dictionary
+	 *            dictionary of token ids, shared by the metrics of a batch job
+	 */
+	public DiceSimilarity(final InterfaceTokeniser tokenizer,
+			final TokenDictionary dictionary) {
+		this.tokeniser = tokenizer;
+		this.dictionary = dictionary;
 	}
 	@Deprecated
 	public String getLongDescriptionString() {
@@ -89,12 +114,70 @@ public final class DiceSimilarity extends AbstractStringMetric
 		final float str1Length = string1.length();
 		final float str2Length = string2.length();
 		return (str1Length + str2Length)
-				* ((str1Length + str2Length) * ESTIMATEDTIMINGCONST);
+				* ((str1Length + str2Length) * ESTIMATEDTIMINGCONST)
+				* getTimingScale();
 	}
 
 	public float getSimilarity(final String string1, final String string2) {
-		final Set<String> str1Tokens = tokeniser.tokenizeToSet(string1);
-		final Set<String> str2Tokens = tokeniser.tokenizeToSet(string2);
+		return getSimilarity(string1, string2, 0.0f);
+	}
+
+	/**
+	 * Gives up before the sets are combined if all terms of the smaller set
+	 * being common would not reach the minimum similarity.
+	 */
+	public float getSimilarity(final String string1, final String string2,
+			final float minimumSimilarity) {
+		return getSimilarity((CharSequence) string1, (CharSequence) string2,
+				minimumSimilarity);
+	}
+
+	@Override
+	public float getSimilarity(final CharSequence string1,
+			final CharSequence string2) {
+		return getSimilarity(string1, string2, 0.0f);
+	}
+
+	@Override
+	public float getSimilarity(final CharSequence string1,
+			final CharSequence string2, final float minimumSimilarity) {
+		if (dictionary != null) {
+			return getSimilarity(
+					dictionary.toSet(tokeniser.tokenizeToArrayList(string1)),
+					dictionary.toSet(tokeniser.tokenizeToArrayList(string2)),
+					minimumSimilarity);
+		}
+		final QGramCodeBags sets = QGramCodeBags.of(tokeniser, string1,
+				string2);
+		if (sets != null) {
+			sets.distinct();
+			return getSimilarity(sets, minimumSimilarity);
+		}
+		return getSimilarity(tokeniser.tokenizeToSet(string1),
+				tokeniser.tokenizeToSet(string2), minimumSimilarity);
+	}
+
+	/**
+	 * Uses the token sets of the prepared strings.
+	 */
+	@Override
+	public float getSimilarity(final PreparedString string1,
+			final PreparedString string2) {
+		if (dictionary != null) {
+			return getSimilarity(string1.getTokenIdSet(tokeniser, dictionary),
+					string2.getTokenIdSet(tokeniser, dictionary), 0.0f);
+		}
+		return getSimilarity(string1.getTokenSet(tokeniser),
+				string2.getTokenSet(tokeniser), 0.0f);
+	}
+
+	private static float getSimilarity(final Set<String> str1Tokens,
+			final Set<String> str2Tokens, final float minimumSimilarity) {
+
+		if ((2.0f * Math.min(str1Tokens.size(), str2Tokens.size()))
+				/ (str1Tokens.size() + str2Tokens.size()) < minimumSimilarity) {
+			return 0.0f;
+		}
 
 		final Set<String> allTokens = new HashSet<String>();
 		allTokens.addAll(str1Tokens);
@@ -105,7 +188,33 @@ public final class DiceSimilarity extends AbstractStringMetric
 
 		// return Dices coefficient = (2*Common Terms) / (Number of distinct
 		// terms in String1 + Number of distinct terms in String2)
-		return (2.0f * commonTerms) / (str1Tokens.size() + str2Tokens.size());
+		final float similarity = (2.0f * commonTerms)
+				/ (str1Tokens.size() + str2Tokens.size());
+		return similarity < minimumSimilarity ? 0.0f : similarity;
+	}
+
+	private static float getSimilarity(final int[] str1Tokens,
+			final int[] str2Tokens, final float minimumSimilarity) {
+		if ((2.0f * Math.min(str1Tokens.length, str2Tokens.length))
+				/ (str1Tokens.length + str2Tokens.length) < minimumSimilarity) {
+			return 0.0f;
+		}
+
+		final float similarity = (2.0f * TokenBags.common(str1Tokens,
+				str2Tokens)) / (str1Tokens.length + str2Tokens.length);
+		return similarity < minimumSimilarity ? 0.0f : similarity;
+	}
+
+	private static float getSimilarity(final QGramCodeBags sets,
+			final float minimumSimilarity) {
+		if ((2.0f * Math.min(sets.size1, sets.size2))
+				/ (sets.size1 + sets.size2) < minimumSimilarity) {
+			return 0.0f;
+		}
+
+		final float similarity = (2.0f * sets.common())
+				/ (sets.size1 + sets.size2);
+		return similarity < minimumSimilarity ? 0.0f : similarity;
 	}
 
 }
@@ -40,11 +40,12 @@
 package uk.ac.shef.wit.simmetrics.similaritymetrics;
 
 import uk.ac.shef.wit.simmetrics.tokenisers.InterfaceTokeniser;
+import uk.ac.shef.wit.simmetrics.tokenisers.TokenDictionary;
 import uk.ac.shef.wit.simmetrics.tokenisers.TokeniserWhitespace;
+import uk.ac.shef.wit.simmetrics.utils.ThreadSafe;
 
-import java.util.HashSet;
-import java.util.Set;
 import java.util.ArrayList;
+import java.util.List;
 
 import static java.lang.Math.sqrt;
 
@@ -56,6 +57,7 @@ import static java.lang.Math.sqrt;
  * @author Sam Chapman
  * @version 1.2
  */
+@ThreadSafe
 public final class EuclideanDistance extends AbstractStringMetric 
 		 {
 
@@ -63,11 +65,19 @@ public final class EuclideanDistance extends AbstractStringMetric
 
 	private final InterfaceTokeniser tokenizer;
 
+	/**
+	 * dictionary of token ids, null to compare the tokens themselves.
+	 */
+	private final TokenDictionary dictionary;
+
+	private static final float BOUNDTOLERANCE = 1e-5f;
+
 	/**
 	 * Constructs a EuclideanDistance metric with a {@link TokeniserWhitespace}.
 	 */
 	public EuclideanDistance() {
 		this.tokenizer = new TokeniserWhitespace();
+		this.dictionary = null;
 	}
 
 	/**
@@ -78,6 +88,22 @@ public final class EuclideanDistance extends AbstractStringMetric
 	 */
 	public EuclideanDistance(final InterfaceTokeniser tokenizer) {
 		this.tokenizer = tokenizer;
+		this.dictionary = null;
+	}
+
+	/**
+	 * Constructs a EuclideanDistance metric with the given tokenizer, comparing
+	 * tokens by their ids in the given dictionary.
+	 *
+	 * @param tokenizer
+	 *            tokenizer to use
+	 * @param dictionary
+	 *            dictionary of token ids, shared by the metrics of a batch job
+	 */
+	public EuclideanDistance(final InterfaceTokeniser tokenizer,
+			final TokenDictionary dictionary) {
+		this.tokenizer = tokenizer;
+		this.dictionary = dictionary;
 	}
 	@Deprecated
 	public String getLongDescriptionString() {
@@ -87,21 +113,92 @@ public final class EuclideanDistance extends AbstractStringMetric
 	public float getSimilarityTimingEstimated(final String string1,
 			final String string2) {
 
-		final float str1Tokens = tokenizer.tokenizeToArrayList(string1).size();
-		final float str2Tokens = tokenizer.tokenizeToArrayList(string2).size();
+		final float str1Tokens = estimateTokenCount(tokenizer, string1.length());
+		final float str2Tokens = estimateTokenCount(tokenizer, string2.length());
 		return (((str1Tokens + str2Tokens) * str1Tokens) + ((str1Tokens + str2Tokens) * str2Tokens))
-				* ESTIMATEDTIMINGCONST;
+				* ESTIMATEDTIMINGCONST * getTimingScale();
 	}
 
 	public float getSimilarity(final String string1, final String string2) {
+		return getSimilarity(string1, string2, 0.0f);
+	}
+
+	/**
+	 * Gives up before the token counts are compared if the difference in the
+	 * number of tokens is too large to reach the minimum similarity. Spread
+	 * evenly over all distinct tokens that difference gives the lowest
+	 * possible distance.
+	 */
+	public float getSimilarity(final String string1, final String string2,
+			final float minimumSimilarity) {
 		final ArrayList<String> str1Tokens = tokenizer
 				.tokenizeToArrayList(string1);
 		final ArrayList<String> str2Tokens = tokenizer
 				.tokenizeToArrayList(string2);
+		if (dictionary != null) {
+			return getSimilarity(dictionary.toBag(str1Tokens),
+					dictionary.toBag(str2Tokens), minimumSimilarity);
+		}
+		return getSimilarity(str1Tokens, str2Tokens, minimumSimilarity);
+	}
+
+	/**
+	 * Uses the tokens of the prepared strings.
+	 */
+	@Override
+	public float getSimilarity(final PreparedString string1,
+			final PreparedString string2) {
+		if (dictionary != null) {
+			return getSimilarity(string1.getTokenBag(tokenizer, dictionary),
+					string2.getTokenBag(tokenizer, dictionary), 0.0f);
+		}
+		return getSimilarity(string1.getTokens(tokenizer),
+				string2.getTokens(tokenizer), 0.0f);
+	}
+
+	private float getSimilarity(final List<String> str1Tokens,
+			final List<String> str2Tokens, final float minimumSimilarity) {
 		float totalPossible = (float) Math.sqrt((str1Tokens.size() * str1Tokens
 				.size()) + (str2Tokens.size() * str2Tokens.size()));
+
+		final int allTokens = str1Tokens.size() + str2Tokens.size();
+		if (allTokens > 0) {
+			final double minimumDistance = Math.abs(str1Tokens.size()
+					- str2Tokens.size())
+					/ Math.sqrt(allTokens);
+			// the bound is not rounded like the distance, leave some slack
+			if ((totalPossible - minimumDistance) / totalPossible
+					+ BOUNDTOLERANCE < minimumSimilarity) {
+				return 0.0f;
+			}
+		}
+
+		final float totalDistance = getEuclidianDistance(str1Tokens, str2Tokens);
+		final float similarity = (totalPossible - totalDistance)
+				/ totalPossible;
+		return similarity < minimumSimilarity ? 0.0f : similarity;
+	}
+
+	private float getSimilarity(final int[] str1Tokens,
+			final int[] str2Tokens, final float minimumSimilarity) {
+		float totalPossible = (float) Math.sqrt((str1Tokens.length * str1Tokens.length)
+				+ (str2Tokens.length * str2Tokens.length));
+
+		final int allTokens = str1Tokens.length + str2Tokens.length;
+		if (allTokens > 0) {
+			final double minimumDistance = Math.abs(str1Tokens.length
+					- str2Tokens.length)
+					/ Math.sqrt(allTokens);
+			if ((totalPossible - minimumDistance) / totalPossible
+					+ BOUNDTOLERANCE < minimumSimilarity) {
+				return 0.0f;
+			}
+		}
+
 		final float totalDistance = getEuclidianDistance(str1Tokens, str2Tokens);
-		return (totalPossible - totalDistance) / totalPossible;
+		final float similarity = (totalPossible - totalDistance)
+				/ totalPossible;
+		return similarity < minimumSimilarity ? 0.0f : similarity;
 	}
 
 	public float getUnNormalisedSimilarity(String string1, String string2) {
@@ -110,34 +207,30 @@ public final class EuclideanDistance extends AbstractStringMetric
 		final ArrayList<String> str2Tokens = tokenizer
 				.tokenizeToArrayList(string2);
 
+		if (dictionary != null) {
+			return getEuclidianDistance(dictionary.toBag(str1Tokens),
+					dictionary.toBag(str2Tokens));
+		}
 		return getEuclidianDistance(str1Tokens, str2Tokens);
 	}
 
-	private float getEuclidianDistance(final ArrayList<String> str1Tokens,
-			final ArrayList<String> str2Tokens) {
-		final Set<String> allTokens = new HashSet<String>();
-		allTokens.addAll(str1Tokens);
-		allTokens.addAll(str2Tokens);
-
+	private float getEuclidianDistance(final List<String> str1Tokens,
+			final List<String> str2Tokens) {
 		float totalDistance = 0.0f;
-		for (final String token : allTokens) {
-			int countInString1 = 0;
-			int countInString2 = 0;
-			for (final String sToken : str1Tokens) {
-				if (sToken.equals(token)) {
-					countInString1++;
-				}
-			}
-			for (final String sToken : str2Tokens) {
-				if (sToken.equals(token)) {
-					countInString2++;
-				}
-			}
-
-			totalDistance += ((countInString1 - countInString2) * (countInString1 - countInString2));
+		for (final int difference : TokenBags.countDifferences(str1Tokens,
+				str2Tokens)) {
+			totalDistance += (difference * difference);
 		}
 
 		totalDistance = (float) sqrt(totalDistance);
 		return totalDistance;
 	}
+
+	private float getEuclidianDistance(final int[] str1Tokens,
+			final int[] str2Tokens) {
+		// rounded to a float as the sum of the counts above is
+		final float totalDistance = TokenBags.squaredDifference(str1Tokens,
+				str2Tokens);
+		return (float) sqrt(totalDistance);
+	}
 }
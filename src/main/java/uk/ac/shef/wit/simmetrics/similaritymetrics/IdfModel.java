@@ -0,0 +1,442 @@
+package uk.ac.shef.wit.simmetrics.similaritymetrics;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import uk.ac.shef.wit.simmetrics.tokenisers.InterfaceTokeniser;
+import uk.ac.shef.wit.simmetrics.tokenisers.TokeniserWhitespace;
+import uk.ac.shef.wit.simmetrics.utils.ThreadSafe;
+
+/**
+ * Inverse document frequencies of tokens, as used by {@link TagLink}.
+ *
+ * The model counts the documents and the number of documents each token
+ * occurs in. Documents can be added one at a time and models built over
+ * separate parts of a corpus merged. The IDF of a token is
+ * <code>log(N / df + 1)</code> for N documents of which df contain the token.
+ * Tokens that were never seen count as occurring in a single document, the
+ * rarest a token can be.
+ *
+ * A model can be saved to a binary file holding an open addressing hash
+ * table of its tokens. Loading maps the file into memory and looks tokens up
+ * in the mapped table, so large models are available without reading them
+ * first. Documents added to or merged into a loaded model are counted on top
+ * of the mapped table.
+ */
+@ThreadSafe
+public final class IdfModel {
+
+	private static final int MAGIC = 0x544c4946;
+
+	private static final int VERSION = 1;
+
+	private static final String CHARSET = "UTF-8";
+
+	private final InterfaceTokeniser tokeniser;
+
+	/**
+	 * counts loaded from a file, null if none.
+	 */
+	private final MappedTable table;
+
+	/**
+	 * counts added to the model, on top of those of the table.
+	 */
+	private final ConcurrentMap<String, AtomicInteger> frequencies = new ConcurrentHashMap<String, AtomicInteger>();
+
+	private final AtomicLong documents = new AtomicLong();
+
+	/**
+	 * Constructs an empty model of whitespace separated tokens.
+	 */
+	public IdfModel() {
+		this(new TokeniserWhitespace());
+	}
+
+	/**
+	 * Constructs an empty model. The tokeniser must be the one used by the
+	 * metric using the model.
+	 *
+	 * @param tokeniser
+	 *            tokeniser splitting documents into tokens
+	 */
+	public IdfModel(final InterfaceTokeniser tokeniser) {
+		this(tokeniser, null);
+	}
+
+	private IdfModel(final InterfaceTokeniser tokeniser,
+			final MappedTable table) {
+		this.tokeniser = tokeniser;
+		this.table = table;
+	}
+
+	/**
+	 * adds a document, counting each of its tokens once.
+	 *
+	 * @param document
+	 *            the document to add
+	 */
+	public void addDocument(final String document) {
+		for (String token : tokeniser.tokenizeToSet(document)) {
+			add(token, 1);
+		}
+		documents.incrementAndGet();
+	}
+
+	/**
+	 * adds the documents and token frequencies of another model, e.g. one
+	 * built over another part of the corpus.
+	 *
+	 * @param other
+	 *            the model to add
+	 */
+	public void merge(final IdfModel other) {
+		for (Map.Entry<String, Integer> entry : other.getFrequencies()
+				.entrySet()) {
+			add(entry.getKey(), entry.getValue());
+		}
+		documents.addAndGet(other.getDocumentCount());
+	}
+
+	private void add(final String token, final int count) {
+		AtomicInteger frequency = frequencies.get(token);
+		if (frequency == null) {
+			final AtomicInteger created = new AtomicInteger();
+			frequency = frequencies.putIfAbsent(token, created);
+			if (frequency == null) {
+				frequency = created;
+			}
+		}
+		frequency.addAndGet(count);
+	}
+
+	/**
+	 * returns the number of documents in the model.
+	 *
+	 * @return the number of documents
+	 */
+	public long getDocumentCount() {
+		return documents.get() + (table == null ? 0 : table.documents);
+	}
+
+	/**
+	 * returns the number of documents containing the token.
+	 *
+	 * @param token
+	 *            the token to look up
+	 * @return the number of documents containing the token, zero if it was
+	 *         never seen
+	 */
+	public int getDocumentFrequency(final String token) {
+		final AtomicInteger frequency = frequencies.get(token);
+		return (frequency == null ? 0 : frequency.get())
+				+ (table == null ? 0 : table.get(token));
+	}
+
+	/**
+	 * returns the inverse document frequency of the token.
+	 *
+	 * @param token
+	 *            the token to look up
+	 * @return the inverse document frequency of the token
+	 */
+	public float getIdf(final String token) {
+		final float n = getDocumentCount();
+		final float frequency = Math.max(1, getDocumentFrequency(token));
+		return (float) Math.log((n / frequency) + 1.0f);
+	}
+
+	/**
+	 * returns the tokeniser splitting documents into tokens.
+	 *
+	 * @return the tokeniser of the model
+	 */
+	public InterfaceTokeniser getTokeniser() {
+		return tokeniser;
+	}
+
+	/**
+	 * returns the document frequency of every token in the model.
+	 */
+	private Map<String, Integer> getFrequencies() {
+		final Map<String, Integer> all = new HashMap<String, Integer>();
+		if (table != null) {
+			table.addTo(all);
+		}
+		for (Map.Entry<String, AtomicInteger> entry : frequencies.entrySet()) {
+			final Integer frequency = all.get(entry.getKey());
+			all.put(entry.getKey(), entry.getValue().get()
+					+ (frequency == null ? 0 : frequency));
+		}
+		return all;
+	}
+
+	/**
+	 * saves the model to a file, to be loaded with {@link #load(File)}. The
+	 * model is written to a temporary file first which then replaces the
+	 * file. The file is never deleted before the new model is in its place,
+	 * if it can not be replaced it is left as it was.
+	 *
+	 * A model loaded from a file can be saved over that file only where files
+	 * in use may be replaced. Platforms locking mapped files, such as Windows,
+	 * do not allow it, the model must be saved to another file there.
+	 *
+	 * @param file
+	 *            the file to write
+	 * @throws IOException
+	 *             if the file cannot be written or the model is too large
+	 */
+	public void save(final File file) throws IOException {
+		final long documentCount = getDocumentCount();
+		final Map<String, Integer> all = getFrequencies();
+		final int size = all.size();
+		final String[] tokens = new String[size];
+		final int[] counts = new int[size];
+		final byte[][] bytes = new byte[size][];
+		int i = 0;
+		for (Map.Entry<String, Integer> entry : all.entrySet()) {
+			tokens[i] = entry.getKey();
+			counts[i] = entry.getValue();
+			bytes[i] = MappedTable.encode(entry.getKey());
+			i++;
+		}
+
+		// at most half the slots are used
+		int slots = 2;
+		while (slots < 2L * size) {
+			slots <<= 1;
+		}
+		final long entriesStart = MappedTable.HEADER + 4L * slots;
+		final int[] offsets = new int[slots];
+		Arrays.fill(offsets, -1);
+		long offset = entriesStart;
+		for (i = 0; i < size; i++) {
+			if (offset > Integer.MAX_VALUE) {
+				throw new IOException("IDF model too large to save");
+			}
+			int slot = MappedTable.spread(tokens[i].hashCode()) & (slots - 1);
+			while (offsets[slot] != -1) {
+				slot = (slot + 1) & (slots - 1);
+			}
+			offsets[slot] = (int) offset;
+			offset += MappedTable.ENTRY + bytes[i].length;
+		}
+		if (offset > Integer.MAX_VALUE) {
+			throw new IOException("IDF model too large to save");
+		}
+
+		final File temporary = new File(file.getPath() + ".tmp");
+		final DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(temporary)));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(documentCount);
+			out.writeInt(size);
+			out.writeInt(slots);
+			for (int slotOffset : offsets) {
+				out.writeInt(slotOffset);
+			}
+			for (i = 0; i < size; i++) {
+				out.writeInt(tokens[i].hashCode());
+				out.writeInt(counts[i]);
+				out.writeInt(bytes[i].length);
+				out.write(bytes[i]);
+			}
+		} finally {
+			out.close();
+		}
+		replace(temporary, file);
+	}
+
+	/**
+	 * moves the temporary file in place of the file. Where renaming does not
+	 * replace files, the file is moved aside first and moved back if the
+	 * temporary file can not take its place.
+	 */
+	private static void replace(final File temporary, final File file)
+			throws IOException {
+		if (temporary.renameTo(file)) {
+			return;
+		}
+		final File previous = new File(file.getPath() + ".old");
+		if (file.exists() && !previous.exists() && file.renameTo(previous)) {
+			if (temporary.renameTo(file)) {
+				previous.delete();
+				return;
+			}
+			if (!previous.renameTo(file)) {
+				throw new IOException("Cannot replace " + file
+						+ ", the previous model is in " + previous);
+			}
+		}
+		temporary.delete();
+		throw new IOException("Cannot replace " + file);
+	}
+
+	/**
+	 * loads a model of whitespace separated tokens saved with
+	 * {@link #save(File)}. The file is mapped into memory and must not be
+	 * changed while the model is in use.
+	 *
+	 * @param file
+	 *            the file to read
+	 * @return the model
+	 * @throws IOException
+	 *             if the file cannot be read or is not a saved model
+	 */
+	public static IdfModel load(final File file) throws IOException {
+		return load(file, new TokeniserWhitespace());
+	}
+
+	/**
+	 * loads a model saved with {@link #save(File)}. The file is mapped into
+	 * memory and must not be changed while the model is in use.
+	 *
+	 * @param file
+	 *            the file to read
+	 * @param tokeniser
+	 *            the tokeniser the model was built with
+	 * @return the model
+	 * @throws IOException
+	 *             if the file cannot be read or is not a saved model
+	 */
+	public static IdfModel load(final File file,
+			final InterfaceTokeniser tokeniser) throws IOException {
+		final RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			final FileChannel channel = raf.getChannel();
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("Not an IDF model: " + file);
+			}
+			return new IdfModel(tokeniser, new MappedTable(channel.map(
+					FileChannel.MapMode.READ_ONLY, 0, channel.size()), file));
+		} finally {
+			// the mapping stays valid after closing
+			raf.close();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "IdfModel [documents=" + getDocumentCount() + "]";
+	}
+
+	/**
+	 * Token frequencies in a mapped file. Only absolute reads are used so the
+	 * buffer can be read by several threads.
+	 *
+	 * The file holds a header, a table of entry offsets indexed by token hash
+	 * with linear probing and the entries: the hash, the document frequency
+	 * and the UTF-8 bytes of a token.
+	 */
+	private static final class MappedTable {
+
+		static final int HEADER = 24;
+
+		static final int ENTRY = 12;
+
+		final ByteBuffer buffer;
+
+		final long documents;
+
+		final int size;
+
+		final int mask;
+
+		MappedTable(ByteBuffer buffer, File file) throws IOException {
+			this.buffer = buffer;
+			if (buffer.capacity() < HEADER || buffer.getInt(0) != MAGIC
+					|| buffer.getInt(4) != VERSION) {
+				throw new IOException("Not an IDF model: " + file);
+			}
+			this.documents = buffer.getLong(8);
+			this.size = buffer.getInt(16);
+			final int slots = buffer.getInt(20);
+			if (slots <= 0 || (slots & (slots - 1)) != 0
+					|| HEADER + 4L * slots > buffer.capacity()) {
+				throw new IOException("Not an IDF model: " + file);
+			}
+			this.mask = slots - 1;
+		}
+
+		static int spread(int hash) {
+			return hash ^ (hash >>> 16);
+		}
+
+		int get(String token) {
+			final int hash = token.hashCode();
+			byte[] bytes = null;
+			int slot = spread(hash) & mask;
+			int offset;
+			while ((offset = buffer.getInt(HEADER + 4 * slot)) != -1) {
+				if (buffer.getInt(offset) == hash) {
+					if (bytes == null) {
+						bytes = encode(token);
+					}
+					if (matches(offset, bytes)) {
+						return buffer.getInt(offset + 4);
+					}
+				}
+				slot = (slot + 1) & mask;
+			}
+			return 0;
+		}
+
+		private boolean matches(int offset, byte[] bytes) {
+			if (buffer.getInt(offset + 8) != bytes.length) {
+				return false;
+			}
+			for (int b = 0; b < bytes.length; b++) {
+				if (buffer.get(offset + ENTRY + b) != bytes[b]) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		void addTo(Map<String, Integer> frequencies) {
+			int offset = HEADER + 4 * (mask + 1);
+			for (int i = 0; i < size; i++) {
+				final int length = buffer.getInt(offset + 8);
+				final byte[] bytes = new byte[length];
+				for (int b = 0; b < length; b++) {
+					bytes[b] = buffer.get(offset + ENTRY + b);
+				}
+				frequencies.put(decode(bytes), buffer.getInt(offset + 4));
+				offset += ENTRY + length;
+			}
+		}
+
+		private static byte[] encode(String token) {
+			try {
+				return token.getBytes(CHARSET);
+			} catch (UnsupportedEncodingException e) {
+				// every JVM supports UTF-8
+				throw new IllegalStateException(e);
+			}
+		}
+
+		private static String decode(byte[] bytes) {
+			try {
+				return new String(bytes, CHARSET);
+			} catch (UnsupportedEncodingException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+}
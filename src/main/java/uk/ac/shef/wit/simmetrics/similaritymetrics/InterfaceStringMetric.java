@@ -110,6 +110,87 @@ public interface InterfaceStringMetric {
 	 */
 	public float getSimilarity(String string1, String string2);
 
+	/**
+	 * returns a similarity measure of the string comparison if it is at least
+	 * the minimum similarity. Implementations may stop comparing as soon as the
+	 * minimum similarity can no longer be reached, which makes this
+	 * considerably cheaper than {@link #getSimilarity(String, String)} when
+	 * most pairs do not match.
+	 *
+	 * @param string1
+	 * @param string2
+	 * @param minimumSimilarity
+	 *            the similarity below which the exact measure is of no interest
+	 *
+	 * @return the similarity of the strings if it is at least
+	 *         minimumSimilarity, zero otherwise
+	 */
+	public float getSimilarity(String string1, String string2,
+			float minimumSimilarity);
+
+	/**
+	 * returns a similarity measure of the character sequences, the same as
+	 * for their strings. Character level metrics read the sequences in place,
+	 * so callers holding e.g. a {@link java.nio.CharBuffer} need not copy it
+	 * into a string first.
+	 *
+	 * @param string1
+	 * @param string2
+	 *
+	 * @return a float between zero to one (zero = no similarity, one = matching
+	 *         strings)
+	 */
+	public float getSimilarity(CharSequence string1, CharSequence string2);
+
+	/**
+	 * returns a similarity measure of the character sequences if it is at
+	 * least the minimum similarity, the same as for their strings.
+	 *
+	 * @param string1
+	 * @param string2
+	 * @param minimumSimilarity
+	 *            the similarity below which the exact measure is of no interest
+	 *
+	 * @return the similarity of the sequences if it is at least
+	 *         minimumSimilarity, zero otherwise
+	 * @see #getSimilarity(String, String, float)
+	 */
+	public float getSimilarity(CharSequence string1, CharSequence string2,
+			float minimumSimilarity);
+
+	/**
+	 * returns a similarity measure of two slices of character arrays, the same
+	 * as for the strings of those characters. The arrays are neither copied
+	 * nor changed.
+	 *
+	 * @param chars1
+	 *            the characters of string 1
+	 * @param offset1
+	 *            index of the first character of string 1
+	 * @param length1
+	 *            number of characters of string 1
+	 * @param chars2
+	 *            the characters of string 2
+	 * @param offset2
+	 *            index of the first character of string 2
+	 * @param length2
+	 *            number of characters of string 2
+	 *
+	 * @return a float between zero to one (zero = no similarity, one = matching
+	 *         strings)
+	 */
+	public float getSimilarity(char[] chars1, int offset1, int length1,
+			char[] chars2, int offset2, int length2);
+
+	/**
+	 * returns true if a single instance of the metric may be used by several
+	 * threads at once. Tokenisers and cost functions are assumed to be
+	 * thread-safe, as all those of the library are.
+	 *
+	 * @return true if the metric may be shared between threads
+	 */
+	public boolean isThreadSafe();
+
 	/**
 	 * returns a similarity measure of the string comparison.
 	 *
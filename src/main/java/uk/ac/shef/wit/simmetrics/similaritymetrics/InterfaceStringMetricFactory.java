@@ -0,0 +1,15 @@
+package uk.ac.shef.wit.simmetrics.similaritymetrics;
+
+/**
+ * Creates instances of a metric. Used where every thread needs its own
+ * instance of a metric that is not safe to share between threads.
+ */
+public interface InterfaceStringMetricFactory {
+
+	/**
+	 * returns a new, identically configured, instance of the metric.
+	 *
+	 * @return a new instance of the metric
+	 */
+	public InterfaceStringMetric create();
+}
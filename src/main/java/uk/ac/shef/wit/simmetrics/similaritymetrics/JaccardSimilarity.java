@@ -40,7 +40,9 @@
 package uk.ac.shef.wit.simmetrics.similaritymetrics;
 
 import uk.ac.shef.wit.simmetrics.tokenisers.InterfaceTokeniser;
+import uk.ac.shef.wit.simmetrics.tokenisers.TokenDictionary;
 import uk.ac.shef.wit.simmetrics.tokenisers.TokeniserWhitespace;
+import uk.ac.shef.wit.simmetrics.utils.ThreadSafe;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -62,6 +64,7 @@ import java.util.ArrayList;
  * @author Sam Chapman
  * @version 1.1
  */
+@ThreadSafe
 public final class JaccardSimilarity extends AbstractStringMetric 
 		 {
 
@@ -69,11 +72,17 @@ public final class JaccardSimilarity extends AbstractStringMetric
 
 	private final InterfaceTokeniser tokenizer;
 
+	/**
+	 * dictionary of token ids, null to compare the tokens themselves.
+	 */
+	private final TokenDictionary dictionary;
+
 	/**
 	 * Constructs a JaccardSimilarity metric with a {@link TokeniserWhitespace}.
 	 */
 	public JaccardSimilarity() {
 		this.tokenizer = new TokeniserWhitespace();
+		this.dictionary = null;
 	}
 
 	/**
@@ -84,6 +93,22 @@ public final class JaccardSimilarity extends AbstractStringMetric
 	 */
 	public JaccardSimilarity(final InterfaceTokeniser tokenizer) {
 		this.tokenizer = tokenizer;
+		this.dictionary = null;
+	}
+
+	/**
+	 * Constructs a JaccardSimilarity metric with the given tokenizer, comparing
+	 * tokens by their ids in the given dictionary.
+	 *
+	 * @param tokenizer
+	 *            tokenizer to use
+	 * @param dictionary
+	 *            dictionary of token ids, shared by the metrics of a batch job
+	 */
+	public JaccardSimilarity(final InterfaceTokeniser tokenizer,
+			final TokenDictionary dictionary) {
+		this.tokenizer = tokenizer;
+		this.dictionary = dictionary;
 	}
 	@Deprecated
 	public String getLongDescriptionString() {
@@ -92,12 +117,36 @@ public final class JaccardSimilarity extends AbstractStringMetric
 
 	public float getSimilarityTimingEstimated(final String string1,
 			final String string2) {
-		final float str1Tokens = tokenizer.tokenizeToArrayList(string1).size();
-		final float str2Tokens = tokenizer.tokenizeToArrayList(string2).size();
-		return (str1Tokens * str2Tokens) * ESTIMATEDTIMINGCONST;
+		final float str1Tokens = estimateTokenCount(tokenizer, string1.length());
+		final float str2Tokens = estimateTokenCount(tokenizer, string2.length());
+		return (str1Tokens * str2Tokens) * ESTIMATEDTIMINGCONST
+				* getTimingScale();
 	}
 
 	public float getSimilarity(final String string1, final String string2) {
+		return getSimilarity(string1, string2, 0.0f);
+	}
+
+	/**
+	 * Gives up before the sets are combined if the size of the smaller set
+	 * over the size of the larger set, the highest possible similarity, is
+	 * below the minimum.
+	 */
+	public float getSimilarity(final String string1, final String string2,
+			final float minimumSimilarity) {
+		return getSimilarity((CharSequence) string1, (CharSequence) string2,
+				minimumSimilarity);
+	}
+
+	@Override
+	public float getSimilarity(final CharSequence string1,
+			final CharSequence string2) {
+		return getSimilarity(string1, string2, 0.0f);
+	}
+
+	@Override
+	public float getSimilarity(final CharSequence string1,
+			final CharSequence string2, final float minimumSimilarity) {
 		/*
 		 * Each instance is represented as a Jaccard vector similarity function.
 		 * The Jaccard between two vectors X and Y is
@@ -110,25 +159,94 @@ public final class JaccardSimilarity extends AbstractStringMetric
 		 * This can more easily be described as ( |X & Y| ) / ( | X or Y | )
 		 */
 		// todo this needs checking
+		if (dictionary == null) {
+			final QGramCodeBags bags = QGramCodeBags.of(tokenizer, string1,
+					string2);
+			if (bags != null) {
+				bags.distinct();
+				return getSimilarity(bags, minimumSimilarity);
+			}
+		}
 		final ArrayList<String> str1Tokens = tokenizer
 				.tokenizeToArrayList(string1);
 		final ArrayList<String> str2Tokens = tokenizer
 				.tokenizeToArrayList(string2);
 
-		final Set<String> allTokens = new HashSet<String>();
-		allTokens.addAll(str1Tokens);
-		final int termsInString1 = allTokens.size();
-		final Set<String> secondStringTokens = new HashSet<String>();
-		secondStringTokens.addAll(str2Tokens);
+		if (dictionary != null) {
+			return getSimilarity(dictionary.toSet(str1Tokens),
+					dictionary.toSet(str2Tokens), minimumSimilarity);
+		}
+		return getSimilarity(new HashSet<String>(str1Tokens),
+				new HashSet<String>(str2Tokens), minimumSimilarity);
+	}
+
+	/**
+	 * Uses the token sets of the prepared strings.
+	 */
+	@Override
+	public float getSimilarity(final PreparedString string1,
+			final PreparedString string2) {
+		if (dictionary != null) {
+			return getSimilarity(string1.getTokenIdSet(tokenizer, dictionary),
+					string2.getTokenIdSet(tokenizer, dictionary), 0.0f);
+		}
+		return getSimilarity(string1.getTokenSet(tokenizer),
+				string2.getTokenSet(tokenizer), 0.0f);
+	}
+
+	private static float getSimilarity(final Set<String> firstStringTokens,
+			final Set<String> secondStringTokens, final float minimumSimilarity) {
+		final int termsInString1 = firstStringTokens.size();
 		final int termsInString2 = secondStringTokens.size();
 
+		if ((float) Math.min(termsInString1, termsInString2)
+				/ (float) Math.max(termsInString1, termsInString2) < minimumSimilarity) {
+			return 0.0f;
+		}
+
 		// now combine the sets
+		final Set<String> allTokens = new HashSet<String>(firstStringTokens);
 		allTokens.addAll(secondStringTokens);
 		final int commonTerms = (termsInString1 + termsInString2)
 				- allTokens.size();
 
 		// return JaccardSimilarity
-		return (float) (commonTerms) / (float) (allTokens.size());
+		final float similarity = (float) (commonTerms)
+				/ (float) (allTokens.size());
+		return similarity < minimumSimilarity ? 0.0f : similarity;
+	}
+
+	private static float getSimilarity(final int[] firstStringTokens,
+			final int[] secondStringTokens, final float minimumSimilarity) {
+		final int termsInString1 = firstStringTokens.length;
+		final int termsInString2 = secondStringTokens.length;
+
+		if ((float) Math.min(termsInString1, termsInString2)
+				/ (float) Math.max(termsInString1, termsInString2) < minimumSimilarity) {
+			return 0.0f;
+		}
+
+		final int commonTerms = TokenBags.common(firstStringTokens,
+				secondStringTokens);
+		final float similarity = (float) (commonTerms)
+				/ (float) (termsInString1 + termsInString2 - commonTerms);
+		return similarity < minimumSimilarity ? 0.0f : similarity;
+	}
+
+	private static float getSimilarity(final QGramCodeBags sets,
+			final float minimumSimilarity) {
+		final int termsInString1 = sets.size1;
+		final int termsInString2 = sets.size2;
+
+		if ((float) Math.min(termsInString1, termsInString2)
+				/ (float) Math.max(termsInString1, termsInString2) < minimumSimilarity) {
+			return 0.0f;
+		}
+
+		final int commonTerms = sets.common();
+		final float similarity = (float) (commonTerms)
+				/ (float) (termsInString1 + termsInString2 - commonTerms);
+		return similarity < minimumSimilarity ? 0.0f : similarity;
 	}
 
 }
@@ -39,7 +39,10 @@
 
 package uk.ac.shef.wit.simmetrics.similaritymetrics;
 
+import java.util.Arrays;
+
 import uk.ac.shef.wit.simmetrics.similaritymetrics.AbstractStringMetric;
+import uk.ac.shef.wit.simmetrics.utils.ThreadSafe;
 
 /**
  * Implements the Jaro algorithm providing a similarity measure between two
@@ -48,11 +51,24 @@ import uk.ac.shef.wit.simmetrics.similaritymetrics.AbstractStringMetric;
  * @author Sam Chapman
  * @version 1.1
  */
+@ThreadSafe
 public final class Jaro extends AbstractStringMetric   {
 
 
 	private final float ESTIMATEDTIMINGCONST = 4.12e-5f;
 
+	/**
+	 * longest string whose buffers are kept between comparisons.
+	 */
+	private static final int MAXBUFFEREDLENGTH = 4096;
+
+	private static final ThreadLocal<Buffers> BUFFERS = new ThreadLocal<Buffers>() {
+		@Override
+		protected Buffers initialValue() {
+			return new Buffers(32);
+		}
+	};
+
 	public String getLongDescriptionString() {
 		return "Implements the Jaro algorithm providing a similarity measure between two strings allowing character transpositions to a degree";
 	}
@@ -62,45 +78,102 @@ public final class Jaro extends AbstractStringMetric   {
 		
 		final float str1Length = string1.length();
 		final float str2Length = string2.length();
-		return (str1Length * str2Length) * ESTIMATEDTIMINGCONST;
+		return (str1Length * str2Length) * ESTIMATEDTIMINGCONST
+				* getTimingScale();
 	}
 
 	
 	public float getSimilarity(final String string1, final String string2) {
+		return getSimilarity(string1, string2, 0.0f);
+	}
+
+	/**
+	 * Gives up as soon as the similarity is known to be below the minimum.
+	 * Before any characters are compared the similarity is bounded by assuming
+	 * all characters of the shorter string are common and none are
+	 * transposed. After the common characters of string1 are found it is
+	 * bounded by assuming none are transposed.
+	 */
+	public float getSimilarity(final String string1, final String string2,
+			final float minimumSimilarity) {
+		return similarity(string1, string2, minimumSimilarity);
+	}
+
+	@Override
+	public float getSimilarity(final CharSequence string1,
+			final CharSequence string2) {
+		return similarity(string1, string2, 0.0f);
+	}
+
+	@Override
+	public float getSimilarity(final CharSequence string1,
+			final CharSequence string2, final float minimumSimilarity) {
+		return similarity(string1, string2, minimumSimilarity);
+	}
+
+	/**
+	 * the bounded jaro similarity, shared with {@link JaroWinkler}.
+	 */
+	static float similarity(final CharSequence string1,
+			final CharSequence string2, final float minimumSimilarity) {
+		final int minLength = Math.min(string1.length(), string2.length());
+		if (minLength == 0) {
+			return 0.0f;
+		}
+		if (jaro(string1, string2, minLength, 0) < minimumSimilarity) {
+			return 0.0f;
+		}
 
 		// get half the length of the string rounded up - (this is the distance
 		// used for acceptable transpositions)
 		final int halflen = ((Math.min(string1.length(), string2.length())) / 2)
 				+ ((Math.min(string1.length(), string2.length())) % 2);
 
+		final Buffers buffers = getBuffers(Math.max(string1.length(),
+				string2.length()));
+
 		// get common characters
-		final StringBuffer common1 = getCommonCharacters(string1, string2,
-				halflen);
-		final StringBuffer common2 = getCommonCharacters(string2, string1,
-				halflen);
+		final int common = getCommonCharacters(string1, string2, halflen,
+				buffers.matched, buffers.common1);
 
 		// check for zero in common
-		if (common1.length() == 0 || common2.length() == 0) {
+		if (common == 0) {
+			return 0.0f;
+		}
+		if (jaro(string1, string2, common, 0) < minimumSimilarity) {
 			return 0.0f;
 		}
 
 		// check for same length common strings returning 0.0f is not the same
-		if (common1.length() != common2.length()) {
+		if (getCommonCharacters(string2, string1, halflen, buffers.matched,
+				buffers.common2) != common) {
 			return 0.0f;
 		}
 
 		// get the number of transpositions
 		int transpositions = 0;
-		for (int i = 0; i < common1.length(); i++) {
-			if (common1.charAt(i) != common2.charAt(i))
+		for (int i = 0; i < common; i++) {
+			if (buffers.common1[i] != buffers.common2[i])
 				transpositions++;
 		}
 		transpositions /= 2.0f;
 
 		// calculate jaro metric
-		return (common1.length() / ((float) string1.length())
-				+ common2.length() / ((float) string2.length()) + (common1
-				.length() - transpositions) / ((float) common1.length())) / 3.0f;
+		final float similarity = jaro(string1, string2, common,
+				transpositions);
+		return similarity < minimumSimilarity ? 0.0f : similarity;
+	}
+
+	/**
+	 * calculates the jaro metric from the number of common characters and
+	 * transpositions.
+	 */
+	private static float jaro(final CharSequence string1,
+			final CharSequence string2, final int common,
+			final int transpositions) {
+		return (common / ((float) string1.length()) + common
+				/ ((float) string2.length()) + (common - transpositions)
+				/ ((float) common)) / 3.0f;
 	}
 
 	public float getUnNormalisedSimilarity(String string1, String string2) {
@@ -110,39 +183,75 @@ public final class Jaro extends AbstractStringMetric   {
 	}
 
 	/**
-	 * returns a string buffer of characters from string1 within string2 if they
-	 * are of a given distance seperation from the position in string1.
+	 * finds the characters from string1 within string2 if they are of a given
+	 * distance seperation from the position in string1.
 	 *
 	 * @param string1
 	 * @param string2
 	 * @param distanceSep
-	 * @return a string buffer of characters from string1 within string2 if they
-	 *         are of a given distance seperation from the position in string1
+	 * @param matched
+	 *            flags for the characters of string2 already matched, cleared
+	 *            here before use
+	 * @param commons
+	 *            receives the common characters in the order of string1
+	 * @return the number of common characters
 	 */
-	private static StringBuffer getCommonCharacters(final String string1,
-			final String string2, final int distanceSep) {
-		// create a return buffer of characters
-		final StringBuffer returnCommons = new StringBuffer();
-		// create a copy of string2 for processing
-		final StringBuffer copy = new StringBuffer(string2);
+	private static int getCommonCharacters(final CharSequence string1,
+			final CharSequence string2, final int distanceSep,
+			final boolean[] matched, final char[] commons) {
+		Arrays.fill(matched, 0, string2.length(), false);
+		int common = 0;
 		// iterate over string1
 		for (int i = 0; i < string1.length(); i++) {
 			final char ch = string1.charAt(i);
-			// set boolean for quick loop exit if found
-			boolean foundIt = false;
 			// compare char with range of characters to either side
-			for (int j = Math.max(0, i - distanceSep); !foundIt
-					&& j < Math.min(i + distanceSep, string2.length() - 1); j++) {
-				// check if found
-				if (copy.charAt(j) == ch) {
-					foundIt = true;
-					// append character found
-					returnCommons.append(ch);
-					// alter copied string2 for processing
-					copy.setCharAt(j, (char) 0);
+			final int end = Math.min(i + distanceSep, string2.length() - 1);
+			for (int j = Math.max(0, i - distanceSep); j < end; j++) {
+				// a matched character reads as (char) 0, as it did when
+				// matches were blanked out of a copy of string2
+				final char other = matched[j] ? (char) 0 : string2.charAt(j);
+				if (other == ch) {
+					matched[j] = true;
+					commons[common++] = ch;
+					break;
 				}
 			}
 		}
-		return returnCommons;
+		return common;
+	}
+
+	/**
+	 * returns the buffers of this thread, grown to hold strings of the given
+	 * length. Buffers for very long strings are not kept.
+	 */
+	private static Buffers getBuffers(final int length) {
+		if (length > MAXBUFFEREDLENGTH) {
+			return new Buffers(length);
+		}
+		Buffers buffers = BUFFERS.get();
+		if (buffers.matched.length < length) {
+			buffers = new Buffers(length);
+			BUFFERS.set(buffers);
+		}
+		return buffers;
+	}
+
+	/**
+	 * Match flags and common characters, reused by each thread so a
+	 * comparison allocates nothing.
+	 */
+	private static final class Buffers {
+
+		final boolean[] matched;
+
+		final char[] common1;
+
+		final char[] common2;
+
+		Buffers(int length) {
+			this.matched = new boolean[length];
+			this.common1 = new char[length];
+			this.common2 = new char[length];
+		}
 	}
 }
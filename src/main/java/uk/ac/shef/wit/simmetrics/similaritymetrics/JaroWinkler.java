@@ -41,6 +41,7 @@ package uk.ac.shef.wit.simmetrics.similaritymetrics;
 
 import uk.ac.shef.wit.simmetrics.similaritymetrics.AbstractStringMetric;
 import uk.ac.shef.wit.simmetrics.utils.Math;
+import uk.ac.shef.wit.simmetrics.utils.ThreadSafe;
 
 /**
  * Implements the Jaro-Winkler algorithm providing a similarity measure between
@@ -50,16 +51,17 @@ import uk.ac.shef.wit.simmetrics.utils.Math;
  * @author Sam Chapman
  * @version 1.1
  */
+@ThreadSafe
 public final class JaroWinkler extends AbstractStringMetric {
 
 	private final float ESTIMATEDTIMINGCONST = 4.342e-5f;
 
-	private final AbstractStringMetric jaro = new Jaro();
-
 	private static final int MINPREFIXTESTLENGTH = 6;
 
 	private static final float PREFIXADUSTMENTSCALE = 0.1f;
 
+	private static final float JAROTOLERANCE = 1e-5f;
+
 	@Deprecated
 	public String getLongDescriptionString() {
 		return "Implements the Jaro-Winkler algorithm providing a similarity measure between two strings allowing character transpositions to a degree adjusting the weighting for common prefixes";
@@ -70,12 +72,25 @@ public final class JaroWinkler extends AbstractStringMetric {
 
 		final float str1Length = string1.length();
 		final float str2Length = string2.length();
-		return (str1Length * str2Length) * ESTIMATEDTIMINGCONST;
+		return (str1Length * str2Length) * ESTIMATEDTIMINGCONST
+				* getTimingScale();
 	}
 
 	public float getSimilarity(final String string1, final String string2) {
+		return getSimilarity((CharSequence) string1, (CharSequence) string2);
+	}
+
+	public float getSimilarity(final String string1, final String string2,
+			final float minimumSimilarity) {
+		return getSimilarity((CharSequence) string1, (CharSequence) string2,
+				minimumSimilarity);
+	}
+
+	@Override
+	public float getSimilarity(final CharSequence string1,
+			final CharSequence string2) {
 		// gets normal Jaro Score
-		final float dist = jaro.getSimilarity(string1, string2);
+		final float dist = Jaro.similarity(string1, string2, 0.0f);
 
 		// This extension modifies the weights of poorly matching pairs string1,
 		// string2 which share a common prefix
@@ -84,6 +99,26 @@ public final class JaroWinkler extends AbstractStringMetric {
 				+ ((float) prefixLength * PREFIXADUSTMENTSCALE * (1.0f - dist));
 	}
 
+	/**
+	 * The prefix adjustment only raises the Jaro score, so the minimum
+	 * similarity is translated into a minimum Jaro score and the bounded Jaro
+	 * metric does the work.
+	 */
+	@Override
+	public float getSimilarity(final CharSequence string1,
+			final CharSequence string2, final float minimumSimilarity) {
+		final int prefixLength = getPrefixLength(string1, string2);
+		final float prefixWeight = (float) prefixLength * PREFIXADUSTMENTSCALE;
+		// slightly lower than required to absorb rounding, the result is
+		// checked exactly below
+		final float minimumJaro = (minimumSimilarity - prefixWeight)
+				/ (1.0f - prefixWeight) - JAROTOLERANCE;
+		final float dist = Jaro.similarity(string1, string2, minimumJaro);
+		final float similarity = dist
+				+ ((float) prefixLength * PREFIXADUSTMENTSCALE * (1.0f - dist));
+		return similarity < minimumSimilarity ? 0.0f : similarity;
+	}
+
 	/**
 	 * gets the prefix length found of common characters at the begining of the
 	 * strings.
@@ -93,8 +128,8 @@ public final class JaroWinkler extends AbstractStringMetric {
 	 * @return the prefix length found of common characters at the begining of
 	 *         the strings
 	 */
-	private static int getPrefixLength(final String string1,
-			final String string2) {
+	private static int getPrefixLength(final CharSequence string1,
+			final CharSequence string2) {
 		final int n = Math.min3(MINPREFIXTESTLENGTH, string1.length(),
 				string2.length());
 		// check for prefix similarity of length n
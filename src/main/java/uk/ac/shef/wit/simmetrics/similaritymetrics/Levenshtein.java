@@ -42,6 +42,7 @@ package uk.ac.shef.wit.simmetrics.similaritymetrics;
 import uk.ac.shef.wit.simmetrics.similaritymetrics.costfunctions.AbstractSubstitutionCost;
 import uk.ac.shef.wit.simmetrics.similaritymetrics.costfunctions.SubCost01;
 import uk.ac.shef.wit.simmetrics.utils.Math;
+import uk.ac.shef.wit.simmetrics.utils.ThreadSafe;
 
 /**
  * Implements the basic Levenshtein algorithm providing a similarity measure
@@ -50,12 +51,14 @@ import uk.ac.shef.wit.simmetrics.utils.Math;
  * @author Sam Chapman
  * @version 1.1
  */
+@ThreadSafe
 public final class Levenshtein extends AbstractStringMetric 
 		 {
 
 	private final float ESTIMATEDTIMINGCONST = 1.8e-4f;
 
 	private final AbstractSubstitutionCost dCostFunc = new SubCost01();
+
 	@Deprecated
 	public String getLongDescriptionString() {
 		return "Implements the basic Levenshtein algorithm providing a similarity measure between two strings";
@@ -66,12 +69,18 @@ public final class Levenshtein extends AbstractStringMetric
 
 		final float str1Length = string1.length();
 		final float str2Length = string2.length();
-		return (str1Length * str2Length) * ESTIMATEDTIMINGCONST;
+		return (str1Length * str2Length) * ESTIMATEDTIMINGCONST
+				* getTimingScale();
 	}
 
 	public float getSimilarity(final String string1, final String string2) {
-		final float levensteinDistance = getUnNormalisedSimilarity(string1,
-				string2);
+		return getSimilarity((CharSequence) string1, (CharSequence) string2);
+	}
+
+	@Override
+	public float getSimilarity(final CharSequence string1,
+			final CharSequence string2) {
+		final float levensteinDistance = getDistance(string1, string2);
 		// convert into zero to one return
 
 		// get the max possible levenstein distance score for string
@@ -90,7 +99,82 @@ public final class Levenshtein extends AbstractStringMetric
 
 	}
 
+	public float getSimilarity(final String string1, final String string2,
+			final float minimumSimilarity) {
+		return getSimilarity((CharSequence) string1, (CharSequence) string2,
+				minimumSimilarity);
+	}
+
+	@Override
+	public float getSimilarity(final CharSequence string1,
+			final CharSequence string2, final float minimumSimilarity) {
+		if (!(dCostFunc instanceof SubCost01)) {
+			final float similarity = getSimilarity(string1, string2);
+			return similarity < minimumSimilarity ? 0.0f : similarity;
+		}
+
+		int maxLen = string1.length();
+		if (maxLen < string2.length()) {
+			maxLen = string2.length();
+		}
+		if (maxLen == 0) {
+			return 1.0f < minimumSimilarity ? 0.0f : 1.0f;
+		}
+
+		final int maxDistance = getMaximumDistance(maxLen, minimumSimilarity);
+		if (maxDistance < 0) {
+			return 0.0f;
+		}
+		final int distance = BitParallelEditDistance.distance(string1,
+				string2, maxDistance);
+		if (distance > maxDistance) {
+			return 0.0f;
+		}
+		return 1.0f - (distance / (float) maxLen);
+	}
+
+	/**
+	 * gets the largest distance for which the similarity is still at least the
+	 * minimum similarity. Computed the same way as in getSimilarity so float
+	 * rounding can not make the two disagree.
+	 *
+	 * @param maxLen
+	 *            length of the longest string
+	 * @param minimumSimilarity
+	 * @return the largest acceptable distance, -1 if there is none
+	 */
+	private static int getMaximumDistance(final int maxLen,
+			final float minimumSimilarity) {
+		if (minimumSimilarity <= 0.0f) {
+			return maxLen;
+		}
+		if (minimumSimilarity > 1.0f) {
+			return -1;
+		}
+		int maxDistance = (int) ((1.0f - minimumSimilarity) * maxLen);
+		while (maxDistance >= 0
+				&& 1.0f - (maxDistance / (float) maxLen) < minimumSimilarity) {
+			maxDistance--;
+		}
+		while (maxDistance < maxLen
+				&& 1.0f - ((maxDistance + 1) / (float) maxLen) >= minimumSimilarity) {
+			maxDistance++;
+		}
+		return maxDistance;
+	}
+
 	public float getUnNormalisedSimilarity(final String s, final String t) {
+		return getDistance(s, t);
+	}
+
+	private float getDistance(final CharSequence s, final CharSequence t) {
+		if (dCostFunc instanceof SubCost01) {
+			return BitParallelEditDistance.distance(s, t);
+		}
+		return getWeightedEditDistance(s.toString(), t.toString());
+	}
+
+	private float getWeightedEditDistance(final String s, final String t) {
 
 		/*
 		 * The levenstein distance function:
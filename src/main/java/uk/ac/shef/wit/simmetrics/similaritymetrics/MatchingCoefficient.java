@@ -40,9 +40,12 @@
 package uk.ac.shef.wit.simmetrics.similaritymetrics;
 
 import uk.ac.shef.wit.simmetrics.tokenisers.InterfaceTokeniser;
+import uk.ac.shef.wit.simmetrics.tokenisers.TokenDictionary;
 import uk.ac.shef.wit.simmetrics.tokenisers.TokeniserWhitespace;
+import uk.ac.shef.wit.simmetrics.utils.ThreadSafe;
 
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Implements the Matching Coefficient algorithm providing a similarity measure
@@ -51,18 +54,25 @@ import java.util.ArrayList;
  * @author Sam Chapman
  * @version 1.1
  */
+@ThreadSafe
 public final class MatchingCoefficient extends AbstractStringMetric {
 
 	private final float ESTIMATEDTIMINGCONST = 2.0e-4f;
 
 	private final InterfaceTokeniser tokenizer;
 
+	/**
+	 * dictionary of token ids, null to compare the tokens themselves.
+	 */
+	private final TokenDictionary dictionary;
+
 	/**
 	 * Constructs a MatchingCoefficient metric with a
 	 * {@link TokeniserWhitespace}.
 	 */
 	public MatchingCoefficient() {
 		this.tokenizer = new TokeniserWhitespace();
+		this.dictionary = null;
 	}
 
 	/**
@@ -73,6 +83,22 @@ public final class MatchingCoefficient extends AbstractStringMetric {
 	 */
 	public MatchingCoefficient(final InterfaceTokeniser tokenizer) {
 		this.tokenizer = tokenizer;
+		this.dictionary = null;
+	}
+
+	/**
+	 * Constructs a MatchingCoefficient metric with the given tokenizer, comparing
+	 * tokens by their ids in the given dictionary.
+	 *
+	 * @param tokenizer
+	 *            tokenizer to use
+	 * @param dictionary
+	 *            dictionary of token ids, shared by the metrics of a batch job
+	 */
+	public MatchingCoefficient(final InterfaceTokeniser tokenizer,
+			final TokenDictionary dictionary) {
+		this.tokenizer = tokenizer;
+		this.dictionary = dictionary;
 	}
 	@Deprecated
 	public String getLongDescriptionString() {
@@ -82,21 +108,67 @@ public final class MatchingCoefficient extends AbstractStringMetric {
 	public float getSimilarityTimingEstimated(final String string1,
 			final String string2) {
 
-		final float str1Tokens = tokenizer.tokenizeToArrayList(string1).size();
-		final float str2Tokens = tokenizer.tokenizeToArrayList(string2).size();
-		return (str2Tokens * str1Tokens) * ESTIMATEDTIMINGCONST;
+		final float str1Tokens = estimateTokenCount(tokenizer, string1.length());
+		final float str2Tokens = estimateTokenCount(tokenizer, string2.length());
+		return (str2Tokens * str1Tokens) * ESTIMATEDTIMINGCONST
+				* getTimingScale();
 	}
 
 	public float getSimilarity(final String string1, final String string2) {
+		return getSimilarity(string1, string2, 0.0f);
+	}
+
+	/**
+	 * Stops matching tokens once the tokens of string1 left to match can no
+	 * longer lift the number found to the minimum similarity.
+	 */
+	public float getSimilarity(final String string1, final String string2,
+			final float minimumSimilarity) {
 		final ArrayList<String> str1Tokens = tokenizer
 				.tokenizeToArrayList(string1);
 		final ArrayList<String> str2Tokens = tokenizer
 				.tokenizeToArrayList(string2);
+		if (dictionary != null) {
+			return getSimilarity(dictionary.toBag(str1Tokens),
+					dictionary.toBag(str2Tokens), minimumSimilarity);
+		}
+		return getSimilarity(str1Tokens, str2Tokens, minimumSimilarity);
+	}
+
+	/**
+	 * Uses the tokens of the prepared strings.
+	 */
+	@Override
+	public float getSimilarity(final PreparedString string1,
+			final PreparedString string2) {
+		if (dictionary != null) {
+			return getSimilarity(string1.getTokenBag(tokenizer, dictionary),
+					string2.getTokenBag(tokenizer, dictionary), 0.0f);
+		}
+		return getSimilarity(string1.getTokens(tokenizer),
+				string2.getTokens(tokenizer), 0.0f);
+	}
 
+	private float getSimilarity(final List<String> str1Tokens,
+			final List<String> str2Tokens, final float minimumSimilarity) {
 		final int totalPossible = Math
 				.max(str1Tokens.size(), str2Tokens.size());
-		return getInnerUnNormalisedSimilarity(str1Tokens, str2Tokens)
+		// one less than needed to absorb rounding, the result is checked
+		// exactly below
+		final int minimumFound = (int) Math.ceil(minimumSimilarity
+				* totalPossible) - 1;
+		final float similarity = getInnerUnNormalisedSimilarity(str1Tokens,
+				str2Tokens, minimumFound) / (float) totalPossible;
+		return similarity < minimumSimilarity ? 0.0f : similarity;
+	}
+
+	private float getSimilarity(final int[] str1Tokens,
+			final int[] str2Tokens, final float minimumSimilarity) {
+		final int totalPossible = Math.max(str1Tokens.length,
+				str2Tokens.length);
+		final float similarity = TokenBags.found(str1Tokens, str2Tokens)
 				/ (float) totalPossible;
+		return similarity < minimumSimilarity ? 0.0f : similarity;
 	}
 
 	public float getUnNormalisedSimilarity(String string1, String string2) {
@@ -105,14 +177,28 @@ public final class MatchingCoefficient extends AbstractStringMetric {
 		final ArrayList<String> str2Tokens = tokenizer
 				.tokenizeToArrayList(string2);
 
-		return getInnerUnNormalisedSimilarity(str1Tokens, str2Tokens);
+		if (dictionary != null) {
+			return TokenBags.found(dictionary.toBag(str1Tokens),
+					dictionary.toBag(str2Tokens));
+		}
+		return getInnerUnNormalisedSimilarity(str1Tokens, str2Tokens, 0);
 	}
 
+	/**
+	 * counts the tokens of str1Tokens found in str2Tokens. Stops early,
+	 * returning a count below minimumFound, once minimumFound can no longer be
+	 * reached.
+	 */
 	private float getInnerUnNormalisedSimilarity(
-			final ArrayList<String> str1Tokens,
-			final ArrayList<String> str2Tokens) {
+			final List<String> str1Tokens, final List<String> str2Tokens,
+			final int minimumFound) {
 		int totalFound = 0;
+		int remaining = str1Tokens.size();
 		for (Object str1Token : str1Tokens) {
+			if (totalFound + remaining < minimumFound) {
+				return totalFound;
+			}
+			remaining--;
 			final String sToken = (String) str1Token;
 			boolean found = false;
 			for (Object str2Token : str2Tokens) {
@@ -41,8 +41,10 @@ package uk.ac.shef.wit.simmetrics.similaritymetrics;
 
 import uk.ac.shef.wit.simmetrics.tokenisers.InterfaceTokeniser;
 import uk.ac.shef.wit.simmetrics.tokenisers.TokeniserWhitespace;
+import uk.ac.shef.wit.simmetrics.utils.ThreadSafe;
 
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Implements the Monge Elkan algorithm providing an matching style similarity
@@ -51,6 +53,7 @@ import java.util.ArrayList;
  * @author Sam Chapman
  * @version 1.1
  */
+@ThreadSafe
 public class MongeElkan extends AbstractStringMetric   {
 
 	private final float ESTIMATEDTIMINGCONST = 0.0344f;
@@ -110,10 +113,10 @@ public class MongeElkan extends AbstractStringMetric   {
 
 	public float getSimilarityTimingEstimated(final String string1,
 			final String string2) {
-		final float str1Tokens = tokeniser.tokenizeToArrayList(string1).size();
-		final float str2Tokens = tokeniser.tokenizeToArrayList(string2).size();
+		final float str1Tokens = estimateTokenCount(tokeniser, string1.length());
+		final float str2Tokens = estimateTokenCount(tokeniser, string2.length());
 		return (((str1Tokens + str2Tokens) * str1Tokens) + ((str1Tokens + str2Tokens) * str2Tokens))
-				* ESTIMATEDTIMINGCONST;
+				* ESTIMATEDTIMINGCONST * getTimingScale();
 	}
 
 	public final float getSimilarity(final String string1, final String string2) {
@@ -122,7 +125,21 @@ public class MongeElkan extends AbstractStringMetric   {
 				.tokenizeToArrayList(string1);
 		final ArrayList<String> str2Tokens = tokeniser
 				.tokenizeToArrayList(string2);
+		return getSimilarity(str1Tokens, str2Tokens);
+	}
 
+	/**
+	 * Uses the tokens of the prepared strings.
+	 */
+	@Override
+	public final float getSimilarity(final PreparedString string1,
+			final PreparedString string2) {
+		return getSimilarity(string1.getTokens(tokeniser),
+				string2.getTokens(tokeniser));
+	}
+
+	private float getSimilarity(final List<String> str1Tokens,
+			final List<String> str2Tokens) {
 		float sumMatches = 0.0f;
 		float maxFound;
 		for (Object str1Token : str1Tokens) {
@@ -139,4 +156,9 @@ public class MongeElkan extends AbstractStringMetric   {
 		return sumMatches / (float) str1Tokens.size();
 	}
 
+	@Override
+	public boolean isThreadSafe() {
+		return super.isThreadSafe() && internalStringMetric.isThreadSafe();
+	}
+
 }
@@ -41,9 +41,13 @@ package uk.ac.shef.wit.simmetrics.similaritymetrics;
 
 import uk.ac.shef.wit.simmetrics.similaritymetrics.costfunctions.InterfaceSubstitutionCost;
 import uk.ac.shef.wit.simmetrics.similaritymetrics.costfunctions.SubCost01;
+import uk.ac.shef.wit.simmetrics.similaritymetrics.costfunctions.SubstitutionCostTable;
 import uk.ac.shef.wit.simmetrics.similaritymetrics.AbstractStringMetric;
+import uk.ac.shef.wit.simmetrics.utils.ThreadSafe;
 import static uk.ac.shef.wit.simmetrics.utils.Math.min3;
 
+import java.util.Arrays;
+
 /**
  * Implements the Needleman-Wunch algorithm providing an edit distance based
  * similarity measure between two strings
@@ -51,6 +55,7 @@ import static uk.ac.shef.wit.simmetrics.utils.Math.min3;
  * @author Sam Chapman
  * @version 1.1
  */
+@ThreadSafe
 public final class NeedlemanWunch extends AbstractStringMetric {
 
 	private final float ESTIMATEDTIMINGCONST = 1.842e-4f;
@@ -59,6 +64,11 @@ public final class NeedlemanWunch extends AbstractStringMetric {
 
 	private final float gapCost;
 
+	/**
+	 * Fraction of the maximum score the band is widened by to absorb rounding.
+	 */
+	private static final float BANDTOLERANCE = 1e-4f;
+
 	public NeedlemanWunch() {
 		this(2.0f, new SubCost01());
 	}
@@ -109,14 +119,29 @@ public final class NeedlemanWunch extends AbstractStringMetric {
 
 		final float str1Length = string1.length();
 		final float str2Length = string2.length();
-		return (str1Length * str2Length) * ESTIMATEDTIMINGCONST;
+		return (str1Length * str2Length) * ESTIMATEDTIMINGCONST
+				* getTimingScale();
 	}
 
 	public float getSimilarity(final String string1, final String string2) {
-		float needlemanWunch = getUnNormalisedSimilarity(string1, string2);
+		return getSimilarity((CharSequence) string1, (CharSequence) string2);
+	}
+
+	@Override
+	public float getSimilarity(final CharSequence string1,
+			final CharSequence string2) {
+		return normalise(align(string1, string2), string1.length(),
+				string2.length());
+	}
 
+	/**
+	 * normalises an edit score into the zero to one region from the min and
+	 * max possible scores of strings of the given lengths.
+	 */
+	private float normalise(float needlemanWunch, final int length1,
+			final int length2) {
 		// normalise into zero to one region from min max possible
-		float maxValue = Math.max(string1.length(), string2.length());
+		float maxValue = Math.max(length1, length2);
 		float minValue = maxValue;
 		if (dCostFunc.getMaxCost() > gapCost) {
 			maxValue *= dCostFunc.getMaxCost();
@@ -143,49 +168,200 @@ public final class NeedlemanWunch extends AbstractStringMetric {
 
 	}
 
+	/**
+	 * Implements the bounded similarity with Ukkonen's band. Only cells within
+	 * a diagonal band wide enough to hold an alignment reaching the minimum
+	 * similarity are computed and the computation stops once no cell of a row
+	 * can still lead to such an alignment.
+	 *
+	 * The bounds assume gaps and substitutions never decrease the score,
+	 * otherwise the full matrix is computed.
+	 */
+	public float getSimilarity(final String s, final String t,
+			final float minimumSimilarity) {
+		return getSimilarity((CharSequence) s, (CharSequence) t,
+				minimumSimilarity);
+	}
+
+	@Override
+	public float getSimilarity(final CharSequence s, final CharSequence t,
+			final float minimumSimilarity) {
+		final int n = s.length();
+		final int m = t.length();
+		if (n == 0 || m == 0 || gapCost <= 0.0f
+				|| dCostFunc.getMinCost() < 0.0f || minimumSimilarity <= 0.0f) {
+			final float similarity = getSimilarity(s, t);
+			return similarity < minimumSimilarity ? 0.0f : similarity;
+		}
+		final SubstitutionCostTable table = SubstitutionCostTable.of(dCostFunc);
+		if (table == null && !(s instanceof String && t instanceof String)) {
+			// the cost function reads strings
+			return getSimilarity(s.toString(), t.toString(), minimumSimilarity);
+		}
+
+		float maxValue = Math.max(n, m);
+		if (dCostFunc.getMaxCost() > gapCost) {
+			maxValue *= dCostFunc.getMaxCost();
+		} else {
+			maxValue *= gapCost;
+		}
+		// the largest edit score that can still reach the minimum similarity,
+		// with some slack for rounding. The result is checked exactly below.
+		final float maxScore = (1.0f - minimumSimilarity + BANDTOLERANCE)
+				* maxValue;
+		// the first row and column cost one per gap, all others gapCost
+		final float minGapCost = Math.min(1.0f, gapCost);
+		if (Math.abs(n - m) * minGapCost > maxScore) {
+			return 0.0f;
+		}
+		final int width = (int) Math.min(Math.max(n, m), maxScore / minGapCost);
+
+		// the previous and current rows, each m + 1 long, swapped by offset
+		final float[] rows = AlignmentBuffers.getRow(2 * (m + 1));
+		int previous = 0;
+		int current = m + 1;
+		Arrays.fill(rows, previous, previous + m + 1, Float.POSITIVE_INFINITY);
+		for (int j = 0; j <= Math.min(m, width); j++) {
+			rows[previous + j] = j;
+		}
+
+		for (int i = 1; i <= n; i++) {
+			final int low = Math.max(1, i - width);
+			final int high = Math.min(m, i + width);
+			if (low > high) {
+				return 0.0f;
+			}
+			rows[current + low - 1] = low == 1 && i <= width ? i
+					: Float.POSITIVE_INFINITY;
+			// lowest score any alignment through this row can end with
+			float rowBound = rows[current + low - 1]
+					+ Math.abs((n - i) - (m - low + 1)) * minGapCost;
+			for (int j = low; j <= high; j++) {
+				final float cost = getCost(table, s, i - 1, t, j - 1);
+				rows[current + j] = min3(rows[previous + j] + gapCost,
+						rows[current + j - 1] + gapCost, rows[previous + j - 1]
+								+ cost);
+				rowBound = Math.min(rowBound, rows[current + j]
+						+ Math.abs((n - i) - (m - j)) * gapCost);
+			}
+			if (high < m) {
+				// outside the band of the next row
+				rows[current + high + 1] = Float.POSITIVE_INFINITY;
+			}
+			if (rowBound > maxScore) {
+				return 0.0f;
+			}
+			final int swap = previous;
+			previous = current;
+			current = swap;
+		}
+
+		final float similarity = normalise(rows[previous + m], n, m);
+		return similarity < minimumSimilarity ? 0.0f : similarity;
+	}
+
+	/**
+	 * Only the bottom right of the matrix is needed, so it is filled one row
+	 * or column at a time, whichever is shorter, in a buffer reused by the
+	 * thread. Memory is linear in the length of the shorter string.
+	 */
 	public float getUnNormalisedSimilarity(final String s, final String t) {
-		final float[][] d; // matrix
-		final int n; // length of s
-		final int m; // length of t
-		int i; // iterates through s
-		int j; // iterates through t
-		float cost; // cost
+		return align(s, t);
+	}
+
+	/**
+	 * aligns the sequences in place if the cost function has a table, else
+	 * as strings, which the cost function reads.
+	 */
+	private float align(final CharSequence s, final CharSequence t) {
+		if (SubstitutionCostTable.of(dCostFunc) == null
+				&& !(s instanceof String && t instanceof String)) {
+			return align(s.toString(), t.toString());
+		}
+		final int n = s.length();
+		final int m = t.length();
 
 		// check for zero length input
-		n = s.length();
-		m = t.length();
 		if (n == 0) {
 			return m;
 		}
 		if (m == 0) {
 			return n;
 		}
+		return m <= n ? byRows(s, t) : byColumns(s, t);
+	}
 
-		// create matrix (n+1)x(m+1)
-		d = new float[n + 1][m + 1];
+	/**
+	 * fills the matrix a row at a time, row[j] holding d[i][j].
+	 */
+	private float byRows(final CharSequence s, final CharSequence t) {
+		final int n = s.length();
+		final int m = t.length();
+		final SubstitutionCostTable table = SubstitutionCostTable.of(dCostFunc);
+		final float[] row = AlignmentBuffers.getRow(m + 1);
 
-		// put row and column numbers in place
-		for (i = 0; i <= n; i++) {
-			d[i][0] = i;
-		}
-		for (j = 0; j <= m; j++) {
-			d[0][j] = j;
+		// put column numbers in place
+		for (int j = 0; j <= m; j++) {
+			row[j] = j;
 		}
 
 		// cycle through rest of table filling values from the lowest cost value
 		// of the three part cost function
-		for (i = 1; i <= n; i++) {
-			for (j = 1; j <= m; j++) {
-				// get the substution cost
-				cost = dCostFunc.getCost(s, i - 1, t, j - 1);
-
-				// find lowest cost at point from three possible
-				d[i][j] = min3(d[i - 1][j] + gapCost, d[i][j - 1] + gapCost,
-						d[i - 1][j - 1] + cost);
+		for (int i = 1; i <= n; i++) {
+			float diagonal = row[0];
+			row[0] = i;
+			for (int j = 1; j <= m; j++) {
+				final float up = row[j];
+				row[j] = min3(up + gapCost, row[j - 1] + gapCost, diagonal
+						+ getCost(table, s, i - 1, t, j - 1));
+				diagonal = up;
+			}
+		}
+
+		// return bottom right of matrix as holds the maximum edit score
+		return row[m];
+	}
+
+	/**
+	 * fills the matrix a column at a time, column[i] holding d[i][j].
+	 */
+	private float byColumns(final CharSequence s, final CharSequence t) {
+		final int n = s.length();
+		final int m = t.length();
+		final SubstitutionCostTable table = SubstitutionCostTable.of(dCostFunc);
+		final float[] column = AlignmentBuffers.getRow(n + 1);
+
+		// put row numbers in place
+		for (int i = 0; i <= n; i++) {
+			column[i] = i;
+		}
+
+		for (int j = 1; j <= m; j++) {
+			float diagonal = column[0];
+			column[0] = j;
+			for (int i = 1; i <= n; i++) {
+				final float left = column[i];
+				column[i] = min3(column[i - 1] + gapCost, left + gapCost,
+						diagonal + getCost(table, s, i - 1, t, j - 1));
+				diagonal = left;
 			}
 		}
 
 		// return bottom right of matrix as holds the maximum edit score
-		return d[n][m];
+		return column[n];
+	}
+
+	/**
+	 * looks the substitution cost up in the table of the cost function if it
+	 * has one. Without a table the sequences are strings, see
+	 * {@link #align(CharSequence, CharSequence)}.
+	 */
+	private float getCost(final SubstitutionCostTable table,
+			final CharSequence s, final int i, final CharSequence t,
+			final int j) {
+		if (table != null) {
+			return table.getCost(s.charAt(i), t.charAt(j));
+		}
+		return dCostFunc.getCost(s.toString(), i, t.toString(), j);
 	}
 }
@@ -40,7 +40,9 @@
 package uk.ac.shef.wit.simmetrics.similaritymetrics;
 
 import uk.ac.shef.wit.simmetrics.tokenisers.InterfaceTokeniser;
+import uk.ac.shef.wit.simmetrics.tokenisers.TokenDictionary;
 import uk.ac.shef.wit.simmetrics.tokenisers.TokeniserWhitespace;
+import uk.ac.shef.wit.simmetrics.utils.ThreadSafe;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -54,6 +56,7 @@ import java.util.Set;
  * 
  * @author Sam Chapman * @version 1.1
  */
+@ThreadSafe
 public final class OverlapCoefficient extends AbstractStringMetric 
 		 {
 
@@ -61,11 +64,17 @@ public final class OverlapCoefficient extends AbstractStringMetric
 
 	private final InterfaceTokeniser tokenizer;
 
+	/**
+	 * dictionary of token ids, null to compare the tokens themselves.
+	 */
+	private final TokenDictionary dictionary;
+
 	/**
 	 * Constructs a OverlapCoefficient metric with a {@link TokeniserWhitespace}.
 	 */
 	public OverlapCoefficient() {
 		this.tokenizer = new TokeniserWhitespace();
+		this.dictionary = null;
 	}
 
 	/**
@@ -76,6 +85,22 @@ public final class OverlapCoefficient extends AbstractStringMetric
 	 */
 	public OverlapCoefficient(final InterfaceTokeniser tokenizer) {
 		this.tokenizer = tokenizer;
+		this.dictionary = null;
+	}
+
+	/**
+	 * Constructs a OverlapCoefficient metric with the given tokenizer, comparing
+	 * tokens by their ids in the given dictionary.
+	 *
+	 * @param tokenizer
+	 *            tokenizer to use
+	 * @param dictionary
+	 *            dictionary of token ids, shared by the metrics of a batch job
+	 */
+	public OverlapCoefficient(final InterfaceTokeniser tokenizer,
+			final TokenDictionary dictionary) {
+		this.tokenizer = tokenizer;
+		this.dictionary = dictionary;
 	}
 	@Deprecated
 	public String getLongDescriptionString() {
@@ -84,14 +109,38 @@ public final class OverlapCoefficient extends AbstractStringMetric
 
 	public float getSimilarityTimingEstimated(final String string1,
 			final String string2) {
-		final float str1Tokens = tokenizer.tokenizeToArrayList(string1).size();
-		final float str2Tokens = tokenizer.tokenizeToArrayList(string2).size();
-		return (str1Tokens * str2Tokens) * ESTIMATEDTIMINGCONST;
+		final float str1Tokens = estimateTokenCount(tokenizer, string1.length());
+		final float str2Tokens = estimateTokenCount(tokenizer, string2.length());
+		return (str1Tokens * str2Tokens) * ESTIMATEDTIMINGCONST
+				* getTimingScale();
 	}
 
 	public float getSimilarity(final String string1, final String string2) {
-		final Set<String> str1Tokens = tokenizer.tokenizeToSet(string1);
-		final Set<String> str2Tokens = tokenizer.tokenizeToSet(string2);
+		if (dictionary != null) {
+			return getSimilarity(
+					dictionary.toSet(tokenizer.tokenizeToArrayList(string1)),
+					dictionary.toSet(tokenizer.tokenizeToArrayList(string2)));
+		}
+		return getSimilarity(tokenizer.tokenizeToSet(string1),
+				tokenizer.tokenizeToSet(string2));
+	}
+
+	/**
+	 * Uses the token sets of the prepared strings.
+	 */
+	@Override
+	public float getSimilarity(final PreparedString string1,
+			final PreparedString string2) {
+		if (dictionary != null) {
+			return getSimilarity(string1.getTokenIdSet(tokenizer, dictionary),
+					string2.getTokenIdSet(tokenizer, dictionary));
+		}
+		return getSimilarity(string1.getTokenSet(tokenizer),
+				string2.getTokenSet(tokenizer));
+	}
+
+	private static float getSimilarity(final Set<String> str1Tokens,
+			final Set<String> str2Tokens) {
 
 		final Set<String> allTokens = new HashSet<String>();
 		allTokens.addAll(str1Tokens);
@@ -104,4 +153,10 @@ public final class OverlapCoefficient extends AbstractStringMetric
 				/ (float) Math.min(str1Tokens.size(), str2Tokens.size());
 	}
 
+	private static float getSimilarity(final int[] str1Tokens,
+			final int[] str2Tokens) {
+		return (float) TokenBags.common(str1Tokens, str2Tokens)
+				/ (float) Math.min(str1Tokens.length, str2Tokens.length);
+	}
+
 }
@@ -33,6 +33,30 @@ public class PerformancTestingMetric implements InterfaceStringMetric {
 		return metric.getSimilarity(string1, string2);
 	}
 
+	public float getSimilarity(String string1, String string2,
+			float minimumSimilarity) {
+		return metric.getSimilarity(string1, string2, minimumSimilarity);
+	}
+
+	public float getSimilarity(CharSequence string1, CharSequence string2) {
+		return metric.getSimilarity(string1, string2);
+	}
+
+	public float getSimilarity(CharSequence string1, CharSequence string2,
+			float minimumSimilarity) {
+		return metric.getSimilarity(string1, string2, minimumSimilarity);
+	}
+
+	public float getSimilarity(char[] chars1, int offset1, int length1,
+			char[] chars2, int offset2, int length2) {
+		return metric.getSimilarity(chars1, offset1, length1, chars2,
+				offset2, length2);
+	}
+
+	public boolean isThreadSafe() {
+		return metric.isThreadSafe();
+	}
+
 	@Deprecated
 	public String getSimilarityExplained(String string1, String string2) {
 		return metric.getSimilarityExplained(string1, string2);
@@ -0,0 +1,244 @@
+package uk.ac.shef.wit.simmetrics.similaritymetrics;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import uk.ac.shef.wit.simmetrics.simplifier.Simplifier;
+import uk.ac.shef.wit.simmetrics.tokenisers.InterfaceTokeniser;
+import uk.ac.shef.wit.simmetrics.tokenisers.TokenDictionary;
+import uk.ac.shef.wit.simmetrics.utils.ThreadSafe;
+
+/**
+ * A string together with what metrics derive from it, such as its tokens or
+ * its soundex code. Each is computed the first time it is asked for and kept,
+ * so comparing one string with many others using
+ * {@link AbstractStringMetric#getSimilarity(PreparedString, PreparedString)}
+ * derives them once per string rather than once per pair.
+ *
+ * Derived values are kept per tokeniser or simplifier instance. Metrics share
+ * the tokens of a prepared string when they are given the same tokeniser.
+ * Values are kept for the first {@value #MAXDERIVED} tokenisers and
+ * simplifiers only, those of any others are derived again each time, so a
+ * string prepared once and compared by short lived tokenisers does not grow
+ * without end. The lists and sets returned can not be modified.
+ */
+@ThreadSafe
+public final class PreparedString {
+
+	private static final Object[] EMPTY = new Object[0];
+
+	/**
+	 * number of tokenisers and simplifiers whose values are kept.
+	 */
+	static final int MAXDERIVED = 8;
+
+	private final String string;
+
+	/**
+	 * tokenisers and simplifiers alternating with what they derived, replaced
+	 * rather than changed so it can be read without locking.
+	 */
+	private volatile Object[] derived = EMPTY;
+
+	/**
+	 * prepares a string.
+	 *
+	 * @param string
+	 *            the string to prepare
+	 */
+	public PreparedString(final String string) {
+		if (string == null) {
+			throw new NullPointerException("string");
+		}
+		this.string = string;
+	}
+
+	/**
+	 * prepares each of the strings.
+	 *
+	 * @param strings
+	 *            the strings to prepare
+	 * @return the prepared strings in the same order
+	 */
+	public static PreparedString[] prepare(final String[] strings) {
+		final PreparedString[] prepared = new PreparedString[strings.length];
+		for (int i = 0; i < strings.length; i++) {
+			prepared[i] = new PreparedString(strings[i]);
+		}
+		return prepared;
+	}
+
+	/**
+	 * returns the string prepared.
+	 *
+	 * @return the string prepared
+	 */
+	public String getString() {
+		return string;
+	}
+
+	/**
+	 * returns the tokens of the string as
+	 * {@link InterfaceTokeniser#tokenizeToArrayList(String)} does.
+	 *
+	 * @param tokeniser
+	 *            the tokeniser to split the string with
+	 * @return the tokens of the string in order
+	 */
+	public List<String> getTokens(final InterfaceTokeniser tokeniser) {
+		return getTokenised(tokeniser).list;
+	}
+
+	/**
+	 * returns the distinct tokens of the string as
+	 * {@link InterfaceTokeniser#tokenizeToSet(String)} does.
+	 *
+	 * @param tokeniser
+	 *            the tokeniser to split the string with
+	 * @return the distinct tokens of the string
+	 */
+	public Set<String> getTokenSet(final InterfaceTokeniser tokeniser) {
+		final Tokenised tokenised = getTokenised(tokeniser);
+		Set<String> set = tokenised.set;
+		if (set == null) {
+			set = Collections.unmodifiableSet(tokeniser.tokenizeToSet(string));
+			tokenised.set = set;
+		}
+		return set;
+	}
+
+	/**
+	 * returns the sorted bag of token ids of the string. Kept for the last
+	 * dictionary asked with the tokeniser. The array must not be modified.
+	 */
+	int[] getTokenBag(final InterfaceTokeniser tokeniser,
+			final TokenDictionary dictionary) {
+		return getTokenIds(tokeniser, dictionary).bag;
+	}
+
+	/**
+	 * returns the sorted set of token ids of the string. Kept for the last
+	 * dictionary asked with the tokeniser. The array must not be modified.
+	 */
+	int[] getTokenIdSet(final InterfaceTokeniser tokeniser,
+			final TokenDictionary dictionary) {
+		final TokenIds ids = getTokenIds(tokeniser, dictionary);
+		int[] set = ids.set;
+		if (set == null) {
+			set = TokenDictionary.distinct(ids.bag);
+			ids.set = set;
+		}
+		return set;
+	}
+
+	private TokenIds getTokenIds(final InterfaceTokeniser tokeniser,
+			final TokenDictionary dictionary) {
+		final Tokenised tokenised = getTokenised(tokeniser);
+		TokenIds ids = tokenised.ids;
+		if (ids == null || ids.dictionary != dictionary) {
+			ids = new TokenIds(dictionary, dictionary.toBag(tokenised.list));
+			tokenised.ids = ids;
+		}
+		return ids;
+	}
+
+	/**
+	 * returns the string as simplified by the simplifier, e.g. its soundex
+	 * code.
+	 *
+	 * @param simplifier
+	 *            the simplifier to apply
+	 * @return the simplified string
+	 */
+	public String getSimplified(final Simplifier simplifier) {
+		String simplified = (String) get(simplifier);
+		if (simplified == null) {
+			simplified = (String) put(simplifier, simplifier.simplify(string));
+		}
+		return simplified;
+	}
+
+	private Tokenised getTokenised(final InterfaceTokeniser tokeniser) {
+		Tokenised tokenised = (Tokenised) get(tokeniser);
+		if (tokenised == null) {
+			tokenised = (Tokenised) put(tokeniser, new Tokenised(
+					Collections.unmodifiableList(tokeniser
+							.tokenizeToArrayList(string))));
+		}
+		return tokenised;
+	}
+
+	private Object get(final Object key) {
+		final Object[] current = derived;
+		for (int i = 0; i < current.length; i += 2) {
+			if (current[i] == key) {
+				return current[i + 1];
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * keeps the value unless another thread derived one first, and returns
+	 * the value kept. Once values are kept for {@link #MAXDERIVED} keys the
+	 * value is returned but not kept.
+	 */
+	private synchronized Object put(final Object key, final Object value) {
+		final Object existing = get(key);
+		if (existing != null) {
+			return existing;
+		}
+		final Object[] current = derived;
+		if (current.length >= 2 * MAXDERIVED) {
+			return value;
+		}
+		final Object[] grown = new Object[current.length + 2];
+		System.arraycopy(current, 0, grown, 0, current.length);
+		grown[current.length] = key;
+		grown[current.length + 1] = value;
+		derived = grown;
+		return value;
+	}
+
+	@Override
+	public String toString() {
+		return string;
+	}
+
+	private static final class Tokenised {
+
+		final List<String> list;
+
+		/**
+		 * distinct tokens, derived when first asked for.
+		 */
+		volatile Set<String> set;
+
+		/**
+		 * ids of the tokens, derived when first asked for.
+		 */
+		volatile TokenIds ids;
+
+		Tokenised(List<String> list) {
+			this.list = list;
+		}
+	}
+
+	private static final class TokenIds {
+
+		final TokenDictionary dictionary;
+
+		final int[] bag;
+
+		/**
+		 * distinct ids, derived when first asked for.
+		 */
+		volatile int[] set;
+
+		TokenIds(TokenDictionary dictionary, int[] bag) {
+			this.dictionary = dictionary;
+			this.bag = bag;
+		}
+	}
+}
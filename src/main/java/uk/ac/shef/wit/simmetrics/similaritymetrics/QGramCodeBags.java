@@ -0,0 +1,115 @@
+package uk.ac.shef.wit.simmetrics.similaritymetrics;
+
+import java.util.Arrays;
+
+import uk.ac.shef.wit.simmetrics.tokenisers.InterfaceQGramCoder;
+import uk.ac.shef.wit.simmetrics.tokenisers.InterfaceTokeniser;
+
+/**
+ * The sorted q-gram codes of two strings, compared by the q-gram metrics in
+ * place of lists and sets of q-gram strings. The codes are kept in arrays
+ * reused by each thread, so a metric must be done with them before it calls
+ * another metric.
+ */
+final class QGramCodeBags {
+
+	/**
+	 * most codes kept between comparisons. Larger arrays are allocated per
+	 * comparison and left to the garbage collector.
+	 */
+	private static final int MAXBUFFEREDLENGTH = 1 << 16;
+
+	private static final ThreadLocal<QGramCodeBags> BAGS = new ThreadLocal<QGramCodeBags>() {
+		@Override
+		protected QGramCodeBags initialValue() {
+			return new QGramCodeBags(64);
+		}
+	};
+
+	final long[] bag1;
+
+	final long[] bag2;
+
+	int size1;
+
+	int size2;
+
+	private QGramCodeBags(final int length) {
+		this.bag1 = new long[length];
+		this.bag2 = new long[length];
+	}
+
+	/**
+	 * returns the sorted codes of the q-grams of the strings, or null if the
+	 * tokeniser has no codes that stand for its tokens exactly.
+	 */
+	static QGramCodeBags of(final InterfaceTokeniser tokeniser,
+			final CharSequence string1, final CharSequence string2) {
+		if (!(tokeniser instanceof InterfaceQGramCoder)) {
+			return null;
+		}
+		final InterfaceQGramCoder coder = (InterfaceQGramCoder) tokeniser;
+		if (!coder.hasExactCodes()) {
+			return null;
+		}
+		final QGramCodeBags bags = getBags(Math.max(
+				coder.getMaximumCodeCount(string1.length()),
+				coder.getMaximumCodeCount(string2.length())));
+		bags.size1 = coder.tokenizeToCodes(string1, bags.bag1);
+		bags.size2 = coder.tokenizeToCodes(string2, bags.bag2);
+		Arrays.sort(bags.bag1, 0, bags.size1);
+		Arrays.sort(bags.bag2, 0, bags.size2);
+		return bags;
+	}
+
+	/**
+	 * returns the bags of this thread, grown to hold the given number of
+	 * codes.
+	 */
+	private static QGramCodeBags getBags(final int length) {
+		if (length > MAXBUFFEREDLENGTH) {
+			return new QGramCodeBags(length);
+		}
+		QGramCodeBags bags = BAGS.get();
+		if (bags.bag1.length < length) {
+			bags = new QGramCodeBags(Math.max(length,
+					Math.min(2 * bags.bag1.length, MAXBUFFEREDLENGTH)));
+			BAGS.set(bags);
+		}
+		return bags;
+	}
+
+	/**
+	 * removes repeated codes, turning the bags into sets.
+	 */
+	void distinct() {
+		size1 = distinct(bag1, size1);
+		size2 = distinct(bag2, size2);
+	}
+
+	private static int distinct(final long[] bag, final int size) {
+		int distinct = 0;
+		for (int i = 0; i < size; i++) {
+			if (distinct == 0 || bag[i] != bag[distinct - 1]) {
+				bag[distinct++] = bag[i];
+			}
+		}
+		return distinct;
+	}
+
+	/**
+	 * counts the codes common to both bags, each as often as it occurs in the
+	 * bag it occurs in least.
+	 */
+	int common() {
+		return TokenBags.common(bag1, size1, bag2, size2);
+	}
+
+	/**
+	 * sums the absolute differences in the number of times each code occurs
+	 * in the bags.
+	 */
+	int difference() {
+		return size1 + size2 - 2 * common();
+	}
+}
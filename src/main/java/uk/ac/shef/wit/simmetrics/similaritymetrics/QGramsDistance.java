@@ -40,8 +40,10 @@
 package uk.ac.shef.wit.simmetrics.similaritymetrics;
 
 import uk.ac.shef.wit.simmetrics.tokenisers.InterfaceTokeniser;
+import uk.ac.shef.wit.simmetrics.tokenisers.TokenDictionary;
 import uk.ac.shef.wit.simmetrics.tokenisers.TokeniserQGram3Extended;
 import uk.ac.shef.wit.simmetrics.tokenisers.TokeniserWhitespace;
+import uk.ac.shef.wit.simmetrics.utils.ThreadSafe;
 
 import java.util.*;
 
@@ -53,17 +55,24 @@ import java.util.*;
  * @author Sam Chapman
  * @version 1.1
  */
+@ThreadSafe
 public final class QGramsDistance extends AbstractStringMetric {
 
 	private final float ESTIMATEDTIMINGCONST = 1.34e-4f;
 
 	private final InterfaceTokeniser tokeniser;
 
+	/**
+	 * dictionary of token ids, null to compare the tokens themselves.
+	 */
+	private final TokenDictionary dictionary;
+
 	/**
 	 * Constructs a QGramsDistance metric with a {@link TokeniserWhitespace}.
 	 */
 	public QGramsDistance() {
 		this.tokeniser = new TokeniserQGram3Extended();
+		this.dictionary = null;
 	}
 
 	/**
@@ -74,6 +83,22 @@ public final class QGramsDistance extends AbstractStringMetric {
 	 */
 	public QGramsDistance(final InterfaceTokeniser tokenizer) {
 		this.tokeniser = tokenizer;
+		this.dictionary = null;
+	}
+
+	/**
+	 * Constructs a QGramsDistance metric with the given tokenizer, comparing
+	 * tokens by their ids in the given dictionary.
+	 *
+	 * @param tokenizer
+	 *            tokenizer to use
+	 * @param dictionary
+	 *            dictionary of token ids, shared by the metrics of a batch job
+	 */
+	public QGramsDistance(final InterfaceTokeniser tokenizer,
+			final TokenDictionary dictionary) {
+		this.tokeniser = tokenizer;
+		this.dictionary = dictionary;
 	}
 	@Deprecated
 	public String getLongDescriptionString() {
@@ -85,63 +110,150 @@ public final class QGramsDistance extends AbstractStringMetric {
 
 		final float str1Length = string1.length();
 		final float str2Length = string2.length();
-		return (str1Length * str2Length) * ESTIMATEDTIMINGCONST;
+		return (str1Length * str2Length) * ESTIMATEDTIMINGCONST
+				* getTimingScale();
 	}
 
 	public float getSimilarity(final String string1, final String string2) {
+		return getSimilarity(string1, string2, 0.0f);
+	}
+
+	/**
+	 * Gives up before the q-grams are compared if the difference in the number
+	 * of q-grams, the lowest possible distance, is too large to reach the
+	 * minimum similarity.
+	 */
+	public float getSimilarity(final String string1, final String string2,
+			final float minimumSimilarity) {
+		return getSimilarity((CharSequence) string1, (CharSequence) string2,
+				minimumSimilarity);
+	}
+
+	@Override
+	public float getSimilarity(final CharSequence string1,
+			final CharSequence string2) {
+		return getSimilarity(string1, string2, 0.0f);
+	}
+
+	@Override
+	public float getSimilarity(final CharSequence string1,
+			final CharSequence string2, final float minimumSimilarity) {
+		if (dictionary == null) {
+			final QGramCodeBags bags = QGramCodeBags.of(tokeniser, string1,
+					string2);
+			if (bags != null) {
+				return getSimilarity(bags, minimumSimilarity);
+			}
+		}
 		final ArrayList<String> str1Tokens = tokeniser
 				.tokenizeToArrayList(string1);
 		final ArrayList<String> str2Tokens = tokeniser
 				.tokenizeToArrayList(string2);
+		if (dictionary != null) {
+			return getSimilarity(dictionary.toBag(str1Tokens),
+					dictionary.toBag(str2Tokens), minimumSimilarity);
+		}
+		return getSimilarity(str1Tokens, str2Tokens, minimumSimilarity);
+	}
 
+	/**
+	 * Uses the q-grams of the prepared strings.
+	 */
+	@Override
+	public float getSimilarity(final PreparedString string1,
+			final PreparedString string2) {
+		if (dictionary != null) {
+			return getSimilarity(string1.getTokenBag(tokeniser, dictionary),
+					string2.getTokenBag(tokeniser, dictionary), 0.0f);
+		}
+		return getSimilarity(string1.getTokens(tokeniser),
+				string2.getTokens(tokeniser), 0.0f);
+	}
+
+	private float getSimilarity(final List<String> str1Tokens,
+			final List<String> str2Tokens, final float minimumSimilarity) {
 		final int maxQGramsMatching = str1Tokens.size() + str2Tokens.size();
 
 		// return
 		if (maxQGramsMatching == 0) {
 			return 0.0f;
-		} else {
-			return (maxQGramsMatching - getInnerUnNormalizedSimilarity(
-					str1Tokens, str2Tokens)) / (float) maxQGramsMatching;
 		}
+
+		final int minimumDifference = Math.abs(str1Tokens.size()
+				- str2Tokens.size());
+		if ((maxQGramsMatching - minimumDifference)
+				/ (float) maxQGramsMatching < minimumSimilarity) {
+			return 0.0f;
+		}
+
+		final float similarity = (maxQGramsMatching - getInnerUnNormalizedSimilarity(
+				str1Tokens, str2Tokens)) / (float) maxQGramsMatching;
+		return similarity < minimumSimilarity ? 0.0f : similarity;
+	}
+
+	private float getSimilarity(final int[] str1Tokens,
+			final int[] str2Tokens, final float minimumSimilarity) {
+		final int maxQGramsMatching = str1Tokens.length + str2Tokens.length;
+		if (maxQGramsMatching == 0) {
+			return 0.0f;
+		}
+
+		final int minimumDifference = Math.abs(str1Tokens.length
+				- str2Tokens.length);
+		if ((maxQGramsMatching - minimumDifference)
+				/ (float) maxQGramsMatching < minimumSimilarity) {
+			return 0.0f;
+		}
+
+		final float similarity = (maxQGramsMatching - TokenBags.difference(
+				str1Tokens, str2Tokens)) / (float) maxQGramsMatching;
+		return similarity < minimumSimilarity ? 0.0f : similarity;
+	}
+
+	private static float getSimilarity(final QGramCodeBags bags,
+			final float minimumSimilarity) {
+		final int maxQGramsMatching = bags.size1 + bags.size2;
+		if (maxQGramsMatching == 0) {
+			return 0.0f;
+		}
+
+		final int minimumDifference = Math.abs(bags.size1 - bags.size2);
+		if ((maxQGramsMatching - minimumDifference)
+				/ (float) maxQGramsMatching < minimumSimilarity) {
+			return 0.0f;
+		}
+
+		final float similarity = (maxQGramsMatching - bags.difference())
+				/ (float) maxQGramsMatching;
+		return similarity < minimumSimilarity ? 0.0f : similarity;
 	}
 
 	public float getUnNormalisedSimilarity(String string1, String string2) {
+		if (dictionary == null) {
+			final QGramCodeBags bags = QGramCodeBags.of(tokeniser, string1,
+					string2);
+			if (bags != null) {
+				return bags.difference();
+			}
+		}
 		final ArrayList<String> str1Tokens = tokeniser
 				.tokenizeToArrayList(string1);
 		final ArrayList<String> str2Tokens = tokeniser
 				.tokenizeToArrayList(string2);
 
+		if (dictionary != null) {
+			return TokenBags.difference(dictionary.toBag(str1Tokens),
+					dictionary.toBag(str2Tokens));
+		}
 		return getInnerUnNormalizedSimilarity(str1Tokens, str2Tokens);
 	}
 
 	private float getInnerUnNormalizedSimilarity(
-			final ArrayList<String> str1Tokens,
-			final ArrayList<String> str2Tokens) {
-		final Set<String> allTokens = new HashSet<String>();
-		allTokens.addAll(str1Tokens);
-		allTokens.addAll(str2Tokens);
-
-		final Iterator<String> allTokensIt = allTokens.iterator();
+			final List<String> str1Tokens, final List<String> str2Tokens) {
 		int difference = 0;
-		while (allTokensIt.hasNext()) {
-			final String token = allTokensIt.next();
-			int matchingQGrams1 = 0;
-			for (String str1Token : str1Tokens) {
-				if (str1Token.equals(token)) {
-					matchingQGrams1++;
-				}
-			}
-			int matchingQGrams2 = 0;
-			for (String str2Token : str2Tokens) {
-				if (str2Token.equals(token)) {
-					matchingQGrams2++;
-				}
-			}
-			if (matchingQGrams1 > matchingQGrams2) {
-				difference += (matchingQGrams1 - matchingQGrams2);
-			} else {
-				difference += (matchingQGrams2 - matchingQGrams1);
-			}
+		for (int qGramDifference : TokenBags.countDifferences(str1Tokens,
+				str2Tokens)) {
+			difference += Math.abs(qGramDifference);
 		}
 
 		return difference;
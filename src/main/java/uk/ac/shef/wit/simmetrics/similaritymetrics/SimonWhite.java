@@ -1,9 +1,11 @@
 package uk.ac.shef.wit.simmetrics.similaritymetrics;
 
 import java.util.ArrayList;
+import java.util.List;
 
 import uk.ac.shef.wit.simmetrics.tokenisers.TokeniserQGram2;
 import uk.ac.shef.wit.simmetrics.tokenisers.TokeniserWordQGram;
+import uk.ac.shef.wit.simmetrics.utils.ThreadSafe;
 
 /**
  * Implementation taken from <a
@@ -38,6 +40,7 @@ import uk.ac.shef.wit.simmetrics.tokenisers.TokeniserWordQGram;
  * 
  * @author Simon White
  */
+@ThreadSafe
 public class SimonWhite extends AbstractStringMetric   {
 
 	private final float ESTIMATEDTIMINGCONST = 0.00000034457142857142857142857142857146f;
@@ -49,15 +52,43 @@ public class SimonWhite extends AbstractStringMetric   {
 		final float str1Length = string1.length();
 		final float str2Length = string2.length();
 		return (str1Length + str2Length)
-				* ((str1Length + str2Length) * ESTIMATEDTIMINGCONST);
+				* ((str1Length + str2Length) * ESTIMATEDTIMINGCONST)
+				* getTimingScale();
 	}
 
 	public float getSimilarity(String string1, String string2) {
+		return getSimilarity((CharSequence) string1, (CharSequence) string2);
+	}
+
+	@Override
+	public float getSimilarity(CharSequence string1, CharSequence string2) {
+		final QGramCodeBags bags = QGramCodeBags.of(tokeniserWordQGram,
+				string1, string2);
+		if (bags != null) {
+			return getSimilarity(bags.common(), bags.size1 + bags.size2);
+		}
 		final ArrayList<String> pairs1 = tokeniserWordQGram
 				.tokenizeToArrayList(string1);
 		final ArrayList<String> pairs2 = tokeniserWordQGram
 				.tokenizeToArrayList(string2);
+		return getSimilarity(pairs1, pairs2);
+	}
 
+	/**
+	 * Uses the pairs of the prepared strings. Subclasses may compare strings
+	 * differently, for them the strings are compared as such.
+	 */
+	@Override
+	public float getSimilarity(PreparedString string1, PreparedString string2) {
+		if (getClass() != SimonWhite.class) {
+			return getSimilarity(string1.getString(), string2.getString());
+		}
+		// pairs are removed once matched, the prepared ones can not be
+		return getSimilarity(string1.getTokens(tokeniserWordQGram),
+				new ArrayList<String>(string2.getTokens(tokeniserWordQGram)));
+	}
+
+	private static float getSimilarity(List<String> pairs1, List<String> pairs2) {
 		int union = pairs1.size() + pairs2.size();
 		
 		if(union == 0){
@@ -71,8 +102,15 @@ public class SimonWhite extends AbstractStringMetric   {
 			}
 		}
 
-		return new Float((2.0 * intersection) / union).floatValue();
+		return getSimilarity(intersection, union);
+
+	}
 
+	private static float getSimilarity(int intersection, int union) {
+		if (union == 0) {
+			return 0.0f;
+		}
+		return new Float((2.0 * intersection) / union).floatValue();
 	}
 
 	@Override
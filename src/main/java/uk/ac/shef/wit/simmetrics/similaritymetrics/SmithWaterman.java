@@ -41,7 +41,9 @@ package uk.ac.shef.wit.simmetrics.similaritymetrics;
 
 import uk.ac.shef.wit.simmetrics.similaritymetrics.costfunctions.AbstractSubstitutionCost;
 import uk.ac.shef.wit.simmetrics.similaritymetrics.costfunctions.SubCost1_Minus2;
+import uk.ac.shef.wit.simmetrics.similaritymetrics.costfunctions.SubstitutionCostTable;
 import uk.ac.shef.wit.simmetrics.similaritymetrics.AbstractStringMetric;
+import uk.ac.shef.wit.simmetrics.utils.ThreadSafe;
 import static uk.ac.shef.wit.simmetrics.utils.Math.max3;
 import static uk.ac.shef.wit.simmetrics.utils.Math.max4;
 
@@ -51,14 +53,15 @@ import static uk.ac.shef.wit.simmetrics.utils.Math.max4;
  * @author Sam Chapman
  * @version 1.1
  */
+@ThreadSafe
 public final class SmithWaterman extends AbstractStringMetric 
 	 {
 
 	private final float ESTIMATEDTIMINGCONST = 1.61e-4f;
 
-	private AbstractSubstitutionCost dCostFunc;
+	private final AbstractSubstitutionCost dCostFunc;
 
-	private float gapCost;
+	private final float gapCost;
 
 	/**
 	 * constructor - default (empty).
@@ -122,11 +125,17 @@ public final class SmithWaterman extends AbstractStringMetric
 		final float str1Length = string1.length();
 		final float str2Length = string2.length();
 		return ((str1Length * str2Length) + str1Length + str2Length)
-				* ESTIMATEDTIMINGCONST;
+				* ESTIMATEDTIMINGCONST * getTimingScale();
 	}
 
 	public float getSimilarity(final String string1, final String string2) {
-		final float smithWaterman = getUnNormalisedSimilarity(string1, string2);
+		return getSimilarity((CharSequence) string1, (CharSequence) string2);
+	}
+
+	@Override
+	public float getSimilarity(final CharSequence string1,
+			final CharSequence string2) {
+		final float smithWaterman = align(string1, string2);
 
 		// normalise into zero to one region from min max possible
 		float maxValue = Math.min(string1.length(), string2.length());
@@ -148,6 +157,10 @@ public final class SmithWaterman extends AbstractStringMetric
 	/**
 	 * Implements the Smith-Waterman distance function
 	 * 
+	 * Only the maximum of the matrix is needed, so it is filled one row or
+	 * column at a time, whichever is shorter, in a buffer reused by the
+	 * thread. Memory is linear in the length of the shorter string.
+	 *
 	 * @see http://www.gen.tcd.ie/molevol/nwswat.html for details .
 	 *
 	 * @param s
@@ -155,71 +168,69 @@ public final class SmithWaterman extends AbstractStringMetric
 	 * @return the Smith-Waterman distance for the given strings
 	 */
 	public float getUnNormalisedSimilarity(final String s, final String t) {
-		final float[][] d; // matrix
-		final int n; // length of s
-		final int m; // length of t
-		int i; // iterates through s
-		int j; // iterates through t
-		float cost; // cost
+		return align(s, t);
+	}
+
+	/**
+	 * aligns the sequences in place if the cost function has a table, else
+	 * as strings, which the cost function reads.
+	 */
+	private float align(final CharSequence s, final CharSequence t) {
+		if (SubstitutionCostTable.of(dCostFunc) == null
+				&& !(s instanceof String && t instanceof String)) {
+			return align(s.toString(), t.toString());
+		}
+		final int n = s.length();
+		final int m = t.length();
 
 		// check for zero length input
-		n = s.length();
-		m = t.length();
 		if (n == 0) {
 			return m;
 		}
 		if (m == 0) {
 			return n;
 		}
+		return m <= n ? byRows(s, t) : byColumns(s, t);
+	}
 
-		// create matrix (n)x(m)
-		d = new float[n][m];
+	/**
+	 * fills the matrix a row at a time, row[j] holding d[i][j].
+	 */
+	private float byRows(final CharSequence s, final CharSequence t) {
+		final int n = s.length();
+		final int m = t.length();
+		final SubstitutionCostTable table = SubstitutionCostTable.of(dCostFunc);
+		final float[] row = AlignmentBuffers.getRow(m);
 
-		// process first row and column first as no need to consider previous
-		// rows/columns
+		// process first row as no need to consider previous rows
+		row[0] = max3(0, -gapCost, getCost(table, s, 0, t, 0));
 		float maxSoFar = 0.0f;
-		for (i = 0; i < n; i++) {
-			// get the substution cost
-			cost = dCostFunc.getCost(s, i, t, 0);
-
-			if (i == 0) {
-				d[0][0] = max3(0, -gapCost, cost);
-			} else {
-				d[i][0] = max3(0, d[i - 1][0] - gapCost, cost);
-			}
-			// update max possible if available
-			if (d[i][0] > maxSoFar) {
-				maxSoFar = d[i][0];
-			}
+		if (row[0] > maxSoFar) {
+			maxSoFar = row[0];
 		}
-		for (j = 0; j < m; j++) {
-			// get the substution cost
-			cost = dCostFunc.getCost(s, 0, t, j);
-
-			if (j == 0) {
-				d[0][0] = max3(0, -gapCost, cost);
-			} else {
-				d[0][j] = max3(0, d[0][j - 1] - gapCost, cost);
-			}
-			// update max possible if available
-			if (d[0][j] > maxSoFar) {
-				maxSoFar = d[0][j];
+		for (int j = 1; j < m; j++) {
+			row[j] = max3(0, row[j - 1] - gapCost, getCost(table, s, 0,
+					t, j));
+			if (row[j] > maxSoFar) {
+				maxSoFar = row[j];
 			}
 		}
 
 		// cycle through rest of table filling values from the lowest cost value
 		// of the three part cost function
-		for (i = 1; i < n; i++) {
-			for (j = 1; j < m; j++) {
-				// get the substution cost
-				cost = dCostFunc.getCost(s, i, t, j);
-
-				// find lowest cost at point from three possible
-				d[i][j] = max4(0, d[i - 1][j] - gapCost, d[i][j - 1]
-						- gapCost, d[i - 1][j - 1] + cost);
-				// update max possible if available
-				if (d[i][j] > maxSoFar) {
-					maxSoFar = d[i][j];
+		for (int i = 1; i < n; i++) {
+			float diagonal = row[0];
+			row[0] = max3(0, row[0] - gapCost, getCost(table, s, i, t, 0));
+			if (row[0] > maxSoFar) {
+				maxSoFar = row[0];
+			}
+			for (int j = 1; j < m; j++) {
+				final float up = row[j];
+				row[j] = max4(0, up - gapCost, row[j - 1] - gapCost, diagonal
+						+ getCost(table, s, i, t, j));
+				diagonal = up;
+				if (row[j] > maxSoFar) {
+					maxSoFar = row[j];
 				}
 			}
 		}
@@ -227,4 +238,63 @@ public final class SmithWaterman extends AbstractStringMetric
 		// return max value within matrix as holds the maximum edit score
 		return maxSoFar;
 	}
+
+	/**
+	 * fills the matrix a column at a time, column[i] holding d[i][j].
+	 */
+	private float byColumns(final CharSequence s, final CharSequence t) {
+		final int n = s.length();
+		final int m = t.length();
+		final SubstitutionCostTable table = SubstitutionCostTable.of(dCostFunc);
+		final float[] column = AlignmentBuffers.getRow(n);
+
+		// process first column as no need to consider previous columns
+		column[0] = max3(0, -gapCost, getCost(table, s, 0, t, 0));
+		float maxSoFar = 0.0f;
+		if (column[0] > maxSoFar) {
+			maxSoFar = column[0];
+		}
+		for (int i = 1; i < n; i++) {
+			column[i] = max3(0, column[i - 1] - gapCost, getCost(table, s, i,
+					t, 0));
+			if (column[i] > maxSoFar) {
+				maxSoFar = column[i];
+			}
+		}
+
+		for (int j = 1; j < m; j++) {
+			float diagonal = column[0];
+			column[0] = max3(0, column[0] - gapCost, getCost(table, s, 0,
+					t, j));
+			if (column[0] > maxSoFar) {
+				maxSoFar = column[0];
+			}
+			for (int i = 1; i < n; i++) {
+				final float left = column[i];
+				column[i] = max4(0, column[i - 1] - gapCost, left - gapCost,
+						diagonal + getCost(table, s, i, t, j));
+				diagonal = left;
+				if (column[i] > maxSoFar) {
+					maxSoFar = column[i];
+				}
+			}
+		}
+
+		// return max value within matrix as holds the maximum edit score
+		return maxSoFar;
+	}
+
+	/**
+	 * looks the substitution cost up in the table of the cost function if it
+	 * has one. Without a table the sequences are strings, see
+	 * {@link #align(CharSequence, CharSequence)}.
+	 */
+	private float getCost(final SubstitutionCostTable table,
+			final CharSequence s, final int i, final CharSequence t,
+			final int j) {
+		if (table != null) {
+			return table.getCost(s.charAt(i), t.charAt(j));
+		}
+		return dCostFunc.getCost(s.toString(), i, t.toString(), j);
+	}
 }
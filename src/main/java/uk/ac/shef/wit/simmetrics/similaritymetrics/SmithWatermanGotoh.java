@@ -43,15 +43,23 @@ import uk.ac.shef.wit.simmetrics.similaritymetrics.costfunctions.AbstractAffineG
 import uk.ac.shef.wit.simmetrics.similaritymetrics.costfunctions.AbstractSubstitutionCost;
 import uk.ac.shef.wit.simmetrics.similaritymetrics.costfunctions.AffineGap5_1;
 import uk.ac.shef.wit.simmetrics.similaritymetrics.costfunctions.SubCost5_3_Minus3;
+import uk.ac.shef.wit.simmetrics.utils.ThreadSafe;
 
 /**
  * Implements the Gotoh extension of the Smith-Waterman method incorporating
  * affine gaps in the strings
  * 
+ * With gap costs extending
+ * {@link uk.ac.shef.wit.simmetrics.similaritymetrics.costfunctions.AbstractOpenExtendGapCost},
+ * such as {@link AffineGap5_1}, this takes time proportional to the product
+ * of the string lengths. Other gap costs try every gap length at every cell,
+ * taking cubic time.
+ * 
  * 
  * @author Sam Chapman
  * @version 1.1
  */
+@ThreadSafe
 public final class SmithWatermanGotoh extends SmithWatermanGotohWindowedAffine
 		  {
 
@@ -108,11 +116,14 @@ public final class SmithWatermanGotoh extends SmithWatermanGotohWindowedAffine
 
 	public float getSimilarityTimingEstimated(final String string1,
 			final String string2) {
+		if (isGotoh(string1.length(), string2.length())) {
+			return super.getSimilarityTimingEstimated(string1, string2);
+		}
 
 		final float str1Length = string1.length();
 		final float str2Length = string2.length();
 		return ((str1Length * str2Length * str1Length) + (str1Length
 				* str2Length * str2Length))
-				* ESTIMATEDTIMINGCONST;
+				* ESTIMATEDTIMINGCONST * getTimingScale();
 	}
 }
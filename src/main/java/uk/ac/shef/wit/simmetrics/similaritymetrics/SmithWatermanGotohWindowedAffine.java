@@ -39,11 +39,14 @@
 
 package uk.ac.shef.wit.simmetrics.similaritymetrics;
 
+import uk.ac.shef.wit.simmetrics.similaritymetrics.costfunctions.AbstractOpenExtendGapCost;
 import uk.ac.shef.wit.simmetrics.similaritymetrics.costfunctions.InterfaceAffineGapCost;
 import uk.ac.shef.wit.simmetrics.similaritymetrics.costfunctions.InterfaceSubstitutionCost;
 import uk.ac.shef.wit.simmetrics.similaritymetrics.AbstractStringMetric;
 import uk.ac.shef.wit.simmetrics.similaritymetrics.costfunctions.AffineGap5_1;
 import uk.ac.shef.wit.simmetrics.similaritymetrics.costfunctions.SubCost5_3_Minus3;
+import uk.ac.shef.wit.simmetrics.similaritymetrics.costfunctions.SubstitutionCostTable;
+import uk.ac.shef.wit.simmetrics.utils.ThreadSafe;
 import static java.lang.Math.max;
 import static uk.ac.shef.wit.simmetrics.utils.Math.max3;
 import static uk.ac.shef.wit.simmetrics.utils.Math.max4;
@@ -55,10 +58,13 @@ import static uk.ac.shef.wit.simmetrics.utils.Math.max4;
  * @author Sam Chapman
  * @version 1.1
  */
+@ThreadSafe
 public class SmithWatermanGotohWindowedAffine extends AbstractStringMetric {
 
 	private final float ESTIMATEDTIMINGCONST = 4.5e-5f;
 
+	private final float GOTOHTIMINGCONST = 5.5e-4f;
+
 	private final int windowSize;
 
 	private final InterfaceSubstitutionCost dCostFunc;
@@ -213,14 +219,23 @@ public class SmithWatermanGotohWindowedAffine extends AbstractStringMetric {
 
 		final float str1Length = string1.length();
 		final float str2Length = string2.length();
+		if (isGotoh(string1.length(), string2.length())) {
+			return ((str1Length * str2Length) + str1Length + str2Length)
+					* GOTOHTIMINGCONST * getTimingScale();
+		}
 		return ((str1Length * str2Length * windowSize) + (str1Length
 				* str2Length * windowSize))
-				* ESTIMATEDTIMINGCONST;
+				* ESTIMATEDTIMINGCONST * getTimingScale();
 	}
 
 	public final float getSimilarity(final String string1, final String string2) {
-		final float smithWatermanGotoh = getUnNormalisedSimilarity(string1,
-				string2);
+		return getSimilarity((CharSequence) string1, (CharSequence) string2);
+	}
+
+	@Override
+	public final float getSimilarity(final CharSequence string1,
+			final CharSequence string2) {
+		final float smithWatermanGotoh = align(string1, string2);
 
 		// normalise into zero to one region from min max possible
 		float maxValue = Math.min(string1.length(), string2.length());
@@ -242,6 +257,11 @@ public class SmithWatermanGotohWindowedAffine extends AbstractStringMetric {
 	/**
 	 * Implements the Smith-Waterman-Gotoh distance function
 	 * 
+	 * When the gap cost is an {@link AbstractOpenExtendGapCost} and the window
+	 * covers the whole of both strings, Gotoh's recurrence is used. It takes
+	 * time proportional to the product of the lengths and linear memory
+	 * rather than trying every gap length at every cell.
+	 *
 	 * @see http://www.gen.tcd.ie/molevol/nwswat.html for details.
 	 *
 	 * @param s
@@ -266,6 +286,10 @@ public class SmithWatermanGotohWindowedAffine extends AbstractStringMetric {
 		if (m == 0) {
 			return n;
 		}
+		if (isGotoh(n, m)) {
+			return gotoh(s, t, (AbstractOpenExtendGapCost) gGapFunc);
+		}
+		final SubstitutionCostTable table = SubstitutionCostTable.of(dCostFunc);
 
 		// create matrix (n)x(m)
 		d = new float[n][m];
@@ -275,7 +299,7 @@ public class SmithWatermanGotohWindowedAffine extends AbstractStringMetric {
 		float maxSoFar = 0.0f;
 		for (i = 0; i < n; i++) {
 			// get the substution cost
-			cost = dCostFunc.getCost(s, i, t, 0);
+			cost = getCost(table, s, i, t, 0);
 
 			if (i == 0) {
 				d[0][0] = max(0, cost);
@@ -298,7 +322,7 @@ public class SmithWatermanGotohWindowedAffine extends AbstractStringMetric {
 		}
 		for (j = 0; j < m; j++) {
 			// get the substution cost
-			cost = dCostFunc.getCost(s, 0, t, j);
+			cost = getCost(table, s, 0, t, j);
 
 			if (j == 0) {
 				d[0][0] = max(0, cost);
@@ -325,7 +349,7 @@ public class SmithWatermanGotohWindowedAffine extends AbstractStringMetric {
 		for (i = 1; i < n; i++) {
 			for (j = 1; j < m; j++) {
 				// get the substution cost
-				cost = dCostFunc.getCost(s, i, t, j);
+				cost = getCost(table, s, i, t, j);
 
 				// find lowest cost at point from three possible
 				float maxGapCost1 = 0.0f;
@@ -367,4 +391,108 @@ public class SmithWatermanGotohWindowedAffine extends AbstractStringMetric {
 		// return max value within matrix as holds the maximum edit score
 		return maxSoFar;
 	}
+
+	/**
+	 * aligns the sequences in place when Gotoh's recurrence is used and the
+	 * cost function has a table, else as strings, which the gap and cost
+	 * functions read.
+	 */
+	private float align(final CharSequence s, final CharSequence t) {
+		final int n = s.length();
+		final int m = t.length();
+		if (n == 0) {
+			return m;
+		}
+		if (m == 0) {
+			return n;
+		}
+		if (isGotoh(n, m) && SubstitutionCostTable.of(dCostFunc) != null) {
+			return gotoh(s, t, (AbstractOpenExtendGapCost) gGapFunc);
+		}
+		return getUnNormalisedSimilarity(s.toString(), t.toString());
+	}
+
+	/**
+	 * returns true if strings of the given lengths are aligned with Gotoh's
+	 * recurrence rather than the windowed one.
+	 */
+	final boolean isGotoh(final int length1, final int length2) {
+		return gGapFunc instanceof AbstractOpenExtendGapCost
+				&& windowSize >= Math.max(length1, length2);
+	}
+
+	/**
+	 * fills the matrix a row at a time keeping, for each cell, the best score
+	 * of a gap ending there as well as the score of the cell.
+	 *
+	 * A gap of k characters ending at d[i][j] scores the best of extending
+	 * the gap ending at d[i-1][j] by one character, or opening a new gap after
+	 * d[i-1][j]. As in the windowed recurrence gaps never start from the first
+	 * row or column.
+	 */
+	private float gotoh(final CharSequence s, final CharSequence t,
+			final AbstractOpenExtendGapCost gapCost) {
+		final int n = s.length();
+		final int m = t.length();
+		final SubstitutionCostTable table = SubstitutionCostTable.of(dCostFunc);
+		final float open = gapCost.getOpenCost();
+		final float extend = gapCost.getExtendCost();
+
+		// row[j] holds d[i][j], gaps[j] the best gap down column j into the
+		// next row
+		final float[] buffer = AlignmentBuffers.getRow(2 * m);
+		final int gaps = m;
+		for (int j = 0; j < m; j++) {
+			buffer[gaps + j] = Float.NEGATIVE_INFINITY;
+		}
+
+		float maxSoFar = 0.0f;
+		for (int i = 0; i < n; i++) {
+			float diagonal = 0.0f;
+			// best gap along row i into column j
+			float gapAlong = Float.NEGATIVE_INFINITY;
+			for (int j = 0; j < m; j++) {
+				final float up = buffer[j];
+				final float gapDown = buffer[gaps + j];
+				final float cost = getCost(table, s, i, t, j);
+				final float score;
+				if (i == 0 && j == 0) {
+					score = max(0, cost);
+				} else if (i == 0 || j == 0) {
+					score = max3(0, j == 0 ? gapDown : gapAlong, cost);
+				} else {
+					score = max4(0, gapDown, gapAlong, diagonal + cost);
+				}
+				buffer[j] = score;
+				diagonal = up;
+				if (i > 0) {
+					buffer[gaps + j] = max(gapDown - extend, score - open);
+				}
+				if (j > 0) {
+					gapAlong = max(gapAlong - extend, score - open);
+				}
+				// update max possible if available
+				if (score > maxSoFar) {
+					maxSoFar = score;
+				}
+			}
+		}
+
+		// return max value within matrix as holds the maximum edit score
+		return maxSoFar;
+	}
+
+	/**
+	 * looks the substitution cost up in the table of the cost function if it
+	 * has one. Without a table the sequences are strings, see
+	 * {@link #align(CharSequence, CharSequence)}.
+	 */
+	private float getCost(final SubstitutionCostTable table,
+			final CharSequence s, final int i, final CharSequence t,
+			final int j) {
+		if (table != null) {
+			return table.getCost(s.charAt(i), t.charAt(j));
+		}
+		return dCostFunc.getCost(s.toString(), i, t.toString(), j);
+	}
 }
@@ -39,9 +39,16 @@
 
 package uk.ac.shef.wit.simmetrics.similaritymetrics;
 
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 import uk.ac.shef.wit.simmetrics.similaritymetrics.AbstractStringMetric;
 import uk.ac.shef.wit.simmetrics.simplifier.CaseSimplifier;
 import uk.ac.shef.wit.simmetrics.simplifier.Simplifier;
+import uk.ac.shef.wit.simmetrics.utils.ThreadSafe;
 import static uk.ac.shef.wit.simmetrics.utils.Math.clamp;
 
 /**
@@ -51,6 +58,7 @@ import static uk.ac.shef.wit.simmetrics.utils.Math.clamp;
  * @author Sam Chapman
  * @version 1.1
  */
+@ThreadSafe
 public final class Soundex extends AbstractStringMetric {
 
 	private final float ESTIMATEDTIMINGCONST = 0.00052f;
@@ -58,8 +66,19 @@ public final class Soundex extends AbstractStringMetric {
 	 * Defines the soundex length in characters e.g. S-2433 is 6 long.
 	 */
 	private final static int SOUNDEXLENGTH = 6;
+	/**
+	 * A string as long as a soundex code, for the timing estimate.
+	 */
+	private final static String SOUNDEXSAMPLE = "abcdef";
 	private final AbstractStringMetric metric;
-	private final Simplifier soundexSimplifier = new SoundexSimplifier(
+	/**
+	 * Soundex codes of recently compared strings, null if none are kept.
+	 */
+	private final Cache<String, String> codes;
+	/**
+	 * Shared by all instances so prepared strings keep one soundex code.
+	 */
+	private final static SoundexSimplifier SOUNDEXSIMPLIFIER = new SoundexSimplifier(
 			SOUNDEXLENGTH);
 
 	/**
@@ -79,6 +98,24 @@ public final class Soundex extends AbstractStringMetric {
 	 */
 	public Soundex(final AbstractStringMetric metric) {
 		this.metric = metric;
+		this.codes = null;
+	}
+
+	/**
+	 * Constructs a Soundex metric keeping the soundex codes of recently
+	 * compared strings. Encoding a name takes about as long as looking its
+	 * code up, keeping codes pays off for long strings compared repeatedly.
+	 * 
+	 * @param metric
+	 *            the metric used to compare two soundex strings
+	 * @param maximumCachedCodes
+	 *            the number of soundex codes kept
+	 */
+	public Soundex(final AbstractStringMetric metric,
+			final long maximumCachedCodes) {
+		this.metric = metric;
+		this.codes = CacheBuilder.newBuilder().maximumSize(maximumCachedCodes)
+				.build();
 	}
 
 	@Deprecated
@@ -90,29 +127,111 @@ public final class Soundex extends AbstractStringMetric {
 			final String string2) {
 		final float str1Length = string1.length();
 		final float str2Length = string2.length();
-		final String testString = "abcdefghijklmnopq";
-		return ((str1Length + str2Length) * ESTIMATEDTIMINGCONST)
-				+ metric.getSimilarityTimingEstimated(
-						testString.substring(0, SOUNDEXLENGTH),
-						testString.substring(0, SOUNDEXLENGTH));
+		return ((str1Length + str2Length) * ESTIMATEDTIMINGCONST
+				* getTimingScale())
+				+ getWrappedTimingEstimated(string1, string2);
+	}
+
+	/**
+	 * the codes are compared by the wrapped metric.
+	 */
+	@Override
+	float getWrappedTimingEstimated(final String string1,
+			final String string2) {
+		return metric.getSimilarityTimingEstimated(SOUNDEXSAMPLE,
+				SOUNDEXSAMPLE);
 	}
 
 	public float getSimilarity(final String string1, final String string2) {
-		final String soundex1 = soundexSimplifier.simplify(string1);
-		final String soundex2 = soundexSimplifier.simplify(string2);
+		return getSimilarity((CharSequence) string1, (CharSequence) string2);
+	}
+
+	@Override
+	public float getSimilarity(final CharSequence string1,
+			final CharSequence string2) {
+		final String soundex1 = getCode(string1);
+		final String soundex2 = getCode(string2);
 		// convert into zero to one return using attached string metric to score
 		// comparison
 		return metric.getSimilarity(soundex1, soundex2);
 	}
 
+	/**
+	 * Uses the soundex codes of the prepared strings.
+	 */
+	@Override
+	public float getSimilarity(final PreparedString string1,
+			final PreparedString string2) {
+		return metric.getSimilarity(string1.getSimplified(SOUNDEXSIMPLIFIER),
+				string2.getSimplified(SOUNDEXSIMPLIFIER));
+	}
+
+	private String getCode(final CharSequence string) {
+		if (codes == null || !(string instanceof String)) {
+			return SOUNDEXSIMPLIFIER.simplify(string);
+		}
+		try {
+			return codes.get((String) string, new Callable<String>() {
+				public String call() throws Exception {
+					return SOUNDEXSIMPLIFIER.simplify(string);
+				}
+			});
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
 	public float getUnNormalisedSimilarity(String string1, String string2) {
 		// TODO: Why is soundex not calculated here?
 		return metric.getUnNormalisedSimilarity(string1, string2);
 	}
 
-	private class SoundexSimplifier implements Simplifier {
+	@Override
+	public boolean isThreadSafe() {
+		return super.isThreadSafe() && metric.isThreadSafe();
+	}
+
+	/**
+	 * Encodes words in a single pass over their characters, looking each up in
+	 * a table of soundex digits.
+	 */
+	static final class SoundexSimplifier implements Simplifier {
+
+		/**
+		 * the soundex digit of each ASCII letter, the letter itself for Y,
+		 * which is not coded, and zero for characters that are not letters.
+		 * Vowels, H and W are coded '0' and separate equal digits.
+		 */
+		private static final char[] CODES = new char[128];
+
+		static {
+			// 1 <- B,P,F,V
+			// 2 <- C,S,K,G,J,Q,X,Z
+			// 3 <- D,T
+			// 4 <- L
+			// 5 <- M,N
+			// 6 <- R
+			final String[] letters = { "AEIOUWH", "BPFV", "CSKGJQXZ", "DT",
+					"L", "MN", "R" };
+			for (int digit = 0; digit < letters.length; digit++) {
+				for (int i = 0; i < letters[digit].length(); i++) {
+					final char letter = letters[digit].charAt(i);
+					CODES[letter] = (char) ('0' + digit);
+					CODES[Character.toLowerCase(letter)] = (char) ('0' + digit);
+				}
+			}
+			CODES['Y'] = 'Y';
+			CODES['y'] = 'y';
+		}
+
+		/**
+		 * letters beyond the first looked at, uses the assumption that enough
+		 * valid characters are in the first 4 times the soundex length. The
+		 * one letter more is looked at too if it is the last.
+		 */
+		private static final int LETTERSCODED = SOUNDEXLENGTH * 4 - 1;
 
-		private int soundExLen;
+		private final int soundExLen;
 
 		public SoundexSimplifier(int soundExLen) {
 			// ensure soundexLen is in a valid range
@@ -123,78 +242,67 @@ public final class Soundex extends AbstractStringMetric {
 		 * calculates a soundex code for a given string/name.
 		 *
 		 * @param wordString
-		 * @param soundExLen
-		 *            - the length of the soundex code to create
 		 * @return a soundex code for a given string/name
 		 */
 		public String simplify(String wordString) {
-			
-			// check for empty input
-			if (wordString.isEmpty()) {
-				return "";
-			}
-
-			/*
-			 * Clean and tidy
-			 */
-			String wordStr = wordString;
-			wordStr = wordStr.replaceAll("[^a-zA-Z]", " "); // rpl non-chars whitespace
-			wordStr = wordStr.replaceAll("\\s+", ""); // remove spaces
+			return simplify((CharSequence) wordString);
+		}
 
-			// check for empty input again the previous clean and tidy could of
-			// shrunk it to zero.
-			if (wordStr.isEmpty()) {
+		/**
+		 * calculates a soundex code for a given character sequence, read in
+		 * place. Characters that are not ASCII letters are skipped, the first
+		 * letter is kept as it is and the digits of the letters after it
+		 * follow, equal adjacent digits once, padded with zeros.
+		 */
+		String simplify(final CharSequence wordString) {
+			final int length = wordString.length();
+			final char[] code = new char[soundExLen];
+			int codeLength = 0;
+			int letters = 0;
+			char lastDigit = '-';
+			for (int i = 0; i < length && codeLength < soundExLen; i++) {
+				final char c = wordString.charAt(i);
+				final char digit = c < CODES.length ? CODES[c] : 0;
+				if (digit == 0) {
+					continue;
+				}
+				if (letters == 0) {
+					code[0] = c;
+					code[1] = '-';
+					codeLength = 2;
+				} else if (letters > LETTERSCODED
+						&& (letters > LETTERSCODED + 1 || hasLetter(wordString,
+								i + 1))) {
+					break;
+				} else if (digit != lastDigit) {
+					lastDigit = digit;
+					if (digit != '0') {
+						code[codeLength++] = digit;
+					}
+				}
+				letters++;
+			}
+			if (letters == 0) {
 				return "";
 			}
-
-			/*
-			 * The above improvements may change this first letter
-			 */
-			final char firstLetter = wordStr.charAt(0);
-
-			// uses the assumption that enough valid characters are in the first
-			// 4
-			// times the soundex required length
-			if (wordStr.length() > (SOUNDEXLENGTH * 4) + 1) {
-				wordStr = "-" + wordStr.substring(1, SOUNDEXLENGTH * 4);
-			} else {
-				wordStr = "-" + wordStr.substring(1);
+			while (codeLength < soundExLen) {
+				code[codeLength++] = '0';
 			}
-			// Begin Classic SoundEx
-			// 1 <- B,P,F,V
-			// 2 <- C,S,K,G,J,Q,X,Z
-			// 3 <- D,T
-			// 4 <- L
-			// 5 <- M,N
-			// 6 <- R
+			return new String(code);
+		}
 
-			wordStr = wordStr.replaceAll("[AaEeIiOoUuWwHh]", "0");
-			wordStr = wordStr.replaceAll("[BbPpFfVv]", "1");
-			wordStr = wordStr.replaceAll("[CcSsKkGgJjQqXxZz]", "2");
-			wordStr = wordStr.replaceAll("[DdTt]", "3");
-			wordStr = wordStr.replaceAll("[Ll]", "4");
-			wordStr = wordStr.replaceAll("[MmNn]", "5");
-			wordStr = wordStr.replaceAll("[Rr]", "6");
-
-			// Remove extra equal adjacent digits
-			int wsLen = wordStr.length();
-			char lastChar = '-';
-			String tmpStr = "-"; /* replacing skipped first character */
-			for (int i = 1; i < wsLen; i++) {
-				char curChar = wordStr.charAt(i);
-				if (curChar != lastChar) {
-					tmpStr += curChar;
-					lastChar = curChar;
+		/**
+		 * returns true if an ASCII letter follows the given index.
+		 */
+		private static boolean hasLetter(final CharSequence wordString,
+				final int start) {
+			for (int i = start; i < wordString.length(); i++) {
+				final char c = wordString.charAt(i);
+				if (c < CODES.length && CODES[c] != 0) {
+					return true;
 				}
 			}
-			wordStr = tmpStr;
-			wordStr = wordStr.substring(1); /* Drop first letter code */
-			wordStr = wordStr.replaceAll("0", ""); /* remove zeros */
-			wordStr += "000000000000000000"; /* pad with zeros on right */
-			wordStr = firstLetter + "-" + wordStr; /* Add first letter of word */
-			wordStr = wordStr.substring(0, soundExLen); /* size to taste */
-			return (wordStr);
+			return false;
 		}
-
 	}
 }
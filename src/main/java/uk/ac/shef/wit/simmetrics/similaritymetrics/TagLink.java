@@ -66,28 +66,26 @@ package uk.ac.shef.wit.simmetrics.similaritymetrics;
 
 import uk.ac.shef.wit.simmetrics.tokenisers.InterfaceTokeniser;
 import uk.ac.shef.wit.simmetrics.tokenisers.TokeniserWhitespace;
+import uk.ac.shef.wit.simmetrics.utils.ThreadSafe;
 
 import java.util.*;
 
 /**
  * TagLink inplements a TagLink String Metric.
  */
+@ThreadSafe
 public final class TagLink extends AbstractStringMetric   {
 
 	/**
-	 * private idfMap contains the IDF weights for each token in the dataset.
+	 * private idfModel contains the IDF weights for each token in the
+	 * dataset, null if all tokens are equally weighted.
 	 */
-	private HashMap<String, Float> idfMap;
+	private final IdfModel idfModel;
 	/**
 	 * private characterBasedStringMetric is the method that meassures
 	 * similarity between tokens.
 	 */
-	private InterfaceStringMetric characterBasedStringMetric;
-	/**
-	 * private DEFAULT_METRIC is the default method that meassures similarity
-	 * between tokens.
-	 */
-	private static final AbstractStringMetric DEFAULT_METRIC = new TagLinkToken();
+	private final InterfaceStringMetric characterBasedStringMetric;
 	/**
 	 * private tokeniser for tokenisation of the query strings.
 	 */
@@ -103,7 +101,7 @@ public final class TagLink extends AbstractStringMetric   {
 	 * Transposition constant value is 0.3
 	 */
 	public TagLink() {
-		this(DEFAULT_METRIC);
+		this(new TagLinkToken());
 		// WARNING FROM AUTHOR OF SIMMETRICS
 		// this metric is not recomended for fast processing it has been added
 		// by a third party into the library and from the source is an extremely
@@ -131,6 +129,7 @@ public final class TagLink extends AbstractStringMetric   {
 	public TagLink(AbstractStringMetric characterBasedStringMetric) {
 		this.characterBasedStringMetric = characterBasedStringMetric;
 		tokeniser = new TokeniserWhitespace();
+		this.idfModel = null;
 		// WARNING FROM AUTHOR OF SIMMETRICS
 		// this metric is not recomended for fast processing it has been added
 		// by a third party into the library and from the source is an extremely
@@ -157,7 +156,7 @@ public final class TagLink extends AbstractStringMetric   {
 	 *            String[]
 	 */
 	public TagLink(String[] dataSetArray) {
-		this(dataSetArray, DEFAULT_METRIC);
+		this(dataSetArray, new TagLinkToken());
 		// WARNING FROM AUTHOR OF SIMMETRICS
 		// this metric is not recomended for fast processing it has been added
 		// by a third party into the library and from the source is an extremely
@@ -189,7 +188,7 @@ public final class TagLink extends AbstractStringMetric   {
 			AbstractStringMetric characterBasedStringMetric) {
 		this.characterBasedStringMetric = characterBasedStringMetric;
 		tokeniser = new TokeniserWhitespace();
-		this.idfMap = getIDFMap(dataSetArray);
+		this.idfModel = getIDFModel(dataSetArray);
 		// WARNING FROM AUTHOR OF SIMMETRICS
 		// this metric is not recomended for fast processing it has been added
 		// by a third party into the library and from the source is an extremely
@@ -208,6 +207,35 @@ public final class TagLink extends AbstractStringMetric   {
 		// " source - thanks Sam");
 	}
 
+	/**
+	 * TagLink constructor requires a model of the IDF weights, which may still
+	 * grow while in use. Default character based string metric is
+	 * TagLinkToken.
+	 *
+	 * @param idfModel
+	 *            the IDF weights of the dataset
+	 */
+	public TagLink(IdfModel idfModel) {
+		this(idfModel, new TagLinkToken());
+	}
+
+	/**
+	 * TagLink constructor requires a model of the IDF weights, which may still
+	 * grow while in use. Strings are split into tokens by the tokeniser of the
+	 * model. Also requires a character based string metric.
+	 *
+	 * @param idfModel
+	 *            the IDF weights of the dataset
+	 * @param characterBasedStringMetric
+	 *            CharacterBasedStringMetric
+	 */
+	public TagLink(IdfModel idfModel,
+			AbstractStringMetric characterBasedStringMetric) {
+		this.characterBasedStringMetric = characterBasedStringMetric;
+		this.tokeniser = idfModel.getTokeniser();
+		this.idfModel = idfModel;
+	}
+
 	/**
 	 * getMinStringSize count the number of characters in String array tTokens
 	 * and String array uTokens and return the minimun size.
@@ -244,7 +272,8 @@ public final class TagLink extends AbstractStringMetric   {
 			final String string2) {
 		final float str1Length = string1.length();
 		final float str2Length = string2.length();
-		return (str1Length * str2Length) * ESTIMATEDTIMINGCONST;
+		return (str1Length * str2Length) * ESTIMATEDTIMINGCONST
+				* getTimingScale();
 	}
 
 	/**
@@ -292,16 +321,29 @@ public final class TagLink extends AbstractStringMetric   {
 		if (T.equals(U)) {
 			return 1.0f;
 		} else {
-			ArrayList<String> tArrayList = tokeniser.tokenizeToArrayList(T);
-			ArrayList<String> uArrayList = tokeniser.tokenizeToArrayList(U);
-			String[] tTokens = tArrayList
-					.toArray(new String[tArrayList.size()]), uTokens = uArrayList
-					.toArray(new String[uArrayList.size()]);
-			float[] tIdfArray = getIDFArray(tTokens), uIdfArray = getIDFArray(uTokens);
-			return algorithm1(tTokens, uTokens, tIdfArray, uIdfArray);
+			return getSimilarity(tokeniser.tokenizeToArrayList(T),
+					tokeniser.tokenizeToArrayList(U));
 		}
 	}
 
+	/**
+	 * Uses the tokens of the prepared strings.
+	 */
+	@Override
+	public float getSimilarity(PreparedString T, PreparedString U) {
+		if (T.getString().equals(U.getString())) {
+			return 1.0f;
+		}
+		return getSimilarity(T.getTokens(tokeniser), U.getTokens(tokeniser));
+	}
+
+	private float getSimilarity(List<String> tList, List<String> uList) {
+		String[] tTokens = tList.toArray(new String[tList.size()]), uTokens = uList
+				.toArray(new String[uList.size()]);
+		float[] tIdfArray = getIDFArray(tTokens), uIdfArray = getIDFArray(uTokens);
+		return algorithm1(tTokens, uTokens, tIdfArray, uIdfArray);
+	}
+
 	/**
 	 * algorithm1 select the considered most appropiate token pairs and compute
 	 * the sum of the selected pairs.
@@ -318,23 +360,14 @@ public final class TagLink extends AbstractStringMetric   {
 	 */
 	private float algorithm1(String[] tTokens, String[] uTokens,
 			float[] tIdfArray, float[] uIdfArray) {
-		ArrayList<Candidates> candidateList = obtainCandidateList(tTokens,
-				uTokens, tIdfArray, uIdfArray);
-		sortCandidateList(candidateList);
-		float scoreValue = 0.0f;
-		HashMap<Integer, Object> tMap = new HashMap<Integer, Object>();
-		HashMap<Integer, Object> uMap = new HashMap<Integer, Object>();
-		for (Object aCandidateList : candidateList) {
-			Candidates actualCandidates = (Candidates) aCandidateList;
-			Integer tPos = actualCandidates.getTPos();
-			Integer uPos = actualCandidates.getUPos();
-			if ((!tMap.containsKey(tPos)) && (!uMap.containsKey(uPos))) {
-				scoreValue += actualCandidates.getScore();
-				tMap.put(tPos, null);
-				uMap.put(uPos, null);
-			}
+		final CandidateList candidateList = CandidateList.acquire();
+		try {
+			obtainCandidateList(tTokens, uTokens, tIdfArray, uIdfArray,
+					candidateList);
+			return candidateList.assign(tTokens.length, uTokens.length);
+		} finally {
+			candidateList.release();
 		}
-		return scoreValue;
 	}
 
 	// FIXME: This causes horrible code duplication.
@@ -455,11 +488,11 @@ public final class TagLink extends AbstractStringMetric   {
 	 *            float[]
 	 * @param uIdfArray
 	 *            float[]
-	 * @return ArrayList
+	 * @param candidateList
+	 *            the list to add the candidates to
 	 */
-	private ArrayList<Candidates> obtainCandidateList(String[] tTokens,
-			String[] uTokens, float[] tIdfArray, float[] uIdfArray) {
-		ArrayList<Candidates> candidateList = new ArrayList<Candidates>();
+	private void obtainCandidateList(String[] tTokens, String[] uTokens,
+			float[] tIdfArray, float[] uIdfArray, CandidateList candidateList) {
 		float minStringSize = getMinStringSize(tTokens, uTokens);
 		for (int t = 0; t < tTokens.length; t++) {
 			int lastTr = -1;
@@ -469,55 +502,40 @@ public final class TagLink extends AbstractStringMetric   {
 					flag = 1;
 				} else {
 					String tTok = tTokens[t], uTok = uTokens[u];
-					float innerScore = characterBasedStringMetric
-							.getSimilarity(tTok, uTok);
+					float innerScore;
+					float matched;
+					if (characterBasedStringMetric instanceof TagLinkToken) {
+						// score and matched characters come from the same
+						// comparison so the metric may be shared by threads
+						TagLinkToken.Result result = ((TagLinkToken) characterBasedStringMetric)
+								.getTokenSimilarity(tTok, uTok);
+						innerScore = result.getSimilarity();
+						matched = result.getMatched();
+					} else {
+						innerScore = characterBasedStringMetric.getSimilarity(
+								tTok, uTok);
+						matched = 0.0f;
+					}
 					if (innerScore >= 0.0f) {
-						float matched;
 						if (innerScore == 1.0f) {
 							matched = tTokens[t].length();
-						} else {
-							matched = ((TagLinkToken) characterBasedStringMetric)
-									.getMatched();
 						}
 						float weightMatched = matched / minStringSize, weightTFIDF = tIdfArray[t]
 								* uIdfArray[u], weight = (weightTFIDF + weightMatched) / 2.0f;
 						if (innerScore == 1.0f) {
 							lastTr = tr;
 						}
-						candidateList.add(new Candidates(t, u, innerScore
-								* weight));
+						candidateList.add(t, u, innerScore * weight);
 					}
 				}
 			}
 		}
-		return candidateList;
-	}
-
-	/**
-	 * sortCandidateList sort a list of candidate pair of tokens.
-	 *
-	 * @param list
-	 *            ArrayList of candidates
-	 */
-	private void sortCandidateList(ArrayList<Candidates> list) {
-		java.util.Collections.sort(list, new java.util.Comparator<Candidates>() {
-			public int compare(Candidates o1, Candidates o2) {
-				// First sort, by score in index
-				float scoreT =  o1.getScore();
-				float scoreU =  o2.getScore();
-				if (scoreU > scoreT) {
-					return 1;
-				}
-				if (scoreU < scoreT) {
-					return -1;
-				}
-				return 0;
-			}
-		});
 	}
 
 	/**
-	 * getIDFArray normalize a vector of IDF weights.
+	 * getIDFArray normalize a vector of IDF weights. Tokens are equally
+	 * weighted without a model, or when the model gives all of them no
+	 * weight, e.g. when it holds no documents yet.
 	 *
 	 * @param tokenArray
 	 *            String[]
@@ -526,33 +544,35 @@ public final class TagLink extends AbstractStringMetric   {
 	private float[] getIDFArray(String[] tokenArray) {
 		int tokenArrayLength = tokenArray.length;
 		float[] IDFArray = new float[tokenArrayLength];
-		if (idfMap == null) {
-			float cosineWeight = 1.0f / ((float) Math.sqrt(tokenArrayLength));
-			for (int i = 0; i < tokenArrayLength; i++) {
-				IDFArray[i] = cosineWeight;
-			}
-		} else {
+		if (idfModel != null) {
 			float sq = 0f;
 			for (int i = 0; i < tokenArrayLength; i++) {
-				String actualToken = tokenArray[i];
-				float idfWeight = 0.0f;
-				try {
-					idfWeight = (idfMap.get(actualToken));
-				} catch (Exception e) {
-					// SAM added this as the catch was unguarded.
-					e.printStackTrace();
-				}
+				// unseen tokens are weighted as the rarest tokens
+				float idfWeight = idfModel.getIdf(tokenArray[i]);
 				IDFArray[i] = idfWeight;
 				sq += idfWeight * idfWeight;
 			}
-			sq = (float) Math.sqrt(sq);
-			for (int i = 0; i < tokenArrayLength; i++) {
-				IDFArray[i] = IDFArray[i] / sq;
+			if (sq > 0.0f) {
+				sq = (float) Math.sqrt(sq);
+				for (int i = 0; i < tokenArrayLength; i++) {
+					IDFArray[i] = IDFArray[i] / sq;
+				}
+				return IDFArray;
 			}
 		}
+		float cosineWeight = 1.0f / ((float) Math.sqrt(tokenArrayLength));
+		for (int i = 0; i < tokenArrayLength; i++) {
+			IDFArray[i] = cosineWeight;
+		}
 		return IDFArray;
 	}
 
+	@Override
+	public boolean isThreadSafe() {
+		return super.isThreadSafe()
+				&& characterBasedStringMetric.isThreadSafe();
+	}
+
 	/**
 	 * returns the long string identifier for the metric.
 	 *
@@ -565,7 +585,7 @@ public final class TagLink extends AbstractStringMetric   {
 
 	@Override
 	public String toString() {
-		if (idfMap == null) {
+		if (idfModel == null) {
 			return "[TagLink_["
 					+ characterBasedStringMetric.toString()
 					+ "]";
@@ -578,63 +598,17 @@ public final class TagLink extends AbstractStringMetric   {
 	}
 
 	/**
-	 * getIDFMap compute the IDF weights for the dataset provided.
+	 * getIDFModel counts the documents of the dataset provided.
 	 *
 	 * @param dataSetArray
 	 *            String[]
 	 */
-	private HashMap<String, Float> getIDFMap(String[] dataSetArray) {
-		float N = dataSetArray.length;
-		HashMap<String, Float> idfMap = new HashMap<String, Float>();
-		for (int row = 0; row < N; row++) {
-			HashMap<String, Object> rowMap = new HashMap<String, Object>();
-			HashMap<String, Float> freqMap = new HashMap<String, Float>();
-			String actualRow = dataSetArray[row];
-			ArrayList<String> tokenArrayList = tokeniser
-					.tokenizeToArrayList(actualRow);
-			String[] rowArray = tokenArrayList
-					.toArray(new String[tokenArrayList.size()]);
-			for (String actualToken : rowArray) {
-				rowMap.put(actualToken, null);
-
-				float actualFrequency = getFrequency(actualToken, freqMap) + 1.0f;
-				freqMap.put(actualToken, actualFrequency);
-			}
-			Collection<String> entries = rowMap.keySet();
-			for (String actualToken : entries) {
-				float actualFrequency = getFrequency(actualToken, idfMap) + 1.0f;
-				idfMap.put(actualToken, actualFrequency);
-			}
-
-		}
-
-		Collection<Map.Entry<String, Float>> entries = idfMap.entrySet();
-		Map.Entry<String, Float> ent;
-		for (Map.Entry<String, Float> entry : entries) {
-			ent = entry;
-			String key = ent.getKey();
-			float frequency = ent.getValue();
-			float idf = (float) Math.log((N / frequency) + 1.0f);
-			idfMap.put(key, idf);
+	private IdfModel getIDFModel(String[] dataSetArray) {
+		IdfModel model = new IdfModel(tokeniser);
+		for (String actualRow : dataSetArray) {
+			model.addDocument(actualRow);
 		}
-		return idfMap;
-	}
-
-	/**
-	 * getFrequency retrieve the value of the map.
-	 *
-	 * @param word
-	 *            String
-	 * @param map
-	 *            Map
-	 * @return float
-	 */
-	private float getFrequency(String word, Map<String, Float> map) {
-		Float frequency = map.get(word);
-		if (frequency == null) {
-			return 0;
-		}
-		return frequency;
+		return model;
 	}
 
 	/**
@@ -653,54 +627,3 @@ public final class TagLink extends AbstractStringMetric   {
 		return (round / 1000.00f);
 	}
 }
-
-class Candidates   {
-	private int tPos, uPos;
-	private float score;
-
-	/**
-	 * Candidates constructor. Creates an instance of a candidate string pair T
-	 * and U. It requires the position of the pair in the string and the score
-	 * or distance between them.
-	 *
-	 * @param tPos
-	 *            int
-	 * @param uPos
-	 *            int
-	 * @param score
-	 *            float
-	 */
-	public Candidates(int tPos, int uPos, float score) {
-		this.tPos = tPos;
-		this.uPos = uPos;
-		this.score = score;
-	}
-
-	/**
-	 * getTPos, return the position of string T.
-	 *
-	 * @return int
-	 */
-	public int getTPos() {
-		return tPos;
-	}
-
-	/**
-	 * getUPos, return the position of string U.
-	 *
-	 * @return int
-	 */
-	public int getUPos() {
-		return uPos;
-	}
-
-	/**
-	 * getScore, return the score or distance between strings T and U.
-	 *
-	 * @return float
-	 */
-	public float getScore() {
-		return score;
-	}
-
-}
\ No newline at end of file
@@ -1,9 +1,6 @@
 package uk.ac.shef.wit.simmetrics.similaritymetrics;
 
-import static java.util.Collections.sort;
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.ArrayList;
+import uk.ac.shef.wit.simmetrics.utils.ThreadSafe;
 
 /**
  * <p>
@@ -35,14 +32,28 @@ import java.util.ArrayList;
  *
  * @version 1.1
  */
+@ThreadSafe
 public final class TagLinkToken extends AbstractStringMetric {
-	private float matched;
-	private float tr;
-	private float tSize;
-	private float uSize;
 	private static final float DEF_TR = 0.3f;
-	private String sA, sB, tokenT;
-	private int largestIndex;
+
+	/**
+	 * the constant Gamma, read once per comparison so changing it does not
+	 * affect comparisons in progress.
+	 */
+	private volatile float tr;
+
+	/**
+	 * the last result on each thread, a shim only kept for the deprecated
+	 * accessors that used to read it from fields of the metric. Set by
+	 * {@link #getSimilarity(String, String)}, not by
+	 * {@link #getTokenSimilarity(String, String)}.
+	 */
+	private final ThreadLocal<LastComparison> last = new ThreadLocal<LastComparison>() {
+		@Override
+		protected LastComparison initialValue() {
+			return new LastComparison();
+		}
+	};
 
 	/**
 	 * a constant for calculating the estimated timing cost.
@@ -84,7 +95,9 @@ public final class TagLinkToken extends AbstractStringMetric {
 
 	/**
 	 * getSimilarity return the a strng distance value between 0 and 1 of a pair
-	 * of tokens. Where 1 is the maximum similarity.
+	 * of tokens. Where 1 is the maximum similarity. The result is kept as the
+	 * last result on the calling thread for the deprecated accessors, callers
+	 * not needing them should use {@link #getTokenSimilarity(String, String)}.
 	 *
 	 * @param T
 	 *            String
@@ -93,29 +106,38 @@ public final class TagLinkToken extends AbstractStringMetric {
 	 * @return float
 	 */
 	public float getSimilarity(String T, String U) {
-		float score;
+		final Result result = getTokenSimilarity(T, U);
+		last.get().result = result;
+		return result.getSimilarity();
+	}
+
+	/**
+	 * getTokenSimilarity compares a pair of tokens returning the similarity
+	 * together with the matched characters it was computed from.
+	 *
+	 * @param T
+	 *            String
+	 * @param U
+	 *            String
+	 * @return the result of the comparison
+	 */
+	public Result getTokenSimilarity(String T, String U) {
 		if (T.equals(U)) {
-			matched = T.length();
-			return 1.0f;
-		} else {
-			tSize = T.length();
-			uSize = U.length();
-			// let T be the largest token
-			if (tSize < uSize) {
-				String tmp1 = T;
-				T = U;
-				U = tmp1;
-				float tmp2 = tSize;
-				tSize = uSize;
-				uSize = tmp2;
-				tokenT = U;
-			}
-			tokenT = T;
-			ArrayList<Candidates> candidateList = algorithm1(T, U);
-			sortList(candidateList);
-			score = getScore(candidateList);
-			score = (score / tSize + score / uSize) / 2.0f;
-			return winkler(score, T, U);
+			return new Result(1.0f, T.length(), T, T.length(),
+					T.length() - 1);
+		}
+		// let T be the largest token
+		if (T.length() < U.length()) {
+			String tmp = T;
+			T = U;
+			U = tmp;
+		}
+		final CandidateList candidateList = CandidateList.acquire();
+		try {
+			algorithm1(T, U, tr, candidateList);
+			return getScore(candidateList, T, U);
+		} finally {
+			candidateList.release();
 		}
 	}
 
@@ -185,45 +207,38 @@ public final class TagLinkToken extends AbstractStringMetric {
 	 * getScore summ the total score of a candidate list of pair of characters.
 	 *
 	 * @param candidateList
-	 *            ArrayList
-	 * @return float
+	 *            the candidate pairs of characters
+	 * @param T
+	 *            the largest token
+	 * @param U
+	 *            the other token
+	 * @return the result of the comparison
 	 */
-	private float getScore(ArrayList<Candidates> candidateList) {
-		matched = 0;
-		largestIndex = -1;
-		float scoreValue = 0;
-		HashMap<Integer, Object> tMap = new HashMap<Integer, Object>();
-		HashMap<Integer, Object> uMap = new HashMap<Integer, Object>();
-		for (Object aCandidateList : candidateList) {
-			Candidates actualCandidates = (Candidates) aCandidateList;
-			Integer actualTPos = actualCandidates.getTPos(), actualUPos = actualCandidates
-					.getUPos();
-			if ((!tMap.containsKey(actualTPos))
-					&& (!uMap.containsKey(actualUPos))) {
-				scoreValue += actualCandidates.getScore();
-				tMap.put(actualTPos, null);
-				uMap.put(actualUPos, null);
-				if (largestIndex < (actualTPos)) {
-					largestIndex = (actualTPos);
-				}
-				matched++;
-			}
-		}
-		return scoreValue;
+	private static Result getScore(CandidateList candidateList, String T,
+			String U) {
+		final float scoreValue = candidateList.assign(T.length(), U.length());
+		final float tSize = T.length();
+		final float uSize = U.length();
+		final float score = (scoreValue / tSize + scoreValue / uSize) / 2.0f;
+		return new Result(winkler(score, T, U), candidateList.matched, T,
+				U.length(), candidateList.largestTPosition);
 	}
 
 	/**
-	 * algorithm1 select the considered most appropiate character pairs are
-	 * return a list of candidates.
+	 * algorithm1 select the considered most appropiate character pairs and
+	 * adds them to a list of candidates.
 	 *
 	 * @param T
 	 *            String
 	 * @param U
 	 *            String
-	 * @return ArrayList
+	 * @param tr
+	 *            the constant Gamma
+	 * @param candidateList
+	 *            the list to add the candidates to
 	 */
-	private ArrayList<Candidates> algorithm1(String T, String U) {
-		ArrayList<Candidates> candidateList = new ArrayList<Candidates>();
+	private static void algorithm1(String T, String U, float tr,
+			CandidateList candidateList) {
 		int bound = (int) (1.0 / tr);
 		for (int t = 0; t < T.length(); t++) {
 			char chT = T.charAt(t);
@@ -249,34 +264,11 @@ public final class TagLinkToken extends AbstractStringMetric {
 						if (charScore == 1.0) {
 							flag = 1;
 						}
-						candidateList.add(new Candidates(t, u, charScore));
+						candidateList.add(t, u, charScore);
 					}
 				}
 			}
 		}
-		return candidateList;
-	}
-
-	/**
-	 * sortList sort a candidate list by its scores.
-	 *
-	 * @param candidateList
-	 *            ArrayList
-	 */
-	private void sortList(ArrayList<Candidates> candidateList) {
-		sort(candidateList, new Comparator<Candidates>() {
-			public int compare(Candidates o1, Candidates o2) {
-				float scoreT = o1.getScore();
-				float scoreU = o2.getScore();
-				if (scoreU > scoreT) {
-					return 1;
-				}
-				if (scoreU < scoreT) {
-					return -1;
-				}
-				return 0;
-			}
-		});
 	}
 
 	/**
@@ -290,12 +282,12 @@ public final class TagLinkToken extends AbstractStringMetric {
 	 *            String
 	 * @return float
 	 */
-	private float winkler(float score, String T, String U) {
+	private static float winkler(float score, String T, String U) {
 		score = score + (getPrefix(T, U) * 0.1f * (1.0f - score));
 		return score;
 	}
 
-	private int getPrefix(String T, String U) {
+	private static int getPrefix(String T, String U) {
 		int bound = Math.min(4, Math.min(T.length(), U.length()));
 		int prefix;
 		for (prefix = 0; prefix < bound; prefix++) {
@@ -307,13 +299,17 @@ public final class TagLinkToken extends AbstractStringMetric {
 	}
 
 	/**
-	 * getMatched return the number of matched character. This value is
-	 * requiered for the MR-IDF method as proposed in Horacio & Salhi (2006)
+	 * getMatched return the number of matched character of the last
+	 * comparison made by the calling thread.
 	 *
 	 * @return float
+	 * @deprecated use {@link Result#getMatched()} of
+	 *             {@link #getTokenSimilarity(String, String)}.
 	 */
+	@Deprecated
 	public float getMatched() {
-		return matched;
+		final Result result = last.get().result;
+		return result == null ? 0.0f : result.getMatched();
 	}
 
 	/**
@@ -340,41 +336,41 @@ public final class TagLinkToken extends AbstractStringMetric {
 		return "[TagLinkToken_Tr_" + tr + "]";
 	}
 
+	/**
+	 * splitWord decides whether the largest token of the last comparison made
+	 * by the calling thread should be split, see {@link Result#splitWord()}.
+	 *
+	 * @param score
+	 *            the similarity of the last comparison
+	 * @return true if the token was split
+	 * @deprecated use {@link Result#splitWord()} of
+	 *             {@link #getTokenSimilarity(String, String)}.
+	 */
+	@Deprecated
 	public boolean splitWord(float score) {
-		boolean answer = true;
-		if (score == 1.0) {
-			answer = false;
-		} else {
-			float matchedRate = matched / uSize;
-			int cutUpper = ((int) tSize) - largestIndex;
-			if ((largestIndex < 3) || (cutUpper < 3) || (matchedRate < 0.8)
-					|| (score < 0.7)) {
-				answer = false;
-			} else {
-				split();
-			}
-		}
-		return answer;
-	}
-
-	private void split() {
-		sA = "";
-		sB = "";
-		for (int cutIndex = 0; cutIndex < tSize; cutIndex++) {
-			if (cutIndex <= largestIndex) {
-				sA += tokenT.charAt(cutIndex);
-			} else {
-				sB += tokenT.charAt(cutIndex);
-			}
+		final LastComparison last = this.last.get();
+		if (last.result == null || !last.result.splitWord(score)) {
+			return false;
 		}
+		last.sA = last.result.getSa();
+		last.sB = last.result.getSb();
+		return true;
 	}
 
+	/**
+	 * @deprecated use {@link Result#getSa()}.
+	 */
+	@Deprecated
 	public String getSa() {
-		return sA;
+		return last.get().sA;
 	}
 
+	/**
+	 * @deprecated use {@link Result#getSb()}.
+	 */
+	@Deprecated
 	public String getSb() {
-		return sB;
+		return last.get().sB;
 	}
 
 	/**
@@ -408,7 +404,112 @@ public final class TagLinkToken extends AbstractStringMetric {
 			final String string2) {
 		final float str1Length = string1.length();
 		final float str2Length = string2.length();
-		return (str1Length * str2Length) * ESTIMATEDTIMINGCONST;
+		return (str1Length * str2Length) * ESTIMATEDTIMINGCONST
+				* getTimingScale();
+	}
+
+	/**
+	 * The outcome of comparing a pair of tokens: the similarity, the number of
+	 * matched characters required by the MR-IDF method as proposed in Horacio
+	 * & Salhi (2006) and whether the largest token looks like two words run
+	 * together.
+	 */
+	public static final class Result {
+
+		private final float similarity;
+
+		private final float matched;
+
+		/**
+		 * the largest of the two tokens.
+		 */
+		private final String tokenT;
+
+		private final int uSize;
+
+		/**
+		 * position of the last matched character of tokenT.
+		 */
+		private final int largestIndex;
+
+		private Result(float similarity, float matched, String tokenT,
+				int uSize, int largestIndex) {
+			this.similarity = similarity;
+			this.matched = matched;
+			this.tokenT = tokenT;
+			this.uSize = uSize;
+			this.largestIndex = largestIndex;
+		}
+
+		/**
+		 * returns the similarity of the tokens between 0 and 1.
+		 *
+		 * @return the similarity of the tokens
+		 */
+		public float getSimilarity() {
+			return similarity;
+		}
+
+		/**
+		 * returns the number of matched characters.
+		 *
+		 * @return the number of matched characters
+		 */
+		public float getMatched() {
+			return matched;
+		}
+
+		/**
+		 * returns true if the largest token should be split after its last
+		 * matched character, because the smaller token matches most of a
+		 * long enough part at its start.
+		 *
+		 * @return true if the largest token should be split
+		 */
+		public boolean splitWord() {
+			return splitWord(similarity);
+		}
+
+		boolean splitWord(float score) {
+			if (score == 1.0) {
+				return false;
+			}
+			float matchedRate = matched / uSize;
+			int cutUpper = tokenT.length() - largestIndex;
+			return !((largestIndex < 3) || (cutUpper < 3)
+					|| (matchedRate < 0.8) || (score < 0.7));
+		}
+
+		/**
+		 * returns the part of the largest token up to and including its last
+		 * matched character.
+		 *
+		 * @return the first part of the split token, null if it should not be
+		 *         split
+		 */
+		public String getSa() {
+			return splitWord() ? tokenT.substring(0, largestIndex + 1) : null;
+		}
+
+		/**
+		 * returns the part of the largest token after its last matched
+		 * character.
+		 *
+		 * @return the second part of the split token, null if it should not
+		 *         be split
+		 */
+		public String getSb() {
+			return splitWord() ? tokenT.substring(largestIndex + 1) : null;
+		}
+	}
+
+	private static final class LastComparison {
+
+		Result result;
+
+		String sA;
+
+		String sB;
 	}
 
 }
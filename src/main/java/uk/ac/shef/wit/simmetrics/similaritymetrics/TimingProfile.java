@@ -0,0 +1,261 @@
+package uk.ac.shef.wit.simmetrics.similaritymetrics;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+import uk.ac.shef.wit.simmetrics.utils.ThreadSafe;
+
+/**
+ * Scales the timing estimates of metrics, see
+ * {@link InterfaceStringMetric#getSimilarityTimingEstimated(String, String)},
+ * to the machine they run on.
+ *
+ * The timing constants built into the metrics were measured on hardware long
+ * gone. A profile keeps a scale per metric class that the built in estimate
+ * is multiplied by, fitted by {@link #calibrate(InterfaceStringMetric)} on
+ * the running JVM. Profiles may be stored and loaded again, so the metrics
+ * need only be calibrated once per machine:
+ *
+ * <pre>
+ * TimingProfile profile = new TimingProfile();
+ * profile.calibrate(new Levenshtein());
+ * profile.store(out);
+ * ...
+ * TimingProfile.setDefault(TimingProfile.load(in));
+ * </pre>
+ *
+ * The metrics use the default profile, which scales nothing until set or
+ * calibrated.
+ */
+@ThreadSafe
+public final class TimingProfile {
+
+	/**
+	 * lengths of the strings metrics are calibrated with.
+	 */
+	private static final int[] CALIBRATIONLENGTHS = { 4, 8, 16, 32, 64 };
+
+	/**
+	 * nanoseconds each pair of strings is compared for.
+	 */
+	private static final long CALIBRATIONNANOS = 2000000L;
+
+	private static final long WARMUPNANOS = 20000000L;
+
+	private static volatile TimingProfile defaultProfile = new TimingProfile();
+
+	private final Map<String, Float> scales = new ConcurrentHashMap<String, Float>();
+
+	/**
+	 * keeps the similarities measured while calibrating, so the comparisons
+	 * are not optimised away.
+	 */
+	private volatile float sink;
+
+	/**
+	 * returns the profile the metrics scale their estimates with.
+	 *
+	 * @return the default profile
+	 */
+	public static TimingProfile getDefault() {
+		return defaultProfile;
+	}
+
+	/**
+	 * sets the profile the metrics scale their estimates with.
+	 *
+	 * @param profile
+	 *            the default profile
+	 */
+	public static void setDefault(final TimingProfile profile) {
+		if (profile == null) {
+			throw new IllegalArgumentException("profile must not be null");
+		}
+		defaultProfile = profile;
+	}
+
+	/**
+	 * returns the scale of the timing estimates of the metric class, 1 if
+	 * none is known.
+	 *
+	 * @param metricClass
+	 * @return the scale of the estimates
+	 */
+	public float getScale(final Class<?> metricClass) {
+		final Float scale = scales.get(metricClass.getName());
+		return scale == null ? 1.0f : scale;
+	}
+
+	/**
+	 * sets the scale of the timing estimates of the metric class.
+	 *
+	 * @param metricClass
+	 * @param scale
+	 *            the factor the built in estimates are multiplied by, finite
+	 *            and positive
+	 */
+	public void setScale(final Class<?> metricClass, final float scale) {
+		setScale(metricClass.getName(), scale);
+	}
+
+	private void setScale(final String metricClass, final float scale) {
+		if (!(scale > 0.0f) || Float.isInfinite(scale)) {
+			throw new IllegalArgumentException(
+					"scale must be finite and positive: " + scale);
+		}
+		scales.put(metricClass, scale);
+	}
+
+	/**
+	 * measures how long the metric takes to compare strings of a few lengths
+	 * and fits the scale of its class so its estimates match. Takes some tens
+	 * of milliseconds. Metrics estimating no time or an infinite time are left
+	 * as they are, as are those not extending {@link AbstractStringMetric},
+	 * which have no scale.
+	 *
+	 * Only the metric's own part of the estimate is fitted. The part spent in
+	 * metrics it wraps, e.g. the metric a {@link Soundex} compares codes with,
+	 * is taken from their estimates, so wrapped metrics should be calibrated
+	 * first. Metrics whose estimate is all their wrapped metric's, such as a
+	 * {@link CachingMetric}, are left as they are.
+	 *
+	 * @param metric
+	 * @return the scale fitted, or the scale kept
+	 */
+	public float calibrate(final InterfaceStringMetric metric) {
+		if (!(metric instanceof AbstractStringMetric)) {
+			return getScale(metric.getClass());
+		}
+		final AbstractStringMetric scaled = (AbstractStringMetric) metric;
+		final Random random = new Random(42);
+		final String[][] pairs = new String[CALIBRATIONLENGTHS.length][];
+		for (int i = 0; i < pairs.length; i++) {
+			pairs[i] = new String[] {
+					randomWords(random, CALIBRATIONLENGTHS[i]),
+					randomWords(random, CALIBRATIONLENGTHS[i]) };
+		}
+		// let the JIT compile the metric before it is timed
+		final long warmUpEnd = System.nanoTime() + WARMUPNANOS;
+		while (System.nanoTime() < warmUpEnd) {
+			for (String[] pair : pairs) {
+				sink += metric.getSimilarity(pair[0], pair[1]);
+			}
+		}
+		// least squares fit of the measured times to the unscaled estimates
+		final float currentScale = defaultProfile.getScale(metric.getClass());
+		double measuredByEstimated = 0.0;
+		double estimatedSquared = 0.0;
+		for (String[] pair : pairs) {
+			final float wrapped = scaled.getWrappedTimingEstimated(pair[0],
+					pair[1]);
+			final double estimated = (metric.getSimilarityTimingEstimated(
+					pair[0], pair[1]) - wrapped) / currentScale;
+			final double measured = measure(metric, pair[0], pair[1])
+					- wrapped;
+			measuredByEstimated += measured * estimated;
+			estimatedSquared += estimated * estimated;
+		}
+		if (!(estimatedSquared > 0.0) || Double.isInfinite(estimatedSquared)) {
+			return getScale(metric.getClass());
+		}
+		final float scale = (float) (measuredByEstimated / estimatedSquared);
+		if (!(scale > 0.0f) || Float.isInfinite(scale)) {
+			return getScale(metric.getClass());
+		}
+		setScale(metric.getClass(), scale);
+		return scale;
+	}
+
+	/**
+	 * calibrates each of the metrics, e.g. all those an application uses at
+	 * startup.
+	 *
+	 * @param metrics
+	 */
+	public void calibrate(final Collection<? extends InterfaceStringMetric> metrics) {
+		for (InterfaceStringMetric metric : metrics) {
+			calibrate(metric);
+		}
+	}
+
+	/**
+	 * returns the time in milliseconds the metric takes to compare the
+	 * strings. The comparisons are timed in batches, doubling in size, so the
+	 * clock is read once per batch rather than once per comparison.
+	 */
+	private double measure(final InterfaceStringMetric metric,
+			final String string1, final String string2) {
+		long repetitions = 0;
+		long batch = 1;
+		final long start = System.nanoTime();
+		long elapsed;
+		do {
+			for (long i = 0; i < batch; i++) {
+				sink += metric.getSimilarity(string1, string2);
+			}
+			repetitions += batch;
+			batch *= 2;
+			elapsed = System.nanoTime() - start;
+		} while (elapsed < CALIBRATIONNANOS);
+		return elapsed / 1e6 / repetitions;
+	}
+
+	private static String randomWords(final Random random, final int length) {
+		final String alphabet = "abcdefghijklmnopqrstuvwxyz     ";
+		final char[] chars = new char[length];
+		for (int i = 0; i < length; i++) {
+			chars[i] = alphabet.charAt(random.nextInt(alphabet.length()));
+		}
+		return new String(chars);
+	}
+
+	/**
+	 * writes the scales as properties, one per metric class.
+	 *
+	 * @param out
+	 * @throws IOException
+	 */
+	public void store(final OutputStream out) throws IOException {
+		final Properties properties = new Properties();
+		for (Map.Entry<String, Float> scale : scales.entrySet()) {
+			properties.setProperty(scale.getKey(), scale.getValue().toString());
+		}
+		properties.store(out, "SimMetrics timing profile");
+	}
+
+	/**
+	 * reads a profile written by {@link #store(OutputStream)}.
+	 *
+	 * @param in
+	 * @return the profile
+	 * @throws IOException
+	 *             if the stream can not be read or is not a profile
+	 */
+	public static TimingProfile load(final InputStream in) throws IOException {
+		final Properties properties = new Properties();
+		properties.load(in);
+		final TimingProfile profile = new TimingProfile();
+		for (Map.Entry<Object, Object> scale : properties.entrySet()) {
+			try {
+				profile.setScale((String) scale.getKey(),
+						Float.parseFloat((String) scale.getValue()));
+			} catch (IllegalArgumentException e) {
+				// also number formats
+				throw new IOException("not a scale for " + scale.getKey()
+						+ ": " + scale.getValue());
+			}
+		}
+		return profile;
+	}
+
+	@Override
+	public String toString() {
+		return "TimingProfile " + scales;
+	}
+}
@@ -0,0 +1,158 @@
+package uk.ac.shef.wit.simmetrics.similaritymetrics;
+
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Merge joins over sorted bags and sets of token ids from a
+ * {@link uk.ac.shef.wit.simmetrics.tokenisers.TokenDictionary} or of q-gram
+ * codes, used by the token based metrics in place of sets of strings, and
+ * single pass counting for lists of tokens.
+ */
+final class TokenBags {
+
+	private TokenBags() {
+		// static helpers only
+	}
+
+	/**
+	 * counts the ids common to both bags, each as often as it occurs in the
+	 * bag it occurs in least. For sets this is the size of the intersection.
+	 */
+	static int common(final int[] bag1, final int[] bag2) {
+		int common = 0;
+		int i = 0;
+		int j = 0;
+		while (i < bag1.length && j < bag2.length) {
+			if (bag1[i] < bag2[j]) {
+				i++;
+			} else if (bag1[i] > bag2[j]) {
+				j++;
+			} else {
+				common++;
+				i++;
+				j++;
+			}
+		}
+		return common;
+	}
+
+	/**
+	 * counts the codes common to the first size1 codes of bag1 and the first
+	 * size2 codes of bag2, each as often as it occurs in the bag it occurs in
+	 * least.
+	 */
+	static int common(final long[] bag1, final int size1, final long[] bag2,
+			final int size2) {
+		int common = 0;
+		int i = 0;
+		int j = 0;
+		while (i < size1 && j < size2) {
+			if (bag1[i] < bag2[j]) {
+				i++;
+			} else if (bag1[i] > bag2[j]) {
+				j++;
+			} else {
+				common++;
+				i++;
+				j++;
+			}
+		}
+		return common;
+	}
+
+	/**
+	 * sums the absolute differences in the number of times each id occurs in
+	 * the bags.
+	 */
+	static int difference(final int[] bag1, final int[] bag2) {
+		return bag1.length + bag2.length - 2 * common(bag1, bag2);
+	}
+
+	/**
+	 * sums the squared differences in the number of times each id occurs in
+	 * the bags.
+	 */
+	static long squaredDifference(final int[] bag1, final int[] bag2) {
+		long sum = 0;
+		int i = 0;
+		int j = 0;
+		while (i < bag1.length || j < bag2.length) {
+			final int id;
+			if (j == bag2.length || (i < bag1.length && bag1[i] <= bag2[j])) {
+				id = bag1[i];
+			} else {
+				id = bag2[j];
+			}
+			int count1 = 0;
+			while (i < bag1.length && bag1[i] == id) {
+				count1++;
+				i++;
+			}
+			int count2 = 0;
+			while (j < bag2.length && bag2[j] == id) {
+				count2++;
+				j++;
+			}
+			sum += (long) (count1 - count2) * (count1 - count2);
+		}
+		return sum;
+	}
+
+	/**
+	 * returns for each distinct token how much more often it occurs in the
+	 * first list than in the second, counted in one pass over each list.
+	 *
+	 * The differences are in the iteration order of a HashSet holding the
+	 * tokens of the first and then the second list, so summing them as floats
+	 * rounds as summing over such a set did.
+	 */
+	static int[] countDifferences(final List<String> tokens1,
+			final List<String> tokens2) {
+		// same capacity and insertion order as new HashSet<String>()
+		final HashMap<String, int[]> counts = new HashMap<String, int[]>();
+		for (String token : tokens1) {
+			final int[] count = counts.get(token);
+			if (count == null) {
+				counts.put(token, new int[] { 1 });
+			} else {
+				count[0]++;
+			}
+		}
+		for (String token : tokens2) {
+			final int[] count = counts.get(token);
+			if (count == null) {
+				counts.put(token, new int[] { -1 });
+			} else {
+				count[0]--;
+			}
+		}
+		final int[] differences = new int[counts.size()];
+		int i = 0;
+		for (int[] count : counts.values()) {
+			differences[i++] = count[0];
+		}
+		return differences;
+	}
+
+	/**
+	 * counts the ids of the first bag, repeats included, that occur in the
+	 * second bag.
+	 */
+	static int found(final int[] bag1, final int[] bag2) {
+		int found = 0;
+		int i = 0;
+		int j = 0;
+		while (i < bag1.length && j < bag2.length) {
+			if (bag1[i] < bag2[j]) {
+				i++;
+			} else if (bag1[i] > bag2[j]) {
+				j++;
+			} else {
+				found++;
+				i++;
+			}
+		}
+		return found;
+	}
+}
@@ -0,0 +1,47 @@
+package uk.ac.shef.wit.simmetrics.similaritymetrics.costfunctions;
+
+/**
+ * A substitution cost that depends only on the two characters substituted,
+ * not on where they are in their strings.
+ *
+ * Such a cost can be compiled into a {@link SubstitutionCostTable}, which
+ * the edit distance metrics look up instead of calling
+ * {@link #getCost(String, int, String, int)} for every cell.
+ */
+public abstract class AbstractCharacterSubstitutionCost extends
+		AbstractSubstitutionCost {
+
+	private volatile SubstitutionCostTable costTable;
+
+	/**
+	 * Get cost between characters.
+	 *
+	 * @param c1
+	 *            - the character of string1
+	 * @param c2
+	 *            - the character of string2
+	 * @return the cost of substituting c1 by c2
+	 */
+	public abstract float getCost(char c1, char c2);
+
+	public float getCost(final String str1, final int string1Index,
+			final String str2, final int string2Index) {
+		return getCost(str1.charAt(string1Index), str2.charAt(string2Index));
+	}
+
+	/**
+	 * Returns this cost compiled into a table, compiling it the first time.
+	 * Subclasses without state may share one table between instances.
+	 *
+	 * @return the cost table
+	 */
+	public SubstitutionCostTable getCostTable() {
+		SubstitutionCostTable table = costTable;
+		if (table == null) {
+			// compiling twice in a race is harmless
+			table = new SubstitutionCostTable(this);
+			costTable = table;
+		}
+		return table;
+	}
+}
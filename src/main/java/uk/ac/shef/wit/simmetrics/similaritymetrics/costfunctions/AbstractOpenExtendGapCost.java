@@ -0,0 +1,38 @@
+package uk.ac.shef.wit.simmetrics.similaritymetrics.costfunctions;
+
+/**
+ * An affine gap cost that depends only on the length of the gap. The first
+ * character of a gap costs {@link #getOpenCost()} and every further character
+ * {@link #getExtendCost()}.
+ *
+ * Metrics recognise these costs and align in time proportional to the product
+ * of the string lengths rather than trying every gap length at every cell.
+ * Subclasses overriding {@link #getCost(String, int, int)} must keep to the
+ * open and extend costs they report.
+ */
+public abstract class AbstractOpenExtendGapCost extends AbstractAffineGapCost {
+
+	/**
+	 * Returns the cost of a gap of one character.
+	 *
+	 * @return the cost of opening a gap
+	 */
+	public abstract float getOpenCost();
+
+	/**
+	 * Returns the cost of each character a gap is extended by.
+	 *
+	 * @return the cost of extending a gap
+	 */
+	public abstract float getExtendCost();
+
+	public float getCost(final String stringToGap,
+			final int stringIndexStartGap, final int stringIndexEndGap) {
+		if (stringIndexStartGap >= stringIndexEndGap) {
+			return 0.0f;
+		} else {
+			return getOpenCost()
+					+ (((stringIndexEndGap - 1) - stringIndexStartGap) * getExtendCost());
+		}
+	}
+}
@@ -39,15 +39,13 @@
 
 package uk.ac.shef.wit.simmetrics.similaritymetrics.costfunctions;
 
-import uk.ac.shef.wit.simmetrics.similaritymetrics.costfunctions.AbstractAffineGapCost;
-
 /**
  * AffineGap1_1Over3 implements a Affine Gap cost function.
  * 
  * @author Sam Chapman
  * @version 1.1
  */
-final public class AffineGap1_1Over3 extends AbstractAffineGapCost
+final public class AffineGap1_1Over3 extends AbstractOpenExtendGapCost
 		 {
 
 	public final float getCost(final String stringToGap,
@@ -59,6 +57,14 @@ final public class AffineGap1_1Over3 extends AbstractAffineGapCost
 		}
 	}
 
+	public final float getOpenCost() {
+		return 1.0f;
+	}
+
+	public final float getExtendCost() {
+		return 1.0f / 3.0f;
+	}
+
 	public final float getMaxCost() {
 		return Float.MAX_VALUE;
 	}
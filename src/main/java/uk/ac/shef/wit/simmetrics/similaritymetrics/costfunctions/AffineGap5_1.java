@@ -45,7 +45,7 @@ package uk.ac.shef.wit.simmetrics.similaritymetrics.costfunctions;
  * @author Sam Chapman
  * @version 1.1
  */
-public final class AffineGap5_1 extends AbstractAffineGapCost 
+public final class AffineGap5_1 extends AbstractOpenExtendGapCost 
 		 {
 
 	public final float getCost(final String stringToGap,
@@ -57,6 +57,14 @@ public final class AffineGap5_1 extends AbstractAffineGapCost
 		}
 	}
 
+	public final float getOpenCost() {
+		return 5.0f;
+	}
+
+	public final float getExtendCost() {
+		return 1.0f;
+	}
+
 	public final float getMaxCost() {
 		return Float.MAX_VALUE;
 	}
@@ -47,11 +47,10 @@ package uk.ac.shef.wit.simmetrics.similaritymetrics.costfunctions;
  * @author Sam Chapman
  * @version 1.1
  */
-final public class SubCost01 extends AbstractSubstitutionCost {
+final public class SubCost01 extends AbstractCharacterSubstitutionCost {
 
-	public final float getCost(final String str1, final int string1Index,
-			final String str2, final int string2Index) {
-		if (str1.charAt(string1Index) == str2.charAt(string2Index)) {
+	public final float getCost(final char c1, final char c2) {
+		if (c1 == c2) {
 			return 0.0f;
 		} else {
 			return 1.0f;
@@ -65,4 +64,16 @@ final public class SubCost01 extends AbstractSubstitutionCost {
 	public final float getMinCost() {
 		return 0.0f;
 	}
+
+	public final SubstitutionCostTable getCostTable() {
+		return Table.TABLE;
+	}
+
+	/**
+	 * the table shared by all instances, compiled when first asked for.
+	 */
+	private static final class Table {
+		static final SubstitutionCostTable TABLE = new SubstitutionCostTable(
+				new SubCost01());
+	}
 }
@@ -47,7 +47,7 @@ package uk.ac.shef.wit.simmetrics.similaritymetrics.costfunctions;
  * @author Sam Chapman
  * @version 1.1
  */
-public final class SubCost1_Minus2 extends AbstractSubstitutionCost {
+public final class SubCost1_Minus2 extends AbstractCharacterSubstitutionCost {
 
 	public final float getCost(final String str1, final int string1Index,
 			final String str2, final int string2Index) {
@@ -59,7 +59,11 @@ public final class SubCost1_Minus2 extends AbstractSubstitutionCost {
 			return 0;
 		}
 
-		if (str1.charAt(string1Index) == str2.charAt(string2Index)) {
+		return getCost(str1.charAt(string1Index), str2.charAt(string2Index));
+	}
+
+	public final float getCost(final char c1, final char c2) {
+		if (c1 == c2) {
 			return 1.0f;
 		} else {
 			return -2.0f;
@@ -73,4 +77,16 @@ public final class SubCost1_Minus2 extends AbstractSubstitutionCost {
 	public final float getMinCost() {
 		return -2.0f;
 	}
+
+	public final SubstitutionCostTable getCostTable() {
+		return Table.TABLE;
+	}
+
+	/**
+	 * the table shared by all instances, compiled when first asked for.
+	 */
+	private static final class Table {
+		static final SubstitutionCostTable TABLE = new SubstitutionCostTable(
+				new SubCost1_Minus2());
+	}
 }
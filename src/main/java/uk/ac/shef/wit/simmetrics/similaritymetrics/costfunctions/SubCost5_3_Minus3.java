@@ -39,12 +39,6 @@
 
 package uk.ac.shef.wit.simmetrics.similaritymetrics.costfunctions;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
-
 /**
  * SubCost5_3_Minus3 implements a cost function as used in Monge Elkan where by
  * an exact match no match or an approximate match whereby a set of characters
@@ -54,7 +48,7 @@ import java.util.Set;
  * @author Sam Chapman
  * @version 1.1
  */
-public final class SubCost5_3_Minus3 extends AbstractSubstitutionCost {
+public final class SubCost5_3_Minus3 extends AbstractCharacterSubstitutionCost {
 
 	/**
 	 * return score.
@@ -79,22 +73,8 @@ public final class SubCost5_3_Minus3 extends AbstractSubstitutionCost {
 	 * approximate match = +3, for pairings in {dt} {gj} {lr} {mn} {bpv} {aeiou}
 	 * {,.}.
 	 */
-	private static String[] approximates = new String[] { "dtDT", "gjGJ",
-			"lrLR", "mnMN", "bpvBPV", "aeiouAEIOU", ",." };
-	static private final Set<Set<Character>> approx = buildApprox(approximates);
-
-	private static Set<Set<Character>> buildApprox(String[] approximates) {
-		Set<Set<Character>> approx = new HashSet<Set<Character>>();
-		for (String a : approximates) {
-			List<Character> list = new ArrayList<Character>(a.length());
-			for (char c : a.toCharArray()) {
-				list.add(c);
-			}
-			approx.add(new HashSet<Character>(list));
-		}
-
-		return approx;
-	}
+	private static final String[] approximates = new String[] { "dtDT",
+			"gjGJ", "lrLR", "mnMN", "bpvBPV", "aeiouAEIOU", ",." };
 
 	/**
 	 * get cost between characters where d(i,j) = CHAR_EXACT_MATCH_SCORE if i
@@ -121,14 +101,16 @@ public final class SubCost5_3_Minus3 extends AbstractSubstitutionCost {
 			return CHAR_MISMATCH_MATCH_SCORE;
 		}
 
-		if (str1.charAt(string1Index) == str2.charAt(string2Index)) {
+		return getCost(str1.charAt(string1Index), str2.charAt(string2Index));
+	}
+
+	public final float getCost(final char c1, final char c2) {
+		if (c1 == c2) {
 			return CHAR_EXACT_MATCH_SCORE;
 		} else {
 			// check for approximate match
-			final Character si = str1.charAt(string1Index);
-			final Character ti = str2.charAt(string2Index);
-			for (Set<Character> aApprox : approx) {
-				if (aApprox.contains(si) && aApprox.contains(ti))
+			for (String aApprox : approximates) {
+				if (aApprox.indexOf(c1) >= 0 && aApprox.indexOf(c2) >= 0)
 					return CHAR_APPROX_MATCH_SCORE;
 			}
 			return CHAR_MISMATCH_MATCH_SCORE;
@@ -142,4 +124,16 @@ public final class SubCost5_3_Minus3 extends AbstractSubstitutionCost {
 	public final float getMinCost() {
 		return CHAR_MISMATCH_MATCH_SCORE;
 	}
+
+	public final SubstitutionCostTable getCostTable() {
+		return Table.TABLE;
+	}
+
+	/**
+	 * the table shared by all instances, compiled when first asked for.
+	 */
+	private static final class Table {
+		static final SubstitutionCostTable TABLE = new SubstitutionCostTable(
+				new SubCost5_3_Minus3());
+	}
 }
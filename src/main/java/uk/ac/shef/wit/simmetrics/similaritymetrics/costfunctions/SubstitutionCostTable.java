@@ -0,0 +1,69 @@
+package uk.ac.shef.wit.simmetrics.similaritymetrics.costfunctions;
+
+import uk.ac.shef.wit.simmetrics.utils.ThreadSafe;
+
+/**
+ * The costs of substituting any two Latin-1 characters, looked up by
+ * character pair. Costs involving other characters are asked of the cost
+ * function compiled.
+ */
+@ThreadSafe
+public final class SubstitutionCostTable {
+
+	/**
+	 * number of characters covered, those of Latin-1.
+	 */
+	private static final int SIZE = 256;
+
+	private final float[] costs = new float[SIZE * SIZE];
+
+	private final AbstractCharacterSubstitutionCost costFunc;
+
+	/**
+	 * compiles the costs of all pairs of Latin-1 characters.
+	 *
+	 * @param costFunc
+	 *            - the cost function to compile
+	 */
+	public SubstitutionCostTable(final AbstractCharacterSubstitutionCost costFunc) {
+		this.costFunc = costFunc;
+		for (int c1 = 0; c1 < SIZE; c1++) {
+			for (int c2 = 0; c2 < SIZE; c2++) {
+				costs[c1 * SIZE + c2] = costFunc.getCost((char) c1, (char) c2);
+			}
+		}
+	}
+
+	/**
+	 * Returns the table of the cost function if it depends only on the
+	 * characters substituted.
+	 *
+	 * @param costFunc
+	 *            - the cost function
+	 * @return the table of the cost function or null if it can not have one
+	 */
+	public static SubstitutionCostTable of(
+			final InterfaceSubstitutionCost costFunc) {
+		if (costFunc instanceof AbstractCharacterSubstitutionCost) {
+			return ((AbstractCharacterSubstitutionCost) costFunc)
+					.getCostTable();
+		}
+		return null;
+	}
+
+	/**
+	 * Get cost between characters.
+	 *
+	 * @param c1
+	 *            - the character of string1
+	 * @param c2
+	 *            - the character of string2
+	 * @return the cost of substituting c1 by c2
+	 */
+	public float getCost(final char c1, final char c2) {
+		if ((c1 | c2) < SIZE) {
+			return costs[c1 * SIZE + c2];
+		}
+		return costFunc.getCost(c1, c2);
+	}
+}
@@ -32,4 +32,21 @@ public class SimplifyingMetric extends AbstractStringMetric {
 				simplifier.simplify(string2));
 	}
 
+	@Override
+	public float getSimilarity(String string1, String string2,
+			float minimumSimilarity) {
+		return metric.getSimilarity(simplifier.simplify(string1),
+				simplifier.simplify(string2), minimumSimilarity);
+	}
+
+	/**
+	 * returns true if the wrapped metric is thread-safe. Simplifiers are
+	 * assumed to be thread-safe and the metric must not be reconfigured
+	 * while in use.
+	 */
+	@Override
+	public boolean isThreadSafe() {
+		return metric != null && metric.isThreadSafe();
+	}
+
 }
@@ -1,5 +1,6 @@
 package uk.ac.shef.wit.simmetrics.simplifier;
 
+import java.nio.CharBuffer;
 import java.util.ArrayList;
 import java.util.Set;
 
@@ -53,4 +54,27 @@ public class SimplifyingTokenizer implements InterfaceTokeniser {
 		return tokenizer.tokenizeToSet(simplifier.simplify(input));
 	}
 
+	/**
+	 * Simplifies the string of the sequence.
+	 */
+	public ArrayList<String> tokenizeToArrayList(CharSequence input) {
+		return tokenizeToArrayList(input.toString());
+	}
+
+	/**
+	 * Simplifies the string of the sequence.
+	 */
+	public Set<String> tokenizeToSet(CharSequence input) {
+		return tokenizeToSet(input.toString());
+	}
+
+	public ArrayList<String> tokenizeToArrayList(char[] input, int offset,
+			int length) {
+		return tokenizeToArrayList(CharBuffer.wrap(input, offset, length));
+	}
+
+	public Set<String> tokenizeToSet(char[] input, int offset, int length) {
+		return tokenizeToSet(CharBuffer.wrap(input, offset, length));
+	}
+
 }
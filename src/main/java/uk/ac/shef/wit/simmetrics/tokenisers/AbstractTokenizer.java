@@ -1,5 +1,7 @@
 package uk.ac.shef.wit.simmetrics.tokenisers;
 
+import java.nio.CharBuffer;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -22,6 +24,28 @@ public abstract class AbstractTokenizer implements InterfaceTokeniser {
 		return new HashSet<String>(tokenizeToArrayList(input));
 	}
 
+	/**
+	 * Tokenizes the string of the sequence. Tokenizers that can read the
+	 * sequence in place override this.
+	 */
+	public ArrayList<String> tokenizeToArrayList(final CharSequence input) {
+		return tokenizeToArrayList(input.toString());
+	}
+
+	public Set<String> tokenizeToSet(final CharSequence input) {
+		return new HashSet<String>(tokenizeToArrayList(input));
+	}
+
+	public final ArrayList<String> tokenizeToArrayList(final char[] input,
+			final int offset, final int length) {
+		return tokenizeToArrayList(CharBuffer.wrap(input, offset, length));
+	}
+
+	public final Set<String> tokenizeToSet(final char[] input,
+			final int offset, final int length) {
+		return tokenizeToSet(CharBuffer.wrap(input, offset, length));
+	}
+
 	public final String getShortDescriptionString() {
 		return getClass().getSimpleName();
 	}
@@ -1,31 +1,62 @@
 package uk.ac.shef.wit.simmetrics.tokenisers;
 
+import java.nio.CharBuffer;
 import java.util.ArrayList;
 import java.util.Set;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
-
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
 
 import uk.ac.shef.wit.simmetrics.wordhandlers.InterfaceTermHandler;
 
+/**
+ * Keeps the tokens of recently tokenized strings in a {@link TokenCache}.
+ *
+ * By default each caching tokenizer keeps the tokens of the last couple of
+ * strings, which helps when one string is compared with several others in a
+ * row. Give caching tokenizers a larger cache, possibly shared with others,
+ * to keep the tokens of a whole data set.
+ */
 public class CachingTokenizer implements InterfaceTokeniser {
 
 	private static final int CACHE_SIZE = 2;
 
 	private final InterfaceTokeniser tokenizer;
 
+	private final TokenCache cache;
+
+	/**
+	 * Constructs a caching tokenizer keeping the tokens of the last couple of
+	 * strings.
+	 *
+	 * @param tokenizer
+	 *            the tokenizer whose tokens are cached
+	 */
 	public CachingTokenizer(InterfaceTokeniser tokenizer) {
-		this.tokenizer = tokenizer;
+		this(tokenizer, new TokenCache.Builder().initialCapacity(CACHE_SIZE)
+				.maximumSize(CACHE_SIZE).build());
 	}
 
-	private Cache<String, ArrayList<String>> arrayCache = CacheBuilder
-			.newBuilder().initialCapacity(CACHE_SIZE).maximumSize(CACHE_SIZE)
-			.build();
+	/**
+	 * Constructs a caching tokenizer keeping tokens in the given cache. The
+	 * cache may be shared with other caching tokenizers, which may be used by
+	 * other threads if the tokenizers they wrap allow it.
+	 *
+	 * @param tokenizer
+	 *            the tokenizer whose tokens are cached
+	 * @param cache
+	 *            the cache to keep the tokens in
+	 */
+	public CachingTokenizer(InterfaceTokeniser tokenizer, TokenCache cache) {
+		this.tokenizer = tokenizer;
+		this.cache = cache;
+	}
 
-	private Cache<String, Set<String>> setCache = CacheBuilder.newBuilder()
-			.initialCapacity(CACHE_SIZE).maximumSize(CACHE_SIZE).build();
+	/**
+	 * Gets the cache the tokens are kept in, e.g. for its statistics.
+	 *
+	 * @return the cache the tokens are kept in
+	 */
+	public TokenCache getCache() {
+		return cache;
+	}
 
 	@Deprecated
 	public String getShortDescriptionString() {
@@ -41,34 +72,45 @@ public class CachingTokenizer implements InterfaceTokeniser {
 		return tokenizer.getStopWordHandler();
 	}
 
+	/**
+	 * Sets the stop word handler of the tokenizer and drops the tokens it
+	 * made with the previous one.
+	 */
 	public void setStopWordHandler(InterfaceTermHandler stopWordHandler) {
 		tokenizer.setStopWordHandler(stopWordHandler);
+		cache.invalidate(tokenizer);
 	}
 
 	public ArrayList<String> tokenizeToArrayList(final String input) {
-		try {
-			return arrayCache.get(input, new Callable<ArrayList<String>>() {
-
-				public ArrayList<String> call() throws Exception {
-					return tokenizer.tokenizeToArrayList(input);
-				}
-			});
-		} catch (ExecutionException e) {
-			throw new IllegalStateException(e);
-		}
+		return cache.tokenizeToArrayList(tokenizer, input);
 	}
 
 	public Set<String> tokenizeToSet(final String input) {
-		try {
-			return setCache.get(input, new Callable<Set<String>>() {
-
-				public Set<String> call() throws Exception {
-					return tokenizer.tokenizeToSet(input);
-				}
-			});
-		} catch (ExecutionException e) {
-			throw new IllegalStateException(e);
-		}
+		return cache.tokenizeToSet(tokenizer, input);
+	}
+
+	/**
+	 * Cached by the string of the sequence.
+	 */
+	public ArrayList<String> tokenizeToArrayList(final CharSequence input) {
+		return tokenizeToArrayList(input.toString());
+	}
+
+	/**
+	 * Cached by the string of the sequence.
+	 */
+	public Set<String> tokenizeToSet(final CharSequence input) {
+		return tokenizeToSet(input.toString());
+	}
+
+	public ArrayList<String> tokenizeToArrayList(final char[] input,
+			final int offset, final int length) {
+		return tokenizeToArrayList(CharBuffer.wrap(input, offset, length));
+	}
+
+	public Set<String> tokenizeToSet(final char[] input, final int offset,
+			final int length) {
+		return tokenizeToSet(CharBuffer.wrap(input, offset, length));
 	}
 
 }
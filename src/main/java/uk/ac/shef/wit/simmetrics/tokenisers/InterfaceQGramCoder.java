@@ -0,0 +1,47 @@
+package uk.ac.shef.wit.simmetrics.tokenisers;
+
+/**
+ * A q-gram tokeniser that can also write its q-grams as long codes into a
+ * primitive array, without creating a string for each q-gram.
+ *
+ * The characters of q-grams of up to four characters are packed into the
+ * code, so two such q-grams are equal if and only if their codes are. Longer
+ * q-grams are hashed and may collide.
+ *
+ * Implementations that change how the tokens are made must change the codes
+ * to match.
+ */
+public interface InterfaceQGramCoder {
+
+	/**
+	 * returns true if the codes stand for the tokens exactly, i.e. there is
+	 * one code for every token and codes are equal if and only if their
+	 * tokens are. This is not the case when q-grams are hashed or stop words
+	 * are removed from the tokens.
+	 *
+	 * @return true if the codes stand for the tokens exactly
+	 */
+	public boolean hasExactCodes();
+
+	/**
+	 * returns the largest number of codes of an input of the given length.
+	 *
+	 * @param length
+	 *            the length of the input
+	 * @return the largest number of codes of the input
+	 */
+	public int getMaximumCodeCount(int length);
+
+	/**
+	 * writes the codes of the q-grams of the input into the array, in no
+	 * particular order. Stop words are not removed.
+	 *
+	 * @param input
+	 * @param codes
+	 *            an array of at least
+	 *            {@link #getMaximumCodeCount(int) getMaximumCodeCount(input.length())}
+	 *            codes
+	 * @return the number of codes written
+	 */
+	public int tokenizeToCodes(CharSequence input, long[] codes);
+}
@@ -91,4 +91,53 @@ public interface InterfaceTokeniser {
 	 * @return tokenized version of a string as a set
 	 */
 	public Set<String> tokenizeToSet(String input);
+
+	/**
+	 * Return tokenized version of a character sequence as an ArrayList, the
+	 * same as for its string.
+	 *
+	 * @param input
+	 *
+	 * @return ArrayList tokenized version of the character sequence
+	 */
+	public ArrayList<String> tokenizeToArrayList(CharSequence input);
+
+	/**
+	 * Return tokenized version of a character sequence as a set, the same as
+	 * for its string.
+	 *
+	 * @param input
+	 *
+	 * @return tokenized version of the character sequence as a set
+	 */
+	public Set<String> tokenizeToSet(CharSequence input);
+
+	/**
+	 * Return tokenized version of a slice of a character array as an
+	 * ArrayList. The array is neither copied nor changed.
+	 *
+	 * @param input
+	 * @param offset
+	 *            index of the first character of the slice
+	 * @param length
+	 *            number of characters in the slice
+	 *
+	 * @return ArrayList tokenized version of the characters
+	 */
+	public ArrayList<String> tokenizeToArrayList(char[] input, int offset,
+			int length);
+
+	/**
+	 * Return tokenized version of a slice of a character array as a set. The
+	 * array is neither copied nor changed.
+	 *
+	 * @param input
+	 * @param offset
+	 *            index of the first character of the slice
+	 * @param length
+	 *            number of characters in the slice
+	 *
+	 * @return tokenized version of the characters as a set
+	 */
+	public Set<String> tokenizeToSet(char[] input, int offset, int length);
 }
@@ -0,0 +1,249 @@
+package uk.ac.shef.wit.simmetrics.tokenisers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
+
+import uk.ac.shef.wit.simmetrics.utils.ThreadSafe;
+
+/**
+ * Tokens of strings kept by {@link CachingTokenizer}s.
+ *
+ * One cache may be shared by any number of caching tokenizers used by any
+ * number of metrics and threads, e.g. all the metrics comparing against a
+ * reference data set, so each string is tokenized once for as long as it
+ * stays in the cache. Tokens are kept per tokenizer wrapped, a string
+ * tokenized by two tokenizers is kept twice.
+ *
+ * Tokens are handed out as they are kept and must not be changed.
+ */
+@ThreadSafe
+public final class TokenCache {
+
+	/**
+	 * Configures a {@link TokenCache}. The limits apply to the lists and the
+	 * sets of tokens each.
+	 */
+	public static final class Builder {
+
+		private final CacheBuilder<Object, Object> cacheBuilder = CacheBuilder
+				.newBuilder();
+
+		/**
+		 * sets the number of entries the cache is sized for initially.
+		 *
+		 * @param initialCapacity
+		 * @return this builder
+		 */
+		public Builder initialCapacity(final int initialCapacity) {
+			cacheBuilder.initialCapacity(initialCapacity);
+			return this;
+		}
+
+		/**
+		 * sets the number of strings whose tokens are kept.
+		 *
+		 * @param maximumSize
+		 * @return this builder
+		 */
+		public Builder maximumSize(final long maximumSize) {
+			cacheBuilder.maximumSize(maximumSize);
+			return this;
+		}
+
+		/**
+		 * sets the number of tokens kept, weighing each string by its number
+		 * of tokens. Can not be combined with {@link #maximumSize(long)}.
+		 *
+		 * @param maximumTokens
+		 * @return this builder
+		 */
+		public Builder maximumTokens(final long maximumTokens) {
+			cacheBuilder.maximumWeight(maximumTokens).weigher(TOKENCOUNT);
+			return this;
+		}
+
+		/**
+		 * drops tokens not used for the given time.
+		 *
+		 * @param duration
+		 * @param unit
+		 * @return this builder
+		 */
+		public Builder expireAfterAccess(final long duration,
+				final TimeUnit unit) {
+			cacheBuilder.expireAfterAccess(duration, unit);
+			return this;
+		}
+
+		/**
+		 * drops tokens the given time after they were made.
+		 *
+		 * @param duration
+		 * @param unit
+		 * @return this builder
+		 */
+		public Builder expireAfterWrite(final long duration,
+				final TimeUnit unit) {
+			cacheBuilder.expireAfterWrite(duration, unit);
+			return this;
+		}
+
+		/**
+		 * counts hits, misses and evictions, see {@link TokenCache#getStats()}.
+		 *
+		 * @return this builder
+		 */
+		public Builder recordStats() {
+			cacheBuilder.recordStats();
+			return this;
+		}
+
+		/**
+		 * builds a new, empty cache. The builder may build more.
+		 *
+		 * @return the cache
+		 */
+		public TokenCache build() {
+			return new TokenCache(cacheBuilder);
+		}
+	}
+
+	/**
+	 * weighs tokens by their number, empty ones as one.
+	 */
+	private static final Weigher<Object, Object> TOKENCOUNT = new Weigher<Object, Object>() {
+		public int weigh(final Object key, final Object tokens) {
+			return Math.max(1, ((Collection<?>) tokens).size());
+		}
+	};
+
+	private final Cache<Key, ArrayList<String>> arrayCache;
+
+	private final Cache<Key, Set<String>> setCache;
+
+	private TokenCache(final CacheBuilder<Object, Object> cacheBuilder) {
+		arrayCache = cacheBuilder.build();
+		setCache = cacheBuilder.build();
+	}
+
+	ArrayList<String> tokenizeToArrayList(final InterfaceTokeniser tokenizer,
+			final String input) {
+		try {
+			return arrayCache.get(new Key(tokenizer, input),
+					new Callable<ArrayList<String>>() {
+
+						public ArrayList<String> call() throws Exception {
+							return tokenizer.tokenizeToArrayList(input);
+						}
+					});
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	Set<String> tokenizeToSet(final InterfaceTokeniser tokenizer,
+			final String input) {
+		try {
+			return setCache.get(new Key(tokenizer, input),
+					new Callable<Set<String>>() {
+
+						public Set<String> call() throws Exception {
+							return tokenizer.tokenizeToSet(input);
+						}
+					});
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * drops the tokens made by the tokenizer, e.g. after its stop words
+	 * changed.
+	 */
+	void invalidate(final InterfaceTokeniser tokenizer) {
+		invalidate(arrayCache, tokenizer);
+		invalidate(setCache, tokenizer);
+	}
+
+	private static void invalidate(final Cache<Key, ?> cache,
+			final InterfaceTokeniser tokenizer) {
+		final Iterator<Key> keys = cache.asMap().keySet().iterator();
+		while (keys.hasNext()) {
+			if (keys.next().tokenizer == tokenizer) {
+				keys.remove();
+			}
+		}
+	}
+
+	/**
+	 * drops all tokens.
+	 */
+	public void invalidateAll() {
+		arrayCache.invalidateAll();
+		setCache.invalidateAll();
+	}
+
+	/**
+	 * returns the number of lists and sets of tokens kept.
+	 *
+	 * @return the number of entries
+	 */
+	public long size() {
+		return arrayCache.size() + setCache.size();
+	}
+
+	/**
+	 * returns the hits, misses and evictions of lists and sets of tokens
+	 * together. These are only counted if the cache was built with
+	 * {@link Builder#recordStats()}.
+	 *
+	 * @return the statistics of the cache
+	 */
+	public CacheStats getStats() {
+		return arrayCache.stats().plus(setCache.stats());
+	}
+
+	@Override
+	public String toString() {
+		return "TokenCache [" + size() + " entries]";
+	}
+
+	/**
+	 * a string and the tokenizer tokenizing it, compared by identity.
+	 */
+	private static final class Key {
+
+		final InterfaceTokeniser tokenizer;
+
+		final String input;
+
+		Key(final InterfaceTokeniser tokenizer, final String input) {
+			this.tokenizer = tokenizer;
+			this.input = input;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * System.identityHashCode(tokenizer) + input.hashCode();
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			final Key other = (Key) obj;
+			return tokenizer == other.tokenizer && input.equals(other.input);
+		}
+	}
+}
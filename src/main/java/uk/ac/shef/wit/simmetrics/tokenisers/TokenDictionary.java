@@ -0,0 +1,125 @@
+package uk.ac.shef.wit.simmetrics.tokenisers;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import uk.ac.shef.wit.simmetrics.utils.ThreadSafe;
+
+/**
+ * Maps tokens to dense int ids, numbered from zero in the order the tokens
+ * are first seen.
+ *
+ * Tokens turned into sorted arrays of ids can be compared with a merge join
+ * instead of by hashing strings. A bag keeps repeated tokens, a set does not.
+ * Two bags or sets can only be compared when they come from the same
+ * dictionary.
+ *
+ * The dictionary keeps every token it has seen. Share one between the metrics
+ * of a batch job and let it go with the job.
+ */
+@ThreadSafe
+public final class TokenDictionary {
+
+	private static final int[] EMPTY = new int[0];
+
+	private final ConcurrentMap<String, Integer> ids = new ConcurrentHashMap<String, Integer>();
+
+	/**
+	 * returns the id of the token, assigning the next one if the token has not
+	 * been seen before.
+	 *
+	 * @param token
+	 *            the token to look up
+	 * @return the id of the token
+	 */
+	public int getId(final String token) {
+		Integer id = ids.get(token);
+		if (id == null) {
+			// assigned under the lock so ids stay dense
+			synchronized (this) {
+				id = ids.get(token);
+				if (id == null) {
+					id = ids.size();
+					ids.put(token, id);
+				}
+			}
+		}
+		return id;
+	}
+
+	/**
+	 * returns the number of tokens seen.
+	 *
+	 * @return the number of tokens seen
+	 */
+	public int size() {
+		return ids.size();
+	}
+
+	/**
+	 * returns the ids of the tokens in ascending order, repeated as often as
+	 * the tokens are.
+	 *
+	 * @param tokens
+	 *            the tokens, e.g. from
+	 *            {@link InterfaceTokeniser#tokenizeToArrayList(String)}
+	 * @return the sorted bag of ids
+	 */
+	public int[] toBag(final Collection<String> tokens) {
+		if (tokens.isEmpty()) {
+			return EMPTY;
+		}
+		final int[] bag = new int[tokens.size()];
+		int i = 0;
+		for (String token : tokens) {
+			bag[i++] = getId(token);
+		}
+		Arrays.sort(bag);
+		return bag;
+	}
+
+	/**
+	 * returns the distinct ids of the tokens in ascending order.
+	 *
+	 * @param tokens
+	 *            the tokens
+	 * @return the sorted set of ids
+	 */
+	public int[] toSet(final Collection<String> tokens) {
+		return distinct(toBag(tokens));
+	}
+
+	/**
+	 * returns the distinct ids of a sorted bag.
+	 *
+	 * @param bag
+	 *            a sorted bag of ids
+	 * @return the sorted set of ids, the bag itself if it has no repeated ids
+	 */
+	public static int[] distinct(final int[] bag) {
+		int size = 0;
+		for (int i = 0; i < bag.length; i++) {
+			if (i == 0 || bag[i] != bag[i - 1]) {
+				size++;
+			}
+		}
+		if (size == bag.length) {
+			return bag;
+		}
+		final int[] set = new int[size];
+		size = 0;
+		for (int i = 0; i < bag.length; i++) {
+			if (i == 0 || bag[i] != bag[i - 1]) {
+				set[size++] = bag[i];
+			}
+		}
+		return set;
+	}
+
+	@Override
+	public String toString() {
+		return "TokenDictionary [" + size() + " tokens]";
+	}
+}
@@ -40,6 +40,7 @@
 package uk.ac.shef.wit.simmetrics.tokenisers;
 
 import java.util.ArrayList;
+import java.util.regex.Pattern;
 
 /**
  * TokeniserCSVBasic implements a simple CSV tokeniser. NB(this doesn't consider
@@ -50,12 +51,17 @@ import java.util.ArrayList;
  */
 public final class TokeniserCSVBasic extends AbstractTokenizer {
 
-	private final String delimiters = "[,\n]";
+	private static final Pattern DELIMITERS = Pattern.compile("[,\n]");
 
 	public final ArrayList<String> tokenizeToArrayList(final String input) {
+		return tokenizeToArrayList((CharSequence) input);
+	}
+
+	@Override
+	public final ArrayList<String> tokenizeToArrayList(final CharSequence input) {
 		final ArrayList<String> returnArrayList = new ArrayList<String>();
 
-		for (String token : input.split(delimiters)) {
+		for (String token : DELIMITERS.split(input)) {
 			final String term = token.trim();
 			if (!isWord(term)) {
 				returnArrayList.add(term);
@@ -42,13 +42,23 @@ package uk.ac.shef.wit.simmetrics.tokenisers;
 
 import java.util.ArrayList;
 
+import uk.ac.shef.wit.simmetrics.wordhandlers.DummyStopTermHandler;
+
 /**
  * Basic Q-Gram tokenizer for a variable Q.
  * 
  * @author mpkorstanje
  *
  */
-public class TokeniserQGram extends AbstractTokenizer  {
+public class TokeniserQGram extends AbstractTokenizer implements
+		InterfaceQGramCoder {
+
+	/**
+	 * longest q-gram whose characters are packed into its code.
+	 */
+	private static final int MAXPACKEDQ = 4;
+
+	private static final long HASHMULTIPLIER = 0x9E3779B97F4A7C15L;
 
 	private final int q;
 	
@@ -57,10 +67,15 @@ public class TokeniserQGram extends AbstractTokenizer  {
 	}
 
 	public ArrayList<String> tokenizeToArrayList(final String input) {
+		return tokenizeToArrayList((CharSequence) input);
+	}
+
+	@Override
+	public ArrayList<String> tokenizeToArrayList(final CharSequence input) {
 		final ArrayList<String> ret = new ArrayList<String>();
 
 		for (int i = 0; i < input.length() - q +1; i++) {
-			final String term = input.substring(i, i + q);
+			final String term = input.subSequence(i, i + q).toString();
 			if (!isWord(term)) {
 				ret.add(term);
 			}
@@ -69,4 +84,67 @@ public class TokeniserQGram extends AbstractTokenizer  {
 		return ret;
 	}
 
+	/**
+	 * Subclasses other than those of this package may tokenise differently,
+	 * their codes are never exact.
+	 */
+	public boolean hasExactCodes() {
+		return (getClass() == TokeniserQGram.class
+				|| getClass() == TokeniserQGram2.class
+				|| getClass() == TokeniserQGram3.class)
+				&& q <= MAXPACKEDQ
+				&& stopWordHandler instanceof DummyStopTermHandler;
+	}
+
+	public int getMaximumCodeCount(final int length) {
+		return Math.max(0, length - q + 1);
+	}
+
+	public int tokenizeToCodes(final CharSequence input, final long[] codes) {
+		return tokenizeToCodes(input, 0, input.length(), 0, ' ', ' ', codes, 0);
+	}
+
+	/**
+	 * writes the codes of the q-grams of part of the input, padded on either
+	 * side, after the codes already in the array.
+	 *
+	 * @param input
+	 * @param start
+	 *            index of the first character of the part
+	 * @param end
+	 *            index after the last character of the part
+	 * @param padding
+	 *            number of padding characters on either side
+	 * @param startPadding
+	 *            character padding the start
+	 * @param endPadding
+	 *            character padding the end
+	 * @param codes
+	 * @param count
+	 *            number of codes already in the array
+	 * @return number of codes in the array
+	 */
+	int tokenizeToCodes(final CharSequence input, final int start,
+			final int end, final int padding, final char startPadding,
+			final char endPadding, final long[] codes, int count) {
+		final int length = end - start + 2 * padding;
+		for (int i = 0; i + q <= length; i++) {
+			long code = 0;
+			for (int k = i; k < i + q; k++) {
+				final char c;
+				if (k < padding) {
+					c = startPadding;
+				} else if (k < length - padding) {
+					c = input.charAt(start + k - padding);
+				} else {
+					c = endPadding;
+				}
+				code = q <= MAXPACKEDQ ? (code << Character.SIZE) | c : code
+						* HASHMULTIPLIER + c;
+			}
+			codes[count++] = code;
+		}
+		return count;
+	}
+
 }
@@ -1,5 +1,6 @@
 package uk.ac.shef.wit.simmetrics.tokenisers;
 
+import java.nio.CharBuffer;
 import java.util.ArrayList;
 import java.util.Set;
 
@@ -12,7 +13,8 @@ import uk.ac.shef.wit.simmetrics.wordhandlers.InterfaceTermHandler;
  * @author mpkorstanje
  *
  */
-public class TokeniserQGramExtended implements InterfaceTokeniser {
+public class TokeniserQGramExtended implements InterfaceTokeniser,
+		InterfaceQGramCoder {
 
 	private final char Q_GRAM_START_PADDING = '#';
 	private final char Q_GRAM_END_PADDING = '#';
@@ -45,7 +47,11 @@ public class TokeniserQGramExtended implements InterfaceTokeniser {
 	}
 
 	public ArrayList<String> tokenizeToArrayList(String input) {
-		return tokenizer.tokenizeToArrayList(startPadding + input + endPadding);
+		return tokenizeToArrayList((CharSequence) input);
+	}
+
+	public ArrayList<String> tokenizeToArrayList(CharSequence input) {
+		return tokenizer.tokenizeToArrayList(pad(input));
 	}
 
 	public String getShortDescriptionString() {
@@ -53,7 +59,52 @@ public class TokeniserQGramExtended implements InterfaceTokeniser {
 	}
 
 	public Set<String> tokenizeToSet(String input) {
-		return tokenizer.tokenizeToSet(startPadding + input + endPadding);
+		return tokenizeToSet((CharSequence) input);
+	}
+
+	public Set<String> tokenizeToSet(CharSequence input) {
+		return tokenizer.tokenizeToSet(pad(input));
+	}
+
+	public ArrayList<String> tokenizeToArrayList(final char[] input,
+			final int offset, final int length) {
+		return tokenizeToArrayList(CharBuffer.wrap(input, offset, length));
+	}
+
+	public Set<String> tokenizeToSet(final char[] input, final int offset,
+			final int length) {
+		return tokenizeToSet(CharBuffer.wrap(input, offset, length));
+	}
+
+	/**
+	 * Subclasses other than those of this package may tokenise differently,
+	 * their codes are never exact.
+	 */
+	public boolean hasExactCodes() {
+		return (getClass() == TokeniserQGramExtended.class
+				|| getClass() == TokeniserQGram2Extended.class
+				|| getClass() == TokeniserQGram3Extended.class)
+				&& tokenizer.hasExactCodes();
+	}
+
+	public int getMaximumCodeCount(int length) {
+		return tokenizer.getMaximumCodeCount(startPadding.length() + length
+				+ endPadding.length());
+	}
+
+	public int tokenizeToCodes(CharSequence input, long[] codes) {
+		return tokenizer.tokenizeToCodes(input, 0, input.length(),
+				startPadding.length(), Q_GRAM_START_PADDING,
+				Q_GRAM_END_PADDING, codes, 0);
+	}
+
+	/**
+	 * pads the input in a builder the q-gram tokenizer reads in place.
+	 */
+	private CharSequence pad(CharSequence input) {
+		return new StringBuilder(startPadding.length() + input.length()
+				+ endPadding.length()).append(startPadding).append(input)
+				.append(endPadding);
 	}
 
 }
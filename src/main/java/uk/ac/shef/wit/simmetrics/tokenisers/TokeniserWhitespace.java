@@ -40,6 +40,7 @@
 package uk.ac.shef.wit.simmetrics.tokenisers;
 
 import java.util.ArrayList;
+import java.util.regex.Pattern;
 
 /**
  * TokeniserWhitespace implements a simple whitespace tokeniser.
@@ -49,13 +50,18 @@ import java.util.ArrayList;
  */
 public final class TokeniserWhitespace extends AbstractTokenizer {
 
-	private final String delimiters = "\\s";
+	private static final Pattern DELIMITERS = Pattern.compile("\\s");
 
 	public final ArrayList<String> tokenizeToArrayList(final String input) {
+		return tokenizeToArrayList((CharSequence) input);
+	}
+
+	@Override
+	public final ArrayList<String> tokenizeToArrayList(final CharSequence input) {
 
 		final ArrayList<String> returnArrayList = new ArrayList<String>();
 
-		for (String token : input.split(delimiters)) {
+		for (String token : DELIMITERS.split(input)) {
 			if (!token.isEmpty() && !isWord(token)) {
 				returnArrayList.add(token);
 			}
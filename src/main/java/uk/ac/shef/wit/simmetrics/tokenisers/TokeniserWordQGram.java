@@ -39,9 +39,11 @@
 
 package uk.ac.shef.wit.simmetrics.tokenisers;
 
+import java.nio.CharBuffer;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.ArrayList;
+import uk.ac.shef.wit.simmetrics.wordhandlers.DummyStopTermHandler;
 import uk.ac.shef.wit.simmetrics.wordhandlers.InterfaceTermHandler;
 
 /**
@@ -53,7 +55,8 @@ import uk.ac.shef.wit.simmetrics.wordhandlers.InterfaceTermHandler;
  * 
  *
  */
-public final class TokeniserWordQGram implements InterfaceTokeniser {
+public final class TokeniserWordQGram implements InterfaceTokeniser,
+		InterfaceQGramCoder {
 
 	private InterfaceTokeniser wordTokenizer;
 	private TokeniserQGram qGramTokenizer;
@@ -85,6 +88,14 @@ public final class TokeniserWordQGram implements InterfaceTokeniser {
 	}
 
 	public ArrayList<String> tokenizeToArrayList(final String input) {
+		return tokenizeToArrayList((CharSequence) input);
+	}
+
+	public Set<String> tokenizeToSet(final String input) {
+		return tokenizeToSet((CharSequence) input);
+	}
+
+	public ArrayList<String> tokenizeToArrayList(final CharSequence input) {
 		final ArrayList<String> returnArrayList = new ArrayList<String>(
 				input.length());
 		final ArrayList<String> words = wordTokenizer
@@ -100,7 +111,7 @@ public final class TokeniserWordQGram implements InterfaceTokeniser {
 		return returnArrayList;
 	}
 
-	public Set<String> tokenizeToSet(final String input) {
+	public Set<String> tokenizeToSet(final CharSequence input) {
 
 		// tokenizeToArray is not reused here on purpose. Removing duplicate
 		// words early means these don't have to be tokenized multiple times.
@@ -118,6 +129,55 @@ public final class TokeniserWordQGram implements InterfaceTokeniser {
 		return returnSet;
 	}
 
+	public ArrayList<String> tokenizeToArrayList(final char[] input,
+			final int offset, final int length) {
+		return tokenizeToArrayList(CharBuffer.wrap(input, offset, length));
+	}
+
+	public Set<String> tokenizeToSet(final char[] input, final int offset,
+			final int length) {
+		return tokenizeToSet(CharBuffer.wrap(input, offset, length));
+	}
+
+	/**
+	 * Codes are only made when words are split by a
+	 * {@link TokeniserWhitespace}.
+	 */
+	public boolean hasExactCodes() {
+		return wordTokenizer instanceof TokeniserWhitespace
+				&& wordTokenizer.getStopWordHandler() instanceof DummyStopTermHandler
+				&& qGramTokenizer.hasExactCodes();
+	}
+
+	public int getMaximumCodeCount(final int length) {
+		return qGramTokenizer.getMaximumCodeCount(length);
+	}
+
+	/**
+	 * Writes the codes of the q-grams of each run of non-whitespace
+	 * characters, the words a {@link TokeniserWhitespace} would make.
+	 */
+	public int tokenizeToCodes(final CharSequence input, final long[] codes) {
+		int count = 0;
+		int start = 0;
+		for (int i = 0; i <= input.length(); i++) {
+			if (i == input.length() || isWhitespace(input.charAt(i))) {
+				count = qGramTokenizer.tokenizeToCodes(input, start, i, 0, ' ',
+						' ', codes, count);
+				start = i + 1;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * true for the characters of the regular expression \s.
+	 */
+	private static boolean isWhitespace(final char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\u000B'
+				|| c == '\f' || c == '\r';
+	}
+
 	public String getShortDescriptionString() {
 		return getClass().getSimpleName();
 	}
@@ -0,0 +1,23 @@
+package uk.ac.shef.wit.simmetrics.utils;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a class whose instances may be shared between threads without
+ * external synchronisation.
+ *
+ * For metrics the marker is read by
+ * {@link uk.ac.shef.wit.simmetrics.similaritymetrics.InterfaceStringMetric#isThreadSafe()}.
+ * Metrics wrapping other metrics or tokenisers are only thread-safe when what
+ * they wrap is, they override that method rather than rely on the marker
+ * alone.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface ThreadSafe {
+}
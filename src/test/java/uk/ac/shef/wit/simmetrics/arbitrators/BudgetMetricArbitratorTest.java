@@ -0,0 +1,70 @@
+package uk.ac.shef.wit.simmetrics.arbitrators;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import uk.ac.shef.wit.simmetrics.arbitrators.BudgetMetricArbitrator.Arbitration;
+import uk.ac.shef.wit.simmetrics.similaritymetrics.InterfaceStringMetric;
+import uk.ac.shef.wit.simmetrics.similaritymetrics.JaroWinkler;
+import uk.ac.shef.wit.simmetrics.similaritymetrics.Levenshtein;
+import uk.ac.shef.wit.simmetrics.similaritymetrics.TagLink;
+
+public class BudgetMetricArbitratorTest {
+
+	private static final String SHORT1 = "Sam J Chapman";
+
+	private static final String SHORT2 = "Samuel John Chapman";
+
+	private static final String LONG1 = "Web Database Applications with PHP & MySQL";
+
+	private static final String LONG2 = "Building Web Database Applications with Visual Studio 6";
+
+	@Test
+	public void testSkipsMetricsOverBudget() {
+		final InterfaceStringMetric tagLink = new TagLink();
+		final InterfaceStringMetric levenshtein = new Levenshtein();
+		final InterfaceStringMetric jaroWinkler = new JaroWinkler();
+		final BudgetMetricArbitrator arbitrator = new BudgetMetricArbitrator(
+				0.6f);
+		arbitrator.addArbitrationMetric(tagLink);
+		arbitrator.addArbitrationMetric(levenshtein);
+		arbitrator.addArbitrationMetric(jaroWinkler);
+
+		// short strings fit all metrics
+		Arbitration arbitration = arbitrator.getArbitration(SHORT1, SHORT2);
+		assertEquals(Arrays.asList(tagLink, levenshtein, jaroWinkler),
+				arbitration.getContributingMetrics());
+		assertEquals((tagLink.getSimilarity(SHORT1, SHORT2)
+				+ levenshtein.getSimilarity(SHORT1, SHORT2) + jaroWinkler
+					.getSimilarity(SHORT1, SHORT2)) / 3,
+				arbitration.getScore(), 0.0f);
+
+		// long strings skip the expensive metric but not the cheaper ones after
+		// it
+		arbitration = arbitrator.getArbitration(LONG1, LONG2);
+		assertEquals(Arrays.asList(tagLink), arbitration.getSkippedMetrics());
+		assertEquals(Arrays.asList(levenshtein, jaroWinkler),
+				arbitration.getContributingMetrics());
+		assertTrue(arbitration.getTimingEstimated() <= 0.6f);
+		assertEquals(arbitration.getTimingEstimated(),
+				arbitrator.getArbitrationTimingEstimated(LONG1, LONG2), 0.0f);
+		assertEquals((levenshtein.getSimilarity(LONG1, LONG2) + jaroWinkler
+				.getSimilarity(LONG1, LONG2)) / 2,
+				arbitrator.getArbitrationScore(LONG1, LONG2), 0.0f);
+	}
+
+	@Test
+	public void testNoMetricFits() {
+		final BudgetMetricArbitrator arbitrator = new BudgetMetricArbitrator(
+				0.0f);
+		arbitrator.addArbitrationMetric(new Levenshtein());
+		final Arbitration arbitration = arbitrator.getArbitration(SHORT1,
+				SHORT2);
+		assertEquals(0.0f, arbitration.getScore(), 0.0f);
+		assertTrue(arbitration.getContributingMetrics().isEmpty());
+		assertEquals(1, arbitration.getSkippedMetrics().size());
+	}
+}
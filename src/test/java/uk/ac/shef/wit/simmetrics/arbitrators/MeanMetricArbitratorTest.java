@@ -0,0 +1,133 @@
+package uk.ac.shef.wit.simmetrics.arbitrators;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.ac.shef.wit.simmetrics.similaritymetrics.AbstractStringMetric;
+import uk.ac.shef.wit.simmetrics.similaritymetrics.JaccardSimilarity;
+import uk.ac.shef.wit.simmetrics.similaritymetrics.JaroWinkler;
+import uk.ac.shef.wit.simmetrics.similaritymetrics.Levenshtein;
+import uk.ac.shef.wit.simmetrics.similaritymetrics.MongeElkan;
+import uk.ac.shef.wit.simmetrics.similaritymetrics.QGramsDistance;
+import uk.ac.shef.wit.simmetrics.similaritymetrics.SmithWatermanGotoh;
+
+public class MeanMetricArbitratorTest {
+
+	/**
+	 * a metric of fixed similarity and timing estimate, counting how often it
+	 * is measured.
+	 */
+	private static final class FixedMetric extends AbstractStringMetric {
+
+		private final float similarity;
+
+		private final float estimate;
+
+		int count;
+
+		FixedMetric(final float similarity, final float estimate) {
+			this.similarity = similarity;
+			this.estimate = estimate;
+		}
+
+		public float getSimilarity(final String string1, final String string2) {
+			count++;
+			return similarity;
+		}
+
+		@Override
+		public float getSimilarityTimingEstimated(final String string1,
+				final String string2) {
+			return estimate;
+		}
+	}
+
+	private MeanMetricArbitrator arbitrator;
+
+	@Before
+	public void setUp() {
+		arbitrator = new MeanMetricArbitrator();
+		arbitrator.addArbitrationMetric(new Levenshtein());
+		arbitrator.addArbitrationMetric(new JaroWinkler());
+		arbitrator.addArbitrationMetric(new QGramsDistance());
+		arbitrator.addArbitrationMetric(new SmithWatermanGotoh());
+		arbitrator.addArbitrationMetric(new MongeElkan());
+		arbitrator.addArbitrationMetric(new JaccardSimilarity());
+	}
+
+	private static String randomWords(final Random random, final int length) {
+		final String alphabet = "abcde ";
+		final char[] chars = new char[length];
+		for (int i = 0; i < length; i++) {
+			chars[i] = alphabet.charAt(random.nextInt(alphabet.length()));
+		}
+		return new String(chars);
+	}
+
+	@Test
+	public void testConcurrentScoresMatch() {
+		final Random random = new Random(42);
+		final String[][] pairs = new String[100][];
+		final float[] expected = new float[pairs.length];
+		for (int i = 0; i < pairs.length; i++) {
+			pairs[i] = new String[] { randomWords(random, 1 + random.nextInt(30)),
+					randomWords(random, 1 + random.nextInt(30)) };
+			expected[i] = arbitrator.getArbitrationScore(pairs[i][0],
+					pairs[i][1]);
+		}
+		final ExecutorService executor = Executors.newFixedThreadPool(3);
+		try {
+			arbitrator.setExecutor(executor);
+			for (int i = 0; i < pairs.length; i++) {
+				assertEquals(expected[i], arbitrator.getArbitrationScore(
+						pairs[i][0], pairs[i][1]), 0.0f);
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testBoundedScoresMatch() {
+		final Random random = new Random(43);
+		for (int i = 0; i < 100; i++) {
+			final String string1 = randomWords(random, 1 + random.nextInt(30));
+			final String string2 = randomWords(random, 1 + random.nextInt(30));
+			final float score = arbitrator.getArbitrationScore(string1,
+					string2);
+			final float[] minimums = { 0.0f, score - 0.1f, score - 1e-6f,
+					score, score + 1e-6f, score + 0.1f, 1.0f };
+			for (float minimum : minimums) {
+				assertEquals(string1 + " vs " + string2 + " with minimum "
+						+ minimum, score >= minimum ? score : 0.0f,
+						arbitrator.getArbitrationScore(string1, string2,
+								minimum), 0.0f);
+			}
+		}
+	}
+
+	@Test
+	public void testBoundedScoreStopsEarly() {
+		final FixedMetric cheap = new FixedMetric(0.1f, 1.0f);
+		final FixedMetric expensive = new FixedMetric(1.0f, 100.0f);
+		final MeanMetricArbitrator fixed = new MeanMetricArbitrator();
+		fixed.addArbitrationMetric(expensive);
+		fixed.addArbitrationMetric(expensive);
+		fixed.addArbitrationMetric(cheap);
+
+		// even two perfect scores can not bring 0.1 up to a mean of 0.8
+		assertEquals(0.0f, fixed.getArbitrationScore("a", "b", 0.8f), 0.0f);
+		assertEquals(1, cheap.count);
+		assertEquals(0, expensive.count);
+
+		// but they can to a mean of 0.7
+		assertEquals(0.7f, fixed.getArbitrationScore("a", "b", 0.6f), 0.0001f);
+		assertEquals(2, expensive.count);
+	}
+}
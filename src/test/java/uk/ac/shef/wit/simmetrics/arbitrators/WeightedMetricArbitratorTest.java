@@ -0,0 +1,131 @@
+package uk.ac.shef.wit.simmetrics.arbitrators;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.ac.shef.wit.simmetrics.similaritymetrics.AbstractStringMetric;
+import uk.ac.shef.wit.simmetrics.similaritymetrics.InterfaceStringMetric;
+import uk.ac.shef.wit.simmetrics.similaritymetrics.JaroWinkler;
+import uk.ac.shef.wit.simmetrics.similaritymetrics.Levenshtein;
+
+public class WeightedMetricArbitratorTest {
+
+	/**
+	 * a metric of similarities unrelated to the strings.
+	 */
+	private static final class NoiseMetric extends AbstractStringMetric {
+
+		private final Random random = new Random(7);
+
+		public float getSimilarity(final String string1, final String string2) {
+			return random.nextFloat();
+		}
+	}
+
+	private final Random random = new Random(42);
+
+	private final InterfaceStringMetric levenshtein = new Levenshtein();
+
+	private final InterfaceStringMetric jaroWinkler = new JaroWinkler();
+
+	private final InterfaceStringMetric noise = new NoiseMetric();
+
+	private WeightedMetricArbitrator arbitrator;
+
+	@Before
+	public void setUp() {
+		arbitrator = new WeightedMetricArbitrator();
+		arbitrator.setBatchSize(16);
+		arbitrator.addArbitrationMetric(levenshtein);
+		arbitrator.addArbitrationMetric(noise);
+		arbitrator.addArbitrationMetric(jaroWinkler);
+	}
+
+	private String randomWords(final int length) {
+		final String alphabet = "abcdefgh ";
+		final char[] chars = new char[length];
+		for (int i = 0; i < length; i++) {
+			chars[i] = alphabet.charAt(random.nextInt(alphabet.length()));
+		}
+		return new String(chars);
+	}
+
+	/**
+	 * returns a copy of the string with a character changed.
+	 */
+	private String typo(final String string) {
+		final char[] chars = string.toCharArray();
+		chars[random.nextInt(chars.length)] = 'z';
+		return new String(chars);
+	}
+
+	private void learn(final int pairs) {
+		for (int i = 0; i < pairs; i++) {
+			final String string = randomWords(8 + random.nextInt(12));
+			arbitrator.learn(string, typo(string), true);
+			arbitrator.learn(string, randomWords(8 + random.nextInt(12)),
+					false);
+		}
+		arbitrator.flush();
+	}
+
+	private float accuracy(final int pairs) {
+		int correct = 0;
+		for (int i = 0; i < pairs; i++) {
+			final String string = randomWords(8 + random.nextInt(12));
+			if (arbitrator.getArbitrationScore(string, typo(string)) > 0.5f) {
+				correct++;
+			}
+			if (arbitrator.getArbitrationScore(string,
+					randomWords(8 + random.nextInt(12))) < 0.5f) {
+				correct++;
+			}
+		}
+		return correct / (2.0f * pairs);
+	}
+
+	@Test
+	public void testScoresMeanUntilLearned() {
+		final WeightedMetricArbitrator unlearned = new WeightedMetricArbitrator();
+		unlearned.addArbitrationMetric(levenshtein);
+		unlearned.addArbitrationMetric(jaroWinkler);
+		assertEquals((levenshtein.getSimilarity("Healed", "Sealed") + jaroWinkler
+				.getSimilarity("Healed", "Sealed")) / 2,
+				unlearned.getArbitrationScore("Healed", "Sealed"), 0.0f);
+	}
+
+	@Test
+	public void testLearns() {
+		learn(2000);
+		assertTrue(accuracy(500) > 0.95f);
+		final float[] weights = arbitrator.getWeights();
+		assertTrue(weights[0] > 0.0f);
+		assertTrue(weights[2] > 0.0f);
+		assertTrue(arbitrator.getBias() < 0.0f);
+	}
+
+	@Test
+	public void testPrune() {
+		learn(2000);
+		final float[] importances = arbitrator.getImportances();
+		assertTrue(importances[1] < importances[0]);
+		assertTrue(importances[1] < importances[2]);
+
+		final List<InterfaceStringMetric> dropped = arbitrator.prune(0.2f);
+		assertEquals(Arrays.asList(noise), dropped);
+		assertEquals(Arrays.asList(levenshtein, jaroWinkler),
+				arbitrator.getArbitrationMetrics());
+		assertEquals(2, arbitrator.getWeights().length);
+		assertTrue(accuracy(500) > 0.95f);
+
+		// learning carries on with the metrics kept
+		learn(100);
+		assertTrue(accuracy(500) > 0.95f);
+	}
+}
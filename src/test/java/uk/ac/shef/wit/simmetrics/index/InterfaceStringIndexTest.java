@@ -0,0 +1,120 @@
+package uk.ac.shef.wit.simmetrics.index;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.ac.shef.wit.simmetrics.similaritymetrics.InterfaceStringMetric;
+
+public abstract class InterfaceStringIndexTest {
+
+	private static final String[] WORDS = { "web", "database", "applications",
+			"aplications", "with", "php", "mysql", "building", "on", "the",
+			"sam", "chapman", "john", "smith", "healed", "sealed", "help" };
+
+	private List<String> strings;
+
+	private List<String> queries;
+
+	private InterfaceStringIndex index;
+
+	public abstract InterfaceStringIndex getIndex(Collection<String> strings);
+
+	@Before
+	public void setUp() throws Exception {
+		final Random random = new Random(1234);
+		strings = new ArrayList<String>();
+		for (int i = 0; i < 500; i++) {
+			strings.add(randomPhrase(random));
+		}
+		// duplicates and the empty string
+		strings.add(strings.get(0));
+		strings.add("");
+		queries = new ArrayList<String>();
+		for (int i = 0; i < 40; i++) {
+			queries.add(randomPhrase(random));
+		}
+		queries.add(strings.get(1));
+		queries.add("");
+		index = getIndex(strings);
+	}
+
+	private static String randomPhrase(Random random) {
+		final StringBuilder sb = new StringBuilder();
+		final int words = 1 + random.nextInt(5);
+		for (int w = 0; w < words; w++) {
+			if (w > 0) {
+				sb.append(' ');
+			}
+			String word = WORDS[random.nextInt(WORDS.length)];
+			if (random.nextInt(4) == 0) {
+				// a typo
+				final int at = random.nextInt(word.length());
+				word = word.substring(0, at) + word.substring(at + 1);
+			}
+			sb.append(word);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * compares every string with the metric of the index.
+	 */
+	private List<Match> scan(String query) {
+		final InterfaceStringMetric metric = index.getMetric();
+		final List<Match> matches = new ArrayList<Match>();
+		for (int i = 0; i < strings.size(); i++) {
+			final float similarity = metric.getSimilarity(query,
+					strings.get(i));
+			if (similarity > 0.0f) {
+				matches.add(new Match(i, strings.get(i), similarity));
+			}
+		}
+		Collections.sort(matches);
+		return matches;
+	}
+
+	@Test
+	public void testSize() {
+		assertEquals(strings.size(), index.size());
+	}
+
+	@Test
+	public void testFindSimilar() {
+		final float[] minimums = { 0.0f, 0.3f, 0.5f, 0.7f, 0.9f, 1.0f };
+		for (String query : queries) {
+			final List<Match> all = scan(query);
+			for (float minimum : minimums) {
+				final List<Match> expected = new ArrayList<Match>();
+				for (Match match : all) {
+					if (match.getSimilarity() >= minimum) {
+						expected.add(match);
+					}
+				}
+				assertEquals(query + " with minimum " + minimum, expected,
+						index.findSimilar(query, minimum));
+			}
+		}
+	}
+
+	@Test
+	public void testFindMostSimilar() {
+		final int[] ks = { 0, 1, 5, 20, 1000 };
+		for (String query : queries) {
+			final List<Match> all = scan(query);
+			for (int k : ks) {
+				final List<Match> expected = all.subList(0, Math.min(k, all
+						.size()));
+				assertEquals(query + " with k " + k, expected, index
+						.findMostSimilar(query, k));
+			}
+		}
+	}
+}
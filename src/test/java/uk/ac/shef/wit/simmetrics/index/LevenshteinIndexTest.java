@@ -0,0 +1,11 @@
+package uk.ac.shef.wit.simmetrics.index;
+
+import java.util.Collection;
+
+public class LevenshteinIndexTest extends InterfaceStringIndexTest {
+
+	@Override
+	public InterfaceStringIndex getIndex(Collection<String> strings) {
+		return new LevenshteinIndex(strings);
+	}
+}
@@ -0,0 +1,153 @@
+package uk.ac.shef.wit.simmetrics.matrix;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.ac.shef.wit.simmetrics.similaritymetrics.AbstractStringMetric;
+import uk.ac.shef.wit.simmetrics.similaritymetrics.InterfaceStringMetric;
+import uk.ac.shef.wit.simmetrics.similaritymetrics.InterfaceStringMetricFactory;
+import uk.ac.shef.wit.simmetrics.similaritymetrics.Levenshtein;
+
+public class SimilarityMatrixTest {
+
+	private String[] rows;
+
+	private String[] columns;
+
+	private final InterfaceStringMetric metric = new Levenshtein();
+
+	@Before
+	public void setUp() {
+		final Random random = new Random(1234);
+		rows = randomStrings(random, 70);
+		columns = randomStrings(random, 45);
+	}
+
+	private static String[] randomStrings(Random random, int count) {
+		final String[] strings = new String[count];
+		for (int i = 0; i < count; i++) {
+			final char[] chars = new char[random.nextInt(12)];
+			for (int c = 0; c < chars.length; c++) {
+				chars[c] = "abcd".charAt(random.nextInt(4));
+			}
+			strings[i] = new String(chars);
+		}
+		return strings;
+	}
+
+	@Test
+	public void testCompute() {
+		final float[][] matrix = new SimilarityMatrix(metric).compute(rows,
+				columns);
+		assertEquals(rows.length, matrix.length);
+		for (int i = 0; i < rows.length; i++) {
+			for (int j = 0; j < columns.length; j++) {
+				assertEquals(metric.getSimilarity(rows[i], columns[j]),
+						matrix[i][j], 0.0f);
+			}
+		}
+	}
+
+	@Test
+	public void testComputeEmpty() {
+		final float[][] matrix = new SimilarityMatrix(metric).compute(
+				new String[0], columns);
+		assertEquals(0, matrix.length);
+	}
+
+	@Test
+	public void testComputeWithMinimum() {
+		final float minimum = 0.6f;
+		final ConcurrentHashMap<String, Boolean> cells = new ConcurrentHashMap<String, Boolean>();
+		new SimilarityMatrix(factory(new AtomicInteger()), 3, 8).compute(rows,
+				columns, minimum, new InterfaceSimilarityHandler() {
+					public void handle(int row, int column, float similarity) {
+						assertEquals(metric.getSimilarity(rows[row],
+								columns[column]), similarity, 0.0f);
+						assertTrue(cells.putIfAbsent(row + "," + column,
+								Boolean.TRUE) == null);
+					}
+				});
+
+		final Set<String> expected = new HashSet<String>();
+		for (int i = 0; i < rows.length; i++) {
+			for (int j = 0; j < columns.length; j++) {
+				if (metric.getSimilarity(rows[i], columns[j]) >= minimum) {
+					expected.add(i + "," + j);
+				}
+			}
+		}
+		assertEquals(expected, cells.keySet());
+	}
+
+	@Test
+	public void testMetricPerWorker() {
+		final AtomicInteger created = new AtomicInteger();
+		final AtomicInteger cells = new AtomicInteger();
+		new SimilarityMatrix(factory(created), 4, 5).compute(rows, columns,
+				new InterfaceSimilarityHandler() {
+					public void handle(int row, int column, float similarity) {
+						cells.incrementAndGet();
+					}
+				});
+		assertEquals(rows.length * columns.length, cells.get());
+		assertTrue(created.get() >= 1 && created.get() <= 4);
+	}
+
+	@Test
+	public void testExceptionIsRethrown() {
+		final InterfaceStringMetric failing = new AbstractStringMetric() {
+			public float getSimilarity(String string1, String string2) {
+				throw new UnsupportedOperationException("failing");
+			}
+
+			@Override
+			public boolean isThreadSafe() {
+				return true;
+			}
+		};
+		try {
+			new SimilarityMatrix(failing).compute(rows, columns);
+			fail();
+		} catch (UnsupportedOperationException e) {
+			assertEquals("failing", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testMetricThatIsNotThreadSafeIsNotShared() {
+		final Set<Thread> threads = new HashSet<Thread>();
+		final InterfaceStringMetric metric = new AbstractStringMetric() {
+			public float getSimilarity(String string1, String string2) {
+				synchronized (threads) {
+					threads.add(Thread.currentThread());
+				}
+				return 0.0f;
+			}
+		};
+		assertFalse(metric.isThreadSafe());
+		new SimilarityMatrix(metric).compute(rows, columns);
+		assertEquals(1, threads.size());
+	}
+
+	private static InterfaceStringMetricFactory factory(
+			final AtomicInteger created) {
+		return new InterfaceStringMetricFactory() {
+			public InterfaceStringMetric create() {
+				created.incrementAndGet();
+				return new Levenshtein();
+			}
+		};
+	}
+}
@@ -0,0 +1,131 @@
+package uk.ac.shef.wit.simmetrics.similaritymetrics;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class CachingMetricTest extends InterfaceStringMetricTest {
+
+	@Override
+	public InterfaceStringMetric getMetric() {
+		return new CachingMetric.Builder().maximumSize(100).build(
+				new Levenshtein());
+	}
+
+	@Override
+	public T[] getTests() {
+		return new T[] {
+				new T(0.9167f, "test string1", "test string2"),
+				new T(0.8333f, "Healed", "Sealed"),
+				new T(0.5714f, "Healed", "Healthy"),
+				new T(0.5000f, "Healed", "Help"),
+				new T(0.6842f, "Sam J Chapman", "Samuel John Chapman"),
+				new T(0.0000f, "John Smith", "Sam Chapman"), };
+	}
+
+	@Test
+	public void testHits() {
+		final CachingMetric caching = new CachingMetric.Builder()
+				.maximumSize(100).recordStats().build(new Levenshtein());
+		assertEquals(0.8333f, caching.getSimilarity("Healed", "Sealed"),
+				0.0001f);
+		assertEquals(0.8333f, caching.getSimilarity("Healed", "Sealed"),
+				0.0001f);
+		assertEquals(1, caching.getStats().missCount());
+		assertEquals(1, caching.getStats().hitCount());
+
+		// the order matters unless the metric is symmetric
+		caching.getSimilarity("Sealed", "Healed");
+		assertEquals(2, caching.getStats().missCount());
+		assertEquals(2, caching.size());
+	}
+
+	@Test
+	public void testSymmetric() {
+		final CachingMetric caching = new CachingMetric.Builder()
+				.maximumSize(100).symmetric().recordStats()
+				.build(new Levenshtein());
+		caching.getSimilarity("Healed", "Sealed");
+		caching.getSimilarity("Sealed", "Healed");
+		assertEquals(1, caching.getStats().hitCount());
+		assertEquals(1, caching.size());
+	}
+
+	@Test
+	public void testBoundedSimilarityKeepsExactSimilarities() {
+		final CachingMetric caching = new CachingMetric.Builder()
+				.maximumSize(100).recordStats().build(new Levenshtein());
+		// below the minimum, not kept
+		assertEquals(0.0f, caching.getSimilarity("Healed", "Help", 0.9f),
+				0.0f);
+		assertEquals(0, caching.size());
+		// reached, kept and reused for other minimums
+		assertEquals(0.5000f, caching.getSimilarity("Healed", "Help", 0.4f),
+				0.0001f);
+		assertEquals(1, caching.size());
+		assertEquals(0.0f, caching.getSimilarity("Healed", "Help", 0.9f),
+				0.0f);
+		assertEquals(0.5000f, caching.getSimilarity("Healed", "Help"),
+				0.0001f);
+		assertEquals(2, caching.getStats().hitCount());
+	}
+
+	@Test
+	public void testHashedKeys() {
+		final CachingMetric caching = new CachingMetric.Builder()
+				.maximumSize(100).hashKeysLongerThan(10).recordStats()
+				.build(new Levenshtein());
+		final Levenshtein levenshtein = new Levenshtein();
+		for (T t : getTests()) {
+			final float expected = levenshtein.getSimilarity(t.string1,
+					t.string2);
+			assertEquals(expected, caching.getSimilarity(t.string1, t.string2),
+					0.0f);
+			assertEquals(expected, caching.getSimilarity(t.string1, t.string2),
+					0.0f);
+		}
+		assertEquals(getTests().length, caching.size());
+		assertEquals(getTests().length, caching.getStats().hitCount());
+		// the same characters split differently are another pair
+		caching.getSimilarity("Healed", "Sealed");
+		caching.getSimilarity("HealedS", "ealed");
+		assertEquals(getTests().length + 1, caching.size());
+	}
+
+	@Test
+	public void testMaximumCharacters() {
+		// one segment, so the whole weight is shared
+		final CachingMetric caching = new CachingMetric.Builder()
+				.maximumCharacters(25).concurrencyLevel(1).recordStats()
+				.build(new Levenshtein());
+		caching.getSimilarity("Healed", "Sealed");
+		caching.getSimilarity("Healed", "Help");
+		assertEquals(2, caching.size());
+		assertEquals(0, caching.getStats().evictionCount());
+
+		// 12 + 10 + 13 characters, the least recently used pair is evicted
+		caching.getSimilarity("Healed", "Healthy");
+		assertEquals(2, caching.size());
+		assertEquals(1, caching.getStats().evictionCount());
+		caching.getSimilarity("Healed", "Help");
+		caching.getSimilarity("Healed", "Healthy");
+		assertEquals(2, caching.getStats().hitCount());
+		caching.getSimilarity("Healed", "Sealed");
+		assertEquals(4, caching.getStats().missCount());
+	}
+
+	@Test
+	public void testUnNormalisedSimilarity() {
+		// the edit distance, not the normalised similarity
+		final CachingMetric caching = new CachingMetric.Builder()
+				.maximumSize(100).build(new Levenshtein());
+		assertEquals(1.0f,
+				caching.getUnNormalisedSimilarity("Healed", "Sealed"), 0.0f);
+	}
+
+	@Override
+	@Test
+	public void testGetShortDescriptionString() {
+		assertEquals("Levenshtein", metric.getShortDescriptionString());
+	}
+}
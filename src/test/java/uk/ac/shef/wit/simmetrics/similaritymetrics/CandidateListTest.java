@@ -0,0 +1,94 @@
+package uk.ac.shef.wit.simmetrics.similaritymetrics;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class CandidateListTest {
+
+	@Test
+	public void testAssignMatchesHighestScoresFirst() {
+		final CandidateList list = CandidateList.acquire();
+		try {
+			list.add(0, 0, 0.5f);
+			list.add(0, 1, 0.9f);
+			list.add(1, 1, 0.8f);
+			list.add(1, 0, 0.4f);
+			assertEquals(0.9f + 0.4f, list.assign(2, 2), 0.0f);
+			assertEquals(2, list.matched);
+			assertEquals(1, list.largestTPosition);
+		} finally {
+			list.release();
+		}
+	}
+
+	@Test
+	public void testEqualScoresKeepOrderAdded() {
+		final CandidateList list = CandidateList.acquire();
+		try {
+			list.add(2, 0, 0.7f);
+			list.add(0, 0, 0.7f);
+			list.add(1, 0, -0.0f);
+			list.add(1, 0, 0.0f);
+			list.assign(3, 1);
+			// the first candidate added takes the only u position
+			assertEquals(1, list.matched);
+			assertEquals(2, list.largestTPosition);
+		} finally {
+			list.release();
+		}
+	}
+
+	@Test
+	public void testNegativeScores() {
+		final CandidateList list = CandidateList.acquire();
+		try {
+			list.add(0, 0, -2.0f);
+			list.add(0, 1, -1.0f);
+			list.add(1, 0, -3.0f);
+			assertEquals(-1.0f + -3.0f, list.assign(2, 2), 0.0f);
+		} finally {
+			list.release();
+		}
+	}
+
+	@Test
+	public void testAcquireWhileInUse() {
+		final CandidateList outer = CandidateList.acquire();
+		try {
+			outer.add(0, 0, 1.0f);
+			final CandidateList inner = CandidateList.acquire();
+			try {
+				assertNotSame(outer, inner);
+				inner.add(0, 0, 0.5f);
+				assertEquals(0.5f, inner.assign(1, 1), 0.0f);
+			} finally {
+				inner.release();
+			}
+			assertEquals(1.0f, outer.assign(1, 1), 0.0f);
+		} finally {
+			outer.release();
+		}
+		final CandidateList again = CandidateList.acquire();
+		again.release();
+		assertSame(outer, again);
+	}
+
+	@Test
+	public void testGrows() {
+		final CandidateList list = CandidateList.acquire();
+		try {
+			float expected = 0.0f;
+			for (int i = 0; i < 1000; i++) {
+				list.add(i, i, i / 1000.0f);
+			}
+			for (int i = 999; i >= 0; i--) {
+				expected += i / 1000.0f;
+			}
+			assertEquals(expected, list.assign(1000, 1000), 0.0f);
+			assertEquals(1000, list.matched);
+		} finally {
+			list.release();
+		}
+	}
+}
@@ -39,6 +39,15 @@
 
 package uk.ac.shef.wit.simmetrics.similaritymetrics;
 
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import uk.ac.shef.wit.simmetrics.tokenisers.CachingTokenizer;
+import uk.ac.shef.wit.simmetrics.tokenisers.TokeniserQGram3;
+import uk.ac.shef.wit.simmetrics.tokenisers.TokeniserWordQGram;
 
 public class DiceSimilarityTest extends InterfaceStringMetricTest {
 
@@ -84,5 +93,21 @@ public class DiceSimilarityTest extends InterfaceStringMetricTest {
 				new T(0.0000f, "Web Aplications","How to Find a Scholarship Online"),
 		};
 	}
-}
 
+	@Test
+	public void testQGramCodesMatchTokens() {
+		// a caching tokenizer hides the codes of the tokenizer it wraps
+		final DiceSimilarity codes = new DiceSimilarity(new TokeniserWordQGram(
+				new TokeniserQGram3()));
+		final DiceSimilarity tokens = new DiceSimilarity(new CachingTokenizer(
+				new TokeniserWordQGram(new TokeniserQGram3())));
+		final Random random = new Random(3);
+		for (int i = 0; i < 200; i++) {
+			final String string1 = randomWords(random, random.nextInt(40));
+			final String string2 = mutate(random, string1);
+			assertEquals(string1 + " vs " + string2,
+					tokens.getSimilarity(string1, string2),
+					codes.getSimilarity(string1, string2), 0.0f);
+		}
+	}
+}
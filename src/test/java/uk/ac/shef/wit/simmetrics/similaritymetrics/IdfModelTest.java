@@ -0,0 +1,126 @@
+package uk.ac.shef.wit.simmetrics.similaritymetrics;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+public class IdfModelTest {
+
+	private static final String[] DOCUMENTS = { "Web Database Applications",
+			"Web Application Development With PHP",
+			"Building Database Applications on the Web Using PHP3",
+			"How to Find a Scholarship Online", "Web Web Web" };
+
+	private static IdfModel model(final int from, final int to) {
+		final IdfModel model = new IdfModel();
+		for (int i = from; i < to; i++) {
+			model.addDocument(DOCUMENTS[i]);
+		}
+		return model;
+	}
+
+	@Test
+	public void testAddDocumentCountsEachTokenOnce() {
+		final IdfModel model = model(0, DOCUMENTS.length);
+		assertEquals(5, model.getDocumentCount());
+		assertEquals(4, model.getDocumentFrequency("Web"));
+		assertEquals(2, model.getDocumentFrequency("Database"));
+		assertEquals(0, model.getDocumentFrequency("MySQL"));
+	}
+
+	@Test
+	public void testGetIdf() {
+		final IdfModel model = model(0, DOCUMENTS.length);
+		assertEquals((float) Math.log(5.0f / 4.0f + 1.0f), model.getIdf("Web"),
+				0.0f);
+		// unseen tokens are weighted as tokens seen once
+		assertEquals(model.getIdf("Online"), model.getIdf("MySQL"), 0.0f);
+		assertEquals(0.0f, new IdfModel().getIdf("Web"), 0.0f);
+	}
+
+	@Test
+	public void testMerge() {
+		final IdfModel merged = model(0, 2);
+		merged.merge(model(2, DOCUMENTS.length));
+		assertSameModel(model(0, DOCUMENTS.length), merged);
+	}
+
+	@Test
+	public void testSaveAndLoad() throws IOException {
+		final File file = File.createTempFile("idf", ".bin");
+		try {
+			final IdfModel model = model(0, 3);
+			model.save(file);
+			IdfModel loaded = IdfModel.load(file);
+			assertSameModel(model, loaded);
+
+			// a loaded model keeps growing and, where mapped files may be
+			// replaced, can replace its own file
+			for (int i = 3; i < DOCUMENTS.length; i++) {
+				loaded.addDocument(DOCUMENTS[i]);
+			}
+			loaded.save(file);
+			assertSameModel(model(0, DOCUMENTS.length), IdfModel.load(file));
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testSaveAndLoadEmptyModel() throws IOException {
+		final File file = File.createTempFile("idf", ".bin");
+		try {
+			new IdfModel().save(file);
+			final IdfModel loaded = IdfModel.load(file);
+			assertEquals(0, loaded.getDocumentCount());
+			assertEquals(0, loaded.getDocumentFrequency("Web"));
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testLoadRejectsOtherFiles() throws IOException {
+		final File file = File.createTempFile("idf", ".bin");
+		try {
+			final FileOutputStream out = new FileOutputStream(file);
+			try {
+				out.write("not an IDF model at all".getBytes("UTF-8"));
+			} finally {
+				out.close();
+			}
+			IdfModel.load(file);
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testTagLinkWithModel() {
+		final TagLink fromDataSet = new TagLink(DOCUMENTS, new TagLinkToken());
+		final TagLink fromModel = new TagLink(model(0, DOCUMENTS.length));
+		for (String first : DOCUMENTS) {
+			for (String second : DOCUMENTS) {
+				assertEquals(fromDataSet.getSimilarity(first, second),
+						fromModel.getSimilarity(first, second), 0.0f);
+			}
+		}
+	}
+
+	private static void assertSameModel(final IdfModel expected,
+			final IdfModel actual) {
+		assertEquals(expected.getDocumentCount(), actual.getDocumentCount());
+		for (String document : DOCUMENTS) {
+			for (String token : document.split(" ")) {
+				assertEquals(token, expected.getDocumentFrequency(token),
+						actual.getDocumentFrequency(token));
+				assertEquals(token, expected.getIdf(token),
+						actual.getIdf(token), 0.0f);
+			}
+		}
+	}
+}
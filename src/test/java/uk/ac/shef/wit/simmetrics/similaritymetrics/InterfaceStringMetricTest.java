@@ -2,6 +2,15 @@ package uk.ac.shef.wit.simmetrics.similaritymetrics;
 
 import static org.junit.Assert.*;
 
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import org.junit.Before;
 import org.junit.Test;
 
@@ -54,6 +63,174 @@ public abstract class InterfaceStringMetricTest {
 		}
 	}
 	
+	@Test
+	public void testGetSimilarityWithMinimum() {
+		for (T t : getTests()) {
+			assertBoundedSimilarity(metric, t.string1, t.string2);
+		}
+	}
+
+	@Test
+	public void testGetSimilarityWithMinimumOnRandomStrings() {
+		final Random random = new Random(42);
+		for (int i = 0; i < 200; i++) {
+			final String string1 = randomWords(random, random.nextInt(40));
+			final String string2 = mutate(random, string1);
+			assertBoundedSimilarity(metric, string1, string2);
+		}
+	}
+
+	@Test
+	public void testGetSimilarityOfPreparedStrings() {
+		if (!(metric instanceof AbstractStringMetric)) {
+			return;
+		}
+		final AbstractStringMetric abstractMetric = (AbstractStringMetric) metric;
+		final Random random = new Random(42);
+		for (int i = 0; i < 100; i++) {
+			final String string1 = randomWords(random, random.nextInt(40));
+			final String string2 = mutate(random, string1);
+			final PreparedString prepared1 = new PreparedString(string1);
+			final PreparedString prepared2 = new PreparedString(string2);
+			final float expected = metric.getSimilarity(string1, string2);
+			// compare twice so the second comparison reuses what the first
+			// derived
+			for (int j = 0; j < 2; j++) {
+				assertEquals(string1 + " vs " + string2, expected,
+						abstractMetric.getSimilarity(prepared1, prepared2),
+						0.0f);
+			}
+		}
+	}
+
+	@Test
+	public void testGetSimilarityOfCharSequences() {
+		final Random random = new Random(42);
+		final List<String[]> pairs = new ArrayList<String[]>();
+		for (T t : getTests()) {
+			pairs.add(new String[] { t.string1, t.string2 });
+		}
+		for (int i = 0; i < 100; i++) {
+			final String string1 = randomWords(random, random.nextInt(40));
+			pairs.add(new String[] { string1, mutate(random, string1) });
+		}
+		for (String[] pair : pairs) {
+			final String message = pair[0] + " vs " + pair[1];
+			final float expected = metric.getSimilarity(pair[0], pair[1]);
+			assertEquals(message, expected, metric.getSimilarity(
+					CharBuffer.wrap(pair[0]), new StringBuilder(pair[1])),
+					0.0f);
+			final char[] chars1 = ("<" + pair[0] + ">").toCharArray();
+			final char[] chars2 = ("<<" + pair[1]).toCharArray();
+			assertEquals(message, expected, metric.getSimilarity(chars1, 1,
+					pair[0].length(), chars2, 2, pair[1].length()), 0.0f);
+			final float minimum = random.nextFloat();
+			assertEquals(message,
+					metric.getSimilarity(pair[0], pair[1], minimum),
+					metric.getSimilarity(CharBuffer.wrap(pair[0]),
+							CharBuffer.wrap(pair[1]), minimum), 0.0f);
+		}
+	}
+
+	@Test
+	public void testIsThreadSafe() {
+		assertTrue(metric.isThreadSafe());
+	}
+
+	@Test
+	public void testConcurrentGetSimilarity() throws Exception {
+		final T[] tests = getTests();
+		final float[] expected = new float[tests.length];
+		for (int i = 0; i < tests.length; i++) {
+			expected[i] = metric.getSimilarity(tests[i].string1,
+					tests[i].string2);
+		}
+		final ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			final List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+			for (int w = 0; w < 4; w++) {
+				final int offset = w;
+				futures.add(executor.submit(new Callable<Integer>() {
+					public Integer call() {
+						// each thread starts at a different pair
+						int mismatches = 0;
+						for (int r = 0; r < 50 * tests.length; r++) {
+							final int i = (r + offset) % tests.length;
+							if (metric.getSimilarity(tests[i].string1,
+									tests[i].string2) != expected[i]) {
+								mismatches++;
+							}
+						}
+						return mismatches;
+					}
+				}));
+			}
+			for (Future<Integer> future : futures) {
+				assertEquals(0, future.get().intValue());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Asserts the bounded similarity equals the similarity when it is reached
+	 * and is zero otherwise, for minimums around the actual similarity.
+	 */
+	protected static void assertBoundedSimilarity(InterfaceStringMetric metric,
+			String string1, String string2) {
+		final float similarity = metric.getSimilarity(string1, string2);
+		final float[] minimums = { 0.0f, similarity - 0.1f,
+				similarity - 1e-6f, similarity, similarity + 1e-6f,
+				similarity + 0.1f, 1.0f };
+		for (float minimum : minimums) {
+			final float expected = similarity < minimum ? 0.0f : similarity;
+			final String message = String.format(
+					"\"%s\" vs \"%s\" with minimum %s", string1, string2,
+					minimum);
+			assertEquals(message, expected,
+					metric.getSimilarity(string1, string2, minimum), 0.0f);
+		}
+	}
+
+	/**
+	 * Returns a random string of words drawn from a small alphabet.
+	 */
+	protected static String randomWords(Random random, int length) {
+		final String alphabet = "abcde ";
+		final char[] chars = new char[length];
+		for (int i = 0; i < length; i++) {
+			chars[i] = alphabet.charAt(random.nextInt(alphabet.length()));
+		}
+		return new String(chars);
+	}
+
+	/**
+	 * Returns a copy of the string with up to half its characters changed,
+	 * deleted or inserted.
+	 */
+	protected static String mutate(Random random, String string) {
+		final float rate = random.nextFloat() / 2;
+		final StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < string.length(); i++) {
+			if (random.nextFloat() >= rate) {
+				sb.append(string.charAt(i));
+				continue;
+			}
+			switch (random.nextInt(3)) {
+			case 0:
+				sb.append(randomWords(random, 1));
+				break;
+			case 1:
+				break;
+			default:
+				sb.append(string.charAt(i));
+				sb.append(randomWords(random, 1));
+			}
+		}
+		return sb.toString();
+	}
+
 	@Test
 	public void generateTest() {
 		for (T t : getTests()) {
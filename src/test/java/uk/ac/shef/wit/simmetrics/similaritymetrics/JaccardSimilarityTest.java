@@ -39,7 +39,14 @@
 
 package uk.ac.shef.wit.simmetrics.similaritymetrics;
 
+import static org.junit.Assert.assertEquals;
 
+import java.util.Random;
+
+import org.junit.Test;
+
+import uk.ac.shef.wit.simmetrics.tokenisers.CachingTokenizer;
+import uk.ac.shef.wit.simmetrics.tokenisers.TokeniserQGram2Extended;
 
 public class JaccardSimilarityTest extends InterfaceStringMetricTest {
 	@Override
@@ -86,5 +93,21 @@ public class JaccardSimilarityTest extends InterfaceStringMetricTest {
 
 		};
 	}
-}
 
+	@Test
+	public void testQGramCodesMatchTokens() {
+		// a caching tokenizer hides the codes of the tokenizer it wraps
+		final JaccardSimilarity codes = new JaccardSimilarity(
+				new TokeniserQGram2Extended());
+		final JaccardSimilarity tokens = new JaccardSimilarity(
+				new CachingTokenizer(new TokeniserQGram2Extended()));
+		final Random random = new Random(3);
+		for (int i = 0; i < 200; i++) {
+			final String string1 = randomWords(random, random.nextInt(40));
+			final String string2 = mutate(random, string1);
+			assertEquals(string1 + " vs " + string2,
+					tokens.getSimilarity(string1, string2),
+					codes.getSimilarity(string1, string2), 0.0f);
+		}
+	}
+}
@@ -39,8 +39,68 @@
 
 package uk.ac.shef.wit.simmetrics.similaritymetrics;
 
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
 public class LevenshteinTest extends InterfaceStringMetricTest {
 
+	/**
+	 * Full matrix implementation used as a reference for the optimised
+	 * implementation.
+	 */
+	private static int referenceDistance(String s, String t) {
+		final int[][] d = new int[s.length() + 1][t.length() + 1];
+		for (int i = 0; i <= s.length(); i++) {
+			d[i][0] = i;
+		}
+		for (int j = 0; j <= t.length(); j++) {
+			d[0][j] = j;
+		}
+		for (int i = 1; i <= s.length(); i++) {
+			for (int j = 1; j <= t.length(); j++) {
+				final int cost = s.charAt(i - 1) == t.charAt(j - 1) ? 0 : 1;
+				d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1),
+						d[i - 1][j - 1] + cost);
+			}
+		}
+		return d[s.length()][t.length()];
+	}
+
+	private static String randomString(Random random, int length) {
+		// include a character outside of latin-1
+		final String alphabet = "abc\u03b1";
+		final char[] chars = new char[length];
+		for (int i = 0; i < length; i++) {
+			chars[i] = alphabet.charAt(random.nextInt(alphabet.length()));
+		}
+		return new String(chars);
+	}
+
+	@Test
+	public void testGetUnNormalisedSimilarityMatchesReference() {
+		final Random random = new Random(1234);
+		final Levenshtein levenshtein = new Levenshtein();
+		for (int k = 0; k < 2000; k++) {
+			final String s = randomString(random, random.nextInt(300));
+			final String t = randomString(random, random.nextInt(300));
+			assertEquals(s + " vs " + t, referenceDistance(s, t),
+					levenshtein.getUnNormalisedSimilarity(s, t), 0.0f);
+		}
+	}
+
+	@Test
+	public void testGetSimilarityWithMinimumOnLongStrings() {
+		final Random random = new Random(4321);
+		final Levenshtein levenshtein = new Levenshtein();
+		for (int k = 0; k < 200; k++) {
+			final String s = randomString(random, random.nextInt(300));
+			assertBoundedSimilarity(levenshtein, s, mutate(random, s));
+		}
+	}
+
 
 	@Override
 	public InterfaceStringMetric getMetric() {
@@ -39,10 +39,38 @@
 
 package uk.ac.shef.wit.simmetrics.similaritymetrics;
 
+import static org.junit.Assert.assertEquals;
 
+import java.util.Random;
+
+import org.junit.Test;
 
 public class NeedlemanWunchTest extends InterfaceStringMetricTest {
 
+	@Test
+	public void testGetSimilarityOnLongStrings() {
+		// a full matrix would take 1.6 GB
+		final String s = SmithWatermanTest.alphabetRepeated(20000);
+		final NeedlemanWunch needlemanWunch = new NeedlemanWunch();
+		assertEquals(1.0f, needlemanWunch.getSimilarity(s, s), 0.0001f);
+		// filled by rows one way round and by columns the other
+		assertEquals(needlemanWunch.getSimilarity(s, s.substring(5000, 6000)),
+				needlemanWunch.getSimilarity(s.substring(5000, 6000), s), 0.0f);
+	}
+
+	@Test
+	public void testGetSimilarityWithMinimumOnLongStrings() {
+		final Random random = new Random(4321);
+		final NeedlemanWunch[] metrics = { new NeedlemanWunch(),
+				new NeedlemanWunch(0.5f), new NeedlemanWunch(1.5f) };
+		for (int k = 0; k < 100; k++) {
+			final String s = randomWords(random, random.nextInt(200));
+			for (NeedlemanWunch needlemanWunch : metrics) {
+				assertBoundedSimilarity(needlemanWunch, s, mutate(random, s));
+			}
+		}
+	}
+
 	@Override
 	public InterfaceStringMetric getMetric() {
 		return new NeedlemanWunch();
@@ -0,0 +1,95 @@
+package uk.ac.shef.wit.simmetrics.similaritymetrics;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.junit.Test;
+
+import uk.ac.shef.wit.simmetrics.simplifier.Simplifier;
+import uk.ac.shef.wit.simmetrics.tokenisers.InterfaceTokeniser;
+import uk.ac.shef.wit.simmetrics.tokenisers.TokeniserQGram2;
+import uk.ac.shef.wit.simmetrics.tokenisers.TokeniserWhitespace;
+
+public class PreparedStringTest {
+
+	@Test
+	public void testTokensAreDerivedOnce() {
+		final InterfaceTokeniser tokeniser = new TokeniserWhitespace();
+		final PreparedString prepared = new PreparedString("a b a c");
+		assertEquals(Arrays.asList("a", "b", "a", "c"),
+				prepared.getTokens(tokeniser));
+		assertSame(prepared.getTokens(tokeniser), prepared.getTokens(tokeniser));
+		assertEquals(new HashSet<String>(Arrays.asList("a", "b", "c")),
+				prepared.getTokenSet(tokeniser));
+		assertSame(prepared.getTokenSet(tokeniser),
+				prepared.getTokenSet(tokeniser));
+	}
+
+	@Test
+	public void testTokensPerTokeniser() {
+		final PreparedString prepared = new PreparedString("ab cd");
+		assertEquals(2, prepared.getTokens(new TokeniserWhitespace()).size());
+		assertEquals(Arrays.asList("ab", "b ", " c", "cd"),
+				prepared.getTokens(new TokeniserQGram2()));
+	}
+
+	@Test
+	public void testKeepsTokensOfFewTokenisers() {
+		final PreparedString prepared = new PreparedString("ab cd");
+		final InterfaceTokeniser first = new TokeniserWhitespace();
+		prepared.getTokens(first);
+		for (int i = 1; i < PreparedString.MAXDERIVED; i++) {
+			prepared.getTokens(new TokeniserWhitespace());
+		}
+		final InterfaceTokeniser last = new TokeniserWhitespace();
+		assertEquals(Arrays.asList("ab", "cd"), prepared.getTokens(last));
+		assertNotSame(prepared.getTokens(last), prepared.getTokens(last));
+		assertSame(prepared.getTokens(first), prepared.getTokens(first));
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testTokensCanNotBeModified() {
+		new PreparedString("a b").getTokens(new TokeniserWhitespace()).clear();
+	}
+
+	@Test
+	public void testSimplifiedOnce() {
+		final int[] calls = new int[1];
+		final Simplifier simplifier = new Simplifier() {
+			public String simplify(String input) {
+				calls[0]++;
+				return input.toUpperCase();
+			}
+		};
+		final PreparedString prepared = new PreparedString("Chapman");
+		assertEquals("CHAPMAN", prepared.getSimplified(simplifier));
+		assertEquals("CHAPMAN", prepared.getSimplified(simplifier));
+		assertEquals(1, calls[0]);
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void testNull() {
+		new PreparedString(null);
+	}
+
+	@Test
+	public void testPrepare() {
+		final PreparedString[] prepared = PreparedString
+				.prepare(new String[] { "a", "b" });
+		assertEquals(2, prepared.length);
+		assertEquals("b", prepared[1].getString());
+	}
+
+	@Test
+	public void testBatchCompareSet() {
+		final String[] set = { "Sam Chapman", "Samuel John Chapman", "" };
+		final AbstractStringMetric metric = new JaccardSimilarity();
+		final float[] results = metric.batchCompareSet(set, "Sam J Chapman");
+		for (int i = 0; i < set.length; i++) {
+			assertEquals(metric.getSimilarity(set[i], "Sam J Chapman"),
+					results[i], 0.0f);
+		}
+	}
+}
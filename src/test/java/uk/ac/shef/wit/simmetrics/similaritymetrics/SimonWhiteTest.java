@@ -1,5 +1,9 @@
 package uk.ac.shef.wit.simmetrics.similaritymetrics;
 
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
 public class SimonWhiteTest extends InterfaceStringMetricTest {
 
 	@Override
@@ -45,4 +49,17 @@ public class SimonWhiteTest extends InterfaceStringMetricTest {
 		};
 	}
 
+	@Test
+	public void testSubclassesCompareStrings() {
+		final SimonWhite caseless = new SimonWhite() {
+			@Override
+			public float getSimilarity(String string1, String string2) {
+				return super.getSimilarity(string1.toLowerCase(),
+						string2.toLowerCase());
+			}
+		};
+		assertEquals(1.0f, caseless.getSimilarity(new PreparedString("Healed"),
+				new PreparedString("HEALED")), 0.0f);
+	}
+
 }
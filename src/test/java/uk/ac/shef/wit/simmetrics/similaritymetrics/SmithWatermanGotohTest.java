@@ -39,8 +39,74 @@
 
 package uk.ac.shef.wit.simmetrics.similaritymetrics;
 
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import uk.ac.shef.wit.simmetrics.similaritymetrics.costfunctions.AbstractAffineGapCost;
+import uk.ac.shef.wit.simmetrics.similaritymetrics.costfunctions.AffineGap1_1Over3;
+import uk.ac.shef.wit.simmetrics.similaritymetrics.costfunctions.AffineGap5_1;
+import uk.ac.shef.wit.simmetrics.similaritymetrics.costfunctions.InterfaceAffineGapCost;
+import uk.ac.shef.wit.simmetrics.similaritymetrics.costfunctions.SubCost5_3_Minus3;
+
 public class SmithWatermanGotohTest extends InterfaceStringMetricTest {
 
+	@Test
+	public void testGotohMatchesWindowedRecurrence() {
+		final Random random = new Random(2468);
+		final AbstractAffineGapCost[] gapCosts = { new AffineGap5_1(),
+				new AffineGap1_1Over3() };
+		for (AbstractAffineGapCost gapCost : gapCosts) {
+			final SmithWatermanGotoh gotoh = new SmithWatermanGotoh(gapCost);
+			// hides the open and extend costs so every gap length is tried
+			final SmithWatermanGotohWindowedAffine windowed = new SmithWatermanGotohWindowedAffine(
+					opaque(gapCost), new SubCost5_3_Minus3(), Integer.MAX_VALUE);
+			for (int k = 0; k < 200; k++) {
+				final String s = randomWords(random, random.nextInt(30));
+				final String t = mutate(random, s);
+				assertEquals(s + " vs " + t, windowed.getSimilarity(s, t),
+						gotoh.getSimilarity(s, t), 0.00001f);
+			}
+		}
+	}
+
+	@Test
+	public void testGetSimilarityOnLongStrings() {
+		// the windowed recurrence would make some 10^12 gap cost calls
+		final String s = SmithWatermanTest.alphabetRepeated(10000);
+		final SmithWatermanGotoh smithWatermanGotoh = new SmithWatermanGotoh();
+		assertEquals(1.0f, smithWatermanGotoh.getSimilarity(s, s), 0.0001f);
+		assertEquals(1.0f, smithWatermanGotoh.getSimilarity(s,
+				s.substring(2000, 3000)), 0.0001f);
+	}
+
+	private static InterfaceAffineGapCost opaque(
+			final InterfaceAffineGapCost gapCost) {
+		return new InterfaceAffineGapCost() {
+
+			@Deprecated
+			public String getShortDescriptionString() {
+				return gapCost.getShortDescriptionString();
+			}
+
+			public float getCost(String stringToGap, int stringIndexStartGap,
+					int stringIndexEndGap) {
+				return gapCost.getCost(stringToGap, stringIndexStartGap,
+						stringIndexEndGap);
+			}
+
+			public float getMaxCost() {
+				return gapCost.getMaxCost();
+			}
+
+			public float getMinCost() {
+				return gapCost.getMinCost();
+			}
+		};
+	}
+
 	@Override
 	public InterfaceStringMetric getMetric() {
 		return new SmithWatermanGotoh();
@@ -39,9 +39,32 @@
 
 package uk.ac.shef.wit.simmetrics.similaritymetrics;
 
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
 
 public class SmithWatermanTest extends InterfaceStringMetricTest {
 
+	@Test
+	public void testGetSimilarityOnLongStrings() {
+		// a full matrix would take 1.6 GB
+		final String s = alphabetRepeated(20000);
+		final SmithWaterman smithWaterman = new SmithWaterman();
+		assertEquals(1.0f, smithWaterman.getSimilarity(s, s), 0.0001f);
+		assertEquals(1.0f, smithWaterman.getSimilarity(s,
+				s.substring(5000, 6000)), 0.0001f);
+		assertEquals(1.0f, smithWaterman.getSimilarity(s.substring(5000,
+				6000), s), 0.0001f);
+	}
+
+	static String alphabetRepeated(final int length) {
+		final StringBuilder builder = new StringBuilder(length);
+		for (int i = 0; i < length; i++) {
+			builder.append((char) ('a' + i % 26));
+		}
+		return builder.toString();
+	}
+
 	@Override
 	public InterfaceStringMetric getMetric() {
 		return new SmithWaterman();
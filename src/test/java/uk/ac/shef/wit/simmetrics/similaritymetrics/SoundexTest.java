@@ -39,9 +39,100 @@
 
 package uk.ac.shef.wit.simmetrics.similaritymetrics;
 
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
 
 public class SoundexTest extends InterfaceStringMetricTest {
 
+	/**
+	 * The regular expression implementation used as a reference for the table
+	 * driven one.
+	 */
+	private static String referenceSoundex(String wordString) {
+		if (wordString.length() == 0) {
+			return "";
+		}
+		String wordStr = wordString.replaceAll("[^a-zA-Z]", " ");
+		wordStr = wordStr.replaceAll("\\s+", "");
+		if (wordStr.isEmpty()) {
+			return "";
+		}
+		final char firstLetter = wordStr.charAt(0);
+		if (wordStr.length() > (6 * 4) + 1) {
+			wordStr = "-" + wordStr.substring(1, 6 * 4);
+		} else {
+			wordStr = "-" + wordStr.substring(1);
+		}
+		wordStr = wordStr.replaceAll("[AaEeIiOoUuWwHh]", "0");
+		wordStr = wordStr.replaceAll("[BbPpFfVv]", "1");
+		wordStr = wordStr.replaceAll("[CcSsKkGgJjQqXxZz]", "2");
+		wordStr = wordStr.replaceAll("[DdTt]", "3");
+		wordStr = wordStr.replaceAll("[Ll]", "4");
+		wordStr = wordStr.replaceAll("[MmNn]", "5");
+		wordStr = wordStr.replaceAll("[Rr]", "6");
+		int wsLen = wordStr.length();
+		char lastChar = '-';
+		String tmpStr = "-";
+		for (int i = 1; i < wsLen; i++) {
+			char curChar = wordStr.charAt(i);
+			if (curChar != lastChar) {
+				tmpStr += curChar;
+				lastChar = curChar;
+			}
+		}
+		wordStr = tmpStr;
+		wordStr = wordStr.substring(1);
+		wordStr = wordStr.replaceAll("0", "");
+		wordStr += "000000000000000000";
+		wordStr = firstLetter + "-" + wordStr;
+		wordStr = wordStr.substring(0, 6);
+		return (wordStr);
+	}
+
+	@Test
+	public void testSimplifyMatchesReference() {
+		final Soundex.SoundexSimplifier simplifier = new Soundex.SoundexSimplifier(
+				6);
+		// mostly vowels and Ys so the codes fill up late
+		final String alphabet = "aeiouyhwAEYbBdlmr 1-\u00e9";
+		final Random random = new Random(1234);
+		for (int k = 0; k < 20000; k++) {
+			final char[] chars = new char[random.nextInt(40)];
+			for (int i = 0; i < chars.length; i++) {
+				chars[i] = random.nextInt(8) == 0 ? (char) random.nextInt(128)
+						: alphabet.charAt(random.nextInt(alphabet.length()));
+			}
+			final String word = new String(chars);
+			assertEquals(word, referenceSoundex(word), simplifier.simplify(word));
+		}
+		// the 25th letter is only coded if it is the last
+		final String vowels = "Aeeeeeeeeeeeeeeeeeeeeeee";
+		for (String word : new String[] { vowels + "b", vowels + "be",
+				vowels + "b-e", vowels + "eb", vowels + "bd" }) {
+			assertEquals(word, referenceSoundex(word), simplifier.simplify(word));
+		}
+		for (T t : getTests()) {
+			assertEquals(referenceSoundex(t.string1),
+					simplifier.simplify(t.string1));
+			assertEquals(referenceSoundex(t.string2),
+					simplifier.simplify(t.string2));
+		}
+	}
+
+	@Test
+	public void testCachedCodes() {
+		final Soundex cached = new Soundex(new JaroWinkler(), 100);
+		for (T t : getTests()) {
+			for (int i = 0; i < 2; i++) {
+				assertEquals(metric.getSimilarity(t.string1, t.string2),
+						cached.getSimilarity(t.string1, t.string2), 0.0f);
+			}
+		}
+	}
+
 
 	@Override
 	public InterfaceStringMetric getMetric() {
@@ -39,7 +39,9 @@
 
 package uk.ac.shef.wit.simmetrics.similaritymetrics;
 
+import static org.junit.Assert.*;
 
+import org.junit.Test;
 
 public class TagLinkTest extends InterfaceStringMetricTest {
 
@@ -85,5 +87,35 @@ public class TagLinkTest extends InterfaceStringMetricTest {
 				new T(0.0587f, "Web Aplications", "How to Find a Scholarship Online"),
 		};
 	}
+
+	@Test
+	public void testOtherCharacterBasedMetric() {
+		final TagLink tagLink = new TagLink(new Levenshtein());
+		assertTrue(tagLink.isThreadSafe());
+		final float similarity = tagLink.getSimilarity("Sam J Chapman",
+				"Samuel John Chapman");
+		assertTrue(0.0f < similarity && similarity <= 1.0f);
+	}
+
+	@Test
+	public void testUnseenTokens() {
+		final TagLink tagLink = new TagLink(new String[] { "Sam Chapman",
+				"John Smith" }, new TagLinkToken());
+		final float similarity = tagLink.getSimilarity("Sam J Chapman",
+				"Samuel John Chapman");
+		assertTrue(0.0f < similarity && similarity <= 1.0f);
+		assertEquals(1.0f, tagLink.getSimilarity("Samuel Chapman",
+				"Chapman Samuel"), 0.0001f);
+	}
+
+	@Test
+	public void testIsNotThreadSafeWithMetricThatIsNot() {
+		final TagLink tagLink = new TagLink(new AbstractStringMetric() {
+			public float getSimilarity(String string1, String string2) {
+				return 0.0f;
+			}
+		});
+		assertFalse(tagLink.isThreadSafe());
+	}
 }
 
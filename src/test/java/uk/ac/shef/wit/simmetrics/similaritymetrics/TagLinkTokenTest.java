@@ -39,6 +39,10 @@
 
 package uk.ac.shef.wit.simmetrics.similaritymetrics;
 
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
 public class TagLinkTokenTest extends InterfaceStringMetricTest {
 
 	@Override
@@ -85,5 +89,41 @@ public class TagLinkTokenTest extends InterfaceStringMetricTest {
 		};
 	}
 
+	@Test
+	public void testGetTokenSimilarity() {
+		final TagLinkToken tagLinkToken = new TagLinkToken();
+		for (T t : getTests()) {
+			final TagLinkToken.Result result = tagLinkToken
+					.getTokenSimilarity(t.string1, t.string2);
+			assertEquals(tagLinkToken.getSimilarity(t.string1, t.string2),
+					result.getSimilarity(), 0.0f);
+			assertEquals(tagLinkToken.getMatched(), result.getMatched(), 0.0f);
+		}
+		assertEquals(6.0f, tagLinkToken.getTokenSimilarity("Healed", "Healed")
+				.getMatched(), 0.0f);
+	}
+
+	@Test
+	public void testSplitWord() {
+		final TagLinkToken tagLinkToken = new TagLinkToken();
+		final TagLinkToken.Result result = tagLinkToken.getTokenSimilarity(
+				"database", "databaseapplications");
+		assertTrue(result.splitWord());
+		assertEquals("database", result.getSa());
+		assertEquals("applications", result.getSb());
+
+		final float score = tagLinkToken.getSimilarity("database",
+				"databaseapplications");
+		assertTrue(tagLinkToken.splitWord(score));
+		assertEquals("database", tagLinkToken.getSa());
+		assertEquals("applications", tagLinkToken.getSb());
+
+		final TagLinkToken.Result unsplit = tagLinkToken.getTokenSimilarity(
+				"Healed", "Sealed");
+		assertFalse(unsplit.splitWord());
+		assertNull(unsplit.getSa());
+		assertNull(unsplit.getSb());
+	}
+
 }
 
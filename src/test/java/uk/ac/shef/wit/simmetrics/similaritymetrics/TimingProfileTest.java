@@ -0,0 +1,110 @@
+package uk.ac.shef.wit.simmetrics.similaritymetrics;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Test;
+
+import uk.ac.shef.wit.simmetrics.tokenisers.TokeniserQGram3;
+import uk.ac.shef.wit.simmetrics.tokenisers.TokeniserWhitespace;
+
+public class TimingProfileTest {
+
+	@After
+	public void tearDown() {
+		TimingProfile.setDefault(new TimingProfile());
+	}
+
+	@Test
+	public void testScalesEstimates() {
+		final Levenshtein levenshtein = new Levenshtein();
+		final float estimate = levenshtein.getSimilarityTimingEstimated(
+				"Healed", "Sealed");
+		final TimingProfile profile = new TimingProfile();
+		profile.setScale(Levenshtein.class, 0.5f);
+		TimingProfile.setDefault(profile);
+		assertEquals(estimate * 0.5f, levenshtein.getSimilarityTimingEstimated(
+				"Healed", "Sealed"), 0.0f);
+		// other metrics are not scaled
+		assertEquals(1.0f, profile.getScale(JaroWinkler.class), 0.0f);
+	}
+
+	@Test
+	public void testStoreAndLoad() throws IOException {
+		final TimingProfile profile = new TimingProfile();
+		profile.setScale(Levenshtein.class, 0.25f);
+		profile.setScale(MongeElkan.class, 0.125f);
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		profile.store(out);
+		final TimingProfile loaded = TimingProfile
+				.load(new ByteArrayInputStream(out.toByteArray()));
+		assertEquals(0.25f, loaded.getScale(Levenshtein.class), 0.0f);
+		assertEquals(0.125f, loaded.getScale(MongeElkan.class), 0.0f);
+	}
+
+	@Test(expected = IOException.class)
+	public void testLoadRejectsInvalidScales() throws IOException {
+		TimingProfile.load(new ByteArrayInputStream(
+				"uk.ac.shef.wit.simmetrics.similaritymetrics.Levenshtein=-1"
+						.getBytes("ISO-8859-1")));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRejectsZeroScale() {
+		new TimingProfile().setScale(Levenshtein.class, 0.0f);
+	}
+
+	@Test
+	public void testCalibrate() {
+		final TimingProfile profile = new TimingProfile();
+		final float scale = profile.calibrate(new Levenshtein());
+		assertTrue(scale > 0.0f);
+		assertEquals(scale, profile.getScale(Levenshtein.class), 0.0f);
+
+		// metrics without a cost model are left as they are
+		assertEquals(1.0f, profile.calibrate(new ChapmanLengthDeviation()),
+				0.0f);
+	}
+
+	@Test
+	public void testCalibrateWrappingMetrics() {
+		final JaroWinkler jaroWinkler = new JaroWinkler();
+		final Soundex soundex = new Soundex(jaroWinkler);
+		final TimingProfile profile = new TimingProfile();
+		final float jaroWinklerScale = profile.calibrate(jaroWinkler);
+		TimingProfile.setDefault(profile);
+
+		// only the part of the estimate spent coding is scaled
+		final float wrapped = soundex.getWrappedTimingEstimated("Healed",
+				"Sealed");
+		assertEquals(jaroWinkler.getSimilarityTimingEstimated("abcdef",
+				"abcdef"), wrapped, 0.0f);
+		final float own = soundex.getSimilarityTimingEstimated("Healed",
+				"Sealed") - wrapped;
+		final float scale = profile.calibrate(soundex);
+		assertEquals(own * scale + wrapped, soundex
+				.getSimilarityTimingEstimated("Healed", "Sealed"), 1e-6f);
+		assertEquals(jaroWinklerScale, profile.getScale(JaroWinkler.class),
+				0.0f);
+
+		// a caching metric has no scale of its own
+		final CachingMetric caching = new CachingMetric.Builder()
+				.maximumSize(10).build(jaroWinkler);
+		assertEquals(1.0f, profile.calibrate(caching), 0.0f);
+		assertFalse(profile.toString().contains(CachingMetric.class.getName()));
+	}
+
+	@Test
+	public void testEstimateTokenCount() {
+		assertEquals(8.0f, AbstractStringMetric.estimateTokenCount(
+				new TokeniserQGram3(), 10), 0.0f);
+		assertEquals(2.0f, AbstractStringMetric.estimateTokenCount(
+				new TokeniserWhitespace(), 12), 0.0f);
+		assertEquals(0.0f, AbstractStringMetric.estimateTokenCount(
+				new TokeniserWhitespace(), 0), 0.0f);
+	}
+}
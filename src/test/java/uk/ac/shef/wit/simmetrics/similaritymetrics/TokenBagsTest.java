@@ -0,0 +1,122 @@
+package uk.ac.shef.wit.simmetrics.similaritymetrics;
+
+import static org.junit.Assert.*;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import uk.ac.shef.wit.simmetrics.tokenisers.InterfaceTokeniser;
+import uk.ac.shef.wit.simmetrics.tokenisers.TokenDictionary;
+import uk.ac.shef.wit.simmetrics.tokenisers.TokeniserQGram3Extended;
+import uk.ac.shef.wit.simmetrics.tokenisers.TokeniserWhitespace;
+
+public class TokenBagsTest {
+
+	private static final int[] BAG1 = { 0, 0, 1, 3, 3, 3, 5 };
+
+	private static final int[] BAG2 = { 0, 1, 1, 3, 4 };
+
+	@Test
+	public void testCommon() {
+		assertEquals(3, TokenBags.common(BAG1, BAG2));
+		assertEquals(0, TokenBags.common(BAG1, new int[0]));
+	}
+
+	@Test
+	public void testDifference() {
+		// 0: 2-1, 1: 1-2, 3: 3-1, 4: 0-1, 5: 1-0
+		assertEquals(1 + 1 + 2 + 1 + 1, TokenBags.difference(BAG1, BAG2));
+	}
+
+	@Test
+	public void testSquaredDifference() {
+		assertEquals(1 + 1 + 4 + 1 + 1, TokenBags.squaredDifference(BAG1, BAG2));
+		assertEquals(0, TokenBags.squaredDifference(new int[0], new int[0]));
+	}
+
+	@Test
+	public void testFound() {
+		// 0 twice, 1 and 3 three times
+		assertEquals(6, TokenBags.found(BAG1, BAG2));
+		assertEquals(4, TokenBags.found(BAG2, BAG1));
+	}
+
+	@Test
+	public void testCountDifferencesInHashSetOrder() {
+		final InterfaceTokeniser tokeniser = new TokeniserQGram3Extended();
+		final Random random = new Random(11);
+		for (int i = 0; i < 50; i++) {
+			final String string1 = InterfaceStringMetricTest.randomWords(
+					random, random.nextInt(400));
+			final List<String> tokens1 = tokeniser.tokenizeToArrayList(string1);
+			final List<String> tokens2 = tokeniser
+					.tokenizeToArrayList(InterfaceStringMetricTest.mutate(
+							random, string1));
+			final Set<String> allTokens = new HashSet<String>();
+			allTokens.addAll(tokens1);
+			allTokens.addAll(tokens2);
+			final int[] expected = new int[allTokens.size()];
+			int j = 0;
+			for (String token : allTokens) {
+				expected[j++] = Collections.frequency(tokens1, token)
+						- Collections.frequency(tokens2, token);
+			}
+			assertArrayEquals(expected,
+					TokenBags.countDifferences(tokens1, tokens2));
+		}
+	}
+
+	@Test
+	public void testMetricsGiveTheSameResultsWithADictionary() {
+		final InterfaceTokeniser words = new TokeniserWhitespace();
+		final InterfaceTokeniser qGrams = new TokeniserQGram3Extended();
+		final TokenDictionary dictionary = new TokenDictionary();
+		final AbstractStringMetric[][] metrics = {
+				{ new BlockDistance(words),
+						new BlockDistance(words, dictionary) },
+				{ new CosineSimilarity(words),
+						new CosineSimilarity(words, dictionary) },
+				{ new DiceSimilarity(words),
+						new DiceSimilarity(words, dictionary) },
+				{ new EuclideanDistance(words),
+						new EuclideanDistance(words, dictionary) },
+				{ new JaccardSimilarity(words),
+						new JaccardSimilarity(words, dictionary) },
+				{ new MatchingCoefficient(words),
+						new MatchingCoefficient(words, dictionary) },
+				{ new OverlapCoefficient(words),
+						new OverlapCoefficient(words, dictionary) },
+				{ new QGramsDistance(qGrams),
+						new QGramsDistance(qGrams, dictionary) } };
+		final Random random = new Random(7);
+		for (int i = 0; i < 200; i++) {
+			final String string1 = InterfaceStringMetricTest.randomWords(
+					random, random.nextInt(40));
+			final String string2 = InterfaceStringMetricTest.mutate(random,
+					string1);
+			final PreparedString prepared1 = new PreparedString(string1);
+			final PreparedString prepared2 = new PreparedString(string2);
+			final float minimum = random.nextFloat();
+			for (AbstractStringMetric[] pair : metrics) {
+				final String message = pair[0] + ": " + string1 + " vs "
+						+ string2;
+				assertEquals(message, pair[0].getSimilarity(string1, string2),
+						pair[1].getSimilarity(string1, string2), 0.0f);
+				assertEquals(message,
+						pair[0].getSimilarity(string1, string2, minimum),
+						pair[1].getSimilarity(string1, string2, minimum), 0.0f);
+				assertEquals(message, pair[0].getSimilarity(string1, string2),
+						pair[1].getSimilarity(prepared1, prepared2), 0.0f);
+				assertEquals(message,
+						pair[0].getUnNormalisedSimilarity(string1, string2),
+						pair[1].getUnNormalisedSimilarity(string1, string2),
+						0.0f);
+			}
+		}
+	}
+}
@@ -0,0 +1,53 @@
+package uk.ac.shef.wit.simmetrics.similaritymetrics.costfunctions;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class SubstitutionCostTableTest {
+
+	private final AbstractCharacterSubstitutionCost[] costs = {
+			new SubCost01(), new SubCost1_Minus2(), new SubCost5_3_Minus3() };
+
+	@Test
+	public void testGetCost() {
+		// Latin-1 from the table, the rest from the cost function
+		final String chars = "aAeEdtDT,.x éÿĀα€";
+		for (AbstractCharacterSubstitutionCost cost : costs) {
+			final SubstitutionCostTable table = cost.getCostTable();
+			for (int i = 0; i < chars.length(); i++) {
+				for (int j = 0; j < chars.length(); j++) {
+					assertEquals(cost.getCost(chars, i, chars, j),
+							table.getCost(chars.charAt(i), chars.charAt(j)),
+							0.0f);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testCostTableIsShared() {
+		assertSame(new SubCost5_3_Minus3().getCostTable(),
+				new SubCost5_3_Minus3().getCostTable());
+	}
+
+	@Test
+	public void testOf() {
+		assertSame(costs[0].getCostTable(), SubstitutionCostTable.of(costs[0]));
+		assertNull(SubstitutionCostTable.of(new AbstractSubstitutionCost() {
+
+			public float getCost(String str1, int string1Index, String str2,
+					int string2Index) {
+				return string1Index == string2Index ? 1.0f : 0.0f;
+			}
+
+			public float getMaxCost() {
+				return 1.0f;
+			}
+
+			public float getMinCost() {
+				return 0.0f;
+			}
+		}));
+	}
+}
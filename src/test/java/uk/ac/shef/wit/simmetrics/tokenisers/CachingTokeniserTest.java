@@ -39,6 +39,7 @@
 
 package uk.ac.shef.wit.simmetrics.tokenisers;
 
+import java.nio.CharBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -82,6 +83,23 @@ public class CachingTokeniserTest extends InterfaceTokeniserTest {
 			return s;
 		}
 
+		public ArrayList<String> tokenizeToArrayList(CharSequence input) {
+			return tokenizeToArrayList(input.toString());
+		}
+
+		public Set<String> tokenizeToSet(CharSequence input) {
+			return tokenizeToSet(input.toString());
+		}
+
+		public ArrayList<String> tokenizeToArrayList(char[] input,
+				int offset, int length) {
+			return tokenizeToArrayList(CharBuffer.wrap(input, offset, length));
+		}
+
+		public Set<String> tokenizeToSet(char[] input, int offset, int length) {
+			return tokenizeToSet(CharBuffer.wrap(input, offset, length));
+		}
+
 		public void setStopWordHandler(InterfaceTermHandler stopWordHandler) {
 
 		}
@@ -2,6 +2,7 @@ package uk.ac.shef.wit.simmetrics.tokenisers;
 
 import static org.junit.Assert.*;
 
+import java.nio.CharBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
@@ -74,4 +75,48 @@ public abstract class InterfaceTokeniserTest {
 		}
 	}
 
+	@Test
+	public void testTokenizeToCodes() {
+		if (!(tokenizer instanceof InterfaceQGramCoder)
+				|| !((InterfaceQGramCoder) tokenizer).hasExactCodes()) {
+			return;
+		}
+		final InterfaceQGramCoder coder = (InterfaceQGramCoder) tokenizer;
+		for (T t : getTests()) {
+			// the characters of a token packed into a long
+			final ArrayList<String> tokens = tokenizer
+					.tokenizeToArrayList(t.string);
+			final long[] expected = new long[tokens.size()];
+			for (int i = 0; i < expected.length; i++) {
+				for (char c : tokens.get(i).toCharArray()) {
+					expected[i] = (expected[i] << Character.SIZE) | c;
+				}
+			}
+			Arrays.sort(expected);
+
+			final long[] codes = new long[coder.getMaximumCodeCount(t.string
+					.length())];
+			final long[] actual = new long[coder.tokenizeToCodes(t.string,
+					codes)];
+			System.arraycopy(codes, 0, actual, 0, actual.length);
+			Arrays.sort(actual);
+			assertArrayEquals(t.string, expected, actual);
+		}
+	}
+
+	@Test
+	public void testTokenizeCharSequence() {
+		for (T t : getTests()) {
+			final char[] chars = ("<" + t.string + ">").toCharArray();
+			assertEquals(tokenizer.tokenizeToArrayList(t.string),
+					tokenizer.tokenizeToArrayList(CharBuffer.wrap(t.string)));
+			assertEquals(tokenizer.tokenizeToArrayList(t.string),
+					tokenizer.tokenizeToArrayList(chars, 1, t.string.length()));
+			assertEquals(tokenizer.tokenizeToSet(t.string),
+					tokenizer.tokenizeToSet(new StringBuilder(t.string)));
+			assertEquals(tokenizer.tokenizeToSet(t.string),
+					tokenizer.tokenizeToSet(chars, 1, t.string.length()));
+		}
+	}
+
 }
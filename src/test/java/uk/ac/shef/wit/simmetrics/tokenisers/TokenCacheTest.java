@@ -0,0 +1,62 @@
+package uk.ac.shef.wit.simmetrics.tokenisers;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+import uk.ac.shef.wit.simmetrics.wordhandlers.GenericStopTermHandler;
+
+public class TokenCacheTest {
+
+	@Test
+	public void testSharedCache() {
+		final TokenCache cache = new TokenCache.Builder().maximumSize(100)
+				.recordStats().build();
+		final InterfaceTokeniser tokenizer = new TokeniserWhitespace();
+		final CachingTokenizer first = new CachingTokenizer(tokenizer, cache);
+		final CachingTokenizer second = new CachingTokenizer(tokenizer, cache);
+
+		final ArrayList<String> tokens = first.tokenizeToArrayList("a b c");
+		assertSame(tokens, second.tokenizeToArrayList("a b c"));
+		assertEquals(1, cache.getStats().missCount());
+		assertEquals(1, cache.getStats().hitCount());
+
+		// other tokenizers keep their own tokens
+		final CachingTokenizer qGrams = new CachingTokenizer(
+				new TokeniserQGram2(), cache);
+		assertEquals(4, qGrams.tokenizeToArrayList("a b c").size());
+		assertEquals(2, cache.getStats().missCount());
+	}
+
+	@Test
+	public void testMaximumTokens() {
+		final TokenCache cache = new TokenCache.Builder().maximumTokens(4)
+				.recordStats().build();
+		final CachingTokenizer tokenizer = new CachingTokenizer(
+				new TokeniserWhitespace(), cache);
+		tokenizer.tokenizeToArrayList("a b c");
+		tokenizer.tokenizeToArrayList("d e f");
+		assertEquals(1, cache.size());
+		assertEquals(1, cache.getStats().evictionCount());
+	}
+
+	@Test
+	public void testSetStopWordHandlerInvalidates() {
+		final TokenCache cache = new TokenCache.Builder().maximumSize(100)
+				.build();
+		final CachingTokenizer tokenizer = new CachingTokenizer(
+				new TokeniserWhitespace(), cache);
+		assertEquals(3, tokenizer.tokenizeToArrayList("the cat sat").size());
+		final GenericStopTermHandler stopWords = new GenericStopTermHandler();
+		stopWords.addWord("the");
+		tokenizer.setStopWordHandler(stopWords);
+		assertEquals(2, tokenizer.tokenizeToArrayList("the cat sat").size());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testMaximumSizeAndTokens() {
+		new TokenCache.Builder().maximumSize(10).maximumTokens(10);
+	}
+}
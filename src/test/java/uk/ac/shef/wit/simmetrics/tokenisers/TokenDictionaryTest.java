@@ -0,0 +1,81 @@
+package uk.ac.shef.wit.simmetrics.tokenisers;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+public class TokenDictionaryTest {
+
+	@Test
+	public void testIdsAreDense() {
+		final TokenDictionary dictionary = new TokenDictionary();
+		assertEquals(0, dictionary.getId("b"));
+		assertEquals(1, dictionary.getId("a"));
+		assertEquals(0, dictionary.getId("b"));
+		assertEquals(2, dictionary.size());
+	}
+
+	@Test
+	public void testToBagAndSet() {
+		final TokenDictionary dictionary = new TokenDictionary();
+		final List<String> tokens = Arrays.asList("c", "a", "c", "b", "a");
+		// c=0, a=1, b=2
+		assertArrayEquals(new int[] { 0, 0, 1, 1, 2 }, dictionary.toBag(tokens));
+		assertArrayEquals(new int[] { 0, 1, 2 }, dictionary.toSet(tokens));
+		assertEquals(0,
+				dictionary.toBag(Collections.<String> emptyList()).length);
+	}
+
+	@Test
+	public void testDistinct() {
+		final int[] set = { 1, 2, 3 };
+		assertSame(set, TokenDictionary.distinct(set));
+		assertArrayEquals(new int[] { 1, 3 },
+				TokenDictionary.distinct(new int[] { 1, 1, 3, 3, 3 }));
+		assertEquals(0, TokenDictionary.distinct(new int[0]).length);
+	}
+
+	@Test
+	public void testConcurrentIdsAreDenseAndUnique() throws Exception {
+		final TokenDictionary dictionary = new TokenDictionary();
+		final ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			final List<Future<int[]>> futures = new ArrayList<Future<int[]>>();
+			for (int w = 0; w < 4; w++) {
+				futures.add(executor.submit(new Callable<int[]>() {
+					public int[] call() {
+						final int[] ids = new int[1000];
+						for (int i = 0; i < ids.length; i++) {
+							ids[i] = dictionary.getId("token" + i);
+						}
+						return ids;
+					}
+				}));
+			}
+			final int[] first = futures.get(0).get();
+			for (Future<int[]> future : futures) {
+				assertArrayEquals(first, future.get());
+			}
+			final Set<Integer> ids = new HashSet<Integer>();
+			for (int id : first) {
+				assertTrue(id >= 0 && id < 1000);
+				ids.add(id);
+			}
+			assertEquals(1000, ids.size());
+			assertEquals(1000, dictionary.size());
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
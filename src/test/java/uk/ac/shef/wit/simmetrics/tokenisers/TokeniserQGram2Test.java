@@ -39,6 +39,12 @@
 
 package uk.ac.shef.wit.simmetrics.tokenisers;
 
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+
+import org.junit.Test;
+
 public class TokeniserQGram2Test extends InterfaceTokeniserTest {
 
 	@Override
@@ -58,4 +64,19 @@ public class TokeniserQGram2Test extends InterfaceTokeniserTest {
 						"12", "23", "34", "45", "56", "67", "78", "89", "91",
 						"12", "23", "34", "45", "56", "67", "78", "89") };
 	}
+
+	@Test
+	public void testSubclassesHaveNoExactCodes() {
+		assertTrue(new TokeniserQGram2().hasExactCodes());
+		final TokeniserQGram lowerCase = new TokeniserQGram(2) {
+			@Override
+			public ArrayList<String> tokenizeToArrayList(
+					final CharSequence input) {
+				return super.tokenizeToArrayList(input.toString().toLowerCase());
+			}
+		};
+		assertFalse(lowerCase.hasExactCodes());
+		assertFalse(new TokeniserQGramExtended(2) {
+		}.hasExactCodes());
+	}
 }